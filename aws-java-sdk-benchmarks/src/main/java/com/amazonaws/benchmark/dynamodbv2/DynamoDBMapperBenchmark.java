@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark.dynamodbv2;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBDocument;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DynamoDBMapper} object conversion on the save and load paths. The mapper is
+ * backed by an in-memory {@link AbstractAmazonDynamoDB} stub so that results only reflect
+ * model reflection, type conversion and request construction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamoDBMapperBenchmark {
+
+    private DynamoDBMapper mapper;
+    private Order order;
+    private Order key;
+
+    @Setup
+    public void setup() {
+        order = new Order();
+        order.setCustomerId("customer-0123456789");
+        order.setOrderId(42);
+        order.setStatus("SHIPPED");
+        order.setTotal(199.99);
+        order.setQuantity(3L);
+        order.setGift(Boolean.TRUE);
+        order.setCreated(new Date(1477000000000L));
+        order.setTags(new HashSet<String>(Arrays.asList("priority", "fragile", "international")));
+        order.setLineItems(Arrays.asList(10, 20, 30, 40));
+        Address address = new Address();
+        address.setStreet("410 Terry Ave N");
+        address.setCity("Seattle");
+        address.setPostalCode("98109");
+        order.setShippingAddress(address);
+
+        mapper = new DynamoDBMapper(new StubDynamoDB());
+        // Seed the stub with the converted form of the order so that load has an item to return
+        mapper.save(order, new DynamoDBMapperConfig(SaveBehavior.CLOBBER));
+        key = new Order();
+        key.setCustomerId(order.getCustomerId());
+        key.setOrderId(order.getOrderId());
+    }
+
+    @Benchmark
+    public Order save() {
+        mapper.save(order);
+        return order;
+    }
+
+    @Benchmark
+    public Order load() {
+        return mapper.load(key);
+    }
+
+    /**
+     * Accepts every write and serves the most recently put item for every read.
+     */
+    private static final class StubDynamoDB extends AbstractAmazonDynamoDB {
+        private Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+
+        @Override
+        public GetItemResult getItem(GetItemRequest request) {
+            return new GetItemResult().withItem(item);
+        }
+
+        @Override
+        public PutItemResult putItem(PutItemRequest request) {
+            item = request.getItem();
+            return new PutItemResult();
+        }
+
+        @Override
+        public UpdateItemResult updateItem(UpdateItemRequest request) {
+            return new UpdateItemResult();
+        }
+    }
+
+    @DynamoDBTable(tableName = "benchmark-orders")
+    public static class Order {
+        private String customerId;
+        private Integer orderId;
+        private String status;
+        private Double total;
+        private Long quantity;
+        private Boolean gift;
+        private Date created;
+        private Set<String> tags;
+        private List<Integer> lineItems;
+        private Address shippingAddress;
+
+        @DynamoDBHashKey
+        public String getCustomerId() { return customerId; }
+        public void setCustomerId(String customerId) { this.customerId = customerId; }
+
+        @DynamoDBRangeKey
+        public Integer getOrderId() { return orderId; }
+        public void setOrderId(Integer orderId) { this.orderId = orderId; }
+
+        @DynamoDBAttribute(attributeName = "orderStatus")
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+
+        public Double getTotal() { return total; }
+        public void setTotal(Double total) { this.total = total; }
+
+        public Long getQuantity() { return quantity; }
+        public void setQuantity(Long quantity) { this.quantity = quantity; }
+
+        public Boolean getGift() { return gift; }
+        public void setGift(Boolean gift) { this.gift = gift; }
+
+        public Date getCreated() { return created; }
+        public void setCreated(Date created) { this.created = created; }
+
+        public Set<String> getTags() { return tags; }
+        public void setTags(Set<String> tags) { this.tags = tags; }
+
+        public List<Integer> getLineItems() { return lineItems; }
+        public void setLineItems(List<Integer> lineItems) { this.lineItems = lineItems; }
+
+        public Address getShippingAddress() { return shippingAddress; }
+        public void setShippingAddress(Address shippingAddress) { this.shippingAddress = shippingAddress; }
+    }
+
+    @DynamoDBDocument
+    public static class Address {
+        private String street;
+        private String city;
+        private String postalCode;
+
+        public String getStreet() { return street; }
+        public void setStreet(String street) { this.street = street; }
+
+        public String getCity() { return city; }
+        public void setCity(String city) { this.city = city; }
+
+        public String getPostalCode() { return postalCode; }
+        public void setPostalCode(String postalCode) { this.postalCode = postalCode; }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark.http;
+
+import com.amazonaws.http.timers.HashedWheelTimeoutScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost the request timeout and client execution timeout features add to every
+ * request: scheduling a timer task and canceling it once the request completes. Compares the shared
+ * {@link HashedWheelTimeoutScheduler} against the per-client ScheduledThreadPoolExecutor it
+ * replaced. Run with increasing thread counts (e.g. {@code -t 1 -t 8 -t 32}) to compare
+ * contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeoutSchedulerBenchmark {
+
+    private static final int TIMEOUT_MILLIS = 5 * 1000;
+
+    private static final Runnable NO_OP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final HashedWheelTimeoutScheduler scheduler = HashedWheelTimeoutScheduler.getInstance();
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup
+    public void setup() {
+        // Same configuration as the thread pool the timers used before
+        executor = new ScheduledThreadPoolExecutor(5);
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setKeepAliveTime(5, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean hashedWheelScheduleAndCancel() {
+        return scheduler.schedule(NO_OP, TIMEOUT_MILLIS).cancel();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean threadPoolScheduleAndCancel() {
+        return executor.schedule(NO_OP, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).cancel(false);
+    }
+}
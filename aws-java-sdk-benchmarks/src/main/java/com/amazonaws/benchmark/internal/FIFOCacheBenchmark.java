@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark.internal;
+
+import com.amazonaws.internal.FIFOCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Measures read throughput of the {@link FIFOCache} backing the AWS4Signer signing key cache,
+ * against a read/write-locked bounded LinkedHashMap equivalent to its previous implementation.
+ * Run with increasing thread counts (e.g. {@code -t 1 -t 8 -t 32}) to compare read scalability.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FIFOCacheBenchmark {
+
+    private static final int CACHE_SIZE = 300;
+    private static final int KEY_COUNT = 16;
+
+    private final String[] keys = new String[KEY_COUNT];
+    private FIFOCache<byte[]> cache;
+    private LockingFIFOCache<byte[]> lockingCache;
+
+    @Setup
+    public void setup() {
+        cache = new FIFOCache<byte[]>(CACHE_SIZE);
+        lockingCache = new LockingFIFOCache<byte[]>(CACHE_SIZE);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "secret-key-" + i + "-us-east-1-dynamodb";
+            cache.add(keys[i], new byte[32]);
+            lockingCache.add(keys[i], new byte[32]);
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public byte[] fifoCacheGet() {
+        return cache.get(keys[(int) (Thread.currentThread().getId() % KEY_COUNT)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public byte[] lockingCacheGet() {
+        return lockingCache.get(keys[(int) (Thread.currentThread().getId() % KEY_COUNT)]);
+    }
+
+    /**
+     * Baseline: a bounded LinkedHashMap guarded by a ReentrantReadWriteLock.
+     */
+    private static final class LockingFIFOCache<T> {
+        private final Map<String, T> map;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        LockingFIFOCache(final int maxSize) {
+            this.map = new LinkedHashMap<String, T>() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        T add(String key, T value) {
+            lock.writeLock().lock();
+            try {
+                return map.put(key, value);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        T get(String key) {
+            lock.readLock().lock();
+            try {
+                return map.get(key);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark.protocol;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.END_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.HttpResponseHandler;
+import com.amazonaws.protocol.json.JsonClientMetadata;
+import com.amazonaws.protocol.json.JsonOperationMetadata;
+import com.amazonaws.protocol.json.SdkJsonProtocolFactory;
+import com.amazonaws.services.kinesis.model.GetRecordsResult;
+import com.amazonaws.services.kinesis.model.Record;
+import com.amazonaws.services.kinesis.model.transform.GetRecordsResultJsonUnmarshaller;
+import com.amazonaws.transform.JsonUnmarshallerContext;
+import com.amazonaws.transform.ListUnmarshaller;
+import com.amazonaws.transform.Unmarshaller;
+import com.amazonaws.util.StringUtils;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON unmarshallers generated by the previous templates, which test every member
+ * against every token with {@code testExpression}, with those generated by the current templates,
+ * which dispatch once per field on its name. The checked-in Kinesis unmarshallers are the output
+ * of the previous templates; the nested unmarshallers below are the output of the current ones for
+ * the same shapes. Both run against the same runtime, so the scalar unmarshallers and the context
+ * are shared.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUnmarshallerDispatchBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int recordCount;
+
+    private byte[] getRecordsResponse;
+
+    private HttpResponseHandler<AmazonWebServiceResponse<GetRecordsResult>> testExpressionHandler;
+    private HttpResponseHandler<AmazonWebServiceResponse<GetRecordsResult>> fieldNameHandler;
+
+    @Setup
+    public void setup() {
+        getRecordsResponse = getRecordsResponse(recordCount);
+        SdkJsonProtocolFactory protocolFactory = new SdkJsonProtocolFactory(new JsonClientMetadata()
+                .withProtocolVersion("1.1")
+                .withSupportsCbor(false)
+                .withSupportsIon(false));
+        JsonOperationMetadata operationMetadata = new JsonOperationMetadata()
+                .withPayloadJson(true)
+                .withHasStreamingSuccessResponse(false);
+        testExpressionHandler = protocolFactory.createResponseHandler(operationMetadata,
+                new GetRecordsResultJsonUnmarshaller());
+        fieldNameHandler = protocolFactory.createResponseHandler(operationMetadata,
+                new FieldNameGetRecordsResultJsonUnmarshaller());
+    }
+
+    @Benchmark
+    public GetRecordsResult testExpressionDispatch() throws Exception {
+        return testExpressionHandler.handle(response(getRecordsResponse)).getResult();
+    }
+
+    @Benchmark
+    public GetRecordsResult fieldNameDispatch() throws Exception {
+        return fieldNameHandler.handle(response(getRecordsResponse)).getResult();
+    }
+
+    private static HttpResponse response(byte[] content) {
+        HttpResponse response = new HttpResponse(new DefaultRequest<Void>("benchmark"), null);
+        response.setStatusCode(200);
+        response.addHeader("x-amzn-RequestId", "b6633655-283d-45b4-aee4-4e84e0ae6afa");
+        response.setContent(new ByteArrayInputStream(content));
+        return response;
+    }
+
+    private static byte[] getRecordsResponse(int recordCount) {
+        // 192 bytes, base 64 encoded
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 64; i++) {
+            data.append("QUJD");
+        }
+        StringBuilder json = new StringBuilder("{\"Records\":[");
+        for (int i = 0; i < recordCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"SequenceNumber\":\"4954585248957108563279851467463458937660598210719")
+                .append(10000 + i).append("\",")
+                .append("\"ApproximateArrivalTimestamp\":1.477062461E9,")
+                .append("\"Data\":\"").append(data).append("\",")
+                .append("\"PartitionKey\":\"partition-").append(i % 16).append("\"}");
+        }
+        json.append("],\"NextShardIterator\":\"AAAAAAAAAAHsW8zCWf9164uy8Epue6WS3w6wmj4a4USt+CNvMd6uXQ+HL5vAJMznqqC0DLKsIjuoiTi1BpT6nW0LN2M2D56zM5H8anHm30Gbri9ua+qaGgj+3XTyvbhpERfrezgLHbPB/rIcVpykJbaSj5tmcXYRmFnqZBEyHwtZYFmh6hvWVFkIwLuMZLMrpWhG5r5hzkE=\",")
+            .append("\"MillisBehindLatest\":0}");
+        return json.toString().getBytes(StringUtils.UTF8);
+    }
+
+    /**
+     * GetRecordsResult JSON Unmarshaller, as generated by the current templates.
+     */
+    private static class FieldNameGetRecordsResultJsonUnmarshaller implements Unmarshaller<GetRecordsResult, JsonUnmarshallerContext> {
+
+        public GetRecordsResult unmarshall(JsonUnmarshallerContext context) throws Exception {
+            GetRecordsResult getRecordsResult = new GetRecordsResult();
+
+            int originalDepth = context.getCurrentDepth();
+            String currentParentElement = context.getCurrentParentElement();
+            int targetDepth = originalDepth + 1;
+
+            JsonToken token = context.getCurrentToken();
+            if (token == null)
+                token = context.nextToken();
+            if (token == VALUE_NULL)
+                return null;
+
+            while (true) {
+                if (token == null)
+                    break;
+
+                if (token == FIELD_NAME && context.getCurrentDepth() == targetDepth) {
+                    String fieldName = context.getCurrentFieldName();
+                    if ("Records".equals(fieldName)) {
+                        context.nextToken();
+                        getRecordsResult.setRecords(new ListUnmarshaller<Record>(FieldNameRecordJsonUnmarshaller.INSTANCE).unmarshall(context));
+                    } else if ("NextShardIterator".equals(fieldName)) {
+                        context.nextToken();
+                        getRecordsResult.setNextShardIterator(context.getUnmarshaller(String.class).unmarshall(context));
+                    } else if ("MillisBehindLatest".equals(fieldName)) {
+                        context.nextToken();
+                        getRecordsResult.setMillisBehindLatest(context.getUnmarshaller(Long.class).unmarshall(context));
+                    }
+                } else if (token == END_ARRAY || token == END_OBJECT) {
+                    if (context.getLastParsedParentElement() == null || context.getLastParsedParentElement().equals(currentParentElement)) {
+                        if (context.getCurrentDepth() <= originalDepth)
+                            break;
+                    }
+                }
+                token = context.nextToken();
+            }
+
+            return getRecordsResult;
+        }
+    }
+
+    /**
+     * Record JSON Unmarshaller, as generated by the current templates.
+     */
+    private static class FieldNameRecordJsonUnmarshaller implements Unmarshaller<Record, JsonUnmarshallerContext> {
+
+        static final FieldNameRecordJsonUnmarshaller INSTANCE = new FieldNameRecordJsonUnmarshaller();
+
+        public Record unmarshall(JsonUnmarshallerContext context) throws Exception {
+            Record record = new Record();
+
+            int originalDepth = context.getCurrentDepth();
+            String currentParentElement = context.getCurrentParentElement();
+            int targetDepth = originalDepth + 1;
+
+            JsonToken token = context.getCurrentToken();
+            if (token == null)
+                token = context.nextToken();
+            if (token == VALUE_NULL)
+                return null;
+
+            while (true) {
+                if (token == null)
+                    break;
+
+                if (token == FIELD_NAME && context.getCurrentDepth() == targetDepth) {
+                    String fieldName = context.getCurrentFieldName();
+                    if ("SequenceNumber".equals(fieldName)) {
+                        context.nextToken();
+                        record.setSequenceNumber(context.getUnmarshaller(String.class).unmarshall(context));
+                    } else if ("ApproximateArrivalTimestamp".equals(fieldName)) {
+                        context.nextToken();
+                        record.setApproximateArrivalTimestamp(context.getUnmarshaller(java.util.Date.class).unmarshall(context));
+                    } else if ("Data".equals(fieldName)) {
+                        context.nextToken();
+                        record.setData(context.getUnmarshaller(java.nio.ByteBuffer.class).unmarshall(context));
+                    } else if ("PartitionKey".equals(fieldName)) {
+                        context.nextToken();
+                        record.setPartitionKey(context.getUnmarshaller(String.class).unmarshall(context));
+                    }
+                } else if (token == END_ARRAY || token == END_OBJECT) {
+                    if (context.getLastParsedParentElement() == null || context.getLastParsedParentElement().equals(currentParentElement)) {
+                        if (context.getCurrentDepth() <= originalDepth)
+                            break;
+                    }
+                }
+                token = context.nextToken();
+            }
+
+            return record;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark.protocol;
+
+import com.amazonaws.Request;
+import com.amazonaws.protocol.json.JsonClientMetadata;
+import com.amazonaws.protocol.json.SdkJsonProtocolFactory;
+import com.amazonaws.services.kinesis.model.PutRecordRequest;
+import com.amazonaws.services.kinesis.model.transform.PutRecordRequestMarshaller;
+import com.amazonaws.services.route53.model.ChangeAction;
+import com.amazonaws.services.route53.model.ChangeBatch;
+import com.amazonaws.services.route53.model.Change;
+import com.amazonaws.services.route53.model.ChangeResourceRecordSetsRequest;
+import com.amazonaws.services.route53.model.RRType;
+import com.amazonaws.services.route53.model.ResourceRecord;
+import com.amazonaws.services.route53.model.ResourceRecordSet;
+import com.amazonaws.services.route53.model.transform.ChangeResourceRecordSetsRequestMarshaller;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.transform.SendMessageRequestMarshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures request marshalling for each wire protocol supported by the SDK: JSON, CBOR and Ion
+ * (Kinesis PutRecord through {@link SdkJsonProtocolFactory}), Query (SQS SendMessage) and
+ * REST-XML (Route 53 ChangeResourceRecordSets).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarshallingBenchmark {
+
+    private PutRecordRequestMarshaller jsonMarshaller;
+    private PutRecordRequestMarshaller cborMarshaller;
+    private PutRecordRequestMarshaller ionMarshaller;
+    private PutRecordRequest putRecordRequest;
+
+    private final SendMessageRequestMarshaller queryMarshaller = new SendMessageRequestMarshaller();
+    private SendMessageRequest sendMessageRequest;
+
+    private final ChangeResourceRecordSetsRequestMarshaller restXmlMarshaller =
+            new ChangeResourceRecordSetsRequestMarshaller();
+    private ChangeResourceRecordSetsRequest changeResourceRecordSetsRequest;
+
+    @Setup
+    public void setup() {
+        jsonMarshaller = new PutRecordRequestMarshaller(protocolFactory(false, false));
+        cborMarshaller = new PutRecordRequestMarshaller(protocolFactory(true, false));
+        ionMarshaller = new PutRecordRequestMarshaller(protocolFactory(false, true));
+        putRecordRequest = new PutRecordRequest()
+                .withStreamName("benchmark-stream")
+                .withPartitionKey("partition-0001")
+                .withData(ByteBuffer.wrap(new byte[512]));
+
+        sendMessageRequest = new SendMessageRequest(
+                "https://sqs.us-east-1.amazonaws.com/123456789012/benchmark-queue",
+                "{\"orderId\":\"0123456789\",\"items\":[\"a\",\"b\",\"c\"]}")
+                .withDelaySeconds(5);
+        sendMessageRequest.addMessageAttributesEntry("source", new MessageAttributeValue()
+                .withDataType("String").withStringValue("benchmark"));
+        sendMessageRequest.addMessageAttributesEntry("attempt", new MessageAttributeValue()
+                .withDataType("Number").withStringValue("1"));
+
+        changeResourceRecordSetsRequest = new ChangeResourceRecordSetsRequest()
+                .withHostedZoneId("Z1D633PJN98FT9")
+                .withChangeBatch(new ChangeBatch().withComment("benchmark").withChanges(
+                        new Change(ChangeAction.UPSERT,
+                                new ResourceRecordSet("www.example.com.", RRType.A)
+                                        .withTTL(300L)
+                                        .withResourceRecords(new ResourceRecord("192.0.2.1"),
+                                                             new ResourceRecord("192.0.2.2"))),
+                        new Change(ChangeAction.DELETE,
+                                new ResourceRecordSet("old.example.com.", RRType.CNAME)
+                                        .withTTL(60L)
+                                        .withResourceRecords(new ResourceRecord("www.example.com.")))));
+    }
+
+    private static SdkJsonProtocolFactory protocolFactory(boolean supportsCbor, boolean supportsIon) {
+        return new SdkJsonProtocolFactory(new JsonClientMetadata()
+                .withProtocolVersion("1.1")
+                .withSupportsCbor(supportsCbor)
+                .withSupportsIon(supportsIon));
+    }
+
+    @Benchmark
+    public Request<PutRecordRequest> json() {
+        return jsonMarshaller.marshall(putRecordRequest);
+    }
+
+    @Benchmark
+    public Request<PutRecordRequest> cbor() {
+        return cborMarshaller.marshall(putRecordRequest);
+    }
+
+    @Benchmark
+    public Request<PutRecordRequest> ion() {
+        return ionMarshaller.marshall(putRecordRequest);
+    }
+
+    @Benchmark
+    public Request<SendMessageRequest> query() {
+        return queryMarshaller.marshall(sendMessageRequest);
+    }
+
+    @Benchmark
+    public Request<ChangeResourceRecordSetsRequest> restXml() {
+        return restXmlMarshaller.marshall(changeResourceRecordSetsRequest);
+    }
+}
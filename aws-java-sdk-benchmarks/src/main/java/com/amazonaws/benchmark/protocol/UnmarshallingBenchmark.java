@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark.protocol;
+
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.HttpResponseHandler;
+import com.amazonaws.http.StaxResponseHandler;
+import com.amazonaws.protocol.json.JsonClientMetadata;
+import com.amazonaws.protocol.json.JsonOperationMetadata;
+import com.amazonaws.protocol.json.SdkJsonProtocolFactory;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.transform.GetItemResultJsonUnmarshaller;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.transform.ReceiveMessageResultStaxUnmarshaller;
+import com.amazonaws.util.StringUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures response unmarshalling through the JSON ({@code JsonUnmarshallerContextImpl}, DynamoDB
+ * GetItem) and XML ({@code StaxUnmarshallerContext}, SQS ReceiveMessage) response handlers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnmarshallingBenchmark {
+
+    private static final byte[] GET_ITEM_RESPONSE = ("{\"Item\":{"
+            + "\"id\":{\"S\":\"0123456789\"},"
+            + "\"name\":{\"S\":\"benchmark item\"},"
+            + "\"count\":{\"N\":\"42\"},"
+            + "\"price\":{\"N\":\"19.99\"},"
+            + "\"active\":{\"BOOL\":true},"
+            + "\"tags\":{\"SS\":[\"a\",\"b\",\"c\"]},"
+            + "\"attributes\":{\"M\":{\"color\":{\"S\":\"red\"},\"size\":{\"N\":\"10\"}}},"
+            + "\"history\":{\"L\":[{\"N\":\"1\"},{\"N\":\"2\"},{\"N\":\"3\"}]}"
+            + "},\"ConsumedCapacity\":{\"TableName\":\"benchmark\",\"CapacityUnits\":0.5}}")
+            .getBytes(StringUtils.UTF8);
+
+    private static final byte[] RECEIVE_MESSAGE_RESPONSE = receiveMessageResponse(10);
+
+    private HttpResponseHandler<AmazonWebServiceResponse<GetItemResult>> jsonResponseHandler;
+    private StaxResponseHandler<ReceiveMessageResult> staxResponseHandler;
+
+    @Setup
+    public void setup() {
+        SdkJsonProtocolFactory protocolFactory = new SdkJsonProtocolFactory(new JsonClientMetadata()
+                .withProtocolVersion("1.0")
+                .withSupportsCbor(false)
+                .withSupportsIon(false));
+        jsonResponseHandler = protocolFactory.createResponseHandler(
+                new JsonOperationMetadata().withPayloadJson(true).withHasStreamingSuccessResponse(false),
+                new GetItemResultJsonUnmarshaller());
+        staxResponseHandler = new StaxResponseHandler<ReceiveMessageResult>(
+                new ReceiveMessageResultStaxUnmarshaller());
+    }
+
+    @Benchmark
+    public GetItemResult json() throws Exception {
+        return jsonResponseHandler.handle(response(GET_ITEM_RESPONSE)).getResult();
+    }
+
+    @Benchmark
+    public ReceiveMessageResult xml() throws Exception {
+        return staxResponseHandler.handle(response(RECEIVE_MESSAGE_RESPONSE)).getResult();
+    }
+
+    private static HttpResponse response(byte[] content) {
+        HttpResponse response = new HttpResponse(new DefaultRequest<Void>("benchmark"), null);
+        response.setStatusCode(200);
+        response.addHeader("x-amzn-RequestId", "b6633655-283d-45b4-aee4-4e84e0ae6afa");
+        response.setContent(new ByteArrayInputStream(content));
+        return response;
+    }
+
+    private static byte[] receiveMessageResponse(int messageCount) {
+        StringBuilder xml = new StringBuilder("<ReceiveMessageResponse><ReceiveMessageResult>");
+        for (int i = 0; i < messageCount; i++) {
+            xml.append("<Message>")
+               .append("<MessageId>5fea7756-0ea4-451a-a703-a558b933e27").append(i).append("</MessageId>")
+               .append("<ReceiptHandle>MbZj6wDWli+JvwwJaBV+3dcjk2YW2vA3+STFFljTM8tJJg6HRG6PYSasuWXPJB+Cw")
+               .append(i).append("</ReceiptHandle>")
+               .append("<MD5OfBody>fafb00f5732ab283681e124bf8747ed1</MD5OfBody>")
+               .append("<Body>{\"orderId\":\"").append(i).append("\",\"items\":[\"a\",\"b\"]}</Body>")
+               .append("<Attribute><Name>SenderId</Name><Value>195004372649</Value></Attribute>")
+               .append("<Attribute><Name>SentTimestamp</Name><Value>1238099229000</Value></Attribute>")
+               .append("</Message>");
+        }
+        xml.append("</ReceiveMessageResult><ResponseMetadata>")
+           .append("<RequestId>b6633655-283d-45b4-aee4-4e84e0ae6afa</RequestId>")
+           .append("</ResponseMetadata></ReceiveMessageResponse>");
+        return xml.toString().getBytes(StringUtils.UTF8);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark.s3;
+
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.transform.XmlResponsesSaxParser;
+import com.amazonaws.services.s3.model.transform.XmlResponsesSaxParser.ListBucketHandler;
+import com.amazonaws.util.StringUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of a 1,000 key ListBucket response by {@link XmlResponsesSaxParser}, which
+ * escapes carriage returns as the document is parsed, against the previous approach of reading the
+ * whole document into memory and escaping it before parsing. Run with {@code -prof gc} to compare
+ * allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListObjectsParsingBenchmark {
+
+    private static final byte[] LIST_BUCKET_RESPONSE = listBucketResponse(1000);
+
+    private BufferingParser parser;
+
+    @Setup
+    public void setup() {
+        parser = new BufferingParser();
+    }
+
+    @Benchmark
+    public ObjectListing streamingParse() throws IOException {
+        return parser.parseListBucketObjectsResponse(new ByteArrayInputStream(LIST_BUCKET_RESPONSE), false)
+                .getObjectListing();
+    }
+
+    @Benchmark
+    public ObjectListing bufferingParse() throws IOException {
+        return parser.parseBuffered(new ByteArrayInputStream(LIST_BUCKET_RESPONSE));
+    }
+
+    /**
+     * Baseline: sanitizes the whole document into a byte array before parsing it.
+     */
+    private static final class BufferingParser extends XmlResponsesSaxParser {
+        ObjectListing parseBuffered(ByteArrayInputStream inputStream) throws IOException {
+            ListBucketHandler handler = new ListBucketHandler(false);
+            parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+            return handler.getObjectListing();
+        }
+    }
+
+    private static byte[] listBucketResponse(int keys) {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                + "<Name>benchmark-bucket</Name><Prefix></Prefix><Marker></Marker>"
+                + "<MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>");
+        for (int i = 0; i < keys; i++) {
+            sb.append("<Contents><Key>photos/2016/10/img-").append(i).append(".jpg</Key>")
+                    .append("<LastModified>2016-10-18T12:00:00.000Z</LastModified>")
+                    .append("<ETag>&quot;0123456789abcdef0123456789abcdef&quot;</ETag>")
+                    .append("<Size>").append(1024 * i).append("</Size>")
+                    .append("<Owner><ID>0123456789abcdef</ID><DisplayName>owner</DisplayName></Owner>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        sb.append("</ListBucketResult>");
+        return sb.toString().getBytes(StringUtils.UTF8);
+    }
+}
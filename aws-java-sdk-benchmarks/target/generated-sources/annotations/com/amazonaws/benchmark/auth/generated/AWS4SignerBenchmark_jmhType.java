@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.auth.generated;
+public class AWS4SignerBenchmark_jmhType extends AWS4SignerBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.auth.generated;
+public class S3SignerBenchmark_jmhType extends S3SignerBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.dynamodbv2.generated;
+public class DynamoDBMapperBenchmark_jmhType extends DynamoDBMapperBenchmark_jmhType_B3 {
+}
+
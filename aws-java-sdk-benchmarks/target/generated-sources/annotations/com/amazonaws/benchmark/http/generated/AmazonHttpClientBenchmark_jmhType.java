@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.http.generated;
+public class AmazonHttpClientBenchmark_jmhType extends AmazonHttpClientBenchmark_jmhType_B3 {
+}
+
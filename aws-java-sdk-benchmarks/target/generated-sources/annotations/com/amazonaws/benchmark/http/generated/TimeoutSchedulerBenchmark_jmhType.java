@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.http.generated;
+public class TimeoutSchedulerBenchmark_jmhType extends TimeoutSchedulerBenchmark_jmhType_B3 {
+}
+
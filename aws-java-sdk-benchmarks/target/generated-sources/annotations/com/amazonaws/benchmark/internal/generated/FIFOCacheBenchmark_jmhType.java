@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.internal.generated;
+public class FIFOCacheBenchmark_jmhType extends FIFOCacheBenchmark_jmhType_B3 {
+}
+
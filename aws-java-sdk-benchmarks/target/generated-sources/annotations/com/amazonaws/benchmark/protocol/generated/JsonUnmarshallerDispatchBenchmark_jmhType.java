@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.protocol.generated;
+public class JsonUnmarshallerDispatchBenchmark_jmhType extends JsonUnmarshallerDispatchBenchmark_jmhType_B3 {
+}
+
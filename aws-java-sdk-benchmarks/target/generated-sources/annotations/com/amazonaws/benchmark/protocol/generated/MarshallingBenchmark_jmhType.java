@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.protocol.generated;
+public class MarshallingBenchmark_jmhType extends MarshallingBenchmark_jmhType_B3 {
+}
+
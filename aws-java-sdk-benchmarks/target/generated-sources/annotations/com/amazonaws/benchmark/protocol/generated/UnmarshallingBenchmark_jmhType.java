@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.protocol.generated;
+public class UnmarshallingBenchmark_jmhType extends UnmarshallingBenchmark_jmhType_B3 {
+}
+
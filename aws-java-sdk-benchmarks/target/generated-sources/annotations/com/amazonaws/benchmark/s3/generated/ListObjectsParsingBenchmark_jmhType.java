@@ -0,0 +1,4 @@
+package com.amazonaws.benchmark.s3.generated;
+public class ListObjectsParsingBenchmark_jmhType extends ListObjectsParsingBenchmark_jmhType_B3 {
+}
+
@@ -66,9 +66,9 @@ public class CloudWatchMetricConfig {
      */
     static final int MAX_METRICS_DATUM_SIZE = 20;
     /**
-     * Default metrics queue size. If the queue size
-     * exceeds this value, then excessive metrics will be dropped to prevent
-     * resource exhaustion.
+     * Default metrics queue size, which bounds the number of unique metrics
+     * (by name and dimensions) summarized in memory. Metrics in excess of this
+     * number will be dropped to prevent resource exhaustion.
      */
     public static final int DEFAULT_METRICS_QSIZE = 1000;
     /**
@@ -184,7 +184,8 @@ public class CloudWatchMetricConfig {
 
     /**
      * Configure the metric queue size, overriding the default. Must be at
-     * least 1.
+     * least 1. This is the maximum number of unique metrics, by name and
+     * dimensions, summarized in memory between uploads.
      *
      * @see #DEFAULT_METRICS_QSIZE
      */
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics.internal.cloudwatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.amazonaws.annotation.ThreadSafe;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.cloudwatch.model.StatisticSet;
+
+/**
+ * Aggregates the values recorded for each unique metric, as identified by its
+ * name and dimensions, into the statistics uploaded to Amazon CloudWatch.
+ * <p>
+ * Each unique metric has an {@link Accumulator} of the sum, minimum, maximum
+ * and sample count of its values, created the first time the metric is
+ * recorded and reused afterwards. The accumulator is striped by thread, and
+ * each stripe is updated by compare-and-set, so that recording a value
+ * neither locks nor allocates. Every upload interval, {@link #snapshot()}
+ * swaps each stripe for a fresh one and drains the old one, and retires the
+ * accumulators of the metrics not recorded since the previous interval.
+ * <p>
+ * The number of unique metrics recorded at a time is bounded by
+ * {@link CloudWatchMetricConfig#getMetricQueueSize()}; values of any further
+ * metric are dropped until other metrics are retired.
+ */
+@ThreadSafe
+class MetricAggregator {
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final int maxMetrics;
+    private final ConcurrentMap<MetricKey, Accumulator> accumulators =
+            new ConcurrentHashMap<MetricKey, Accumulator>();
+    private final AtomicInteger metricCount = new AtomicInteger();
+
+    /** The key used to look up the accumulator of a metric datum by each thread. */
+    private final ThreadLocal<MetricKey> lookupKey = new ThreadLocal<MetricKey>() {
+        @Override
+        protected MetricKey initialValue() {
+            return new MetricKey();
+        }
+    };
+
+    MetricAggregator(int maxMetrics) {
+        this.maxMetrics = maxMetrics;
+    }
+
+    /**
+     * Records the value of the given metric datum, returning true if
+     * successful or false if the maximum number of unique metrics has been
+     * reached.
+     */
+    boolean record(MetricDatum datum) {
+        Double value = datum.getValue();
+        if (value == null) {
+            return true;
+        }
+        MetricKey key = lookupKey.get().reset(datum.getMetricName(), datum.getDimensions());
+        Accumulator accumulator = accumulators.get(key);
+        while (accumulator == null || !accumulator.record(value)) {
+            // Not created yet, or retired since looked up
+            accumulator = getAccumulator(datum.getMetricName(), datum.getUnit(),
+                    datum.getDimensions());
+            if (accumulator == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the accumulator of the given metric, creating it if necessary;
+     * or null if the maximum number of unique metrics has been reached.
+     * Callers recording the same metric repeatedly may hold on to the
+     * accumulator until it is retired, which its
+     * {@link Accumulator#record(double)} reports by returning false.
+     */
+    Accumulator getAccumulator(String metricName, String unit, List<Dimension> dimensions) {
+        MetricKey key = new MetricKey().reset(metricName, dimensions);
+        Accumulator accumulator = accumulators.get(key);
+        if (accumulator != null) {
+            return accumulator;
+        }
+        // The bound may be exceeded by the metrics created concurrently
+        if (metricCount.get() >= maxMetrics) {
+            return null;
+        }
+        key = key.immutableCopy();
+        accumulator = new Accumulator(key, unit);
+        Accumulator existing = accumulators.putIfAbsent(key, accumulator);
+        if (existing != null) {
+            return existing;
+        }
+        metricCount.incrementAndGet();
+        return accumulator;
+    }
+
+    Accumulator getAccumulator(String metricName, StandardUnit unit, Dimension... dimensions) {
+        return getAccumulator(metricName, unit.toString(), Arrays.asList(dimensions));
+    }
+
+    /**
+     * Returns a metric datum with the statistics of each unique metric
+     * recorded since the previous snapshot, and resets them. The accumulators
+     * of the metrics not recorded since then are retired, so that they no
+     * longer count towards the maximum number of unique metrics.
+     */
+    List<MetricDatum> snapshot() {
+        List<MetricDatum> data = new ArrayList<MetricDatum>();
+        for (Accumulator accumulator : accumulators.values()) {
+            MetricDatum datum = accumulator.snapshot();
+            if (datum == null) {
+                accumulators.remove(accumulator.key, accumulator);
+                metricCount.decrementAndGet();
+                // Catches the values recorded before the retirement was seen
+                datum = accumulator.retire();
+            }
+            if (datum != null) {
+                data.add(datum);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns the power of two number of stripes used for the given number of
+     * processors.
+     */
+    static int stripes(int processors) {
+        int stripes = 1;
+        while (stripes < processors && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * The statistics of the values recorded for a unique metric.
+     */
+    static final class Accumulator {
+        private final MetricKey key;
+        private final String unit;
+        private final AtomicReferenceArray<Cell> cells = new AtomicReferenceArray<Cell>(STRIPES);
+        private volatile boolean retired;
+
+        private Accumulator(MetricKey key, String unit) {
+            this.key = key;
+            this.unit = unit;
+            for (int i = 0; i < cells.length(); i++) {
+                cells.set(i, new Cell());
+            }
+        }
+
+        /**
+         * Records the given value into the stripe of the calling thread,
+         * returning true if successful or false if this accumulator has been
+         * retired, in which case the value must be recorded into the current
+         * accumulator of the metric instead.
+         */
+        boolean record(double value) {
+            int stripe = (int) Thread.currentThread().getId() & (cells.length() - 1);
+            while (true) {
+                Cell cell = cells.get(stripe);
+                if (!cell.enter()) {
+                    // Swapped out by a snapshot since read; record into its replacement
+                    continue;
+                }
+                try {
+                    // Checked once entered, so that retire() waits for the value if it missed it
+                    if (retired) {
+                        return false;
+                    }
+                    cell.add(value);
+                    return true;
+                } finally {
+                    cell.exit();
+                }
+            }
+        }
+
+        /**
+         * Returns a metric datum with the statistics of the values recorded
+         * since the previous snapshot, or null if there is none, and resets
+         * them.
+         */
+        MetricDatum snapshot() {
+            long count = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < cells.length(); i++) {
+                Cell cell = cells.getAndSet(i, new Cell());
+                cell.close();
+                if (cell.count > 0) {
+                    count += cell.count;
+                    sum += Double.longBitsToDouble(cell.sum);
+                    min = Math.min(min, Double.longBitsToDouble(cell.min));
+                    max = Math.max(max, Double.longBitsToDouble(cell.max));
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            return new MetricDatum()
+                .withMetricName(key.metricName)
+                .withDimensions(key.dimensions)
+                .withUnit(unit)
+                .withStatisticValues(new StatisticSet()
+                    .withMaximum(max)
+                    .withMinimum(min)
+                    .withSampleCount((double) count)
+                    .withSum(sum));
+        }
+
+        /**
+         * Stops this accumulator from recording any more values, and returns
+         * a metric datum with the statistics of those recorded since the
+         * previous snapshot, or null if there is none.
+         */
+        MetricDatum retire() {
+            retired = true;
+            // Values recorded by threads that had entered before seeing the flag are drained once they exit
+            return snapshot();
+        }
+    }
+
+    /**
+     * A stripe of an accumulator, with the sum, minimum and maximum kept as
+     * the raw bits of doubles so they can be updated by compare-and-set.
+     * <p>
+     * A cell is drained by swapping it out of its accumulator for a fresh
+     * one, then closing it: threads that read it before the swap either
+     * entered it before it was closed, and are waited for, or fail to enter
+     * it and move on to its replacement. The wait is therefore bounded by the
+     * updates already in progress, however busy the metric, and no value is
+     * lost or counted twice.
+     */
+    private static final class Cell {
+        private static final int CLOSED = Integer.MIN_VALUE;
+
+        private static final AtomicIntegerFieldUpdater<Cell> WRITERS =
+                AtomicIntegerFieldUpdater.newUpdater(Cell.class, "writers");
+        private static final AtomicLongFieldUpdater<Cell> COUNT =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "count");
+        private static final AtomicLongFieldUpdater<Cell> SUM =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "sum");
+        private static final AtomicLongFieldUpdater<Cell> MIN =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "min");
+        private static final AtomicLongFieldUpdater<Cell> MAX =
+                AtomicLongFieldUpdater.newUpdater(Cell.class, "max");
+
+        /** The number of threads updating this cell, offset by CLOSED once closed. */
+        private volatile int writers;
+        private volatile long count;
+        private volatile long sum = Double.doubleToRawLongBits(0.0);
+        private volatile long min = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        private volatile long max = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+
+        /**
+         * Returns true if the calling thread may update this cell, until it
+         * calls {@link #exit()}; or false if this cell has been closed.
+         */
+        boolean enter() {
+            if (WRITERS.incrementAndGet(this) < 0) {
+                WRITERS.decrementAndGet(this);
+                return false;
+            }
+            return true;
+        }
+
+        void exit() {
+            WRITERS.decrementAndGet(this);
+        }
+
+        /**
+         * Adds the given value to the statistics of this cell; must be
+         * bracketed by {@link #enter()} and {@link #exit()}.
+         */
+        void add(double value) {
+            long bits;
+            do {
+                bits = sum;
+            } while (!SUM.compareAndSet(this, bits,
+                    Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + value)));
+            while (value < Double.longBitsToDouble(bits = min)) {
+                if (MIN.compareAndSet(this, bits, Double.doubleToRawLongBits(value))) {
+                    break;
+                }
+            }
+            while (value > Double.longBitsToDouble(bits = max)) {
+                if (MAX.compareAndSet(this, bits, Double.doubleToRawLongBits(value))) {
+                    break;
+                }
+            }
+            COUNT.incrementAndGet(this);
+        }
+
+        /**
+         * Stops any further thread from entering this cell, and waits for
+         * those that had entered it to exit, so that its statistics are final.
+         * Must be called once the cell is no longer reachable from its
+         * accumulator.
+         */
+        void close() {
+            int entered = WRITERS.getAndAdd(this, CLOSED);
+            while (entered != 0 && (entered = writers - CLOSED) != 0) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Identifies a unique metric by its name and dimensions, regardless of
+     * the order of the dimensions. The key used for lookups is reset in place
+     * for each metric datum; the key stored is an immutable copy with the
+     * dimensions sorted.
+     */
+    private static final class MetricKey {
+        private String metricName;
+        private List<Dimension> dimensions;
+        private int hashCode;
+
+        MetricKey reset(String metricName, List<Dimension> dimensions) {
+            this.metricName = metricName;
+            this.dimensions = dimensions == null ? Collections.<Dimension>emptyList() : dimensions;
+            int hash = metricName == null ? 0 : metricName.hashCode();
+            for (int i = 0, n = this.dimensions.size(); i < n; i++) {
+                // order independent
+                hash += this.dimensions.get(i).hashCode();
+            }
+            this.hashCode = hash;
+            return this;
+        }
+
+        MetricKey immutableCopy() {
+            List<Dimension> sorted = new ArrayList<Dimension>(dimensions.size());
+            for (Dimension dimension : dimensions) {
+                sorted.add(new Dimension()
+                    .withName(dimension.getName())
+                    .withValue(dimension.getValue()));
+            }
+            Collections.sort(sorted, DimensionComparator.INSTANCE);
+            return new MetricKey().reset(metricName, Collections.unmodifiableList(sorted));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey that = (MetricKey) obj;
+            if (hashCode != that.hashCode
+                    || dimensions.size() != that.dimensions.size()
+                    || (metricName == null ? that.metricName != null : !metricName.equals(that.metricName))) {
+                return false;
+            }
+            // Metrics have a handful of dimensions at most
+            for (int i = 0, n = dimensions.size(); i < n; i++) {
+                if (!that.dimensions.contains(dimensions.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
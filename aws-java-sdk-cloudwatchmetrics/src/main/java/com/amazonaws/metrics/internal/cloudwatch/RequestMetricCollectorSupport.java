@@ -40,17 +40,27 @@ public class RequestMetricCollectorSupport extends RequestMetricCollector
 {
     protected final static Log log = LogFactory.getLog(RequestMetricCollectorSupport.class);
     private final BlockingQueue<MetricDatum> queue;
+    private final MetricAggregator aggregator;
     private final PredefinedMetricTransformer transformer = new PredefinedMetricTransformer();
 
+    /**
+     * Constructs a collector that adds each metric datum to the given queue.
+     */
     protected RequestMetricCollectorSupport(BlockingQueue<MetricDatum> queue) {
         this.queue = queue;
+        this.aggregator = null;
+    }
+
+    protected RequestMetricCollectorSupport(MetricAggregator aggregator) {
+        this.queue = null;
+        this.aggregator = aggregator;
     }
 
     /**
      * Collects the metrics at the end of a request/response cycle, transforms
      * the metric data points into a cloud watch metric datum representation,
-     * and then adds it to a memory queue so it will get summarized into the
-     * necessary statistics and uploaded to Amazon CloudWatch.
+     * and then summarizes it into the necessary statistics in memory to be
+     * uploaded to Amazon CloudWatch.
      */
     @Override
     public void collectMetrics(Request<?> request, Response<?> response) {
@@ -91,11 +101,12 @@ public class RequestMetricCollectorSupport extends RequestMetricCollector
     }
 
     /**
-     * Adds the given metric to the queue, returning true if successful or false
-     * if no space available.
+     * Adds the given metric to the queue, or summarizes it into the
+     * statistics to be uploaded, returning true if successful or false if no
+     * space available.
      */
     protected boolean addMetricsToQueue(MetricDatum metric) {
-        return queue.offer(metric); 
+        return queue != null ? queue.offer(metric) : aggregator.record(metric);
     }
     /** Returns the predefined metrics transformer. */
     protected PredefinedMetricTransformer getTransformer() { return transformer; }
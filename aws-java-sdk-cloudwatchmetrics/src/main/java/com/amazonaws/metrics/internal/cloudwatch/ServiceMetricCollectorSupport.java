@@ -16,6 +16,8 @@ package com.amazonaws.metrics.internal.cloudwatch;
 
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
@@ -30,6 +32,7 @@ import com.amazonaws.metrics.ServiceLatencyProvider;
 import com.amazonaws.metrics.ServiceMetricCollector;
 import com.amazonaws.metrics.ServiceMetricType;
 import com.amazonaws.metrics.ThroughputMetricType;
+import com.amazonaws.metrics.internal.cloudwatch.MetricAggregator.Accumulator;
 import com.amazonaws.metrics.internal.cloudwatch.spi.Dimensions;
 import com.amazonaws.services.cloudwatch.model.Dimension;
 import com.amazonaws.services.cloudwatch.model.MetricDatum;
@@ -47,9 +50,26 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
     static final double NANO_PER_SEC = TimeUnit.SECONDS.toNanos(1);
     protected final static Log log = LogFactory.getLog(ServiceMetricCollectorSupport.class);
     private final BlockingQueue<MetricDatum> queue;
+    private final MetricAggregator aggregator;
+    /**
+     * The accumulators of the service metrics collected so far, by metric
+     * type, so that collecting a service metric allocates nothing.
+     */
+    private final ConcurrentMap<ServiceMetricType, Accumulator> accumulators =
+        new ConcurrentHashMap<ServiceMetricType, Accumulator>();
 
+    /**
+     * Constructs a collector that adds each metric, as a datum, to the given
+     * queue.
+     */
     protected ServiceMetricCollectorSupport(BlockingQueue<MetricDatum> queue) {
         this.queue = queue;
+        this.aggregator = null;
+    }
+
+    protected ServiceMetricCollectorSupport(MetricAggregator aggregator) {
+        this.queue = null;
+        this.aggregator = aggregator;
     }
 
     @Override
@@ -95,27 +115,11 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
         double bytesPerSec = bytesPerSecond(byteCount, durationNano);
         if (metrics.contains(throughputType)) {
             // Throughput metric
-            final Dimension throughputDimension = new Dimension()
-                .withName(Dimensions.MetricType.name())
-                .withValue(throughputType.name());
-            final MetricDatum throughputDatum = new MetricDatum()
-                .withMetricName(throughputType.getServiceName())
-                .withDimensions(throughputDimension)
-                .withUnit(StandardUnit.BytesSecond)
-                .withValue(bytesPerSec);
-            safeAddMetricsToQueue(throughputDatum);
+            record(throughputType, StandardUnit.BytesSecond, bytesPerSec);
         }
         if (metrics.contains(byteCountType)) {
             // Byte count metric
-            final Dimension byteCountDimension = new Dimension()
-                .withName(Dimensions.MetricType.name())
-                .withValue(byteCountType.name());
-            final MetricDatum byteCountDatum = new MetricDatum()
-                .withMetricName(byteCountType.getServiceName())
-                .withDimensions(byteCountDimension)
-                .withUnit(StandardUnit.Bytes)
-                .withValue(byteCount);
-            safeAddMetricsToQueue(byteCountDatum);
+            record(byteCountType, StandardUnit.Bytes, byteCount);
         }
     }
 
@@ -124,15 +128,46 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
         final ServiceMetricType type = provider.getServiceMetricType();
         final Set<MetricType> metrics = AwsSdkMetrics.getPredefinedMetrics();
         if (metrics.contains(type)) {
-            final Dimension dim = new Dimension()
-                .withName(Dimensions.MetricType.name())
-                .withValue(type.name());
-            final MetricDatum datum = new MetricDatum()
+            record(type, StandardUnit.Milliseconds, provider.getDurationMilli());
+        }
+    }
+
+    /**
+     * Records the given value of the given service metric, with the metric
+     * type as its only dimension.
+     */
+    private void record(ServiceMetricType type, StandardUnit unit, double value) {
+        if (queue != null || isMetricDatumRequired()) {
+            safeAddMetricsToQueue(new MetricDatum()
                 .withMetricName(type.getServiceName())
-                .withDimensions(dim)
-                .withUnit(StandardUnit.Milliseconds)
-                .withValue(provider.getDurationMilli());
-            safeAddMetricsToQueue(datum);
+                .withDimensions(new Dimension()
+                    .withName(Dimensions.MetricType.name())
+                    .withValue(type.name()))
+                .withUnit(unit)
+                .withValue(value));
+            return;
+        }
+        try {
+            Accumulator accumulator = accumulators.get(type);
+            while (accumulator == null || !accumulator.record(value)) {
+                // Not looked up yet, or retired since
+                accumulator = aggregator.getAccumulator(type.getServiceName(), unit,
+                    new Dimension()
+                        .withName(Dimensions.MetricType.name())
+                        .withValue(type.name()));
+                if (accumulator == null) {
+                    accumulators.remove(type);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Failed to add to the metrics queue (due to no space available) for "
+                                + type.getServiceName());
+                    }
+                    return;
+                }
+                accumulators.put(type, accumulator);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to add to the metrics queue for metric: " + type.name(),
+                    ex);
         }
     }
 
@@ -149,11 +184,27 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
                     ex);
         }
     }
+
     /**
-     * Adds the given metric to the queue, returning true if successful or false
-     * if no space available.
+     * Adds the given metric to the queue, or summarizes it into the
+     * statistics to be uploaded, returning true if successful or false if no
+     * space available.
+     * <p>
+     * Unless constructed with a queue, this collector records service metrics
+     * straight into their statistics, without calling this method; subclasses
+     * overriding it must also override {@link #isMetricDatumRequired()} to
+     * return true.
      */
     protected boolean addMetricsToQueue(MetricDatum metric) {
-        return queue.offer(metric); 
+        return queue != null ? queue.offer(metric) : aggregator.record(metric);
+    }
+
+    /**
+     * Returns true if each service metric must be passed to
+     * {@link #addMetricsToQueue(MetricDatum)} as a metric datum, even when
+     * this collector summarizes the metrics itself; false by default.
+     */
+    protected boolean isMetricDatumRequired() {
+        return false;
     }
 }
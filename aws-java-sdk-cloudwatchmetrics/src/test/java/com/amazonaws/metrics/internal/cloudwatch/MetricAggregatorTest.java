@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics.internal.cloudwatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.amazonaws.metrics.internal.cloudwatch.MetricAggregator.Accumulator;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.cloudwatch.model.StatisticSet;
+
+public class MetricAggregatorTest {
+
+    private static final int THREADS = 8;
+    private static final int VALUES_PER_THREAD = 200000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void snapshot_SummarizesValuesOfEachMetric() {
+        MetricAggregator aggregator = new MetricAggregator(10);
+        aggregator.record(datum("Latency", 3.0));
+        aggregator.record(datum("Latency", 1.0));
+        aggregator.record(datum("Latency", 5.0));
+        aggregator.record(datum("Size", 7.0));
+
+        List<MetricDatum> data = aggregator.snapshot();
+
+        assertEquals(2, data.size());
+        StatisticSet latency = find(data, "Latency").getStatisticValues();
+        assertEquals(3.0, latency.getSampleCount(), 0);
+        assertEquals(9.0, latency.getSum(), 0);
+        assertEquals(1.0, latency.getMinimum(), 0);
+        assertEquals(5.0, latency.getMaximum(), 0);
+        assertEquals(1.0, find(data, "Size").getStatisticValues().getSampleCount(), 0);
+        assertTrue(aggregator.snapshot().isEmpty());
+    }
+
+    @Test
+    public void dimensionsInAnyOrder_AreTheSameMetric() {
+        MetricAggregator aggregator = new MetricAggregator(10);
+        aggregator.record(datum("Latency", 1.0, dimension("a", "1"), dimension("b", "2")));
+        aggregator.record(datum("Latency", 2.0, dimension("b", "2"), dimension("a", "1")));
+        aggregator.record(datum("Latency", 4.0, dimension("a", "1")));
+
+        List<MetricDatum> data = aggregator.snapshot();
+
+        assertEquals(2, data.size());
+        double counts = 0;
+        for (MetricDatum datum : data) {
+            counts += datum.getStatisticValues().getSampleCount();
+            if (datum.getDimensions().size() == 2) {
+                assertEquals(3.0, datum.getStatisticValues().getSum(), 0);
+            }
+        }
+        assertEquals(3.0, counts, 0);
+    }
+
+    @Test
+    public void valueWithoutStatistics_IsIgnored() {
+        MetricAggregator aggregator = new MetricAggregator(10);
+
+        assertTrue(aggregator.record(new MetricDatum().withMetricName("Latency")));
+        assertTrue(aggregator.snapshot().isEmpty());
+    }
+
+    @Test
+    public void maxMetricsReached_DropsNewMetricsUntilIdleOnesAreRetired() {
+        MetricAggregator aggregator = new MetricAggregator(1);
+        assertTrue(aggregator.record(datum("Latency", 1.0)));
+        assertFalse(aggregator.record(datum("Size", 1.0)));
+
+        // Recorded since the previous snapshot, so kept
+        assertEquals(1, aggregator.snapshot().size());
+        assertFalse(aggregator.record(datum("Size", 1.0)));
+
+        // Idle for an interval, so retired
+        assertTrue(aggregator.snapshot().isEmpty());
+        assertTrue(aggregator.record(datum("Size", 2.0)));
+        assertEquals(2.0, aggregator.snapshot().get(0).getStatisticValues().getSum(), 0);
+    }
+
+    @Test
+    public void retiredAccumulator_RefusesValues() {
+        MetricAggregator aggregator = new MetricAggregator(10);
+        Accumulator accumulator = aggregator.getAccumulator("Latency", StandardUnit.Milliseconds);
+        assertTrue(accumulator.record(1.0));
+        assertNotNull(aggregator.snapshot());
+
+        assertTrue(aggregator.snapshot().isEmpty());
+
+        assertFalse(accumulator.record(1.0));
+        Accumulator replacement = aggregator.getAccumulator("Latency", StandardUnit.Milliseconds);
+        assertTrue(replacement != accumulator);
+        assertTrue(replacement.record(2.0));
+        assertEquals(2.0, aggregator.snapshot().get(0).getStatisticValues().getSum(), 0);
+    }
+
+    @Test
+    public void retire_ReturnsValuesRecordedSinceTheLastSnapshot() {
+        MetricAggregator aggregator = new MetricAggregator(10);
+        Accumulator accumulator = aggregator.getAccumulator("Latency", StandardUnit.Milliseconds);
+        accumulator.record(3.0);
+
+        MetricDatum datum = accumulator.retire();
+
+        assertEquals(3.0, datum.getStatisticValues().getSum(), 0);
+        assertNull(accumulator.retire());
+    }
+
+    @Test(timeout = 60000)
+    public void concurrentRecordAndSnapshot_CountsEveryValueOnce() throws Exception {
+        final MetricAggregator aggregator = new MetricAggregator(10);
+        Snapshotter snapshotter = new Snapshotter(aggregator);
+        Future<?> snapshots = executor.submit(snapshotter);
+
+        runRecorders(aggregator, false);
+        snapshotter.stop();
+        snapshots.get();
+
+        snapshotter.add(aggregator.snapshot());
+        assertTotals(snapshotter);
+        assertTrue(snapshotter.snapshots > 1);
+    }
+
+    @Test(timeout = 60000)
+    public void concurrentRecordAndRetire_CountsEveryValueOnce() throws Exception {
+        final MetricAggregator aggregator = new MetricAggregator(10);
+        Snapshotter snapshotter = new Snapshotter(aggregator);
+        Future<?> snapshots = executor.submit(snapshotter);
+
+        // Recorders pause now and then, so that the snapshots retire the metric while it is being recorded
+        runRecorders(aggregator, true);
+        snapshotter.stop();
+        snapshots.get();
+
+        snapshotter.add(aggregator.snapshot());
+        assertTotals(snapshotter);
+    }
+
+    /**
+     * Records the values 1 to VALUES_PER_THREAD of the same metric from each
+     * of several threads at once.
+     */
+    private void runRecorders(final MetricAggregator aggregator, final boolean pause) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> recorders = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < THREADS; i++) {
+            recorders.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    start.await();
+                    boolean recorded = true;
+                    for (int value = 1; value <= VALUES_PER_THREAD; value++) {
+                        recorded &= aggregator.record(datum("Latency", value));
+                        if (pause && value % 20000 == 0) {
+                            Thread.sleep(5);
+                        }
+                    }
+                    return recorded;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> recorder : recorders) {
+            assertTrue(recorder.get());
+        }
+    }
+
+    private static void assertTotals(Snapshotter snapshotter) {
+        long n = VALUES_PER_THREAD;
+        assertEquals(THREADS * n, snapshotter.count, 0);
+        // Whole numbers well below 2^53, so summed exactly in any order
+        assertEquals(THREADS * n * (n + 1) / 2, snapshotter.sum, 0);
+        assertEquals(1.0, snapshotter.min, 0);
+        assertEquals(n, snapshotter.max, 0);
+    }
+
+    /**
+     * Takes snapshots until stopped, adding up their statistics.
+     */
+    private static class Snapshotter implements Runnable {
+        private final MetricAggregator aggregator;
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private int snapshots;
+        private double count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        Snapshotter(MetricAggregator aggregator) {
+            this.aggregator = aggregator;
+        }
+
+        @Override
+        public void run() {
+            while (!stopped.get()) {
+                add(aggregator.snapshot());
+                snapshots++;
+            }
+        }
+
+        void stop() {
+            stopped.set(true);
+        }
+
+        void add(List<MetricDatum> data) {
+            for (MetricDatum datum : data) {
+                StatisticSet statistics = datum.getStatisticValues();
+                // Each snapshot must be consistent with itself
+                assertTrue(statistics.getMinimum() <= statistics.getMaximum());
+                assertTrue(statistics.getSum() >= statistics.getSampleCount() * statistics.getMinimum());
+                assertTrue(statistics.getSum() <= statistics.getSampleCount() * statistics.getMaximum());
+                count += statistics.getSampleCount();
+                sum += statistics.getSum();
+                min = Math.min(min, statistics.getMinimum());
+                max = Math.max(max, statistics.getMaximum());
+            }
+        }
+    }
+
+    private static MetricDatum find(List<MetricDatum> data, String metricName) {
+        for (MetricDatum datum : data) {
+            if (datum.getMetricName().equals(metricName)) {
+                return datum;
+            }
+        }
+        throw new AssertionError("No datum for " + metricName);
+    }
+
+    private static MetricDatum datum(String metricName, double value, Dimension... dimensions) {
+        return new MetricDatum()
+            .withMetricName(metricName)
+            .withUnit(StandardUnit.Milliseconds)
+            .withDimensions(dimensions)
+            .withValue(value);
+    }
+
+    private static Dimension dimension(String name, String value) {
+        return new Dimension().withName(name).withValue(value);
+    }
+}
@@ -21,9 +21,11 @@ import com.amazonaws.codegen.internal.TypeUtils;
 import com.amazonaws.codegen.internal.Utils;
 import com.amazonaws.codegen.model.config.BasicCodeGenConfig;
 import com.amazonaws.codegen.model.config.customization.CustomizationConfig;
+import com.amazonaws.codegen.model.intermediate.AcceptorModel;
 import com.amazonaws.codegen.model.intermediate.IntermediateModel;
 import com.amazonaws.codegen.model.intermediate.MemberModel;
 import com.amazonaws.codegen.model.intermediate.OperationModel;
+import com.amazonaws.codegen.model.intermediate.ReturnTypeModel;
 import com.amazonaws.codegen.model.intermediate.ServiceExamples;
 import com.amazonaws.codegen.model.intermediate.ShapeModel;
 import com.amazonaws.codegen.model.intermediate.WaiterDefinitionModel;
@@ -136,6 +138,7 @@ public class IntermediateModelBuilder {
 
         linkMembersToShapes(trimmedModel);
         linkOperationsToInputOutputShapes(trimmedModel);
+        linkAcceptorsToOutputShapes(trimmedModel);
 
         return trimmedModel;
     }
@@ -179,6 +182,17 @@ public class IntermediateModelBuilder {
         }
     }
 
+    private void linkAcceptorsToOutputShapes(IntermediateModel model) {
+        for (WaiterDefinitionModel waiter : model.getWaiters().values()) {
+            ReturnTypeModel returnType = waiter.getOperationModel().getReturnType();
+            ShapeModel outputShape = returnType == null ? null
+                    : model.getShapes().get(returnType.getReturnType());
+            for (AcceptorModel acceptor : waiter.getAcceptors()) {
+                acceptor.setOutputShape(outputShape, model.getShapes());
+            }
+        }
+    }
+
     public CustomizationConfig getCustomConfig() {
         return customConfig;
     }
@@ -0,0 +1,480 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.codegen;
+
+import com.amazonaws.codegen.model.intermediate.MemberModel;
+import com.amazonaws.codegen.model.intermediate.ShapeModel;
+import com.amazonaws.jmespath.Comparator;
+import com.amazonaws.jmespath.JmesPathAndExpression;
+import com.amazonaws.jmespath.JmesPathExpression;
+import com.amazonaws.jmespath.JmesPathField;
+import com.amazonaws.jmespath.JmesPathFilter;
+import com.amazonaws.jmespath.JmesPathFlatten;
+import com.amazonaws.jmespath.JmesPathFunction;
+import com.amazonaws.jmespath.JmesPathIdentity;
+import com.amazonaws.jmespath.JmesPathLengthFunction;
+import com.amazonaws.jmespath.JmesPathLiteral;
+import com.amazonaws.jmespath.JmesPathMultiSelectList;
+import com.amazonaws.jmespath.JmesPathNotExpression;
+import com.amazonaws.jmespath.JmesPathProjection;
+import com.amazonaws.jmespath.JmesPathSubExpression;
+import com.amazonaws.jmespath.JmesPathValueProjection;
+import com.amazonaws.jmespath.JmesPathVisitor;
+import com.amazonaws.jmespath.OpEquals;
+import com.amazonaws.jmespath.OpGreaterThan;
+import com.amazonaws.jmespath.OpGreaterThanOrEqualTo;
+import com.amazonaws.jmespath.OpLessThan;
+import com.amazonaws.jmespath.OpLessThanOrEqualTo;
+import com.amazonaws.jmespath.OpNotEquals;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the body of a waiter acceptor's {@code matches} method that
+ * evaluates a JmesPath expression directly against the typed result of the
+ * operation, by calling the getters of the model classes, instead of
+ * converting the result to a Jackson tree and interpreting the expression
+ * on every poll.
+ * <p>
+ * The generated code follows the semantics of the JmesPathEvaluationVisitor
+ * on the tree of the result: a field of a missing structure is null, a
+ * projection or flatten of a missing list is null, and null elements are
+ * kept in projections. Literals are emitted as Java constants. Expressions
+ * that cannot be typed against the result shapes, such as filters or
+ * multi-select lists, are not supported, and the acceptor is then generated
+ * with the interpreted expression instead.
+ */
+public class JmesPathTypedCodeGenVisitor
+        implements JmesPathVisitor<JmesPathTypedCodeGenVisitor.Value, JmesPathTypedCodeGenVisitor.Value> {
+
+    private static final String INDENT = "    ";
+
+    private static final List<String> COMPARABLE_TYPES = Arrays.asList("String", "Boolean", "Integer");
+
+    private static final List<String> NUMERIC_TYPES = Arrays.asList("Integer", "Long", "Short", "Double", "Float");
+
+    private final Map<String, ShapeModel> shapes;
+
+    private StringBuilder code = new StringBuilder();
+
+    private String indent;
+
+    private int variableCount;
+
+    private JmesPathTypedCodeGenVisitor(Map<String, ShapeModel> shapes, String indent) {
+        this.shapes = shapes;
+        this.indent = indent;
+    }
+
+    /**
+     * Generates the body of the matches method of an acceptor.
+     *
+     * @param ast         JmesPath expression of the acceptor
+     * @param matcher     matcher of the acceptor; path, pathAll or pathAny
+     * @param expected    expected result of the acceptor
+     * @param outputShape shape of the result passed to the matches method,
+     *                    as the variable named "result"
+     * @param shapes      all the shapes of the model, by shape name
+     * @param indent      indentation of the method body
+     * @return the statements of the method body; or null if the expression
+     * cannot be evaluated against the typed result
+     */
+    public static String generateMatcherBody(JmesPathExpression ast, String matcher, JsonNode expected,
+                                             ShapeModel outputShape, Map<String, ShapeModel> shapes,
+                                             String indent) {
+        if (ast == null || outputShape == null || shapes == null) {
+            return null;
+        }
+        try {
+            JmesPathTypedCodeGenVisitor visitor = new JmesPathTypedCodeGenVisitor(shapes, indent);
+            Value result = ast.accept(visitor, new Value("result", Type.structure(outputShape)));
+            visitor.match(matcher, expected, result);
+            return visitor.code.toString();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Generates the statements returning whether the result of the
+     * expression matches the expected result.
+     */
+    private void match(String matcher, JsonNode expected, Value result) {
+        if ("path".equals(matcher)) {
+            if (result.type.isList()) {
+                throw new UnsupportedOperationException("Expected a scalar");
+            }
+            line("return " + equalsExpected(expected, result.type, result.expression) + ";");
+        } else if ("pathAll".equals(matcher) || "pathAny".equals(matcher)) {
+            if (!result.type.isList()) {
+                throw new UnsupportedOperationException("Expected an array");
+            }
+            boolean all = "pathAll".equals(matcher);
+            Type elementType = result.type.elementType;
+            String element = newVariable();
+            line("if (" + result.expression + " == null) {");
+            line(INDENT + "return false;");
+            line("}");
+            line("for (" + elementType.javaType + " " + element + " : " + result.expression + ") {");
+            line(INDENT + "if (" + (all ? "!" : "") + equalsExpected(expected, elementType, element) + ") {");
+            line(INDENT + INDENT + "return " + !all + ";");
+            line(INDENT + "}");
+            line("}");
+            line("return " + all + ";");
+        } else {
+            throw new UnsupportedOperationException("Unsupported matcher " + matcher);
+        }
+    }
+
+    /**
+     * Returns the expression comparing the given value with the expected
+     * result, as a JSON node comparison would.
+     */
+    private static String equalsExpected(JsonNode expected, Type type, String value) {
+        if (expected.isTextual() && "String".equals(type.javaType)) {
+            return "\"" + StringEscapeUtils.escapeJava(expected.asText()) + "\".equals(" + value + ")";
+        }
+        if (expected.isBoolean() && "Boolean".equals(type.javaType)) {
+            return "Boolean." + (expected.booleanValue() ? "TRUE" : "FALSE") + ".equals(" + value + ")";
+        }
+        if (expected.isInt() && "Integer".equals(type.javaType)) {
+            return "Integer.valueOf(" + expected.intValue() + ").equals(" + value + ")";
+        }
+        throw new UnsupportedOperationException("Cannot compare " + type.javaType + " with " + expected);
+    }
+
+    @Override
+    public Value visit(final JmesPathSubExpression subExpression, final Value input) {
+        Value result = input;
+        for (JmesPathExpression expression : subExpression.getExpressions()) {
+            result = expression.accept(this, result);
+        }
+        return result;
+    }
+
+    @Override
+    public Value visit(final JmesPathField fieldNode, final Value input) {
+        if (input.type.shape == null || input.type.shape.getMembers() == null) {
+            throw new UnsupportedOperationException("Field of a non structure");
+        }
+        MemberModel member = input.type.shape.getMemberByC2jName(fieldNode.getValue());
+        if (member == null) {
+            throw new UnsupportedOperationException("Unknown member " + fieldNode.getValue());
+        }
+        Type type = typeOf(member);
+        String getter = input.expression + ".get" + member.getName() + "()";
+        if (input.expression.equals("result")) {
+            // The result itself is never null
+            return declare(type, getter);
+        }
+        return declare(type, input.expression + " == null ? null : " + getter);
+    }
+
+    @Override
+    public Value visit(final JmesPathProjection jmesPathProjection, final Value input) {
+        Value list = jmesPathProjection.getLhsExpr().accept(this, input);
+        if (!list.type.isList()) {
+            throw new UnsupportedOperationException("Projection of a non list");
+        }
+        String result = newVariable();
+        String element = newVariable();
+
+        // The projection is generated first, as its type is that of the list
+        StringBuilder enclosingCode = code;
+        String enclosingIndent = indent;
+        code = new StringBuilder();
+        indent = enclosingIndent + INDENT + INDENT;
+        Value projected = jmesPathProjection.getProjectionExpr()
+                .accept(this, new Value(element, list.type.elementType));
+        line(result + ".add(" + projected.expression + ");");
+        String projection = code.toString();
+        code = enclosingCode;
+        indent = enclosingIndent;
+
+        Type type = Type.list(projected.type);
+        line(type.javaType + " " + result + " = null;");
+        line("if (" + list.expression + " != null) {");
+        line(INDENT + result + " = new java.util.ArrayList<" + projected.type.javaType + ">();");
+        line(INDENT + "for (" + list.type.elementType.javaType + " " + element + " : " + list.expression + ") {");
+        code.append(projection);
+        line(INDENT + "}");
+        line("}");
+        return new Value(result, type);
+    }
+
+    @Override
+    public Value visit(final JmesPathFlatten flatten, final Value input) {
+        Value list = flatten.getFlattenExpr().accept(this, input);
+        if (!list.type.isList()) {
+            throw new UnsupportedOperationException("Flatten of a non list");
+        }
+        Type elementType = list.type.elementType;
+        if (!elementType.isList()) {
+            // Nothing to flatten
+            return list;
+        }
+        Type type = Type.list(elementType.elementType);
+        String result = newVariable();
+        String element = newVariable();
+        line(type.javaType + " " + result + " = null;");
+        line("if (" + list.expression + " != null) {");
+        line(INDENT + result + " = new java.util.ArrayList<" + type.elementType.javaType + ">();");
+        line(INDENT + "for (" + elementType.javaType + " " + element + " : " + list.expression + ") {");
+        line(INDENT + INDENT + "if (" + element + " == null) {");
+        line(INDENT + INDENT + INDENT + result + ".add(null);");
+        line(INDENT + INDENT + "} else {");
+        line(INDENT + INDENT + INDENT + result + ".addAll(" + element + ");");
+        line(INDENT + INDENT + "}");
+        line(INDENT + "}");
+        line("}");
+        return new Value(result, type);
+    }
+
+    @Override
+    public Value visit(final JmesPathIdentity jmesPathIdentity, final Value input) {
+        return input;
+    }
+
+    @Override
+    public Value visit(final JmesPathValueProjection valueProjection, final Value input) {
+        throw new UnsupportedOperationException("Value projection");
+    }
+
+    @Override
+    public Value visit(final JmesPathFunction function, final Value input) {
+        if (!(function instanceof JmesPathLengthFunction) || function.getExpressions().size() != 1) {
+            throw new UnsupportedOperationException("Function " + function.getClass().getSimpleName());
+        }
+        Value arg = function.getExpressions().get(0).accept(this, input);
+        String size;
+        if (arg.type.isList()) {
+            size = ".size()";
+        } else if ("String".equals(arg.type.javaType)) {
+            size = ".length()";
+        } else {
+            throw new UnsupportedOperationException("Length of " + arg.type.javaType);
+        }
+        line("if (" + arg.expression + " == null) {");
+        line(INDENT + "throw new InvalidTypeException(\"Type mismatch. Expecting a string or an array or an object.\");");
+        line("}");
+        return declare(Type.scalar("Integer"), arg.expression + size);
+    }
+
+    @Override
+    public Value visit(final JmesPathLiteral literal, final Value input) {
+        JsonNode value = literal.getValue();
+        if (value.isTextual()) {
+            return Value.constant("\"" + StringEscapeUtils.escapeJava(value.asText()) + "\"", Type.scalar("String"));
+        }
+        if (value.isBoolean()) {
+            return Value.constant("Boolean." + (value.booleanValue() ? "TRUE" : "FALSE"), Type.scalar("Boolean"));
+        }
+        if (value.isInt()) {
+            return Value.constant(Integer.toString(value.intValue()), Type.scalar("Integer"));
+        }
+        throw new UnsupportedOperationException("Literal " + value);
+    }
+
+    @Override
+    public Value visit(final JmesPathFilter filter, final Value input) {
+        throw new UnsupportedOperationException("Filter");
+    }
+
+    /**
+     * Generates a comparison. As in a JSON node comparison, numbers compare
+     * by value, with null as zero, and equality requires the same type.
+     */
+    @Override
+    public Value visit(final Comparator op, final Value input) {
+        Value lhs = op.getLhsExpr().accept(this, input);
+        Value rhs = op.getRhsExpr().accept(this, input);
+        if (op instanceof OpEquals || op instanceof OpNotEquals) {
+            if (!lhs.type.javaType.equals(rhs.type.javaType) || !COMPARABLE_TYPES.contains(lhs.type.javaType)) {
+                throw new UnsupportedOperationException("Cannot compare " + lhs.type.javaType + " with "
+                        + rhs.type.javaType);
+            }
+            String equals;
+            if (lhs.constant && rhs.constant) {
+                throw new UnsupportedOperationException("Comparison of constants");
+            } else if (lhs.constant || rhs.constant) {
+                Value constant = lhs.constant ? lhs : rhs;
+                Value variable = lhs.constant ? rhs : lhs;
+                equals = boxed(constant) + ".equals(" + variable.expression + ")";
+            } else {
+                equals = "(" + lhs.expression + " == null ? " + rhs.expression + " == null : "
+                        + lhs.expression + ".equals(" + rhs.expression + "))";
+            }
+            return declare(Type.scalar("Boolean"), (op instanceof OpNotEquals ? "!" : "") + equals);
+        }
+        String operator;
+        if (op instanceof OpGreaterThan) {
+            operator = " > ";
+        } else if (op instanceof OpGreaterThanOrEqualTo) {
+            operator = " >= ";
+        } else if (op instanceof OpLessThan) {
+            operator = " < ";
+        } else if (op instanceof OpLessThanOrEqualTo) {
+            operator = " <= ";
+        } else {
+            throw new UnsupportedOperationException("Comparator " + op.getClass().getSimpleName());
+        }
+        return declare(Type.scalar("Boolean"), numeric(lhs) + operator + numeric(rhs));
+    }
+
+    private static String numeric(Value value) {
+        if (!NUMERIC_TYPES.contains(value.type.javaType)) {
+            throw new UnsupportedOperationException("Cannot compare " + value.type.javaType);
+        }
+        if (value.constant) {
+            return value.expression;
+        }
+        return "(" + value.expression + " == null ? 0 : " + value.expression + ".doubleValue())";
+    }
+
+    /**
+     * Returns the expression of the given constant as an object.
+     */
+    private static String boxed(Value constant) {
+        if ("Integer".equals(constant.type.javaType)) {
+            return "Integer.valueOf(" + constant.expression + ")";
+        }
+        return constant.expression;
+    }
+
+    @Override
+    public Value visit(final JmesPathNotExpression notExpression, final Value input) {
+        throw new UnsupportedOperationException("Not expression");
+    }
+
+    @Override
+    public Value visit(final JmesPathAndExpression andExpression, final Value input) {
+        throw new UnsupportedOperationException("And expression");
+    }
+
+    @Override
+    public Value visit(final JmesPathMultiSelectList multiSelectList, final Value input) {
+        throw new UnsupportedOperationException("Multi-select list");
+    }
+
+    /**
+     * Returns the type of the value returned by the getter of the given member.
+     */
+    private Type typeOf(MemberModel member) {
+        if (member.isMap()) {
+            throw new UnsupportedOperationException("Map member " + member.getC2jName());
+        }
+        if (member.isList()) {
+            MemberModel elementMember = member.getListModel().getListMemberModel();
+            if (elementMember == null) {
+                throw new UnsupportedOperationException("Untyped list member " + member.getC2jName());
+            }
+            Type type = Type.list(typeOf(elementMember));
+            return member.getGetterModel() == null ? type
+                    : new Type(member.getGetterModel().getReturnType(), null, type.elementType);
+        }
+        String variableType = member.getVariable().getVariableType();
+        if (member.isSimple()) {
+            return Type.scalar(variableType);
+        }
+        ShapeModel shape = shapes.get(variableType);
+        if (shape == null) {
+            throw new UnsupportedOperationException("Unknown shape " + variableType);
+        }
+        return Type.structure(shape);
+    }
+
+    private Value declare(Type type, String expression) {
+        String variable = newVariable();
+        line(type.javaType + " " + variable + " = " + expression + ";");
+        return new Value(variable, type);
+    }
+
+    private String newVariable() {
+        return "v" + (++variableCount);
+    }
+
+    private void line(String line) {
+        code.append(indent).append(line).append('\n');
+    }
+
+    /**
+     * A Java expression, typically a local variable, holding the value of a
+     * JmesPath expression.
+     */
+    public static final class Value {
+
+        private final String expression;
+
+        private final Type type;
+
+        /** Whether the expression is a literal of the JmesPath expression. */
+        private final boolean constant;
+
+        private Value(String expression, Type type) {
+            this(expression, type, false);
+        }
+
+        private Value(String expression, Type type, boolean constant) {
+            this.expression = expression;
+            this.type = type;
+            this.constant = constant;
+        }
+
+        static Value constant(String expression, Type type) {
+            return new Value(expression, type, true);
+        }
+    }
+
+    /**
+     * The static type of a value: a structure of the model, a list, or a
+     * simple type.
+     */
+    private static final class Type {
+
+        private final String javaType;
+
+        private final ShapeModel shape;
+
+        private final Type elementType;
+
+        private Type(String javaType, ShapeModel shape, Type elementType) {
+            this.javaType = javaType;
+            this.shape = shape;
+            this.elementType = elementType;
+        }
+
+        static Type structure(ShapeModel shape) {
+            return new Type(shape.getShapeName(), shape, null);
+        }
+
+        static Type list(Type elementType) {
+            return new Type("java.util.List<" + elementType.javaType + ">", null, elementType);
+        }
+
+        static Type scalar(String javaType) {
+            return new Type(javaType, null, null);
+        }
+
+        boolean isList() {
+            return elementType != null;
+        }
+    }
+}
@@ -16,13 +16,16 @@
 package com.amazonaws.codegen.model.intermediate;
 
 import com.amazonaws.codegen.JmesPathCodeGenVisitor;
+import com.amazonaws.codegen.JmesPathTypedCodeGenVisitor;
 import com.amazonaws.codegen.internal.Utils;
 import com.amazonaws.jmespath.JmesPathExpression;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 public class AcceptorModel {
 
@@ -36,6 +39,12 @@ public class AcceptorModel {
 
     private JmesPathExpression ast;
 
+    @JsonIgnore
+    private ShapeModel outputShape;
+
+    @JsonIgnore
+    private Map<String, ShapeModel> shapes;
+
     public void setAst(JmesPathExpression ast) {
         this.ast = ast;
     }
@@ -47,6 +56,27 @@ public class AcceptorModel {
         return null;
     }
 
+    /**
+     * Links this acceptor to the shape of the result it matches, and to the
+     * shapes the members of the result may refer to.
+     */
+    public void setOutputShape(ShapeModel outputShape, Map<String, ShapeModel> shapes) {
+        this.outputShape = outputShape;
+        this.shapes = shapes;
+    }
+
+    /**
+     * Returns the body of a matches method evaluating the JmesPath
+     * expression directly against the typed result; or null if the
+     * expression has to be evaluated against the result converted to a
+     * Jackson tree.
+     */
+    @JsonIgnore
+    public String getTypedMatcherBody() {
+        return JmesPathTypedCodeGenVisitor.generateMatcherBody(ast, matcher, expected, outputShape, shapes,
+                "                ");
+    }
+
     public void setState(String state) {
         this.state = state;
     }
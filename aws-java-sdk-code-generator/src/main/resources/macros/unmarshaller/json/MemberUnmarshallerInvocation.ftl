@@ -1,5 +1,7 @@
+<#-- Expects fieldName to hold the name of the field the context is positioned at. Field names
+are canonicalized by the parser, so the comparison usually succeeds on the identity check. -->
 <#macro content shapeVarName memberModel >
-if (context.testExpression("${memberModel.http.unmarshallLocationName}", targetDepth)) {
+if ("${memberModel.http.unmarshallLocationName}".equals(fieldName)) {
     context.nextToken();
     ${shapeVarName}.set${memberModel.name}(<@MemberUnmarshallerDeclarationMacro.content memberModel />.unmarshall(context));
 }
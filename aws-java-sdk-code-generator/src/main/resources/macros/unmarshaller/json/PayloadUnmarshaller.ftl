@@ -18,9 +18,12 @@
         Headers or the status code will be serialized in the payload response (wrapped in an
         artificial container object) -->
         <#else>
-            if (token == FIELD_NAME || token == START_OBJECT) {
+        <#-- Only the field names of this object are matched, so the members are dispatched on
+        the name alone, once per field rather than once per token -->
+            if (token == FIELD_NAME && context.getCurrentDepth() == targetDepth) {
+                String fieldName = context.getCurrentFieldName();
                 <#list shape.unboundMembers as payloadMember>
-                    <@MemberUnmarshallerInvocationMacro.content shape.variable.variableName payloadMember />
+                    <#if payloadMember_index != 0>else </#if><@MemberUnmarshallerInvocationMacro.content shape.variable.variableName payloadMember />
                 </#list>
             } else if (token == END_ARRAY || token == END_OBJECT) {
                 if (context.getLastParsedParentElement() == null || context.getLastParsedParentElement().equals(currentParentElement)) {
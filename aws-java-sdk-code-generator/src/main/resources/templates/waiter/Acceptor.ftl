@@ -36,6 +36,21 @@ class ${waiter.waiterName} {
             public boolean matches(AmazonServiceException e){
                 return ${acceptor.expectedAsString}.equals(e.getErrorCode());
             }
+        <#elseif acceptor.typedMatcherBody??>
+            /**
+              * Takes the result and determines whether the state of the
+              * resource matches the expected state. To determine the current
+              * state of the resource, JmesPath expression is evaluated
+              * against the result and compared with the expected result.
+              * @param result
+              *          Corresponding result of the operation
+              * @return True if current state of the resource matches the
+              *         expected state, False otherwise
+              */
+            @Override
+            public boolean matches(${outputType} result) {
+                // ${acceptor.argument?j_string}
+${acceptor.typedMatcherBody}            }
         <#else>
             private static final JsonNode expectedResult;
 
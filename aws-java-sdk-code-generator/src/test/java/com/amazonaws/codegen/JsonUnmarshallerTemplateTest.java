@@ -0,0 +1,265 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.codegen.emitters.CodeEmitter;
+import com.amazonaws.codegen.emitters.GeneratorTaskExecutor;
+import com.amazonaws.codegen.emitters.GeneratorTaskParams;
+import com.amazonaws.codegen.emitters.tasks.AwsGeneratorTasks;
+import com.amazonaws.codegen.internal.Jackson;
+import com.amazonaws.codegen.model.config.BasicCodeGenConfig;
+import com.amazonaws.codegen.model.config.customization.CustomizationConfig;
+import com.amazonaws.codegen.model.config.templates.ChildTemplate;
+import com.amazonaws.codegen.model.config.templates.CodeGenTemplatesConfig;
+import com.amazonaws.codegen.model.config.templates.TopLevelTemplate;
+import com.amazonaws.codegen.model.intermediate.IntermediateModel;
+import com.amazonaws.codegen.model.intermediate.ServiceExamples;
+import com.amazonaws.codegen.model.service.ServiceModel;
+import com.amazonaws.codegen.model.service.Waiters;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.protocol.json.SdkStructuredPlainJsonFactory;
+import com.amazonaws.transform.JsonUnmarshallerContext;
+import com.amazonaws.transform.JsonUnmarshallerContextImpl;
+import com.amazonaws.transform.Unmarshaller;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates the JSON unmarshallers of a small service twice, once with the
+ * current templates, which dispatch on the field name at the structure's own
+ * depth, and once with the previous templates kept under
+ * {@code /jsonunmarshallers/legacy}, which test every member expression on
+ * every token. Both are compiled and must unmarshall the same documents into
+ * the same results.
+ */
+public class JsonUnmarshallerTemplateTest {
+
+    private static final String PACKAGE_NAME = "com.amazonaws.services.gadgets";
+
+    private static final String UNMARSHALLER_DIRECTORY = PACKAGE_NAME.replace('.', '/') + "/model/transform/";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** The responses each pair of unmarshallers is tested against. */
+    private static final String[] DOCUMENTS = {
+            "{}",
+            "null",
+            "{\"Name\": \"gadgets\", \"Count\": 3, \"Size\": 12345678901, \"Ratio\": 0.5, \"Enabled\": true,"
+                    + " \"Created\": 1476800000.5, \"Data\": \"aGVsbG8=\", \"Tags\": [\"a\", \"b\"],"
+                    + " \"NextToken\": \"next\"}",
+            "{\"NextToken\": null, \"Name\": null, \"Gadget\": null, \"Tags\": null, \"Count\": 1}",
+            // Nested structures, whose members share names with the enclosing ones
+            "{\"Gadget\": {\"Name\": \"inner\", \"gadgetId\": \"g-1\", \"Count\": 2,"
+                    + " \"Part\": {\"Name\": \"part\", \"Weight\": 1.5, \"Part\": {\"Name\": \"sub\", \"Enabled\": false}}},"
+                    + " \"Name\": \"outer\", \"Count\": 1}",
+            "{\"Name\": \"outer\", \"Gadget\": {\"Part\": {\"Part\": {\"Part\": {\"Weight\": 3}}, \"Name\": \"p\"},"
+                    + " \"Name\": \"inner\"}, \"Count\": 4}",
+            "{\"Gadget\": {}, \"Name\": \"empty gadget\"}",
+            // Unknown members whose values are objects or arrays
+            "{\"Extra\": {\"Name\": \"unknown\", \"Count\": 5}, \"Name\": \"known\", \"Count\": 6}",
+            "{\"Extra\": [{\"Name\": \"unknown\"}, [1, {\"Count\": 2}], []], \"Count\": 3, \"Name\": \"known\"}",
+            "{\"Extra\": {}, \"More\": [], \"Scalar\": 7, \"Count\": 1}",
+            "{\"Extra\": {\"a\": {\"b\": [{\"Gadget\": {\"Name\": \"unknown\"}}]}}, \"Gadget\": {\"Name\": \"known\"}}",
+            "{\"Gadget\": {\"Extra\": {\"Part\": {\"Name\": \"unknown\"}}, \"Name\": \"known\","
+                    + " \"More\": [[{\"Name\": \"unknown\"}]], \"Part\": {\"Extra\": [{}], \"Name\": \"part\"}}, \"Name\": \"top\"}",
+            "{\"Name\": {\"Name\": \"x\"}, \"Count\": 1}",
+            // Lists of structures
+            "{\"Gadgets\": [{\"Name\": \"a\", \"Parts\": [{\"Name\": \"p1\"}, {\"Name\": \"p2\", \"Weight\": 2}]},"
+                    + " {\"Name\": \"b\", \"Labels\": [\"l1\", \"l2\"]}], \"Name\": \"list\"}",
+            "{\"Gadgets\": [], \"Tags\": [], \"Name\": \"empty lists\"}",
+            "{\"Gadgets\": [{}, {\"Extra\": [[{}]], \"Name\": \"b\"}, {\"Parts\": [], \"Count\": 2}], \"Count\": 9}",
+            "{\"GadgetGroups\": [[{\"Name\": \"a\"}], [], [{\"Name\": \"b\"}, {\"Part\": {\"Name\": \"c\"}}]], \"Name\": \"groups\"}",
+            "{\"Gadgets\": [{\"Parts\": [{\"Part\": {\"Name\": \"deep\"}, \"Name\": \"p\"}], \"Name\": \"g\"}],"
+                    + " \"Gadget\": {\"Name\": \"single\"}}",
+            // Maps of structures, whose keys may be member names
+            "{\"GadgetsById\": {\"a\": {\"Name\": \"a\"}, \"Name\": {\"Count\": 1}, \"Count\": {}}, \"Name\": \"map\"}",
+            // Values that are member names
+            "{\"Name\": \"Count\", \"Tags\": [\"Name\", \"Count\"], \"Gadget\": {\"Name\": \"Part\"}}",
+    };
+
+    private static File currentDirectory;
+
+    private static File legacyDirectory;
+
+    private static ClassLoader currentClassLoader;
+
+    private static ClassLoader legacyClassLoader;
+
+    @BeforeClass
+    public static void generateAndCompile() throws Exception {
+        currentDirectory = Files.createTempDirectory("json-unmarshallers").toFile();
+        legacyDirectory = Files.createTempDirectory("legacy-json-unmarshallers").toFile();
+        currentClassLoader = generateAndCompile(new CustomizationConfig(), currentDirectory);
+        legacyClassLoader = generateAndCompile(legacyTemplates(), legacyDirectory);
+    }
+
+    @AfterClass
+    public static void deleteOutput() throws IOException {
+        delete(currentDirectory);
+        delete(legacyDirectory);
+    }
+
+    private static void delete(File directory) throws IOException {
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory.toPath())) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Returns the customization replacing the JSON payload unmarshaller
+     * macros with their previous versions.
+     */
+    private static CustomizationConfig legacyTemplates() {
+        CodeGenTemplatesConfig templates = new CodeGenTemplatesConfig();
+        templates.setModelUnmarshaller(new TopLevelTemplate(null, Arrays.asList(
+                new ChildTemplate("/jsonunmarshallers/legacy/MemberUnmarshallerInvocation.ftl",
+                        "MemberUnmarshallerInvocationMacro"),
+                new ChildTemplate("/jsonunmarshallers/legacy/PayloadUnmarshaller.ftl",
+                        "PayloadUnmarshallerMacro"))));
+        CustomizationConfig customizationConfig = new CustomizationConfig();
+        customizationConfig.setCustomCodeTemplates(templates);
+        return customizationConfig;
+    }
+
+    private static ClassLoader generateAndCompile(CustomizationConfig customizationConfig, File outputDirectory)
+            throws Exception {
+        ServiceModel serviceModel;
+        try (InputStream in = JsonUnmarshallerTemplateTest.class.getResourceAsStream("/jsonunmarshallers/service-2.json")) {
+            serviceModel = Jackson.load(ServiceModel.class, in);
+        }
+        IntermediateModel model = new IntermediateModelBuilder(customizationConfig,
+                new BasicCodeGenConfig("AmazonGadgets", null, null, null), serviceModel,
+                new ServiceExamples(null, null), new Waiters()).build();
+        try (CodeEmitter emitter = new CodeEmitter(
+                new AwsGeneratorTasks(GeneratorTaskParams.create(model, outputDirectory.getPath(),
+                        outputDirectory.getPath())),
+                new GeneratorTaskExecutor())) {
+            emitter.emit();
+        }
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-nowarn");
+        arguments.add("-classpath");
+        arguments.add(System.getProperty("java.class.path"));
+        arguments.add("-d");
+        arguments.add(outputDirectory.getPath());
+        try (Stream<Path> files = Files.walk(outputDirectory.toPath())) {
+            arguments.addAll(files.map(Path::toString).filter(f -> f.endsWith(".java")).collect(Collectors.toList()));
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("A JDK is needed to compile the generated code", compiler);
+        assertEquals("Generated code failed to compile", 0,
+                compiler.run(null, null, null, arguments.toArray(new String[0])));
+
+        return new URLClassLoader(new URL[] {outputDirectory.toURI().toURL()},
+                JsonUnmarshallerTemplateTest.class.getClassLoader());
+    }
+
+    @Test
+    public void structureUnmarshallersDispatchOnFieldName() throws IOException {
+        for (String shapeName : new String[] {"DescribeGadgetsResult", "Gadget", "Part"}) {
+            String current = readUnmarshaller(currentDirectory, shapeName);
+            assertTrue(shapeName, current.contains("context.getCurrentFieldName()"));
+            assertFalse(shapeName, current.contains("testExpression"));
+            String legacy = readUnmarshaller(legacyDirectory, shapeName);
+            assertTrue(shapeName, legacy.contains("testExpression"));
+        }
+    }
+
+    @Test
+    public void unmarshallsNestedStructuresAndListsOfStructures() throws Exception {
+        JsonNode result = unmarshall(currentClassLoader, "{\"Gadgets\": [{\"Name\": \"a\", \"Extra\": {\"Name\": \"x\"},"
+                + " \"Parts\": [{\"Part\": {\"Name\": \"deep\"}}]}], \"Gadget\": {\"gadgetId\": \"g\", \"Count\": 2},"
+                + " \"Extra\": [{\"Count\": 5}], \"Count\": 1}");
+        assertEquals(1, result.get("count").intValue());
+        assertEquals("g", result.get("gadget").get("id").textValue());
+        assertEquals(2, result.get("gadget").get("count").intValue());
+        assertEquals("a", result.get("gadgets").get(0).get("name").textValue());
+        assertEquals("deep", result.get("gadgets").get(0).get("parts").get(0).get("part").get("name").textValue());
+    }
+
+    @Test
+    public void unmarshallsAsLegacyTemplates() throws Exception {
+        for (String document : DOCUMENTS) {
+            assertEquals(document, unmarshallOrThrow(legacyClassLoader, document),
+                    unmarshallOrThrow(currentClassLoader, document));
+        }
+    }
+
+    private static String readUnmarshaller(File outputDirectory, String shapeName) throws IOException {
+        return new String(Files.readAllBytes(new File(outputDirectory,
+                UNMARSHALLER_DIRECTORY + shapeName + "JsonUnmarshaller.java").toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Unmarshalls the given document with the generated result unmarshaller
+     * of the given class loader, as the JSON response handler would, and
+     * returns the result as a Jackson tree, null for a null result, or the
+     * class of the exception thrown.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object unmarshallOrThrow(ClassLoader classLoader, String document) throws Exception {
+        Class<?> unmarshallerClass = classLoader.loadClass(PACKAGE_NAME
+                + ".model.transform.DescribeGadgetsResultJsonUnmarshaller");
+        Unmarshaller<Object, JsonUnmarshallerContext> unmarshaller =
+                (Unmarshaller<Object, JsonUnmarshallerContext>) unmarshallerClass.getMethod("getInstance").invoke(null);
+        try (JsonParser parser = JSON_FACTORY.createParser(document)) {
+            Object result = unmarshaller.unmarshall(new JsonUnmarshallerContextImpl(parser,
+                    SdkStructuredPlainJsonFactory.JSON_SCALAR_UNMARSHALLERS, new HttpResponse(null, null)));
+            return MAPPER.valueToTree(result);
+        } catch (Exception e) {
+            return e.getClass();
+        }
+    }
+
+    private static JsonNode unmarshall(ClassLoader classLoader, String document) throws Exception {
+        Object result = unmarshallOrThrow(classLoader, document);
+        assertTrue(document + " failed with " + result, result instanceof JsonNode);
+        return (JsonNode) result;
+    }
+}
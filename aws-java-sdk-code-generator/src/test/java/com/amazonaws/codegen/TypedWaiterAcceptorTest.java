@@ -0,0 +1,380 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.codegen.emitters.CodeEmitter;
+import com.amazonaws.codegen.emitters.GeneratorTaskExecutor;
+import com.amazonaws.codegen.emitters.GeneratorTaskParams;
+import com.amazonaws.codegen.emitters.tasks.AwsGeneratorTasks;
+import com.amazonaws.codegen.internal.Jackson;
+import com.amazonaws.codegen.model.config.BasicCodeGenConfig;
+import com.amazonaws.codegen.model.config.customization.CustomizationConfig;
+import com.amazonaws.codegen.model.intermediate.AcceptorModel;
+import com.amazonaws.codegen.model.intermediate.IntermediateModel;
+import com.amazonaws.codegen.model.intermediate.ServiceExamples;
+import com.amazonaws.codegen.model.intermediate.WaiterDefinitionModel;
+import com.amazonaws.codegen.model.service.Acceptor;
+import com.amazonaws.codegen.model.service.ServiceModel;
+import com.amazonaws.codegen.model.service.WaiterDefinition;
+import com.amazonaws.codegen.model.service.Waiters;
+import com.amazonaws.jmespath.JmesPathEvaluationVisitor;
+import com.amazonaws.jmespath.JmesPathExpression;
+import com.amazonaws.jmespath.JmesPathField;
+import com.amazonaws.jmespath.JmesPathFlatten;
+import com.amazonaws.jmespath.JmesPathLengthFunction;
+import com.amazonaws.jmespath.JmesPathLiteral;
+import com.amazonaws.jmespath.JmesPathProjection;
+import com.amazonaws.jmespath.JmesPathSubExpression;
+import com.amazonaws.jmespath.ObjectMapperSingleton;
+import com.amazonaws.jmespath.OpEquals;
+import com.amazonaws.jmespath.OpGreaterThan;
+import com.amazonaws.jmespath.OpGreaterThanOrEqualTo;
+import com.amazonaws.jmespath.OpLessThan;
+import com.amazonaws.jmespath.OpNotEquals;
+import com.amazonaws.waiters.AcceptorPathMatcher;
+import com.amazonaws.waiters.WaiterAcceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates the client of a small service with waiters whose acceptors are
+ * all evaluated against the typed result, compiles it, and checks that each
+ * generated acceptor matches the same results as the interpreted JmesPath
+ * expression evaluated against the result converted to a Jackson tree.
+ */
+public class TypedWaiterAcceptorTest {
+
+    private static final String PACKAGE_NAME = "com.amazonaws.services.things";
+
+    /** The acceptors tested, by waiter name; each waiter has just the one. */
+    private static final Map<String, TestAcceptor> ACCEPTORS = new LinkedHashMap<>();
+
+    /** The results each acceptor is tested against. */
+    private static final String[] RESULTS = {
+            "{}",
+            "{\"Things\": []}",
+            "{\"Things\": [{\"State\": \"ready\", \"Size\": 1}]}",
+            "{\"Things\": [{\"State\": \"ready\", \"Size\": 1}, {\"State\": \"ready\", \"Size\": 4}]}",
+            "{\"Things\": [{\"State\": \"ready\", \"Size\": 7}, {\"State\": \"failed\"}]}",
+            "{\"Things\": [{\"State\": \"pending\"}, {}], \"Count\": 2}",
+            "{\"Things\": [null, {\"State\": \"ready\"}], \"Count\": 3}",
+            "{\"Groups\": [[{\"State\": \"ready\"}], [{\"State\": \"ready\"}, {\"State\": \"ready\"}]]}",
+            "{\"Groups\": [[{\"State\": \"ready\"}], [{\"State\": \"failed\"}]]}",
+            "{\"Groups\": [[], null, [{\"State\": \"ready\"}]]}",
+            "{\"Status\": {}}",
+            "{\"Status\": {\"Code\": \"ok\", \"Healthy\": true}}",
+            "{\"Status\": {\"Code\": \"bad\", \"Healthy\": false}, \"Count\": 3}",
+            "{\"Name\": \"abc\", \"Total\": 10, \"Enabled\": true}",
+            "{\"Name\": \"none\", \"Total\": 9, \"Enabled\": false}",
+            "{\"Name\": \"\", \"Total\": 12345678901}",
+    };
+
+    private static File outputDirectory;
+
+    private static ClassLoader classLoader;
+
+    static {
+        JmesPathExpression thingStates = new JmesPathProjection(
+                new JmesPathFlatten(new JmesPathField("Things")), new JmesPathField("State"));
+        add("ThingsReady", "Things[].State", thingStates, "pathAll", "\"ready\"");
+        add("ThingFailed", "Things[].State", thingStates, "pathAny", "\"failed\"");
+        add("GroupsReady", "Groups[][].State", new JmesPathProjection(
+                new JmesPathFlatten(new JmesPathFlatten(new JmesPathField("Groups"))), new JmesPathField("State")),
+                "pathAll", "\"ready\"");
+        add("StatusOk", "Status.Code", new JmesPathSubExpression(
+                new JmesPathField("Status"), new JmesPathField("Code")), "path", "\"ok\"");
+        add("StatusHealthy", "Status.Healthy", new JmesPathSubExpression(
+                new JmesPathField("Status"), new JmesPathField("Healthy")), "path", "true");
+        add("Enabled", "Enabled", new JmesPathField("Enabled"), "path", "true");
+        add("CountIsThree", "Count == `3`", new OpEquals(
+                new JmesPathField("Count"), new JmesPathLiteral("3")), "path", "true");
+        add("NameIsNotNone", "Name != 'none'", new OpNotEquals(
+                new JmesPathField("Name"), new JmesPathLiteral("\"none\"")), "path", "true");
+        add("TotalAtLeastTen", "Total >= `10`", new OpGreaterThanOrEqualTo(
+                new JmesPathField("Total"), new JmesPathLiteral("10")), "path", "true");
+        add("HasThings", "length(Things) > `0`", new OpGreaterThan(
+                new JmesPathLengthFunction(new JmesPathField("Things")), new JmesPathLiteral("0")), "path", "true");
+        add("ThingsSmall", "Things[].Size < `5`", new JmesPathProjection(
+                new JmesPathFlatten(new JmesPathField("Things")),
+                new OpLessThan(new JmesPathField("Size"), new JmesPathLiteral("5"))), "pathAll", "true");
+    }
+
+    private static void add(String waiterName, String argument, JmesPathExpression ast, String matcher,
+                            String expected) {
+        ACCEPTORS.put(waiterName, new TestAcceptor(argument, ast, matcher, readTree(expected)));
+    }
+
+    @BeforeClass
+    public static void generateAndCompile() throws Exception {
+        outputDirectory = Files.createTempDirectory("typed-waiters").toFile();
+        IntermediateModel model = buildIntermediateModel();
+        try (CodeEmitter emitter = new CodeEmitter(
+                new AwsGeneratorTasks(GeneratorTaskParams.create(model, outputDirectory.getPath(),
+                        outputDirectory.getPath())),
+                new GeneratorTaskExecutor())) {
+            emitter.emit();
+        }
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-nowarn");
+        arguments.add("-classpath");
+        arguments.add(System.getProperty("java.class.path"));
+        arguments.add("-d");
+        arguments.add(outputDirectory.getPath());
+        try (Stream<Path> files = Files.walk(outputDirectory.toPath())) {
+            arguments.addAll(files.map(Path::toString).filter(f -> f.endsWith(".java")).collect(Collectors.toList()));
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("A JDK is needed to compile the generated code", compiler);
+        assertEquals("Generated code failed to compile", 0,
+                compiler.run(null, null, null, arguments.toArray(new String[0])));
+
+        classLoader = new URLClassLoader(new URL[] {outputDirectory.toURI().toURL()},
+                TypedWaiterAcceptorTest.class.getClassLoader());
+    }
+
+    @AfterClass
+    public static void deleteOutput() throws IOException {
+        if (outputDirectory != null) {
+            try (Stream<Path> files = Files.walk(outputDirectory.toPath())) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Builds the intermediate model of the service, with the waiters added
+     * once built, as turning their arguments into expressions takes an
+     * external JmesPath parser.
+     */
+    private static IntermediateModel buildIntermediateModel() throws IOException {
+        ServiceModel serviceModel;
+        try (InputStream in = TypedWaiterAcceptorTest.class.getResourceAsStream("/typedwaiters/service-2.json")) {
+            serviceModel = Jackson.load(ServiceModel.class, in);
+        }
+        Map<String, WaiterDefinition> waiterDefinitions = new LinkedHashMap<>();
+        for (Map.Entry<String, TestAcceptor> entry : ACCEPTORS.entrySet()) {
+            Acceptor acceptor = new Acceptor();
+            acceptor.setMatcher(entry.getValue().matcher);
+            acceptor.setState("success");
+            acceptor.setExpected(entry.getValue().expected);
+            WaiterDefinition waiterDefinition = new WaiterDefinition();
+            waiterDefinition.setOperation("DescribeThings");
+            waiterDefinition.setDelay(5);
+            waiterDefinition.setMaxAttempts(10);
+            List<Acceptor> acceptors = new ArrayList<>();
+            acceptors.add(acceptor);
+            waiterDefinition.setAcceptors(acceptors);
+            waiterDefinitions.put(entry.getKey(), waiterDefinition);
+        }
+        IntermediateModel model = new IntermediateModelBuilder(new CustomizationConfig(),
+                new BasicCodeGenConfig("AmazonThings", null, null, null), serviceModel,
+                new ServiceExamples(null, null), new Waiters(waiterDefinitions)).build();
+
+        for (Map.Entry<String, WaiterDefinitionModel> entry : model.getWaiters().entrySet()) {
+            TestAcceptor testAcceptor = ACCEPTORS.get(entry.getKey());
+            AcceptorModel acceptor = entry.getValue().getAcceptors().get(0);
+            acceptor.setArgument(testAcceptor.argument);
+            acceptor.setAst(testAcceptor.ast);
+            assertNotNull("Acceptor of " + entry.getKey() + " not typed", acceptor.getTypedMatcherBody());
+        }
+        return model;
+    }
+
+    @Test
+    public void generatedAcceptorsAreTyped() throws IOException {
+        for (String waiterName : ACCEPTORS.keySet()) {
+            String source = new String(Files.readAllBytes(new File(outputDirectory,
+                    PACKAGE_NAME.replace('.', '/') + "/waiters/" + waiterName + ".java").toPath()),
+                    StandardCharsets.UTF_8);
+            assertTrue(waiterName, source.contains("// " + ACCEPTORS.get(waiterName).argument));
+            assertTrue(waiterName, !source.contains("valueToTree"));
+        }
+    }
+
+    @Test
+    public void typedAcceptorsMatchAsInterpreted() throws Exception {
+        Class<?> resultClass = classLoader.loadClass(PACKAGE_NAME + ".model.DescribeThingsResult");
+        for (Map.Entry<String, TestAcceptor> entry : ACCEPTORS.entrySet()) {
+            WaiterAcceptor<Object> typed = newAcceptor(entry.getKey(), entry.getValue().expected);
+            for (String json : RESULTS) {
+                Object result = toResult(resultClass, readTree(json));
+                String message = entry.getKey() + " (" + entry.getValue().argument + ") on " + json;
+                assertEquals(message, interpretedMatches(entry.getValue(), result), typedMatches(typed, result));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the interpreted expression matches, as the acceptor
+     * would have been generated otherwise, or the exception it throws.
+     */
+    private static Object interpretedMatches(TestAcceptor acceptor, Object result) {
+        try {
+            JsonNode queryNode = ObjectMapperSingleton.getObjectMapper().valueToTree(result);
+            JsonNode finalResult = acceptor.ast.accept(new JmesPathEvaluationVisitor(), queryNode);
+            switch (acceptor.matcher) {
+                case "path":
+                    return AcceptorPathMatcher.path(acceptor.expected, finalResult);
+                case "pathAll":
+                    return AcceptorPathMatcher.pathAll(acceptor.expected, finalResult);
+                default:
+                    return AcceptorPathMatcher.pathAny(acceptor.expected, finalResult);
+            }
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static Object typedMatches(WaiterAcceptor<Object> acceptor, Object result) {
+        try {
+            return acceptor.matches(result);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WaiterAcceptor<Object> newAcceptor(String waiterName, JsonNode expected) throws Exception {
+        String matcherName = "Is" + Character.toUpperCase(expected.asText().charAt(0))
+                + expected.asText().substring(1) + "Matcher";
+        Class<?> matcherClass = classLoader.loadClass(PACKAGE_NAME + ".waiters." + waiterName + "$" + matcherName);
+        Constructor<?> constructor = matcherClass.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return (WaiterAcceptor<Object>) constructor.newInstance();
+    }
+
+    /**
+     * Builds an instance of the given generated model class from the given
+     * JSON, through its fluent setters.
+     */
+    private static Object toResult(Class<?> modelClass, JsonNode json) throws Exception {
+        Object model = modelClass.newInstance();
+        for (Iterator<Map.Entry<String, JsonNode>> it = json.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (field.getValue().isNull()) {
+                continue;
+            }
+            Method setter = setterOf(modelClass, field.getKey());
+            Type type = setter.getGenericParameterTypes()[0];
+            setter.invoke(model, toValue(type, field.getValue()));
+        }
+        return model;
+    }
+
+    private static Object toValue(Type type, JsonNode json) throws Exception {
+        if (json.isNull()) {
+            return null;
+        }
+        if (type instanceof ParameterizedType) {
+            Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+            List<Object> list = new ArrayList<>();
+            for (JsonNode element : json) {
+                list.add(toValue(elementType, element));
+            }
+            return list;
+        }
+        if (type == String.class) {
+            return json.asText();
+        }
+        if (type == Integer.class) {
+            return json.intValue();
+        }
+        if (type == Long.class) {
+            return json.longValue();
+        }
+        if (type == Boolean.class) {
+            return json.booleanValue();
+        }
+        return toResult((Class<?>) type, json);
+    }
+
+    /**
+     * Returns the setter of the given member taking a String or a
+     * Collection, rather than an enum or varargs.
+     */
+    private static Method setterOf(Class<?> modelClass, String memberName) throws NoSuchMethodException {
+        Method found = null;
+        for (Method method : modelClass.getMethods()) {
+            if (method.getName().equals("set" + memberName) && method.getParameterCount() == 1) {
+                Class<?> parameterType = method.getParameterTypes()[0];
+                if (parameterType.isEnum()) {
+                    continue;
+                }
+                if (found == null || Collection.class.isAssignableFrom(parameterType)) {
+                    found = method;
+                }
+            }
+        }
+        if (found == null) {
+            throw new NoSuchMethodException("set" + memberName);
+        }
+        return found;
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return ObjectMapperSingleton.getObjectMapper().readTree(json);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class TestAcceptor {
+        private final String argument;
+        private final JmesPathExpression ast;
+        private final String matcher;
+        private final JsonNode expected;
+
+        TestAcceptor(String argument, JmesPathExpression ast, String matcher, JsonNode expected) {
+            this.argument = argument;
+            this.ast = ast;
+            this.matcher = matcher;
+            this.expected = expected;
+        }
+    }
+}
@@ -103,6 +103,21 @@ public class ClientConfiguration {
      */
     public static final boolean DEFAULT_THROTTLE_RETRIES = true;
 
+    /**
+     * The default on whether retry capacity is tracked separately for each endpoint host.
+     */
+    public static final boolean DEFAULT_RETRY_CAPACITY_PER_HOST = false;
+
+    /**
+     * The default on whether retry capacity is tracked separately for each operation.
+     */
+    public static final boolean DEFAULT_RETRY_CAPACITY_PER_OPERATION = false;
+
+    /**
+     * The default on whether to meter outgoing requests based on throttling feedback.
+     */
+    public static final boolean DEFAULT_USE_ADAPTIVE_RATE_LIMITING = false;
+
     /**
      * The default on whether to cache response metadata.
      */
@@ -194,6 +209,12 @@ public class ClientConfiguration {
 
     private boolean throttleRetries = DEFAULT_THROTTLE_RETRIES;
 
+    private boolean retryCapacityPerHost = DEFAULT_RETRY_CAPACITY_PER_HOST;
+
+    private boolean retryCapacityPerOperation = DEFAULT_RETRY_CAPACITY_PER_OPERATION;
+
+    private boolean useAdaptiveRateLimiting = DEFAULT_USE_ADAPTIVE_RATE_LIMITING;
+
     /**
      * Optional size hint (in bytes) for the low level TCP send buffer. This is an advanced option
      * for advanced users who want to tune low level TCP parameters to try and squeeze out more
@@ -313,6 +334,9 @@ public class ClientConfiguration {
         this.maxErrorRetry = other.maxErrorRetry;
         this.retryPolicy = other.retryPolicy;
         this.throttleRetries = other.throttleRetries;
+        this.retryCapacityPerHost = other.retryCapacityPerHost;
+        this.retryCapacityPerOperation = other.retryCapacityPerOperation;
+        this.useAdaptiveRateLimiting = other.useAdaptiveRateLimiting;
         this.localAddress = other.localAddress;
         this.protocol = other.protocol;
         this.proxyDomain = other.proxyDomain;
@@ -1332,6 +1356,131 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Returns whether the retry capacity used by retry throttling is tracked separately for each
+     * endpoint host the client talks to.
+     * <p>
+     * By default a client shares a single retry capacity pool across all of its endpoints, so a
+     * degraded endpoint can drain the capacity available to healthy ones. When enabled, each host
+     * gets its own pool of the same size. This setting has no effect unless
+     * {@link #useThrottledRetries()} is true.
+     * </p>
+     *
+     * @return true if retry capacity is tracked per endpoint host
+     */
+    public boolean useRetryCapacityPerHost() {
+        return retryCapacityPerHost;
+    }
+
+    /**
+     * Sets whether the retry capacity used by retry throttling is tracked separately for each
+     * endpoint host the client talks to.
+     *
+     * @param use
+     *            true if retry capacity should be tracked per endpoint host
+     * @see #useRetryCapacityPerHost()
+     */
+    public void setUseRetryCapacityPerHost(boolean use) {
+        this.retryCapacityPerHost = use;
+    }
+
+    /**
+     * Sets whether the retry capacity used by retry throttling is tracked separately for each
+     * endpoint host the client talks to.
+     *
+     * @param use
+     *            true if retry capacity should be tracked per endpoint host
+     * @return The updated ClientConfiguration object.
+     * @see #useRetryCapacityPerHost()
+     */
+    public ClientConfiguration withRetryCapacityPerHost(boolean use) {
+        setUseRetryCapacityPerHost(use);
+        return this;
+    }
+
+    /**
+     * Returns whether the retry capacity used by retry throttling is tracked separately for each
+     * operation the client calls.
+     * <p>
+     * When enabled, each operation gets its own retry capacity pool of the same size, so an
+     * operation failing repeatedly can't drain the capacity available to the others. Combined with
+     * {@link #useRetryCapacityPerHost()}, each operation on each host gets its own pool. This
+     * setting has no effect unless {@link #useThrottledRetries()} is true.
+     * </p>
+     *
+     * @return true if retry capacity is tracked per operation
+     */
+    public boolean useRetryCapacityPerOperation() {
+        return retryCapacityPerOperation;
+    }
+
+    /**
+     * Sets whether the retry capacity used by retry throttling is tracked separately for each
+     * operation the client calls.
+     *
+     * @param use
+     *            true if retry capacity should be tracked per operation
+     * @see #useRetryCapacityPerOperation()
+     */
+    public void setUseRetryCapacityPerOperation(boolean use) {
+        this.retryCapacityPerOperation = use;
+    }
+
+    /**
+     * Sets whether the retry capacity used by retry throttling is tracked separately for each
+     * operation the client calls.
+     *
+     * @param use
+     *            true if retry capacity should be tracked per operation
+     * @return The updated ClientConfiguration object.
+     * @see #useRetryCapacityPerOperation()
+     */
+    public ClientConfiguration withRetryCapacityPerOperation(boolean use) {
+        setUseRetryCapacityPerOperation(use);
+        return this;
+    }
+
+    /**
+     * Returns whether the client meters its outgoing requests based on throttling feedback.
+     * <p>
+     * Retry policies only delay the retries of the request that was throttled, while other
+     * threads keep sending at full speed. When adaptive rate limiting is enabled, the client
+     * keeps a rate limiter for each endpoint host; once a request to that host is throttled,
+     * every request to it waits for a token before being sent. The allowed rate is reduced
+     * on each throttling error and gradually raised again as requests succeed. Requests are
+     * never delayed until the first throttling error is seen.
+     * </p>
+     *
+     * @return true if adaptive rate limiting is used
+     */
+    public boolean useAdaptiveRateLimiting() {
+        return useAdaptiveRateLimiting;
+    }
+
+    /**
+     * Sets whether the client meters its outgoing requests based on throttling feedback.
+     *
+     * @param use
+     *            true if adaptive rate limiting should be used
+     * @see #useAdaptiveRateLimiting()
+     */
+    public void setUseAdaptiveRateLimiting(boolean use) {
+        this.useAdaptiveRateLimiting = use;
+    }
+
+    /**
+     * Sets whether the client meters its outgoing requests based on throttling feedback.
+     *
+     * @param use
+     *            true if adaptive rate limiting should be used
+     * @return The updated ClientConfiguration object.
+     * @see #useAdaptiveRateLimiting()
+     */
+    public ClientConfiguration withAdaptiveRateLimiting(boolean use) {
+        setUseAdaptiveRateLimiting(use);
+        return this;
+    }
+
     /**
      * Checks if gzip compression is used
      *
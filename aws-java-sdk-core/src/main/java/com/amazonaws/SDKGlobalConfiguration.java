@@ -147,6 +147,18 @@ public class SDKGlobalConfiguration {
     public static final String ENABLE_IN_REGION_OPTIMIZED_MODE =
             "com.amazonaws.sdk.enableInRegionOptimizedMode";
 
+    /**
+     * By default, progress events for listeners that are not safe to call
+     * synchronously are delivered one at a time by a single thread. If this
+     * system property is set, byte transfer events are instead coalesced per
+     * listener over a short time window, and the events are delivered by
+     * several threads, with the events of each listener still delivered in
+     * order. This reduces the memory and latency cost of progress reporting
+     * when many transfers run in parallel.
+     */
+    public static final String ENABLE_COALESCED_PROGRESS_DELIVERY_SYSTEM_PROPERTY =
+            "com.amazonaws.sdk.enableCoalescedProgressDelivery";
+
     /**
      * @deprecated with {@link AmazonWebServiceRequest#getRequestClientOptions()}
      * and {@link RequestClientOptions#setReadLimit(int)}.
@@ -243,6 +255,10 @@ public class SDKGlobalConfiguration {
         return isPropertyEnabled(System.getProperty(ENABLE_IN_REGION_OPTIMIZED_MODE));
     }
 
+    public static boolean isCoalescedProgressDeliveryEnabled() {
+        return isPropertyEnabled(System.getProperty(ENABLE_COALESCED_PROGRESS_DELIVERY_SYSTEM_PROPERTY));
+    }
+
     public static boolean isCertCheckingDisabled() {
         return isPropertyEnabled(System.getProperty(DISABLE_CERT_CHECKING_SYSTEM_PROPERTY));
     }
@@ -31,7 +31,6 @@ import com.amazonaws.util.StringUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -66,6 +65,14 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private static final FIFOCache<SignerKey> signerCache = new FIFOCache<SignerKey>(SIGNER_CACHE_MAX_SIZE);
     private static final List<String> listOfHeadersToIgnoreInLowerCase = Arrays.asList("connection");
 
+    /**
+     * Initial builder capacities, sized to fit typical requests without
+     * resizing while the canonical request and headers are assembled.
+     */
+    private static final int CANONICAL_REQUEST_INITIAL_CAPACITY = 512;
+    private static final int HEADER_STRING_INITIAL_CAPACITY = 256;
+    private static final int AUTHORIZATION_HEADER_INITIAL_CAPACITY = 256;
+
     /**
      * Service name override for use when the endpoint can't be used to
      * determine the service name.
@@ -281,10 +288,11 @@ public class AWS4Signer extends AbstractAWSSigner implements
         final String path = SdkHttpUtils.appendUri(
                 request.getEndpoint().getPath(), request.getResourcePath());
 
-        final StringBuilder canonicalRequestBuilder = new StringBuilder(request
-                .getHttpMethod().toString());
+        final StringBuilder canonicalRequestBuilder = new StringBuilder(
+                CANONICAL_REQUEST_INITIAL_CAPACITY);
 
-        canonicalRequestBuilder.append(LINE_SEPARATOR)
+        canonicalRequestBuilder.append(request.getHttpMethod().toString())
+                .append(LINE_SEPARATOR)
                 // This would optionally double url-encode the resource path
                 .append(getCanonicalizedResourcePath(path, doubleUrlEncode))
                 .append(LINE_SEPARATOR)
@@ -386,8 +394,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
      */
     protected final byte[] computeSignature(String stringToSign,
             byte[] signingKey, AWS4SignerRequestParams signerRequestParams) {
-        return sign(stringToSign.getBytes(Charset.forName("UTF-8")), signingKey,
-                SigningAlgorithm.HmacSHA256);
+        return sign(stringToSign, signingKey, SigningAlgorithm.HmacSHA256);
     }
 
     /**
@@ -396,25 +403,18 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private String buildAuthorizationHeader(SignableRequest<?> request,
             byte[] signature, AWSCredentials credentials,
             AWS4SignerRequestParams signerParams) {
-        final String signingCredentials = credentials.getAWSAccessKeyId() + "/"
-                + signerParams.getScope();
-
-        final String credential = "Credential="
-                + signingCredentials;
-        final String signerHeaders = "SignedHeaders="
-                + getSignedHeadersString(request);
-        final String signatureHeader = "Signature="
-                + BinaryUtils.toHex(signature);
-
-        final StringBuilder authHeaderBuilder = new StringBuilder();
+        final StringBuilder authHeaderBuilder = new StringBuilder(
+                AUTHORIZATION_HEADER_INITIAL_CAPACITY);
 
         authHeaderBuilder.append(AWS4_SIGNING_ALGORITHM)
-                         .append(" ")
-                         .append(credential)
-                         .append(", ")
-                         .append(signerHeaders)
-                         .append(", ")
-                         .append(signatureHeader);
+                         .append(" Credential=")
+                         .append(credentials.getAWSAccessKeyId())
+                         .append("/")
+                         .append(signerParams.getScope())
+                         .append(", SignedHeaders=")
+                         .append(getSignedHeadersString(request))
+                         .append(", Signature=")
+                         .append(BinaryUtils.toHex(signature));
 
         return authHeaderBuilder.toString();
     }
@@ -450,7 +450,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
         Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
 
         final Map<String, String> requestHeaders = request.getHeaders();
-        StringBuilder buffer = new StringBuilder();
+        StringBuilder buffer = new StringBuilder(HEADER_STRING_INITIAL_CAPACITY);
         for (String header : sortedHeaders) {
             if (shouldExcludeHeaderFromSigning(header)) {
                 continue;
@@ -475,21 +475,44 @@ public class AWS4Signer extends AbstractAWSSigner implements
                 .getHeaders().keySet());
         Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
 
-        StringBuilder buffer = new StringBuilder();
+        StringBuilder buffer = new StringBuilder(HEADER_STRING_INITIAL_CAPACITY);
         for (String header : sortedHeaders) {
             if (shouldExcludeHeaderFromSigning(header)) {
                 continue;
             }
             if (buffer.length() > 0)
                 buffer.append(";");
-            buffer.append(StringUtils.lowerCase(header));
+            appendLowerCase(buffer, header);
         }
 
         return buffer.toString();
     }
 
     protected boolean shouldExcludeHeaderFromSigning(String header) {
-        return listOfHeadersToIgnoreInLowerCase.contains(header.toLowerCase());
+        for (int i = 0; i < listOfHeadersToIgnoreInLowerCase.size(); i++) {
+            if (listOfHeadersToIgnoreInLowerCase.get(i).equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the lower case form of the given header name to the buffer,
+     * without allocating an intermediate string for ASCII header names.
+     */
+    private static void appendLowerCase(StringBuilder buffer, String header) {
+        final int length = header.length();
+        for (int i = 0; i < length; i++) {
+            if (header.charAt(i) > 0x7F) {
+                buffer.append(StringUtils.lowerCase(header));
+                return;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            char ch = header.charAt(i);
+            buffer.append(ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch);
+        }
     }
 
     protected void addHostHeader(SignableRequest<?> request) {
@@ -585,7 +608,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
     protected byte[] newSigningKey(AWSCredentials credentials,
             String dateStamp, String regionName, String serviceName) {
         byte[] kSecret = ("AWS4" + credentials.getAWSSecretKey())
-                .getBytes(Charset.forName("UTF-8"));
+                .getBytes(StringUtils.UTF8);
         byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         byte[] kService = sign(serviceName, kRegion,
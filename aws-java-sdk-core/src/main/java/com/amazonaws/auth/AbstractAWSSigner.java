@@ -20,6 +20,11 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -51,7 +56,32 @@ public abstract class AbstractAWSSigner implements Signer {
     public static final String EMPTY_STRING_SHA256_HEX;
     private static final ThreadLocal<MessageDigest> SHA256_MESSAGE_DIGEST;
 
+    /**
+     * Strings up to this many characters are UTF-8 encoded into a reusable
+     * per-thread buffer before being hashed or signed; longer strings fall
+     * back to {@link String#getBytes}.
+     */
+    private static final int MAX_REUSABLE_ENCODE_CHARS = 4096;
+    private static final ThreadLocal<CharsetEncoder> UTF8_ENCODER;
+    private static final ThreadLocal<ByteBuffer> UTF8_ENCODE_BUFFER;
+
     static {
+        UTF8_ENCODER = new ThreadLocal<CharsetEncoder>() {
+            @Override
+            protected CharsetEncoder initialValue() {
+                // Replace malformed input the same way String#getBytes does
+                return UTF8.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+        };
+        UTF8_ENCODE_BUFFER = new ThreadLocal<ByteBuffer>() {
+            @Override
+            protected ByteBuffer initialValue() {
+                return ByteBuffer.allocate((int) (MAX_REUSABLE_ENCODE_CHARS
+                        * UTF8.newEncoder().maxBytesPerChar()));
+            }
+        };
         SHA256_MESSAGE_DIGEST = new ThreadLocal<MessageDigest>() {
             @Override
             protected MessageDigest initialValue() {
@@ -95,7 +125,10 @@ public abstract class AbstractAWSSigner implements Signer {
     public byte[] sign(String stringData, byte[] key,
             SigningAlgorithm algorithm) throws SdkClientException {
         try {
-            byte[] data = stringData.getBytes(UTF8);
+            ByteBuffer encoded = encodeUtf8(stringData);
+            byte[] data = encoded == null
+                    ? stringData.getBytes(UTF8)
+                    : Arrays.copyOf(encoded.array(), encoded.limit());
             return sign(data, key, algorithm);
         } catch (Exception e) {
             throw new SdkClientException(
@@ -106,7 +139,12 @@ public abstract class AbstractAWSSigner implements Signer {
 
     public byte[] signWithMac(String stringData, Mac mac) {
         try {
-            return mac.doFinal(stringData.getBytes(UTF8));
+            ByteBuffer data = encodeUtf8(stringData);
+            if (data == null) {
+                return mac.doFinal(stringData.getBytes(UTF8));
+            }
+            mac.update(data);
+            return mac.doFinal();
         } catch (Exception e) {
             throw new SdkClientException(
                     "Unable to calculate a request signature: "
@@ -146,7 +184,12 @@ public abstract class AbstractAWSSigner implements Signer {
     private static byte[] doHash(String text) throws SdkClientException {
         try {
             MessageDigest md = getMessageDigestInstance();
-            md.update(text.getBytes(UTF8));
+            ByteBuffer data = encodeUtf8(text);
+            if (data == null) {
+                md.update(text.getBytes(UTF8));
+            } else {
+                md.update(data);
+            }
             return md.digest();
         } catch (Exception e) {
             throw new SdkClientException(
@@ -155,6 +198,34 @@ public abstract class AbstractAWSSigner implements Signer {
         }
     }
 
+    /**
+     * UTF-8 encodes the given string into the calling thread's reusable
+     * buffer, producing the same bytes as {@code text.getBytes(UTF8)}.
+     * The returned buffer is only valid until the next call on the same
+     * thread.
+     *
+     * @return A buffer positioned over the encoded bytes, or null if the
+     *         string is too long to be encoded into the reusable buffer.
+     */
+    private static ByteBuffer encodeUtf8(String text) {
+        if (text.length() > MAX_REUSABLE_ENCODE_CHARS) {
+            return null;
+        }
+        CharsetEncoder encoder = UTF8_ENCODER.get();
+        ByteBuffer buffer = UTF8_ENCODE_BUFFER.get();
+        encoder.reset();
+        buffer.clear();
+        CoderResult result = encoder.encode(CharBuffer.wrap(text), buffer, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(buffer);
+        }
+        if (!result.isUnderflow()) {
+            return null;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
     protected byte[] hash(InputStream input) throws SdkClientException {
         try {
             MessageDigest md = getMessageDigestInstance();
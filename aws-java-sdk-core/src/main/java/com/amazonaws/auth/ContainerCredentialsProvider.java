@@ -17,6 +17,7 @@ package com.amazonaws.auth;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.amazonaws.SdkClientException;
 import com.amazonaws.annotation.SdkInternalApi;
@@ -43,13 +44,45 @@ public class ContainerCredentialsProvider implements AWSCredentialsProvider {
 
     private final EC2CredentialsFetcher credentialsFetcher;
 
+    /**
+     * The executor service used for refreshing the credentials in the
+     * background.
+     */
+    private final ScheduledExecutorService executor;
+
     public ContainerCredentialsProvider() {
-        this(new ECSCredentialsEndpointProvider());
+        this(false);
+    }
+
+    /**
+     * Spins up a new thread to refresh the credentials asynchronously if
+     * refreshCredentialsAsync is set to true, otherwise the credentials will be
+     * refreshed from the container credentials endpoint synchronously.
+     * <p>
+     * Asynchronously refreshed credentials are loaded ahead of their
+     * expiration, and callers are served the cached credentials without
+     * waiting on the endpoint in the meantime.
+     *
+     * @param refreshCredentialsAsync
+     *            true if credentials needs to be refreshed asynchronously else
+     *            false.
+     */
+    public ContainerCredentialsProvider(boolean refreshCredentialsAsync) {
+        this(new ECSCredentialsEndpointProvider(), refreshCredentialsAsync);
     }
 
     @SdkInternalApi
     public ContainerCredentialsProvider(CredentialsEndpointProvider credentailsEndpointProvider) {
-        this.credentialsFetcher = new EC2CredentialsFetcher(credentailsEndpointProvider);
+        this(credentailsEndpointProvider, false);
+    }
+
+    @SdkInternalApi
+    ContainerCredentialsProvider(CredentialsEndpointProvider credentailsEndpointProvider,
+            boolean refreshCredentialsAsync) {
+        this.executor = refreshCredentialsAsync
+                ? CredentialsRefreshExecutors.newRefreshExecutor("container-credentials-refresh")
+                : null;
+        this.credentialsFetcher = new EC2CredentialsFetcher(credentailsEndpointProvider, executor);
     }
 
     @Override
@@ -66,6 +99,13 @@ public class ContainerCredentialsProvider implements AWSCredentialsProvider {
         return credentialsFetcher.getCredentialsExpiration();
     }
 
+    @Override
+    protected void finalize() throws Throwable {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
 
     private static class ECSCredentialsEndpointProvider extends CredentialsEndpointProvider {
         @Override
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import com.amazonaws.annotation.SdkInternalApi;
+
+/**
+ * Creates the executors used by credentials providers to refresh credentials
+ * in the background.
+ */
+@SdkInternalApi
+class CredentialsRefreshExecutors {
+
+    private CredentialsRefreshExecutors() {
+    }
+
+    /**
+     * Returns a single threaded scheduler whose daemon thread has the given
+     * name, so a provider that isn't shut down doesn't keep the JVM alive.
+     */
+    static ScheduledExecutorService newRefreshExecutor(final String threadName) {
+        return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, threadName);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+}
@@ -17,6 +17,10 @@ package com.amazonaws.auth;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,6 +38,13 @@ import com.fasterxml.jackson.databind.JsonNode;
  * Helper class that contains the common behavior of the
  * CredentialsProviders that loads the credentials from a
  * local endpoint on an EC2 instance.
+ * <p>
+ * When given a scheduler, credentials are refreshed in the background ahead
+ * of their expiration, at a random point within a jitter window so a fleet of
+ * hosts doesn't hit the endpoint at once. Callers are served the cached
+ * credentials without locking until they come within
+ * {@link #BLOCKING_EXPIRATION_THRESHOLD} of expiring, and only block on the
+ * endpoint if background refreshes have failed until then.
  */
 @SdkInternalApi
 class EC2CredentialsFetcher {
@@ -52,6 +63,25 @@ class EC2CredentialsFetcher {
      */
     private static final int EXPIRATION_THRESHOLD = 1000 * 60 * 15;
 
+    /**
+     * The threshold before credentials expire (in milliseconds) below which
+     * callers block to load new credentials even when they are refreshed in
+     * the background.
+     */
+    private static final int BLOCKING_EXPIRATION_THRESHOLD = 1000 * 60 * 5;
+
+    /**
+     * The window (in milliseconds) over which background refreshes are
+     * randomly brought forward.
+     */
+    private static final int ASYNC_REFRESH_JITTER = 1000 * 60 * 5;
+
+    /**
+     * The minimum delay (in milliseconds) between background refreshes, which
+     * is also the delay before retrying a failed one.
+     */
+    private static final int MIN_ASYNC_REFRESH_DELAY = 1000 * 60;
+
     /** The name of the Json Object that contains the access key.*/
     private static final String ACCESS_KEY_ID = "AccessKeyId";
 
@@ -73,11 +103,40 @@ class EC2CredentialsFetcher {
     /** Used to load the endpoint where the credentials are stored. */
     private final CredentialsEndpointProvider credentailsEndpointProvider;
 
+    /** Schedules background refreshes, or null to refresh only on demand. */
+    private final ScheduledExecutorService refreshExecutor;
+
+    private final Random random = new Random();
+
     public EC2CredentialsFetcher(CredentialsEndpointProvider credentailsEndpointProvider) {
+        this(credentailsEndpointProvider, null);
+    }
+
+    /**
+     * @param refreshExecutor
+     *            The scheduler used to refresh credentials in the background,
+     *            or null to refresh them only when callers find them close to
+     *            expiring. The first refresh is scheduled immediately.
+     */
+    public EC2CredentialsFetcher(CredentialsEndpointProvider credentailsEndpointProvider,
+            ScheduledExecutorService refreshExecutor) {
         this.credentailsEndpointProvider = credentailsEndpointProvider;
+        this.refreshExecutor = refreshExecutor;
+        if (refreshExecutor != null) {
+            scheduleRefresh(0);
+        }
     }
 
     public AWSCredentials getCredentials() {
+        if (refreshExecutor != null) {
+            // Lock-free while the background refresh has time to catch up
+            AWSCredentials current = credentials;
+            Date expiration = credentialsExpiration;
+            if (current != null && (expiration == null
+                    || expiration.getTime() - System.currentTimeMillis() >= BLOCKING_EXPIRATION_THRESHOLD)) {
+                return current;
+            }
+        }
         if (needsToLoadCredentials())
             fetchCredentials();
         if (expired()) {
@@ -111,6 +170,14 @@ class EC2CredentialsFetcher {
     private synchronized void fetchCredentials() {
         if (!needsToLoadCredentials()) return;
 
+        loadCredentials();
+    }
+
+    /**
+     * Loads the credentials from the endpoint. Must be called while holding
+     * the lock.
+     */
+    private void loadCredentials() {
         JsonNode accessKey;
         JsonNode secretKey;
         JsonNode node;
@@ -187,6 +254,55 @@ class EC2CredentialsFetcher {
         credentials = null;
     }
 
+    /**
+     * Schedules the next background refresh after the given delay.
+     */
+    private void scheduleRefresh(long delayMillis) {
+        try {
+            refreshExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    backgroundRefresh();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The executor has been shut down along with the credentials provider
+            LOG.debug("Background credentials refresh stopped", e);
+        }
+    }
+
+    private void backgroundRefresh() {
+        long nextDelay = MIN_ASYNC_REFRESH_DELAY;
+        try {
+            synchronized (this) {
+                loadCredentials();
+            }
+            nextDelay = nextRefreshDelay();
+        } catch (RuntimeException e) {
+            LOG.warn("Unable to refresh credentials in the background, retrying in "
+                    + MIN_ASYNC_REFRESH_DELAY + "ms", e);
+        } catch (Error e) {
+            LOG.error("Unable to refresh credentials in the background, retrying in "
+                    + MIN_ASYNC_REFRESH_DELAY + "ms", e);
+        }
+        scheduleRefresh(nextDelay);
+    }
+
+    /**
+     * Returns the delay until the credentials should next be refreshed: a
+     * random point within the jitter window before they come within the
+     * expiration threshold, or before the refresh threshold passes.
+     */
+    private long nextRefreshDelay() {
+        long delay = REFRESH_THRESHOLD;
+        Date expiration = credentialsExpiration;
+        if (expiration != null) {
+            delay = Math.min(delay, expiration.getTime() - System.currentTimeMillis() - EXPIRATION_THRESHOLD);
+        }
+        delay -= (long) (random.nextDouble() * ASYNC_REFRESH_JITTER);
+        return Math.max(delay, MIN_ASYNC_REFRESH_DELAY);
+    }
+
     /**
      * Returns true if the current credentials are within the expiration
      * threshold, and therefore, should be refreshed.
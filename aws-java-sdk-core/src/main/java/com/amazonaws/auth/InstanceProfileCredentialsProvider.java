@@ -17,13 +17,7 @@ package com.amazonaws.auth;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
-import com.amazonaws.AmazonClientException;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 
 import com.amazonaws.SdkClientException;
 import com.amazonaws.internal.CredentialsEndpointProvider;
@@ -36,14 +30,6 @@ import com.amazonaws.util.EC2MetadataUtils;
  */
 public class InstanceProfileCredentialsProvider implements AWSCredentialsProvider {
 
-    private static final Log LOG = LogFactory.getLog(InstanceProfileCredentialsProvider.class);
-
-    /**
-     * The wait time, after which the background thread initiates a refresh to
-     * load latest credentials if needed.
-     */
-    private static final int ASYNC_REFRESH_INTERVAL_TIME_MINUTES = 1;
-
     /**
      * The default InstanceProfileCredentialsProvider that can be shared by
      * multiple CredentialsProvider instance threads to shrink the amount of
@@ -72,31 +58,20 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
      * Spins up a new thread to refresh the credentials asynchronously if
      * refreshCredentialsAsync is set to true, otherwise the credentials will be
      * refreshed from the instance metadata service synchronously,
+     * <p>
+     * Asynchronously refreshed credentials are loaded ahead of their
+     * expiration, and callers are served the cached credentials without
+     * waiting on the instance metadata service in the meantime.
      *
      * @param refreshCredentialsAsync
      *            true if credentials needs to be refreshed asynchronously else
      *            false.
      */
     public InstanceProfileCredentialsProvider(boolean refreshCredentialsAsync) {
-        credentialsFetcher = new EC2CredentialsFetcher(new InstanceMetadataCredentialsEndpointProvider());
-
         if (refreshCredentialsAsync) {
-            executor = Executors.newScheduledThreadPool(1);
-            executor.scheduleWithFixedDelay(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        credentialsFetcher.getCredentials();
-                    } catch (AmazonClientException ace) {
-                        handleError(ace);
-                    } catch (RuntimeException re) {
-                        handleError(re);
-                    } catch (Error e) {
-                        handleError(e);
-                    }
-                }
-            }, 0, ASYNC_REFRESH_INTERVAL_TIME_MINUTES, TimeUnit.MINUTES);
+            executor = CredentialsRefreshExecutors.newRefreshExecutor("instance-profile-credentials-refresh");
         }
+        credentialsFetcher = new EC2CredentialsFetcher(new InstanceMetadataCredentialsEndpointProvider(), executor);
     }
 
     /**
@@ -107,11 +82,6 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
         return INSTANCE;
     }
 
-    private void handleError(Throwable t) {
-        refresh();
-        LOG.error(t.getMessage(), t);
-    }
-
     @Override
     protected void finalize() throws Throwable {
         if (executor != null) {
@@ -21,8 +21,14 @@ import com.amazonaws.annotation.SdkTestInternalApi;
 import com.amazonaws.client.AwsAsyncClientParams;
 import com.amazonaws.regions.AwsRegionProvider;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Base class for all service specific async client builders.
@@ -33,7 +39,13 @@ import java.util.concurrent.Executors;
 @SdkProtectedApi
 public abstract class AwsAsyncClientBuilder<Subclass extends AwsAsyncClientBuilder, TypeToBuild> extends
                                                                                                  AwsClientBuilder<Subclass, TypeToBuild> {
+    /**
+     * Time in seconds an idle thread of the default executor is kept alive before it is reclaimed.
+     */
+    private static final long DEFAULT_EXECUTOR_KEEP_ALIVE_SECONDS = 60;
+
     private ExecutorFactory executorFactory;
+    private Integer executorQueueSize;
 
     protected AwsAsyncClientBuilder(ClientConfigurationFactory clientConfigFactory) {
         super(clientConfigFactory);
@@ -75,6 +87,46 @@ public abstract class AwsAsyncClientBuilder<Subclass extends AwsAsyncClientBuild
         return getSubclass();
     }
 
+    /**
+     * @return The maximum number of calls queued by the default executor of the async clients, or
+     * null if the queue is unbounded.
+     */
+    public final Integer getExecutorQueueSize() {
+        return executorQueueSize;
+    }
+
+    /**
+     * Bounds the number of calls queued by the default executor of the async clients, waiting for
+     * one of its threads to become free. Once the queue is full, the async methods reject further
+     * calls by throwing a {@link java.util.concurrent.RejectedExecutionException}, so that callers
+     * submitting calls faster than they complete can back off rather than queue them without
+     * limit. By default the queue is unbounded. Has no effect if an {@link ExecutorFactory} is
+     * set.
+     * <p>
+     * Note that each call in flight still occupies a thread of the executor, as the underlying
+     * HTTP transport is blocking.
+     *
+     * @param executorQueueSize Maximum number of queued calls, or null for an unbounded queue.
+     */
+    public final void setExecutorQueueSize(Integer executorQueueSize) {
+        if (executorQueueSize != null && executorQueueSize < 1) {
+            throw new IllegalArgumentException("executorQueueSize must be positive");
+        }
+        this.executorQueueSize = executorQueueSize;
+    }
+
+    /**
+     * Bounds the number of calls queued by the default executor of the async clients. See {@link
+     * #setExecutorQueueSize(Integer)}.
+     *
+     * @param executorQueueSize Maximum number of queued calls, or null for an unbounded queue.
+     * @return This object for method chaining.
+     */
+    public final Subclass withExecutorQueueSize(Integer executorQueueSize) {
+        setExecutorQueueSize(executorQueueSize);
+        return getSubclass();
+    }
+
     @Override
     public final TypeToBuild build() {
         return configureMutableProperties(build(getAsyncClientParams()));
@@ -87,7 +139,7 @@ public abstract class AwsAsyncClientBuilder<Subclass extends AwsAsyncClientBuild
      * client constructor.
      */
     protected final AwsAsyncClientParams getAsyncClientParams() {
-        return new AsyncBuilderParams(executorFactory);
+        return new AsyncBuilderParams(executorFactory, executorQueueSize);
     }
 
     /**
@@ -98,8 +150,12 @@ public abstract class AwsAsyncClientBuilder<Subclass extends AwsAsyncClientBuild
         private final ExecutorService _executorService;
 
         protected AsyncBuilderParams(ExecutorFactory executorFactory) {
-            this._executorService =
-                    (executorFactory == null) ? defaultExecutor() : executorFactory.newExecutor();
+            this(executorFactory, null);
+        }
+
+        protected AsyncBuilderParams(ExecutorFactory executorFactory, Integer executorQueueSize) {
+            this._executorService = (executorFactory == null) ?
+                    defaultExecutor(executorQueueSize) : executorFactory.newExecutor();
         }
 
         @Override
@@ -108,10 +164,42 @@ public abstract class AwsAsyncClientBuilder<Subclass extends AwsAsyncClientBuild
         }
 
         /**
+         * The default executor is bounded by the max connections of the client since a worker
+         * can't make progress without a pooled connection. Each call in flight blocks one of its
+         * threads for the duration of the call; idle threads are reclaimed after {@link
+         * #DEFAULT_EXECUTOR_KEEP_ALIVE_SECONDS}. Calls waiting for a thread are queued, without
+         * limit unless a queue size is set, in which case calls beyond it are rejected.
+         *
          * @return Default async Executor to use if none is explicitly provided by user.
          */
-        private ExecutorService defaultExecutor() {
-            return Executors.newFixedThreadPool(getClientConfiguration().getMaxConnections());
+        private ExecutorService defaultExecutor(Integer executorQueueSize) {
+            final int maxConnections = getClientConfiguration().getMaxConnections();
+            BlockingQueue<Runnable> queue = (executorQueueSize == null) ?
+                    new LinkedBlockingQueue<Runnable>() :
+                    new ArrayBlockingQueue<Runnable>(executorQueueSize);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConnections, maxConnections,
+                                                                 DEFAULT_EXECUTOR_KEEP_ALIVE_SECONDS,
+                                                                 TimeUnit.SECONDS,
+                                                                 queue,
+                                                                 new AsyncClientThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * Names the worker threads of the default executor so they can be identified in thread dumps.
+     */
+    private static class AsyncClientThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+        private final String namePrefix = "aws-java-sdk-async-client-" + POOL_COUNT.incrementAndGet() + "-";
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, namePrefix + threadCount.incrementAndGet());
         }
     }
 
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.event;
+
+import static com.amazonaws.event.ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT;
+import static com.amazonaws.event.ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.annotation.SdkTestInternalApi;
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * Delivers progress events asynchronously to listeners that are not safe to
+ * call synchronously, as an alternative to the single callback thread of
+ * {@link SDKProgressPublisher}.
+ * <ul>
+ * <li>Byte transfer events sent to a listener within a time window are
+ * coalesced into one event per direction, so a listener sees a handful of
+ * events per window rather than one per buffer read.</li>
+ * <li>Each listener is assigned to one of several callback threads, so a slow
+ * listener only delays the listeners sharing its thread. The events of a
+ * listener are always delivered in order, one at a time.</li>
+ * <li>At most a bounded number of events wait to be delivered to a listener;
+ * beyond that the publishing thread delivers the pending events itself.</li>
+ * </ul>
+ * Any other event first flushes the byte transfer events coalesced so far, so
+ * a listener never sees bytes transferred after, say, the completion of a
+ * request.
+ */
+@ThreadSafe
+@SdkInternalApi
+final class CoalescingProgressDispatcher {
+    /** The default time window over which byte transfer events are coalesced. */
+    static final long DEFAULT_WINDOW_MILLIS = 100;
+    /** The default maximum number of events pending delivery to a listener. */
+    static final int DEFAULT_MAX_PENDING_EVENTS = 1024;
+
+    private final ScheduledExecutorService[] partitions;
+    private final long windowMillis;
+    private final int maxPendingEvents;
+    private final ConcurrentMap<ProgressListener, Mailbox> mailboxes =
+            new ConcurrentHashMap<ProgressListener, Mailbox>();
+
+    CoalescingProgressDispatcher() {
+        this(Math.min(4, Runtime.getRuntime().availableProcessors()),
+                DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_PENDING_EVENTS);
+    }
+
+    @SdkTestInternalApi
+    CoalescingProgressDispatcher(int threads, long windowMillis, int maxPendingEvents) {
+        if (threads < 1 || windowMillis < 0 || maxPendingEvents < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.partitions = new ScheduledExecutorService[threads];
+        for (int i = 0; i < threads; i++) {
+            final String name = "java-sdk-progress-listener-callback-thread-" + i;
+            partitions[i] = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r);
+                    t.setName(name);
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        this.windowMillis = windowMillis;
+        this.maxPendingEvents = maxPendingEvents;
+    }
+
+    /**
+     * Queues the given event for delivery to the given listener.
+     *
+     * @return the future of the task that will deliver the event; or null if
+     *         the event has already been delivered.
+     */
+    Future<?> deliver(ProgressListener listener, ProgressEvent event) {
+        for (;;) {
+            Mailbox mailbox = mailboxes.get(listener);
+            if (mailbox == null) {
+                mailbox = new Mailbox(listener, partitionOf(listener));
+                Mailbox existing = mailboxes.putIfAbsent(listener, mailbox);
+                if (existing != null) {
+                    mailbox = existing;
+                }
+            }
+            switch (mailbox.offer(event)) {
+            case QUEUED:
+                return mailbox.getFuture();
+            case FULL:
+                // Deliver the backlog on the publishing thread rather than
+                // queueing without bound
+                mailbox.run();
+                break;
+            case RETIRED:
+            default:
+                // Emptied and removed concurrently; retry with a new mailbox
+                mailboxes.remove(listener, mailbox);
+                break;
+            }
+        }
+    }
+
+    private ScheduledExecutorService partitionOf(ProgressListener listener) {
+        int hash = System.identityHashCode(listener);
+        return partitions[(hash & Integer.MAX_VALUE) % partitions.length];
+    }
+
+    void shutdown(boolean now) {
+        for (ScheduledExecutorService partition : partitions) {
+            if (now) {
+                partition.shutdownNow();
+            } else {
+                partition.shutdown();
+            }
+        }
+    }
+
+    @SdkTestInternalApi
+    int getMailboxCount() {
+        return mailboxes.size();
+    }
+
+    private enum OfferResult {
+        QUEUED, FULL, RETIRED
+    }
+
+    /**
+     * The events pending delivery to a listener. A mailbox is removed once
+     * emptied, so idle listeners are not retained.
+     */
+    private final class Mailbox implements Runnable {
+        private final ProgressListener listener;
+        private final ScheduledExecutorService partition;
+        /** Held while delivering, so events are delivered one at a time. */
+        private final Object deliveryLock = new Object();
+
+        // Guarded by this
+        private final Queue<ProgressEvent> events = new LinkedList<ProgressEvent>();
+        private long requestBytes;
+        private long responseBytes;
+        private boolean scheduled;
+        private boolean delayed;
+        private boolean retired;
+        private Future<?> future;
+
+        Mailbox(ProgressListener listener, ScheduledExecutorService partition) {
+            this.listener = listener;
+            this.partition = partition;
+        }
+
+        synchronized OfferResult offer(ProgressEvent event) {
+            if (retired) {
+                return OfferResult.RETIRED;
+            }
+            ProgressEventType type = event.getEventType();
+            if (type == REQUEST_BYTE_TRANSFER_EVENT) {
+                requestBytes += event.getBytes();
+                if (!scheduled) {
+                    schedule(windowMillis);
+                }
+                return OfferResult.QUEUED;
+            }
+            if (type == RESPONSE_BYTE_TRANSFER_EVENT) {
+                responseBytes += event.getBytes();
+                if (!scheduled) {
+                    schedule(windowMillis);
+                }
+                return OfferResult.QUEUED;
+            }
+            if (events.size() >= maxPendingEvents) {
+                return OfferResult.FULL;
+            }
+            flushBytes();
+            events.add(event);
+            if (!scheduled || delayed) {
+                // No need to wait for the window to end
+                schedule(0);
+            }
+            return OfferResult.QUEUED;
+        }
+
+        private void schedule(long delayMillis) {
+            try {
+                future = partition.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+                scheduled = true;
+                delayed = delayMillis > 0;
+            } catch (RejectedExecutionException e) {
+                // Shut down; the events are delivered if the mailbox fills up
+                future = null;
+            }
+        }
+
+        private void flushBytes() {
+            if (requestBytes > 0) {
+                events.add(new ProgressEvent(REQUEST_BYTE_TRANSFER_EVENT, requestBytes));
+                requestBytes = 0;
+            }
+            if (responseBytes > 0) {
+                events.add(new ProgressEvent(RESPONSE_BYTE_TRANSFER_EVENT, responseBytes));
+                responseBytes = 0;
+            }
+        }
+
+        synchronized Future<?> getFuture() {
+            return future;
+        }
+
+        @Override
+        public void run() {
+            synchronized (deliveryLock) {
+                synchronized (this) {
+                    // The window has ended; bytes transferred from now on
+                    // are coalesced into the next one
+                    scheduled = false;
+                    flushBytes();
+                }
+                for (;;) {
+                    ProgressEvent event;
+                    synchronized (this) {
+                        event = events.poll();
+                        if (event == null) {
+                            if (!scheduled) {
+                                retired = true;
+                                mailboxes.remove(listener, this);
+                            }
+                            return;
+                        }
+                    }
+                    try {
+                        listener.progressChanged(event);
+                    } catch (Throwable t) {
+                        // Suppressed as in the legacy async mode
+                        LogFactory.getLog(SDKProgressPublisher.class)
+                            .debug("Failure from the event listener", t);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -29,13 +29,24 @@ import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.logging.LogFactory;
 
+import com.amazonaws.SDKGlobalConfiguration;
+
 /**
  * This class is responsible for executing the callback method of
  * ProgressListener; listener callbacks are executed sequentially in a separate
  * single thread.
+ * <p>
+ * If the system property
+ * {@link SDKGlobalConfiguration#ENABLE_COALESCED_PROGRESS_DELIVERY_SYSTEM_PROPERTY}
+ * is set, byte transfer events are instead coalesced per listener over a short
+ * time window, and listener callbacks are partitioned per listener across
+ * several threads, each listener still receiving its events sequentially.
  */
 public class SDKProgressPublisher {
 
+    private static final boolean coalescedDelivery =
+            SDKGlobalConfiguration.isCoalescedProgressDeliveryEnabled();
+
     /**
      * Used for testing purposes only.
      */
@@ -72,6 +83,9 @@ public class SDKProgressPublisher {
         // This is unfortunate as the listener should never block in the first
         // place, but such task submission is necessary to remain backward
         // compatible.
+        if (coalescedDelivery) {
+            return latestFutureTask = CoalescingHolder.dispatcher.deliver(listener, event);
+        }
         return latestFutureTask = LazyHolder.executor.submit(new Runnable() {
             @Override
             public void run() {
@@ -260,6 +274,15 @@ public class SDKProgressPublisher {
         }
     }
 
+    /**
+     * Used to avoid creating the extra threads unless coalesced delivery is
+     * enabled and needed.
+     */
+    private static final class CoalescingHolder {
+        private static final CoalescingProgressDispatcher dispatcher =
+                new CoalescingProgressDispatcher();
+    }
+
     /**
      * Can be used to shutdown the (legacy) executor.
      * <p>
@@ -276,5 +299,7 @@ public class SDKProgressPublisher {
             LazyHolder.executor.shutdownNow();
         else
             LazyHolder.executor.shutdown();
+        if (coalescedDelivery)
+            CoalescingHolder.dispatcher.shutdown(now);
     }
 }
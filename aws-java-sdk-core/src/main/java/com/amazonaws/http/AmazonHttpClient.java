@@ -57,6 +57,7 @@ import com.amazonaws.http.timers.request.HttpRequestAbortTaskTracker;
 import com.amazonaws.http.timers.request.HttpRequestTimer;
 import com.amazonaws.internal.AmazonWebServiceRequestAdapter;
 import com.amazonaws.internal.CRC32MismatchException;
+import com.amazonaws.internal.FIFOCache;
 import com.amazonaws.internal.ReleasableInputStream;
 import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.internal.SdkBufferedInputStream;
@@ -65,6 +66,7 @@ import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.retry.internal.AdaptiveRateLimiter;
 import com.amazonaws.retry.internal.AuthErrorRetryStrategy;
 import com.amazonaws.retry.internal.AuthRetryParameters;
 import com.amazonaws.util.AWSRequestMetrics;
@@ -204,7 +206,42 @@ public class AmazonHttpClient {
     /**
      * Retry capacity manager, used to manage throttled retry resource
      */
-    private final CapacityManager retryCapacity;
+    private final CapacityManager sharedRetryCapacity;
+
+    /**
+     * Maximum number of retry capacity pools kept when retry capacity is tracked per host or
+     * operation. Every bucket of S3 is a distinct host, so the pools of the least recently created
+     * keys are dropped beyond this limit.
+     */
+    private static final int MAX_RETRY_CAPACITY_POOLS = 256;
+
+    /**
+     * Retry capacity managers keyed by endpoint host and/or operation, used instead of {@link
+     * #sharedRetryCapacity} when {@link ClientConfiguration#useRetryCapacityPerHost()} or {@link
+     * ClientConfiguration#useRetryCapacityPerOperation()} is enabled.
+     */
+    private final FIFOCache<CapacityManager> retryCapacityPools =
+            new FIFOCache<CapacityManager>(MAX_RETRY_CAPACITY_POOLS);
+
+    /**
+     * Maximum capacity of each retry capacity pool, or a negative value if retry throttling is
+     * disabled.
+     */
+    private final int throttledRetryMaxCapacity;
+
+    /**
+     * Maximum number of endpoint hosts whose adaptive rate limiters are kept. Beyond it the
+     * limiters of the least recently created hosts are dropped, and recreated without throttling
+     * history if their host is used again.
+     */
+    private static final int MAX_RATE_LIMITERS = 256;
+
+    /**
+     * Adaptive rate limiters keyed by endpoint host, populated only when
+     * {@link ClientConfiguration#useAdaptiveRateLimiting()} is enabled.
+     */
+    private final FIFOCache<AdaptiveRateLimiter> hostRateLimiters =
+            new FIFOCache<AdaptiveRateLimiter>(MAX_RATE_LIMITERS);
 
     /**
      * Timer to enforce timeouts on the whole execution of the request (request handlers, retries,
@@ -328,9 +365,83 @@ public class AmazonHttpClient {
 
         // When enabled, total retry capacity is computed based on retry cost
         // and desired number of retries.
-        int throttledRetryMaxCapacity = clientConfig.useThrottledRetries()
+        this.throttledRetryMaxCapacity = clientConfig.useThrottledRetries()
                 ? THROTTLED_RETRY_COST * THROTTLED_RETRIES : -1;
-        this.retryCapacity = new CapacityManager(throttledRetryMaxCapacity);
+        this.sharedRetryCapacity = new CapacityManager(throttledRetryMaxCapacity);
+    }
+
+    /**
+     * Returns the retry capacity pool to be used for the given request; either the one shared by
+     * the whole client or the one dedicated to the host of the request's endpoint and/or to its
+     * operation.
+     */
+    private CapacityManager getRetryCapacity(Request<?> request) {
+        final String key = getRetryCapacityKey(request);
+        if (key == null) {
+            return sharedRetryCapacity;
+        }
+        CapacityManager capacity = retryCapacityPools.get(key);
+        if (capacity == null) {
+            // Racing threads may each create a pool; the last one added is kept, and capacity
+            // acquired from the others is still released to the pool it was acquired from.
+            capacity = new CapacityManager(throttledRetryMaxCapacity);
+            retryCapacityPools.add(key, capacity);
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the key of the retry capacity pool of the given request, or null if it uses the pool
+     * shared by the whole client.
+     */
+    private String getRetryCapacityKey(Request<?> request) {
+        if (throttledRetryMaxCapacity < 0) {
+            return null;
+        }
+        final boolean perHost = config.useRetryCapacityPerHost() && request.getEndpoint() != null;
+        final boolean perOperation = config.useRetryCapacityPerOperation()
+                                     && request.getOriginalRequest() != null;
+        if (perHost && perOperation) {
+            return request.getEndpoint().getHost() + " "
+                   + request.getOriginalRequest().getClass().getName();
+        } else if (perHost) {
+            return request.getEndpoint().getHost();
+        } else if (perOperation) {
+            return request.getOriginalRequest().getClass().getName();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of retries, across all the retry capacity pools of this client, that
+     * were not attempted because the retry capacity was depleted. Pools dropped because too many
+     * hosts or operations are tracked no longer contribute to it.
+     */
+    public long getRejectedRetryCount() {
+        long count = sharedRetryCapacity.rejectedAcquisitions();
+        for (CapacityManager capacity : retryCapacityPools.values()) {
+            count += capacity.rejectedAcquisitions();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the adaptive rate limiter for the host of the request's endpoint, or null if
+     * adaptive rate limiting is disabled.
+     */
+    private AdaptiveRateLimiter getRateLimiter(Request<?> request) {
+        if (!config.useAdaptiveRateLimiting() || request.getEndpoint() == null) {
+            return null;
+        }
+        final String host = request.getEndpoint().getHost();
+        AdaptiveRateLimiter rateLimiter = hostRateLimiters.get(host);
+        if (rateLimiter == null) {
+            // Racing threads may each create a limiter for a new host; only the last one added is
+            // kept, which only matters before the host has been throttled.
+            rateLimiter = new AdaptiveRateLimiter();
+            hostRateLimiters.add(host, rateLimiter);
+        }
+        return rateLimiter;
     }
 
     private static boolean isTemporaryRedirect(org.apache.http.HttpResponse response) {
@@ -592,6 +703,15 @@ public class AmazonHttpClient {
         private final ExecutionContext executionContext;
         private final List<RequestHandler2> requestHandler2s;
         private final AWSRequestMetrics awsRequestMetrics;
+        /**
+         * Retry capacity pool resolved once per execution, so that capacity acquired for a retry
+         * is released to the same pool even if the request is redirected to another host.
+         */
+        private final CapacityManager retryCapacity;
+        /**
+         * Adaptive rate limiter resolved once per execution, or null if disabled.
+         */
+        private final AdaptiveRateLimiter rateLimiter;
 
         private RequestExecutor(Request<?> request, RequestConfig requestConfig,
                                 HttpResponseHandler<AmazonServiceException> errorResponseHandler,
@@ -605,6 +725,8 @@ public class AmazonHttpClient {
             this.executionContext = executionContext;
             this.requestHandler2s = requestHandler2s;
             this.awsRequestMetrics = executionContext.getAwsRequestMetrics();
+            this.retryCapacity = getRetryCapacity(request);
+            this.rateLimiter = getRateLimiter(request);
         }
 
         /**
@@ -1054,6 +1176,12 @@ public class AmazonHttpClient {
             }
             updateRetryHeaderInfo(request, execOneParams);
 
+            // Wait for the rate limiter before signing, so the signature is not aged by the wait
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+                checkInterrupted();
+            }
+
             // Sign the request if a signer was provided
             execOneParams.newSigner(request, executionContext);
             if (execOneParams.signer != null &&
@@ -1125,6 +1253,9 @@ public class AmazonHttpClient {
             final int statusCode = statusLine == null ? -1 : statusLine.getStatusCode();
             if (isRequestSuccessful(execOneParams.apacheResponse)) {
                 awsRequestMetrics.addProperty(Field.StatusCode, statusCode);
+                if (rateLimiter != null) {
+                    rateLimiter.onResponse(false);
+                }
             /*
              * If we get back any 2xx status code, then we know we should treat the service call as
              * successful.
@@ -1171,6 +1302,9 @@ public class AmazonHttpClient {
             awsRequestMetrics.addPropertyWith(Field.AWSRequestID, ase.getRequestId())
                     .addPropertyWith(Field.AWSErrorCode, ase.getErrorCode())
                     .addPropertyWith(Field.StatusCode, ase.getStatusCode());
+            if (rateLimiter != null) {
+                rateLimiter.onResponse(RetryUtils.isThrottlingException(ase));
+            }
             // Check whether we should internally retry the auth error
             execOneParams.authRetryParam = null;
             AuthErrorRetryStrategy authRetry = executionContext.getAuthErrorRetryStrategy();
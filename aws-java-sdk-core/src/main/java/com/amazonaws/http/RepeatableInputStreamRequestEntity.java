@@ -41,6 +41,16 @@ import java.io.OutputStream;
  */
 public class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
 
+    /**
+     * Upper bound of the buffer used to copy the content to the connection.
+     * Apache's InputStreamEntity copies in fixed 4 KiB chunks, which for large
+     * uploads means one pass through every wrapping input stream, one socket
+     * write and one TLS record per 4 KiB.
+     */
+    static final int MAX_OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MIN_OUTPUT_BUFFER_SIZE = 4 * 1024;
+
     /** True if the request entity hasn't been written out yet */
     private boolean firstAttempt = true;
 
@@ -103,7 +113,7 @@ public class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
                         ServiceMetricType.UPLOAD_BYTE_COUNT_NAME_SUFFIX);
 
         content = getContent(request);
-        inputStreamRequestEntity = (type == null) ? new InputStreamEntity(content, contentLength) :
+        inputStreamRequestEntity = (type == null) ? new ContentEntity(content, contentLength) :
                 new MetricInputStreamEntity(type, content, contentLength);
         inputStreamRequestEntity.setContentType(contentType);
 
@@ -164,4 +174,59 @@ public class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
         }
     }
 
+    /**
+     * Returns the size of the buffer to copy content of the given length with:
+     * large enough to move a whole upload in few writes, but never larger than
+     * the content itself.
+     */
+    static int outputBufferSize(long contentLength) {
+        if (contentLength < 0) {
+            return MIN_OUTPUT_BUFFER_SIZE;
+        }
+        return (int) Math.max(MIN_OUTPUT_BUFFER_SIZE, Math.min(MAX_OUTPUT_BUFFER_SIZE, contentLength));
+    }
+
+    /**
+     * InputStreamEntity that copies its content with a buffer sized by
+     * {@link #outputBufferSize(long)} instead of a fixed 4 KiB one.
+     */
+    private static final class ContentEntity extends InputStreamEntity {
+
+        ContentEntity(InputStream content, long length) {
+            super(content, length);
+        }
+
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            if (output == null) {
+                throw new IllegalArgumentException("Output stream may not be null");
+            }
+            final InputStream instream = getContent();
+            final long length = getContentLength();
+            try {
+                final byte[] buffer = new byte[outputBufferSize(length)];
+                int l;
+                if (length < 0) {
+                    // consume until EOF
+                    while ((l = instream.read(buffer)) != -1) {
+                        output.write(buffer, 0, l);
+                    }
+                } else {
+                    // consume no more than length
+                    long remaining = length;
+                    while (remaining > 0) {
+                        l = instream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (l == -1) {
+                            break;
+                        }
+                        output.write(buffer, 0, l);
+                        remaining -= l;
+                    }
+                }
+            } finally {
+                instream.close();
+            }
+        }
+    }
+
 }
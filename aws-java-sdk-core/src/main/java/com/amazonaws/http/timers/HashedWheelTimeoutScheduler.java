@@ -0,0 +1,411 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.timers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.annotation.SdkTestInternalApi;
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * Process-wide scheduler for the request timeout and client execution timeout
+ * features, built as a hashed timing wheel.
+ * <p>
+ * Timeouts are hashed into a ring of buckets by their deadline, and a single
+ * worker thread advances through the ring one tick at a time, running the
+ * tasks whose deadline has passed. Scheduling and canceling are O(1) and
+ * lock-free for the caller: new and canceled timeouts are handed to the worker
+ * through queues and only the worker touches the buckets. Timeouts fire up to
+ * one tick late, which is negligible for timeouts in the order of seconds.
+ * <p>
+ * Expired tasks are handed to a small pool of daemon threads, so a task that
+ * blocks, such as an abort that waits on a connection, can't hold up the
+ * timeouts of other requests. The worker thread and the task threads are
+ * started on demand and stop once no timeouts have been pending for a while.
+ */
+@SdkInternalApi
+@ThreadSafe
+public final class HashedWheelTimeoutScheduler {
+
+    private static final Log LOG = LogFactory.getLog(HashedWheelTimeoutScheduler.class);
+
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+    private static final long DEFAULT_IDLE_MILLIS = 5000;
+
+    private static final HashedWheelTimeoutScheduler INSTANCE = new HashedWheelTimeoutScheduler(
+            DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, DEFAULT_IDLE_MILLIS);
+
+    private static final int WORKER_STOPPED = 0;
+    private static final int WORKER_RUNNING = 1;
+
+    private final long tickNanos;
+    private final long idleNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor taskExecutor;
+
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    /** Timeouts that have been scheduled but have neither expired nor been canceled. */
+    private final AtomicInteger pendingTimeouts = new AtomicInteger();
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_STOPPED);
+
+    /**
+     * @param tickMillis
+     *            The resolution of the wheel.
+     * @param wheelSize
+     *            The number of buckets, rounded up to a power of two.
+     * @param idleMillis
+     *            How long the worker thread waits without pending timeouts
+     *            before stopping.
+     */
+    @SdkTestInternalApi
+    HashedWheelTimeoutScheduler(long tickMillis, int wheelSize, long idleMillis) {
+        this(tickMillis, wheelSize, idleMillis, newTaskExecutor(idleMillis));
+    }
+
+    /**
+     * @param tickMillis
+     *            The resolution of the wheel.
+     * @param wheelSize
+     *            The number of buckets, rounded up to a power of two.
+     * @param idleMillis
+     *            How long the worker thread waits without pending timeouts
+     *            before stopping.
+     * @param taskExecutor
+     *            Runs the tasks of expired timeouts.
+     */
+    @SdkTestInternalApi
+    HashedWheelTimeoutScheduler(long tickMillis, int wheelSize, long idleMillis, Executor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return The scheduler shared by all clients in the process.
+     */
+    public static HashedWheelTimeoutScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedules the task to run once the delay has elapsed, unless the
+     * returned timeout is canceled first.
+     *
+     * @param task
+     *            Task to run on one of the scheduler's task threads when the
+     *            timeout expires.
+     * @param delayMillis
+     *            Delay before the timeout expires.
+     * @return Handle to cancel the timeout with.
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(this, task,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0)));
+        pendingTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        if (workerState.get() == WORKER_STOPPED && workerState.compareAndSet(WORKER_STOPPED, WORKER_RUNNING)) {
+            startWorker();
+        }
+        return timeout;
+    }
+
+    /**
+     * @return The number of timeouts that have been scheduled but have neither
+     *         expired nor been canceled.
+     */
+    @SdkTestInternalApi
+    public int getPendingTimeoutCount() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * @return True if the worker thread is running.
+     */
+    @SdkTestInternalApi
+    public boolean isWorkerRunning() {
+        return workerState.get() == WORKER_RUNNING;
+    }
+
+    /**
+     * @return How long the worker thread stays up without pending timeouts.
+     */
+    @SdkTestInternalApi
+    public long getIdleMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(idleNanos);
+    }
+
+    /**
+     * Returns a pool of daemon threads, one per processor and at least two,
+     * whose threads stop after being idle for the given time.
+     */
+    private static Executor newTaskExecutor(long idleMillis) {
+        final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, idleMillis, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "aws-sdk-timeout-task");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void startWorker() {
+        Thread thread = new Thread(new Worker(), "aws-sdk-timeout-scheduler");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    private final class Worker implements Runnable {
+        private long startNanos;
+        private long tick;
+
+        @Override
+        public void run() {
+            startNanos = System.nanoTime();
+            tick = 0;
+            long idleSinceNanos = startNanos;
+            while (true) {
+                final long now = waitForNextTick();
+                removeCancelledTimeouts();
+                transferNewTimeouts();
+                wheel[(int) (tick & mask)].expireTimeouts();
+                tick++;
+
+                if (pendingTimeouts.get() > 0) {
+                    idleSinceNanos = now;
+                } else if (now - idleSinceNanos >= idleNanos && tryStop()) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Stops the worker unless a timeout was scheduled concurrently, in
+         * which case the scheduling thread relies on this worker to handle it.
+         */
+        private boolean tryStop() {
+            workerState.set(WORKER_STOPPED);
+            if (newTimeouts.isEmpty() || !workerState.compareAndSet(WORKER_STOPPED, WORKER_RUNNING)) {
+                // Either nothing is pending or a new worker has been started
+                return true;
+            }
+            return false;
+        }
+
+        private long waitForNextTick() {
+            final long deadline = startNanos + (tick + 1) * tickNanos;
+            while (true) {
+                final long now = System.nanoTime();
+                final long sleepNanos = deadline - now;
+                if (sleepNanos <= 0) {
+                    return now;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException ignored) {
+                    // The worker is never interrupted on purpose; keep ticking
+                }
+            }
+        }
+
+        private void transferNewTimeouts() {
+            Timeout timeout;
+            while ((timeout = newTimeouts.poll()) != null) {
+                if (timeout.state() == Timeout.CANCELLED) {
+                    continue;
+                }
+                long ticks = (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+                // Expire timeouts whose deadline has already passed on this tick
+                ticks = Math.max(ticks, tick);
+                timeout.remainingRounds = (ticks - tick) / wheel.length;
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+
+        private void removeCancelledTimeouts() {
+            Timeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts hashed to one slot of the wheel; only
+     * accessed by the worker thread.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expireTimeouts() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    /**
+     * Handle to a scheduled task.
+     */
+    public static final class Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater
+                .newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimeoutScheduler scheduler;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state = INIT;
+
+        // Only accessed by the worker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HashedWheelTimeoutScheduler scheduler, Runnable task, long deadlineNanos) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancels the timeout so its task never runs. Has no effect once the
+         * task has started running.
+         *
+         * @return True if the timeout was canceled by this call.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, INIT, CANCELLED)) {
+                return false;
+            }
+            scheduler.pendingTimeouts.decrementAndGet();
+            scheduler.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        /**
+         * @return True if the timeout was canceled.
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * @return True if the timeout expired and its task has been handed to
+         *         the scheduler's task threads.
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private int state() {
+            return state;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, INIT, EXPIRED)) {
+                return;
+            }
+            scheduler.pendingTimeouts.decrementAndGet();
+            Runnable run = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        LOG.warn("Timeout task threw an exception", t);
+                    }
+                }
+            };
+            try {
+                scheduler.taskExecutor.execute(run);
+            } catch (RejectedExecutionException e) {
+                run.run();
+            }
+        }
+    }
+}
@@ -14,25 +14,24 @@
  */
 package com.amazonaws.http.timers.client;
 
-import java.util.concurrent.ScheduledFuture;
-
 import org.apache.http.client.methods.HttpRequestBase;
 
 import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.http.timers.HashedWheelTimeoutScheduler.Timeout;
 import com.amazonaws.util.ValidationUtils;
 
 /**
- * Keeps track of the scheduled {@link ClientExecutionAbortTask} and the associated {@link Future}
+ * Keeps track of the scheduled {@link ClientExecutionAbortTask} and the associated {@link Timeout}
  */
 @SdkInternalApi
 public class ClientExecutionAbortTrackerTaskImpl implements ClientExecutionAbortTrackerTask {
 
     private final ClientExecutionAbortTask task;
-    private final ScheduledFuture<?> future;
+    private final Timeout timeout;
 
-    public ClientExecutionAbortTrackerTaskImpl(final ClientExecutionAbortTask task, final ScheduledFuture<?> future) {
+    public ClientExecutionAbortTrackerTaskImpl(final ClientExecutionAbortTask task, final Timeout timeout) {
         this.task = ValidationUtils.assertNotNull(task, "task");
-        this.future = ValidationUtils.assertNotNull(future, "future");
+        this.timeout = ValidationUtils.assertNotNull(timeout, "timeout");
     }
 
     @Override
@@ -54,6 +53,6 @@ public class ClientExecutionAbortTrackerTaskImpl implements ClientExecutionAbort
     public void cancelTask() {
         // Ensure task is canceled even if it's running as we don't want the Thread to be
         // interrupted in the caller's code
-        future.cancel(false);
+        timeout.cancel();
     }
 }
\ No newline at end of file
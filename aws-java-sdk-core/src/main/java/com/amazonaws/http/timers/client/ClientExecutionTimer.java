@@ -14,26 +14,28 @@
  */
 package com.amazonaws.http.timers.client;
 
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.amazonaws.annotation.SdkInternalApi;
 import com.amazonaws.annotation.SdkTestInternalApi;
 import com.amazonaws.annotation.ThreadSafe;
 import com.amazonaws.http.AmazonHttpClient;
-import com.amazonaws.http.timers.TimeoutThreadPoolBuilder;
+import com.amazonaws.http.timers.HashedWheelTimeoutScheduler;
+import com.amazonaws.http.timers.HashedWheelTimeoutScheduler.Timeout;
 
 /**
  * Represents a timer to enforce a timeout on the total client execution time. That is the time
  * spent executing request handlers, any HTTP request including retries, unmarshalling, etc.
- * Essentially all the time spent in {@link AmazonHttpClient}
+ * Essentially all the time spent in {@link AmazonHttpClient}. Timer tasks are scheduled on the
+ * process-wide {@link HashedWheelTimeoutScheduler} shared with every other client.
  */
 @SdkInternalApi
 @ThreadSafe
 public class ClientExecutionTimer {
 
-    private volatile ScheduledThreadPoolExecutor executor;
+    private final HashedWheelTimeoutScheduler scheduler = HashedWheelTimeoutScheduler.getInstance();
+
+    private final AtomicLong triggeredTaskCount = new AtomicLong();
 
     /**
      * Start the timer with the specified timeout and return a object that can be used to track the
@@ -48,50 +50,65 @@ public class ClientExecutionTimer {
     public ClientExecutionAbortTrackerTask startTimer(int clientExecutionTimeoutMillis) {
         if (isTimeoutDisabled(clientExecutionTimeoutMillis)) {
             return NoOpClientExecutionAbortTrackerTask.INSTANCE;
-        } else if (executor == null) {
-            initializeExecutor();
         }
         return scheduleTimerTask(clientExecutionTimeoutMillis);
     }
 
     /**
-     * Executor is lazily initialized as it's not compatible with Java 6
+     * This method is current exposed for testing purposes
+     *
+     * @return The number of timer tasks started by this timer whose timeout expired
      */
-    private synchronized void initializeExecutor() {
-        if (executor == null) {
-            executor = TimeoutThreadPoolBuilder.buildDefaultTimeoutThreadPool();
-        }
+    @SdkTestInternalApi
+    public long getTriggeredTaskCount() {
+        return triggeredTaskCount.get();
     }
 
     /**
      * This method is current exposed for testing purposes
-     * 
-     * @return The underlying {@link ScheduledThreadPoolExecutor}
+     *
+     * @return The scheduler timer tasks run on
      */
     @SdkTestInternalApi
-    public ScheduledThreadPoolExecutor getExecutor() {
-        return this.executor;
+    public HashedWheelTimeoutScheduler getScheduler() {
+        return scheduler;
     }
 
     /**
-     * Shutdown the underlying {@link ScheduledThreadPoolExecutor}. Should be invoked when
-     * {@link AmazonHttpClient} is shutdown
+     * Does nothing; the shared scheduler outlives individual clients and its thread stops on its
+     * own once no timeouts are pending. Kept so {@link AmazonHttpClient} can still signal shutdown.
      */
-    public synchronized void shutdown() {
-        if (executor != null) {
-            executor.shutdown();
-        }
+    public void shutdown() {
     }
 
     private ClientExecutionAbortTrackerTask scheduleTimerTask(int clientExecutionTimeoutMillis) {
-        ClientExecutionAbortTask timerTask = new ClientExecutionAbortTaskImpl(Thread.currentThread());
-        ScheduledFuture<?> timerTaskFuture = executor.schedule(timerTask, clientExecutionTimeoutMillis,
-                TimeUnit.MILLISECONDS);
-        return new ClientExecutionAbortTrackerTaskImpl(timerTask, timerTaskFuture);
+        ClientExecutionAbortTask timerTask = new CountingClientExecutionAbortTask(Thread.currentThread(),
+                triggeredTaskCount);
+        Timeout timeout = scheduler.schedule(timerTask, clientExecutionTimeoutMillis);
+        return new ClientExecutionAbortTrackerTaskImpl(timerTask, timeout);
     }
 
     private boolean isTimeoutDisabled(int clientExecutionTimeoutMillis) {
         return clientExecutionTimeoutMillis <= 0;
     }
 
+    /**
+     * Aborts the client execution once the timeout expires, counting the expired timeouts of the
+     * timer.
+     */
+    private static final class CountingClientExecutionAbortTask extends ClientExecutionAbortTaskImpl {
+        private final AtomicLong triggeredTaskCount;
+
+        CountingClientExecutionAbortTask(Thread thread, AtomicLong triggeredTaskCount) {
+            super(thread);
+            this.triggeredTaskCount = triggeredTaskCount;
+        }
+
+        @Override
+        public void run() {
+            triggeredTaskCount.incrementAndGet();
+            super.run();
+        }
+    }
+
 }
@@ -14,25 +14,28 @@
  */
 package com.amazonaws.http.timers.request;
 
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.http.client.methods.HttpRequestBase;
 
 import com.amazonaws.annotation.SdkInternalApi;
 import com.amazonaws.annotation.SdkTestInternalApi;
 import com.amazonaws.annotation.ThreadSafe;
-import com.amazonaws.http.timers.TimeoutThreadPoolBuilder;
+import com.amazonaws.http.AmazonHttpClient;
+import com.amazonaws.http.timers.HashedWheelTimeoutScheduler;
+import com.amazonaws.http.timers.HashedWheelTimeoutScheduler.Timeout;
 
 /**
- * Represents a timer class to enforce HTTP request timeouts.
+ * Represents a timer class to enforce HTTP request timeouts. Timer tasks are scheduled on the
+ * process-wide {@link HashedWheelTimeoutScheduler} shared with every other client.
  */
 @ThreadSafe
 @SdkInternalApi
 public class HttpRequestTimer {
 
-    private volatile ScheduledThreadPoolExecutor executor;
+    private final HashedWheelTimeoutScheduler scheduler = HashedWheelTimeoutScheduler.getInstance();
+
+    private final AtomicLong triggeredTaskCount = new AtomicLong();
 
     /**
      * Start the timer with the specified timeout and return a object that can be used to track the
@@ -49,12 +52,10 @@ public class HttpRequestTimer {
     public HttpRequestAbortTaskTracker startTimer(final HttpRequestBase apacheRequest, final int requestTimeoutMillis) {
         if (isTimeoutDisabled(requestTimeoutMillis)) {
             return NoOpHttpRequestAbortTaskTracker.INSTANCE;
-        } else if (executor == null) {
-            initializeExecutor();
         }
-        HttpRequestAbortTaskImpl timerTask = new HttpRequestAbortTaskImpl(apacheRequest);
-        ScheduledFuture<?> timerTaskFuture = executor.schedule(timerTask, requestTimeoutMillis, TimeUnit.MILLISECONDS);
-        return new HttpRequestAbortTaskTrackerImpl(timerTask, timerTaskFuture);
+        HttpRequestAbortTaskImpl timerTask = new CountingHttpRequestAbortTask(apacheRequest, triggeredTaskCount);
+        Timeout timeout = scheduler.schedule(timerTask, requestTimeoutMillis);
+        return new HttpRequestAbortTaskTrackerImpl(timerTask, timeout);
     }
 
     private boolean isTimeoutDisabled(final int requestTimeoutMillis) {
@@ -62,32 +63,48 @@ public class HttpRequestTimer {
     }
 
     /**
-     * Executor is lazily initialized as it's not compatible with Java 6
+     * Does nothing; the shared scheduler outlives individual clients and its thread stops on its
+     * own once no timeouts are pending. Kept so {@link AmazonHttpClient} can still signal shutdown.
      */
-    private synchronized void initializeExecutor() {
-        if (executor == null) {
-            executor = TimeoutThreadPoolBuilder.buildDefaultTimeoutThreadPool();
-        }
+    public void shutdown() {
     }
 
     /**
-     * Shutdown the underlying {@link ScheduledThreadPoolExecutor}. Should be invoked when
-     * {@link AmazonHttpClient} is shutdown
+     * This method is current exposed for testing purposes
+     *
+     * @return The number of timer tasks started by this timer whose timeout expired
      */
-    public synchronized void shutdown() {
-        if (executor != null) {
-            executor.shutdown();
-        }
+    @SdkTestInternalApi
+    public long getTriggeredTaskCount() {
+        return triggeredTaskCount.get();
     }
 
     /**
      * This method is current exposed for testing purposes
-     * 
-     * @return The underlying {@link ScheduledThreadPoolExecutor}
+     *
+     * @return The scheduler timer tasks run on
      */
     @SdkTestInternalApi
-    public ScheduledThreadPoolExecutor getExecutor() {
-        return executor;
+    public HashedWheelTimeoutScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Aborts the request once the timeout expires, counting the expired timeouts of the timer.
+     */
+    private static final class CountingHttpRequestAbortTask extends HttpRequestAbortTaskImpl {
+        private final AtomicLong triggeredTaskCount;
+
+        CountingHttpRequestAbortTask(HttpRequestBase httpRequest, AtomicLong triggeredTaskCount) {
+            super(httpRequest);
+            this.triggeredTaskCount = triggeredTaskCount;
+        }
+
+        @Override
+        public void run() {
+            triggeredTaskCount.incrementAndGet();
+            super.run();
+        }
     }
 
 }
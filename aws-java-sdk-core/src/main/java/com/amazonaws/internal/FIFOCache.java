@@ -14,23 +14,31 @@
  */
 package com.amazonaws.internal;
 
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import com.amazonaws.annotation.ThreadSafe;
 
 /**
  * A bounded cache that has a FIFO eviction policy when the cache is full.
+ * <p>
+ * Reads never block and don't write to any shared state, which makes the cache suitable for hot
+ * paths such as request signing. The bound is enforced right after each insertion of a new key, so
+ * under concurrent insertions the cache may briefly hold a few more entries than its maximum size.
  *
  * @param <T>
  *            value type
  */
 @ThreadSafe
 public final class FIFOCache<T> {
-    private final BoundedLinkedHashMap<String, T> map;
-    private final ReadLock rlock;
-    private final WriteLock wlock;
+    private final ConcurrentMap<String, T> map;
+    /** Keys in the order they were first inserted, eldest first. */
+    private final Queue<String> insertionOrder;
+    private final int maxSize;
 
     /**
      * @param maxSize
@@ -41,60 +49,64 @@ public final class FIFOCache<T> {
             throw new IllegalArgumentException("maxSize " + maxSize
                     + " must be at least 1");
         }
-        map = new BoundedLinkedHashMap<String, T>(maxSize);
-        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-        rlock = lock.readLock();
-        wlock = lock.writeLock();
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<String, T>(maxSize);
+        this.insertionOrder = new ConcurrentLinkedQueue<String>();
     }
 
     /**
      * Adds an entry to the cache, evicting the earliest entry if necessary.
      */
     public T add(String key, T value) {
-        wlock.lock();
-        try {
-            return map.put(key, value);
-        } finally {
-            wlock.unlock();
+        final T previous = map.put(key, value);
+        if (previous == null) {
+            insertionOrder.offer(key);
+            evictEldestEntries();
         }
+        return previous;
     }
 
     /** Returns the value of the given key; or null of no such entry exists. */
     public T get(String key) {
-        rlock.lock();
-        try {
-            return map.get(key);
-        } finally {
-            rlock.unlock();
-        }
+        return map.get(key);
+    }
+
+    /**
+     * Returns a read-only, weakly consistent view of the values in the cache.
+     */
+    public Collection<T> values() {
+        return Collections.unmodifiableCollection(map.values());
     }
 
     /**
      * Returns the current size of the cache.
      */
     public int size() {
-        rlock.lock();
-        try {
-            return map.size();
-        } finally {
-            rlock.unlock();
-        }
+        return map.size();
     }
 
     /**
      * Returns the maximum size of the cache.
      */
     public int getMaxSize() {
-        return map.getMaxSize();
+        return maxSize;
+    }
+
+    /**
+     * Removes the earliest inserted entries until the cache is within its maximum size.
+     */
+    private void evictEldestEntries() {
+        while (map.size() > maxSize) {
+            final String eldest = insertionOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            map.remove(eldest);
+        }
     }
 
     @Override
     public String toString() {
-        rlock.lock();
-        try {
-            return map.toString();
-        } finally {
-            rlock.unlock();
-        }
+        return map.toString();
     }
 }
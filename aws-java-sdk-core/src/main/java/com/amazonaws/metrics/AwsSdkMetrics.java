@@ -627,6 +627,25 @@ public enum AwsSdkMetrics {
         return false;
     }
 
+    /**
+     * Starts a {@link HistogramMetricCollector} that keeps latency histograms
+     * of requests in memory, readable over JMX, but only if no metric
+     * collector is currently in use at the AWS SDK level.
+     *
+     * @return true if the histogram metric collector has been successfully
+     *         started by this call; false otherwise.
+     */
+    public static synchronized boolean enableHistogramMetrics() {
+        if (mc == null || !mc.isEnabled()) {
+            HistogramMetricCollector instance = new HistogramMetricCollector();
+            if (instance.start()) {
+                setMetricCollector(instance);
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Convenient method to disable the metric collector at the AWS SDK
      * level.
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+/**
+ * A service provider interface to publish the histograms kept by a
+ * {@link HistogramRequestMetricCollector}, for example to a monitoring system.
+ *
+ * @see HistogramMetricCollector
+ */
+public interface HistogramExporter {
+    /**
+     * Publishes the histogram of a metric type for a request type.
+     *
+     * @param serviceName
+     *            the name of the service, such as AmazonDynamoDBv2.
+     * @param requestType
+     *            the simple class name of the request, such as GetItemRequest.
+     * @param metricType
+     *            the metric type, such as
+     *            {@link com.amazonaws.util.AWSRequestMetrics.Field#ClientExecuteTime}.
+     * @param latency
+     *            true if the values of the histogram are latencies in
+     *            microseconds; false if they are counts.
+     * @param snapshot
+     *            the recorded values; never empty.
+     */
+    public void export(String serviceName, String requestType, MetricType metricType, boolean latency,
+            HistogramSnapshot snapshot);
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * A metric collector that keeps request metrics in a
+ * {@link HistogramRequestMetricCollector} and, if any exporters are
+ * configured, passes the histograms to them at a fixed interval, resetting the
+ * histograms each time. Without exporters, the histograms accumulate until
+ * they are read and reset over JMX.
+ * <p>
+ * For example, to log the latency percentiles of every request type once a
+ * minute:
+ *
+ * <pre class="brush: java">
+ * HistogramMetricCollector collector = new HistogramMetricCollector(
+ *         new HistogramRequestMetricCollector(),
+ *         Collections.&lt;HistogramExporter&gt;singletonList(new LoggingHistogramExporter()),
+ *         60 * 1000);
+ * collector.start();
+ * AwsSdkMetrics.setMetricCollector(collector);
+ * </pre>
+ */
+@ThreadSafe
+public class HistogramMetricCollector extends MetricCollector {
+    private static final Log log = LogFactory.getLog(HistogramMetricCollector.class);
+
+    private final HistogramRequestMetricCollector requestMetricCollector;
+    private final List<HistogramExporter> exporters;
+    private final long exportIntervalMillis;
+
+    // Guarded by this
+    private ScheduledExecutorService executor;
+    private volatile boolean started;
+
+    /**
+     * Creates a collector keeping histograms of the
+     * {@link HistogramRequestMetricCollector#DEFAULT_METRIC_TYPES} without
+     * exporting them.
+     */
+    public HistogramMetricCollector() {
+        this(new HistogramRequestMetricCollector(), Collections.<HistogramExporter> emptyList(), 0);
+    }
+
+    /**
+     * @param requestMetricCollector
+     *            the collector keeping the histograms.
+     * @param exporters
+     *            the exporters to pass the histograms to.
+     * @param exportIntervalMillis
+     *            how often to export the histograms; must be positive if any
+     *            exporter is given.
+     */
+    public HistogramMetricCollector(HistogramRequestMetricCollector requestMetricCollector,
+            List<HistogramExporter> exporters, long exportIntervalMillis) {
+        if (!exporters.isEmpty() && exportIntervalMillis <= 0) {
+            throw new IllegalArgumentException("exportIntervalMillis must be positive");
+        }
+        this.requestMetricCollector = requestMetricCollector;
+        this.exporters = new ArrayList<HistogramExporter>(exporters);
+        this.exportIntervalMillis = exportIntervalMillis;
+    }
+
+    @Override
+    public synchronized boolean start() {
+        if (started) {
+            return false;
+        }
+        if (!exporters.isEmpty()) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "java-sdk-histogram-exporter");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    exportNow();
+                }
+            }, exportIntervalMillis, exportIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        started = true;
+        return true;
+    }
+
+    /**
+     * Stops exporting, after a final export of the values recorded since the
+     * previous one.
+     */
+    @Override
+    public synchronized boolean stop() {
+        if (!started) {
+            return false;
+        }
+        started = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            exportNow();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return started;
+    }
+
+    @Override
+    public HistogramRequestMetricCollector getRequestMetricCollector() {
+        return requestMetricCollector;
+    }
+
+    @Override
+    public ServiceMetricCollector getServiceMetricCollector() {
+        return ServiceMetricCollector.NONE;
+    }
+
+    /**
+     * Passes the values recorded since the previous export to every exporter
+     * and resets the histograms.
+     */
+    void exportNow() {
+        requestMetricCollector.export(new HistogramExporter() {
+            @Override
+            public void export(String serviceName, String requestType, MetricType metricType, boolean latency,
+                    HistogramSnapshot snapshot) {
+                for (HistogramExporter exporter : exporters) {
+                    try {
+                        exporter.export(serviceName, requestType, metricType, latency, snapshot);
+                    } catch (RuntimeException e) {
+                        log.warn("Failed to export histogram with " + exporter.getClass().getName(), e);
+                    }
+                }
+            }
+        }, true);
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.annotation.ThreadSafe;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.TimingInfo;
+
+/**
+ * A request metric collector that keeps a {@link LatencyHistogram} per
+ * service, request type and metric type in memory, so latency percentiles such
+ * as p99 and p99.9 can be reported without shipping every data point.
+ * <p>
+ * Timed metrics, such as {@link Field#ClientExecuteTime} or
+ * {@link Field#HttpRequestTime}, are recorded in microseconds; counters, such
+ * as {@link Field#HttpClientPoolLeasedCount}, are recorded as is. Once every
+ * histogram of a request type has been created, collecting the metrics of a
+ * request allocates nothing.
+ * <p>
+ * The histograms can be read through {@link #export(HistogramExporter, boolean)},
+ * periodically by a {@link HistogramMetricCollector}, or over JMX through
+ * {@link MetricAdminMBean#getRequestMetricHistograms()} when this collector is
+ * in use at the AWS SDK level.
+ *
+ * @see AwsSdkMetrics#enableHistogramMetrics()
+ */
+@ThreadSafe
+public class HistogramRequestMetricCollector extends RequestMetricCollector {
+    /**
+     * The metric types for which histograms are kept by default.
+     */
+    public static final List<MetricType> DEFAULT_METRIC_TYPES = Collections.unmodifiableList(
+            Arrays.<MetricType> asList(
+                    Field.ClientExecuteTime,
+                    Field.HttpRequestTime,
+                    Field.HttpClientSendRequestTime,
+                    Field.HttpClientReceiveResponseTime,
+                    Field.RequestSigningTime,
+                    Field.ResponseProcessingTime,
+                    Field.RequestCount,
+                    Field.HttpClientPoolAvailableCount,
+                    Field.HttpClientPoolLeasedCount,
+                    Field.HttpClientPoolPendingCount));
+
+    private static final Log log = LogFactory.getLog(HistogramRequestMetricCollector.class);
+
+    /** One hour, the highest latency counted precisely. */
+    private static final long HIGHEST_TRACKABLE_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+    /** The highest count counted precisely. */
+    private static final long HIGHEST_TRACKABLE_COUNT = 1 << 20;
+
+    private final MetricType[] metricTypes;
+    private final ConcurrentMap<String, ConcurrentMap<Class<?>, RequestTypeHistograms>> histogramsByService =
+            new ConcurrentHashMap<String, ConcurrentMap<Class<?>, RequestTypeHistograms>>();
+
+    /**
+     * Creates a collector keeping histograms of the
+     * {@link #DEFAULT_METRIC_TYPES}.
+     */
+    public HistogramRequestMetricCollector() {
+        this(DEFAULT_METRIC_TYPES);
+    }
+
+    /**
+     * Creates a collector keeping histograms of the given metric types.
+     */
+    public HistogramRequestMetricCollector(Collection<? extends MetricType> metricTypes) {
+        this.metricTypes = metricTypes.toArray(new MetricType[metricTypes.size()]);
+    }
+
+    @Override
+    public void collectMetrics(Request<?> request, Response<?> response) {
+        try {
+            collectMetrics0(request);
+        } catch (RuntimeException ex) { // defensive code
+            if (log.isDebugEnabled()) {
+                log.debug("Ignoring unexpected failure", ex);
+            }
+        }
+    }
+
+    private void collectMetrics0(Request<?> request) {
+        AWSRequestMetrics arm = request.getAWSRequestMetrics();
+        if (arm == null || !arm.isEnabled()) {
+            return;
+        }
+        TimingInfo root = arm.getTimingInfo();
+        RequestTypeHistograms histograms = histogramsOf(request);
+        for (int i = 0; i < metricTypes.length; i++) {
+            MetricType metricType = metricTypes[i];
+            if (metricType == Field.ClientExecuteTime && root.isEndTimeKnown()) {
+                // More accurate than the sub-measurement, as for CloudWatch
+                histograms.get(i, true).recordValue(micros(root));
+                continue;
+            }
+            List<TimingInfo> subMeasurements = root.getAllSubMeasurements(metricType.name());
+            if (subMeasurements != null && !subMeasurements.isEmpty()) {
+                LatencyHistogram histogram = histograms.get(i, true);
+                for (int j = 0; j < subMeasurements.size(); j++) {
+                    TimingInfo sub = subMeasurements.get(j);
+                    if (sub.isEndTimeKnown()) {
+                        histogram.recordValue(micros(sub));
+                    }
+                }
+                continue;
+            }
+            Number counter = root.getCounter(metricType.name());
+            if (counter != null) {
+                histograms.get(i, false).recordValue(counter.longValue());
+            }
+        }
+    }
+
+    private static long micros(TimingInfo timingInfo) {
+        return TimeUnit.NANOSECONDS.toMicros(timingInfo.getEndTimeNano() - timingInfo.getStartTimeNano());
+    }
+
+    private RequestTypeHistograms histogramsOf(Request<?> request) {
+        String serviceName = request.getServiceName();
+        ConcurrentMap<Class<?>, RequestTypeHistograms> byRequestType = histogramsByService.get(serviceName);
+        if (byRequestType == null) {
+            byRequestType = new ConcurrentHashMap<Class<?>, RequestTypeHistograms>();
+            ConcurrentMap<Class<?>, RequestTypeHistograms> existing =
+                    histogramsByService.putIfAbsent(serviceName, byRequestType);
+            if (existing != null) {
+                byRequestType = existing;
+            }
+        }
+        AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+        Class<?> requestType = originalRequest == null ? AmazonWebServiceRequest.class : originalRequest.getClass();
+        RequestTypeHistograms histograms = byRequestType.get(requestType);
+        if (histograms == null) {
+            histograms = new RequestTypeHistograms(serviceName, requestType.getSimpleName(), metricTypes.length);
+            RequestTypeHistograms existing = byRequestType.putIfAbsent(requestType, histograms);
+            if (existing != null) {
+                histograms = existing;
+            }
+        }
+        return histograms;
+    }
+
+    /**
+     * Passes the histogram of every metric type and request type with
+     * recorded values to the given exporter.
+     *
+     * @param reset
+     *            true to reset each histogram as it is exported, so every
+     *            export covers the values recorded since the previous one;
+     *            false to export every value recorded so far.
+     */
+    public void export(HistogramExporter exporter, boolean reset) {
+        for (ConcurrentMap<Class<?>, RequestTypeHistograms> byRequestType : histogramsByService.values()) {
+            for (RequestTypeHistograms histograms : byRequestType.values()) {
+                for (int i = 0; i < metricTypes.length; i++) {
+                    MetricHistogram histogram = histograms.metricHistograms.get(i);
+                    if (histogram == null) {
+                        continue;
+                    }
+                    HistogramSnapshot snapshot = reset
+                            ? histogram.histogram.snapshotAndReset()
+                            : histogram.histogram.snapshot();
+                    if (snapshot.getTotalCount() > 0) {
+                        exporter.export(histograms.serviceName, histograms.requestType, metricTypes[i],
+                                histogram.latency, snapshot);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        histogramsByService.clear();
+    }
+
+    /**
+     * Returns one line per histogram with its count and percentiles, with
+     * latencies in milliseconds.
+     */
+    public String getSummary() {
+        final StringBuilder sb = new StringBuilder();
+        export(new HistogramExporter() {
+            @Override
+            public void export(String serviceName, String requestType, MetricType metricType, boolean latency,
+                    HistogramSnapshot snapshot) {
+                sb.append(summaryOf(serviceName, requestType, metricType, latency, snapshot)).append('\n');
+            }
+        }, false);
+        return sb.toString();
+    }
+
+    /**
+     * Returns a one line summary of the given histogram, with latencies in
+     * milliseconds.
+     */
+    static String summaryOf(String serviceName, String requestType, MetricType metricType, boolean latency,
+            HistogramSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder()
+                .append(serviceName).append(' ')
+                .append(requestType).append(' ')
+                .append(metricType.name())
+                .append(": count=").append(snapshot.getTotalCount());
+        appendValue(sb.append(", mean="), snapshot.getMean(), latency);
+        appendValue(sb.append(", p50="), snapshot.getValueAtPercentile(50), latency);
+        appendValue(sb.append(", p90="), snapshot.getValueAtPercentile(90), latency);
+        appendValue(sb.append(", p99="), snapshot.getValueAtPercentile(99), latency);
+        appendValue(sb.append(", p99.9="), snapshot.getValueAtPercentile(99.9), latency);
+        appendValue(sb.append(", max="), snapshot.getMax(), latency);
+        return sb.toString();
+    }
+
+    private static void appendValue(StringBuilder sb, double value, boolean latency) {
+        if (latency) {
+            sb.append(String.format(Locale.US, "%.3fms", value / 1000));
+        } else {
+            sb.append(String.format(Locale.US, "%.1f", value));
+        }
+    }
+
+    /**
+     * The histograms of a request type, indexed like the metric types of the
+     * collector and created on first use.
+     */
+    private static final class RequestTypeHistograms {
+        private final String serviceName;
+        private final String requestType;
+        private final AtomicReferenceArray<MetricHistogram> metricHistograms;
+
+        RequestTypeHistograms(String serviceName, String requestType, int metricTypeCount) {
+            this.serviceName = serviceName;
+            this.requestType = requestType;
+            this.metricHistograms = new AtomicReferenceArray<MetricHistogram>(metricTypeCount);
+        }
+
+        LatencyHistogram get(int index, boolean latency) {
+            MetricHistogram histogram = metricHistograms.get(index);
+            if (histogram == null) {
+                histogram = new MetricHistogram(latency);
+                if (!metricHistograms.compareAndSet(index, null, histogram)) {
+                    histogram = metricHistograms.get(index);
+                }
+            }
+            return histogram.histogram;
+        }
+    }
+
+    private static final class MetricHistogram {
+        private final boolean latency;
+        private final LatencyHistogram histogram;
+
+        MetricHistogram(boolean latency) {
+            this.latency = latency;
+            this.histogram = new LatencyHistogram(
+                    latency ? HIGHEST_TRACKABLE_LATENCY_MICROS : HIGHEST_TRACKABLE_COUNT);
+        }
+    }
+}
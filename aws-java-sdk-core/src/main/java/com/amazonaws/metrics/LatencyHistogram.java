@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * A lock-free histogram of non-negative values with a fixed relative
+ * precision, in the style of HdrHistogram.
+ * <p>
+ * Values below 128 are counted exactly. Larger values are counted in
+ * log-linear buckets: each power of two is split into 64 equally sized
+ * buckets, so any recorded value is reported within about 1.6% of its actual
+ * value. Values above the highest trackable value are counted as the highest
+ * trackable value, although {@link HistogramSnapshot#getMax()} still reports
+ * them exactly.
+ * <p>
+ * Recording a value is a few atomic updates and allocates nothing, so the
+ * histogram can be updated on every request.
+ */
+@ThreadSafe
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param highestTrackableValue
+     *            the highest value counted in its own bucket; must be positive.
+     *            The histogram's footprint grows with the logarithm of this
+     *            value, at 512 bytes per power of two.
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+        if (highestTrackableValue <= 0) {
+            throw new IllegalArgumentException("highestTrackableValue must be positive");
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+    }
+
+    /**
+     * Records a single occurrence of the given value.
+     *
+     * @param value
+     *            the value to record; negative values are ignored.
+     */
+    public void recordValue(long value) {
+        if (value < 0) {
+            return;
+        }
+        counts.incrementAndGet(indexOf(Math.min(value, highestTrackableValue)));
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Returns a copy of the values recorded so far. Values recorded while the
+     * copy is taken may or may not be included.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(copy, sum.get(), max.get());
+    }
+
+    /**
+     * Returns the values recorded since the last reset and resets the
+     * histogram, which makes this suitable for exporting the histogram at
+     * regular intervals. The count of every value recorded concurrently lands
+     * either in the returned snapshot or after the reset, never in both or
+     * neither. The sum and the maximum are reset separately from the counts,
+     * though, so such a value may be counted in one snapshot while adding to
+     * the sum or maximum of the next.
+     */
+    public HistogramSnapshot snapshotAndReset() {
+        long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.getAndSet(i, 0);
+        }
+        return new HistogramSnapshot(copy, sum.getAndSet(0), max.getAndSet(0));
+    }
+
+    /**
+     * Returns the index of the bucket counting the given value.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // Number of bits dropped so the value fits in [64, 128)
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucket - SUB_BUCKET_HALF_COUNT;
+    }
+
+    /**
+     * Returns the highest value counted by the bucket at the given index.
+     */
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
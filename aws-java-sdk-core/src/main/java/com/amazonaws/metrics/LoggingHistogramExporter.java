@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Logs a one line summary of each histogram, with its count, mean, p50, p90,
+ * p99, p99.9 and max, to the "com.amazonaws.latency" logger at INFO level.
+ */
+public class LoggingHistogramExporter implements HistogramExporter {
+    private static final Log latencyLogger = LogFactory.getLog("com.amazonaws.latency");
+
+    @Override
+    public void export(String serviceName, String requestType, MetricType metricType, boolean latency,
+            HistogramSnapshot snapshot) {
+        if (latencyLogger.isInfoEnabled()) {
+            latencyLogger.info(HistogramRequestMetricCollector.summaryOf(
+                    serviceName, requestType, metricType, latency, snapshot));
+        }
+    }
+}
@@ -32,6 +32,30 @@ public class MetricAdmin implements MetricAdminMBean {
         AwsSdkMetrics.disableMetrics();
     }
     @Override
+    public boolean enableHistogramMetrics() {
+        return AwsSdkMetrics.enableHistogramMetrics();
+    }
+    @Override
+    public String getRequestMetricHistograms() {
+        HistogramRequestMetricCollector hrmc = getHistogramRequestMetricCollector();
+        return hrmc == null ? "NONE" : hrmc.getSummary();
+    }
+    @Override
+    public void resetRequestMetricHistograms() {
+        HistogramRequestMetricCollector hrmc = getHistogramRequestMetricCollector();
+        if (hrmc != null) {
+            hrmc.reset();
+        }
+    }
+    private static HistogramRequestMetricCollector getHistogramRequestMetricCollector() {
+        MetricCollector mc = AwsSdkMetrics.getInternalMetricCollector();
+        RequestMetricCollector rmc = mc == null ? null : mc.getRequestMetricCollector();
+        return rmc instanceof HistogramRequestMetricCollector
+             ? (HistogramRequestMetricCollector) rmc
+             : null
+             ;
+    }
+    @Override
     public String getRequestMetricCollector() {
         MetricCollector mc = AwsSdkMetrics.getInternalMetricCollector();
         RequestMetricCollector rmc = mc == null ? null : mc.getRequestMetricCollector();
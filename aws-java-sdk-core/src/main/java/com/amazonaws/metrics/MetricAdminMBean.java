@@ -54,6 +54,32 @@ public interface MetricAdminMBean {
      */
     public void disableMetrics();
 
+    /**
+     * Starts a metric collector keeping latency histograms of requests in
+     * memory, but only if no metric collector is currently in use at the AWS
+     * SDK level.
+     *
+     * @return true if the histogram metric collector has been successfully
+     *         started by this call; false otherwise.
+     * @see HistogramMetricCollector
+     */
+    public boolean enableHistogramMetrics();
+
+    /**
+     * Returns one line per service, request type and metric type with the
+     * count and percentiles of the values recorded by the histogram request
+     * metric collector in use at the AWS SDK level, or NONE if there is none.
+     *
+     * @see HistogramRequestMetricCollector
+     */
+    public String getRequestMetricHistograms();
+
+    /**
+     * Discards the values recorded by the histogram request metric collector
+     * in use at the AWS SDK level, if any.
+     */
+    public void resetRequestMetricHistograms();
+
     /**
      * Returns true if machine metrics is to be excluded; false otherwise.
      */
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * Client side rate limiter that meters outgoing requests based on throttling
+ * feedback from the service.
+ * <p>
+ * The limiter does nothing until the first throttled response is observed.
+ * From then on requests are sent through a token bucket whose fill rate is
+ * cut multiplicatively on every throttled response and grown back along a
+ * cubic curve (as in CUBIC congestion control) while responses succeed, so
+ * all threads sharing the limiter slow down together instead of each backing
+ * off on its own.
+ * <p>
+ * Tokens are reserved rather than polled: a caller that finds the bucket empty
+ * takes its token on credit and sleeps until the token would have been
+ * available, so waiting callers are released at the fill rate in the order
+ * they arrived.
+ */
+@SdkInternalApi
+@ThreadSafe
+public class AdaptiveRateLimiter {
+
+    /** Lowest rate, in requests per second, the limiter will meter down to. */
+    private static final double MIN_FILL_RATE = 0.5;
+
+    /** Smallest burst the bucket allows, in requests. */
+    private static final double MIN_CAPACITY = 1;
+
+    /** Multiplicative decrease applied to the rate on a throttled response. */
+    private static final double BETA = 0.7;
+
+    /** Scaling constant of the cubic growth curve. */
+    private static final double SCALE_CONSTANT = 0.4;
+
+    /** Weight of the latest interval in the exponentially smoothed send rate. */
+    private static final double SMOOTHING = 0.8;
+
+    /** Width, in seconds, of the intervals over which the send rate is measured. */
+    private static final double MEASUREMENT_INTERVAL = 0.5;
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // All fields below are guarded by this; times are in seconds.
+    private boolean enabled;
+    private double fillRate;
+    private double maxCapacity;
+    private double currentCapacity;
+    private double lastRefillTime = Double.NaN;
+
+    private double measuredSendRate;
+    private double lastMeasurementTime = Double.NaN;
+    private long requestsInInterval;
+
+    private double lastMaxRate;
+    private double lastThrottleTime;
+    private double timeWindow;
+
+    /**
+     * Blocks until the caller may send a request. Returns immediately if no
+     * throttling has been observed yet.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        final long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Records the outcome of a request that reached the service.
+     *
+     * @param throttled
+     *            true if the service rejected the request as throttled
+     */
+    public synchronized void onResponse(boolean throttled) {
+        final double now = now();
+        updateMeasuredRate(now);
+
+        double newRate;
+        if (throttled) {
+            final double rateToUse = enabled ? Math.min(measuredSendRate, fillRate) : measuredSendRate;
+            lastMaxRate = rateToUse;
+            timeWindow = Math.cbrt(lastMaxRate * (1 - BETA) / SCALE_CONSTANT);
+            lastThrottleTime = now;
+            newRate = rateToUse * BETA;
+            enabled = true;
+        } else {
+            if (!enabled) {
+                return;
+            }
+            newRate = SCALE_CONSTANT * Math.pow(now - lastThrottleTime - timeWindow, 3) + lastMaxRate;
+        }
+        updateBucket(Math.min(newRate, 2 * measuredSendRate), now);
+    }
+
+    /**
+     * Returns whether the limiter is currently metering requests.
+     */
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the current fill rate, in requests per second.
+     */
+    public synchronized double getFillRate() {
+        return fillRate;
+    }
+
+    /**
+     * Takes a token, possibly on credit, and returns how long the caller must
+     * wait before using it.
+     */
+    synchronized long reserve() {
+        if (!enabled) {
+            return 0;
+        }
+        refill(now());
+        currentCapacity -= 1;
+        return currentCapacity >= 0 ? 0 : (long) Math.ceil(-currentCapacity / fillRate * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Returns the current time in nanoseconds; overridden in tests.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private double now() {
+        return nanoTime() / NANOS_PER_SECOND;
+    }
+
+    private void refill(double now) {
+        if (!Double.isNaN(lastRefillTime)) {
+            currentCapacity = Math.min(maxCapacity, currentCapacity + (now - lastRefillTime) * fillRate);
+        }
+        lastRefillTime = now;
+    }
+
+    private void updateBucket(double newRate, double now) {
+        refill(now);
+        fillRate = Math.max(newRate, MIN_FILL_RATE);
+        maxCapacity = Math.max(newRate, MIN_CAPACITY);
+        currentCapacity = Math.min(currentCapacity, maxCapacity);
+    }
+
+    private void updateMeasuredRate(double now) {
+        requestsInInterval++;
+        final double interval = measurementInterval(now);
+        if (Double.isNaN(lastMeasurementTime)) {
+            lastMeasurementTime = interval;
+        } else if (interval > lastMeasurementTime) {
+            final double currentRate = requestsInInterval / (interval - lastMeasurementTime);
+            measuredSendRate = currentRate * SMOOTHING + measuredSendRate * (1 - SMOOTHING);
+            requestsInInterval = 0;
+            lastMeasurementTime = interval;
+        }
+    }
+
+    private static double measurementInterval(double now) {
+        return Math.floor(now / MEASUREMENT_INTERVAL) * MEASUREMENT_INTERVAL;
+    }
+}
@@ -98,6 +98,17 @@ public abstract class JsonUnmarshallerContext {
         return false;
     }
 
+    /**
+     * Returns the name of the JSON field the parser is positioned at, either
+     * at its name or at its scalar value; or null if the parser is positioned
+     * elsewhere. Field names are canonicalized by the parser, so comparing
+     * this name against a string constant usually succeeds on the identity
+     * check. Returns null by default.
+     */
+    public String getCurrentFieldName() {
+        return null;
+    }
+
     /**
      * Returns the name of the JSON field that is the nearest parent of the
      * current context.Returns null by default.
@@ -21,9 +21,10 @@ import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
 import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
 import com.amazonaws.http.HttpResponse;
 import com.fasterxml.jackson.core.JsonParser;
@@ -58,8 +59,11 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
      * }
      * When the parser points to "D", the state of this stack should be (from top to bottom):
      *  [ (C, START_OBJECT), (B, START_ARRAY), (A, START_OBJECT) ]
+     * The top of the stack is the last element of the list; unlike
+     * java.util.Stack, the list is not synchronized, since a context is only
+     * ever used by one thread.
      */
-    private final Stack<JsonFieldTokenPair> stack = new Stack<JsonFieldTokenPair>();
+    private final List<JsonFieldTokenPair> stack = new ArrayList<JsonFieldTokenPair>();
 
     /**
      * The name of the field that is currently being parsed. This value is
@@ -159,7 +163,7 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
                 return currentField.equals(expression);
             } else {
                 return (!stack.isEmpty())
-                        && stack.peek().getField().equals(expression);
+                        && stackTop().getField().equals(expression);
             }
         }
     }
@@ -170,13 +174,18 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         if (currentField != null) {
             parentElement = currentField;
         } else if ( !stack.isEmpty() ) {
-            parentElement = stack.peek().getField();
+            parentElement = stackTop().getField();
         } else {
             parentElement = "";
         }
         return parentElement;
     }
 
+    @Override
+    public String getCurrentFieldName() {
+        return currentField;
+    }
+
     @Override
     public boolean testExpression(String expression, int stackDepth) {
         if (expression.equals(".")) {
@@ -242,15 +251,17 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
 
         if (currentToken == START_OBJECT || currentToken == START_ARRAY) {
             if (currentField != null) {
-                stack.push(new JsonFieldTokenPair(currentField, currentToken));
+                stack.add(new JsonFieldTokenPair(currentField, currentToken));
                 currentField = null;
             }
         } else if (currentToken == END_OBJECT || currentToken == END_ARRAY) {
             if (!stack.isEmpty()) {
-                boolean squareBracketsMatch = currentToken == END_ARRAY && stack.peek().getToken() == START_ARRAY;
-                boolean curlyBracketsMatch = currentToken == END_OBJECT && stack.peek().getToken() == START_OBJECT;
+                JsonFieldTokenPair top = stackTop();
+                boolean squareBracketsMatch = currentToken == END_ARRAY && top.getToken() == START_ARRAY;
+                boolean curlyBracketsMatch = currentToken == END_OBJECT && top.getToken() == START_OBJECT;
                 if (squareBracketsMatch || curlyBracketsMatch) {
-                    lastParsedParentElement = stack.pop().getField();
+                    stack.remove(stack.size() - 1);
+                    lastParsedParentElement = top.getField();
                 }
             }
             currentField = null;
@@ -260,6 +271,10 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         }
     }
 
+    private JsonFieldTokenPair stackTop() {
+        return stack.get(stack.size() - 1);
+    }
+
     @Override
     public String toString() {
         StringBuilder stackString = new StringBuilder();
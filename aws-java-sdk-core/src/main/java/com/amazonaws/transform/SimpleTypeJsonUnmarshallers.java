@@ -13,6 +13,12 @@
  * permissions and limitations under the License.
  */
 package com.amazonaws.transform;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_FALSE;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NUMBER_FLOAT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NUMBER_INT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_STRING;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_TRUE;
+
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
@@ -21,8 +27,39 @@ import java.util.Date;
 import com.amazonaws.SdkClientException;
 import com.amazonaws.util.Base64;
 import com.amazonaws.util.DateUtils;
-
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Unmarshallers for the scalar types of JSON documents. Numbers, booleans and
+ * binary values are read directly from the parser when the context is
+ * positioned at a token of the matching type, rather than going through their
+ * text; values read from headers, or from tokens of another type (such as
+ * numbers sent as strings), are still parsed from their text.
+ */
 public class SimpleTypeJsonUnmarshallers {
+
+    /**
+     * Returns the parser of the given context if both are positioned at a
+     * token of the given type; or null.
+     */
+    private static JsonParser parserAt(JsonUnmarshallerContext context, JsonToken token) {
+        if (context.getCurrentToken() != token) {
+            return null;
+        }
+        // The parser may have moved ahead if the context peeked at the next token
+        JsonParser parser = context.getJsonParser();
+        return parser != null && parser.getCurrentToken() == token ? parser : null;
+    }
+
+    /**
+     * Returns the parser of the given context if both are positioned at a
+     * number token; or null.
+     */
+    private static JsonParser parserAtNumber(JsonUnmarshallerContext context) {
+        JsonParser parser = parserAt(context, VALUE_NUMBER_INT);
+        return parser != null ? parser : parserAt(context, VALUE_NUMBER_FLOAT);
+    }
     /**
      * Unmarshaller for String values.
      */
@@ -43,6 +80,10 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class DoubleJsonUnmarshaller implements Unmarshaller<Double, JsonUnmarshallerContext> {
         public Double unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAtNumber(unmarshallerContext);
+            if (parser != null) {
+                return parser.getDoubleValue();
+            }
             String doubleString = unmarshallerContext.readText();
             return (doubleString == null) ? null : Double.parseDouble(doubleString);
         }
@@ -59,6 +100,10 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class IntegerJsonUnmarshaller implements Unmarshaller<Integer, JsonUnmarshallerContext> {
         public Integer unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAt(unmarshallerContext, VALUE_NUMBER_INT);
+            if (parser != null) {
+                return parser.getIntValue();
+            }
             String intString = unmarshallerContext.readText();
             return (intString == null) ? null : Integer.parseInt(intString);
         }
@@ -101,6 +146,12 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class BooleanJsonUnmarshaller implements Unmarshaller<Boolean, JsonUnmarshallerContext> {
         public Boolean unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonToken token = unmarshallerContext.getCurrentToken();
+            if (token == VALUE_TRUE) {
+                return Boolean.TRUE;
+            } else if (token == VALUE_FALSE) {
+                return Boolean.FALSE;
+            }
             String booleanString = unmarshallerContext.readText();
             return (booleanString == null) ? null : Boolean.parseBoolean(booleanString);
         }
@@ -117,6 +168,10 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class FloatJsonUnmarshaller implements Unmarshaller<Float, JsonUnmarshallerContext> {
         public Float unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAtNumber(unmarshallerContext);
+            if (parser != null) {
+                return parser.getFloatValue();
+            }
             String floatString = unmarshallerContext.readText();
             return (floatString == null) ? null : Float.valueOf(floatString);
         }
@@ -133,6 +188,10 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class LongJsonUnmarshaller implements Unmarshaller<Long, JsonUnmarshallerContext> {
         public Long unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAt(unmarshallerContext, VALUE_NUMBER_INT);
+            if (parser != null) {
+                return parser.getLongValue();
+            }
             String longString = unmarshallerContext.readText();
             return (longString == null) ? null : Long.parseLong(longString);
         }
@@ -149,6 +208,10 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class ByteJsonUnmarshaller implements Unmarshaller<Byte, JsonUnmarshallerContext> {
         public Byte unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAt(unmarshallerContext, VALUE_NUMBER_INT);
+            if (parser != null) {
+                return parser.getByteValue();
+            }
             String byteString = unmarshallerContext.readText();
             return (byteString == null) ? null : Byte.valueOf(byteString);
         }
@@ -182,6 +245,12 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class ByteBufferJsonUnmarshaller implements Unmarshaller<ByteBuffer, JsonUnmarshallerContext> {
         public ByteBuffer unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAt(unmarshallerContext, VALUE_STRING);
+            if (parser != null) {
+                // Decodes straight from the parser's input, without
+                // materializing the base 64 encoded string
+                return ByteBuffer.wrap(parser.getBinaryValue());
+            }
             String base64EncodedString = unmarshallerContext.readText();
             if (base64EncodedString == null) {
                 return null;
@@ -226,6 +295,10 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class ShortJsonUnmarshaller implements Unmarshaller<Short, JsonUnmarshallerContext> {
         public Short unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAt(unmarshallerContext, VALUE_NUMBER_INT);
+            if (parser != null) {
+                return parser.getShortValue();
+            }
             String shortString = unmarshallerContext.readText();
             return (shortString == null) ? null : Short.valueOf(shortString);
         }
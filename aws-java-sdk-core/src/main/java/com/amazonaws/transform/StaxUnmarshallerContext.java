@@ -14,6 +14,7 @@
  */
 package com.amazonaws.transform;
 
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,10 +22,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
 /**
@@ -34,12 +42,34 @@ import javax.xml.stream.events.XMLEvent;
  * response. It also tracks the current position and element depth of the
  * document being parsed and provides utilties for accessing the next XML event
  * from the parser, reading element text, handling attribute XML events, etc.
+ * <p>
+ * The document is read either from an {@link XMLEventReader} or, without
+ * allocating an event object per token, from an {@link XMLStreamReader}. In
+ * the latter case the events returned by {@link #nextEvent()} are reused
+ * views of the stream reader's position: methods such as
+ * {@link XMLEvent#asStartElement()} build the full event on demand, and are
+ * only valid until the context moves past that event.
  */
 public class StaxUnmarshallerContext {
 
     private XMLEvent currentEvent;
     private final XMLEventReader eventReader;
 
+    private final XMLStreamReader streamReader;
+    /** Whether the stream reader's current event has been returned by nextEvent. */
+    private boolean streamEventConsumed;
+    /** Index of the next attribute of the current start element to return. */
+    private int attributeIndex;
+    private int attributeCount;
+    /**
+     * The attributes of the current start element, saved so that they can
+     * still be returned after the element's text has been read.
+     */
+    private String[] attributeNames = new String[0];
+    private String[] attributeValues = new String[0];
+    private final CursorEvent[] cursorEvents = new CursorEvent[16];
+    private XMLEventFactory eventFactory;
+
     public final Stack<String> stack = new Stack<String>();
     private String stackString = "";
 
@@ -81,6 +111,24 @@ public class StaxUnmarshallerContext {
      */
     public StaxUnmarshallerContext(XMLEventReader eventReader, Map<String, String> headers) {
         this.eventReader = eventReader;
+        this.streamReader = null;
+        this.headers = headers;
+    }
+
+    /**
+     * Constructs a new unmarshaller context that reads the XML document from
+     * the specified stream reader, and a set of response headers.
+     *
+     * @param streamReader
+     *            The cursor over the XML document for this unmarshalling
+     *            context, positioned at the start of the document.
+     * @param headers
+     *            The set of response headers associated with this unmarshaller
+     *            context.
+     */
+    public StaxUnmarshallerContext(XMLStreamReader streamReader, Map<String, String> headers) {
+        this.eventReader = null;
+        this.streamReader = streamReader;
         this.headers = headers;
     }
 
@@ -110,6 +158,9 @@ public class StaxUnmarshallerContext {
         if (isInsideResponseHeader()) {
             return getHeader(currentHeader);
         }
+        if (streamReader != null) {
+            return readStreamText();
+        }
         if (currentEvent.isAttribute()) {
             Attribute attribute = (Attribute)currentEvent;
             return attribute.getValue();
@@ -193,6 +244,9 @@ public class StaxUnmarshallerContext {
      *         yet).
      */
     public boolean isStartOfDocument() throws XMLStreamException {
+        if (streamReader != null) {
+            return !streamEventConsumed && streamReader.getEventType() == XMLStreamConstants.START_DOCUMENT;
+        }
         return eventReader.peek().isStartDocument();
     }
 
@@ -204,6 +258,9 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public XMLEvent nextEvent() throws XMLStreamException {
+        if (streamReader != null) {
+            return nextStreamEvent();
+        }
         if (attributeIterator != null && attributeIterator.hasNext()) {
             currentEvent = (XMLEvent)attributeIterator.next();
         } else {
@@ -264,6 +321,285 @@ public class StaxUnmarshallerContext {
      * Private Interface
      */
 
+    private XMLEvent nextStreamEvent() throws XMLStreamException {
+        if (currentEvent != null && attributeIndex < attributeCount) {
+            currentEvent = cursorEvent(XMLStreamConstants.ATTRIBUTE);
+            attributeIndex++;
+            updateStackString();
+            stackString += "/@" + attributeNames[attributeIndex - 1];
+            return currentEvent;
+        }
+
+        if (streamEventConsumed) {
+            streamReader.next();
+        }
+        streamEventConsumed = true;
+        final int eventType = streamReader.getEventType();
+        currentEvent = cursorEvent(eventType);
+        attributeIndex = 0;
+        attributeCount = 0;
+
+        if (eventType == XMLStreamConstants.START_ELEMENT) {
+            saveAttributes();
+            stack.push(streamReader.getLocalName());
+            stackString += "/" + streamReader.getLocalName();
+        } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+            stack.pop();
+            updateStackString();
+        } else if (eventType == XMLStreamConstants.CHARACTERS) {
+            collectMetadata(streamReader.getText());
+        }
+        return currentEvent;
+    }
+
+    /**
+     * Reads the text of the current element or attribute, leaving the end of
+     * the element to be returned by the next call to {@link #nextEvent()}.
+     */
+    private String readStreamText() throws XMLStreamException {
+        if (currentEvent.isAttribute()) {
+            return attributeValues[attributeIndex - 1];
+        }
+
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            final int eventType = streamReader.next();
+            if (eventType == XMLStreamConstants.CHARACTERS
+                    || eventType == XMLStreamConstants.CDATA
+                    || eventType == XMLStreamConstants.SPACE) {
+                sb.append(streamReader.getTextCharacters(), streamReader.getTextStart(),
+                        streamReader.getTextLength());
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                // Hand the end element to the next call to nextEvent
+                streamEventConsumed = false;
+                final String text = sb.toString();
+                collectMetadata(text);
+                return text;
+            } else {
+                throw new RuntimeException("Encountered unexpected event: " + eventType);
+            }
+        }
+    }
+
+    /**
+     * Copies the attributes of the start element the stream reader is
+     * positioned at, since the reader moves past them when the element's text
+     * is read.
+     */
+    private void saveAttributes() {
+        attributeCount = streamReader.getAttributeCount();
+        if (attributeCount == 0) {
+            return;
+        }
+        if (attributeNames.length < attributeCount) {
+            attributeNames = new String[attributeCount];
+            attributeValues = new String[attributeCount];
+        }
+        for (int i = 0; i < attributeCount; i++) {
+            attributeNames[i] = streamReader.getAttributeLocalName(i);
+            attributeValues[i] = streamReader.getAttributeValue(i);
+        }
+    }
+
+    private CursorEvent cursorEvent(int eventType) {
+        if (eventType < 0 || eventType >= cursorEvents.length) {
+            return new CursorEvent(eventType);
+        }
+        CursorEvent event = cursorEvents[eventType];
+        if (event == null) {
+            event = eventType == XMLStreamConstants.ATTRIBUTE
+                    ? new CursorAttribute()
+                    : new CursorEvent(eventType);
+            cursorEvents[eventType] = event;
+        }
+        return event;
+    }
+
+    private void collectMetadata(String text) {
+        for (MetadataExpression metadataExpression : metadataExpressions) {
+            if (testExpression(metadataExpression.expression, metadataExpression.targetDepth)) {
+                metadata.put(metadataExpression.key, text);
+            }
+        }
+    }
+
+    private void updateStackString() {
+        stackString = "";
+        for (String s : stack) {
+            stackString += "/" + s;
+        }
+    }
+
+    /**
+     * Builds the full event for the stream reader's current position, for
+     * callers that convert a cursor event with methods such as
+     * {@link XMLEvent#asStartElement()}.
+     */
+    private XMLEvent toEvent(int eventType) {
+        if (eventType != XMLStreamConstants.ATTRIBUTE && streamReader.getEventType() != eventType) {
+            throw new IllegalStateException("The stream reader has moved past this event");
+        }
+        if (eventFactory == null) {
+            eventFactory = XMLEventFactory.newInstance();
+        }
+        switch (eventType) {
+            case XMLStreamConstants.START_DOCUMENT:
+                return eventFactory.createStartDocument();
+            case XMLStreamConstants.END_DOCUMENT:
+                return eventFactory.createEndDocument();
+            case XMLStreamConstants.START_ELEMENT:
+                List<Attribute> attributes = new ArrayList<Attribute>(streamReader.getAttributeCount());
+                for (int i = 0; i < streamReader.getAttributeCount(); i++) {
+                    attributes.add(eventFactory.createAttribute(streamReader.getAttributeName(i),
+                            streamReader.getAttributeValue(i)));
+                }
+                return eventFactory.createStartElement(streamReader.getName(), attributes.iterator(), null);
+            case XMLStreamConstants.END_ELEMENT:
+                return eventFactory.createEndElement(streamReader.getName(), null);
+            case XMLStreamConstants.ATTRIBUTE:
+                return eventFactory.createAttribute(attributeNames[attributeIndex - 1],
+                        attributeValues[attributeIndex - 1]);
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                return eventFactory.createCharacters(streamReader.getText());
+            case XMLStreamConstants.CDATA:
+                return eventFactory.createCData(streamReader.getText());
+            default:
+                throw new UnsupportedOperationException("Can't convert XML event type " + eventType);
+        }
+    }
+
+    /**
+     * An event read from a stream reader. Instances are reused for every
+     * event of the same type, so the details of the event are read from the
+     * stream reader, and are only available until the context moves past it.
+     */
+    private class CursorEvent implements XMLEvent {
+        private final int eventType;
+
+        CursorEvent(int eventType) {
+            this.eventType = eventType;
+        }
+
+        @Override
+        public int getEventType() {
+            return eventType;
+        }
+
+        @Override
+        public Location getLocation() {
+            return streamReader.getLocation();
+        }
+
+        @Override
+        public boolean isStartElement() {
+            return eventType == XMLStreamConstants.START_ELEMENT;
+        }
+
+        @Override
+        public boolean isAttribute() {
+            return eventType == XMLStreamConstants.ATTRIBUTE;
+        }
+
+        @Override
+        public boolean isNamespace() {
+            return eventType == XMLStreamConstants.NAMESPACE;
+        }
+
+        @Override
+        public boolean isEndElement() {
+            return eventType == XMLStreamConstants.END_ELEMENT;
+        }
+
+        @Override
+        public boolean isEntityReference() {
+            return eventType == XMLStreamConstants.ENTITY_REFERENCE;
+        }
+
+        @Override
+        public boolean isProcessingInstruction() {
+            return eventType == XMLStreamConstants.PROCESSING_INSTRUCTION;
+        }
+
+        @Override
+        public boolean isCharacters() {
+            return eventType == XMLStreamConstants.CHARACTERS
+                    || eventType == XMLStreamConstants.CDATA
+                    || eventType == XMLStreamConstants.SPACE;
+        }
+
+        @Override
+        public boolean isStartDocument() {
+            return eventType == XMLStreamConstants.START_DOCUMENT;
+        }
+
+        @Override
+        public boolean isEndDocument() {
+            return eventType == XMLStreamConstants.END_DOCUMENT;
+        }
+
+        @Override
+        public StartElement asStartElement() {
+            return (StartElement) toEvent(eventType);
+        }
+
+        @Override
+        public EndElement asEndElement() {
+            return (EndElement) toEvent(eventType);
+        }
+
+        @Override
+        public Characters asCharacters() {
+            return (Characters) toEvent(eventType);
+        }
+
+        @Override
+        public QName getSchemaType() {
+            return null;
+        }
+
+        @Override
+        public void writeAsEncodedUnicode(Writer writer) throws XMLStreamException {
+            toEvent(eventType).writeAsEncodedUnicode(writer);
+        }
+
+        @Override
+        public String toString() {
+            return "XMLEvent type " + eventType;
+        }
+    }
+
+    /**
+     * The attribute of the current start element most recently returned by
+     * {@link #nextEvent()}, which generated unmarshallers and custom ones alike
+     * may cast to {@link Attribute}.
+     */
+    private final class CursorAttribute extends CursorEvent implements Attribute {
+        CursorAttribute() {
+            super(XMLStreamConstants.ATTRIBUTE);
+        }
+
+        @Override
+        public QName getName() {
+            return new QName(attributeNames[attributeIndex - 1]);
+        }
+
+        @Override
+        public String getValue() {
+            return attributeValues[attributeIndex - 1];
+        }
+
+        @Override
+        public String getDTDType() {
+            return "CDATA";
+        }
+
+        @Override
+        public boolean isSpecified() {
+            return true;
+        }
+    }
+
     /**
      * Simple container for the details of a metadata expression this
      * unmarshaller context is looking for.
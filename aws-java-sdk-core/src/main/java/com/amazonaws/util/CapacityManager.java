@@ -14,16 +14,23 @@
  */
 package com.amazonaws.util;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Manages capacity of a finite resource.  Capacity can be acquired and
  * released.
+ * <p>
+ * Capacity is tracked with compare-and-set operations rather than a monitor so
+ * that threads acquiring and releasing capacity concurrently never block each other.
+ * The number of acquisitions refused for lack of capacity is counted, so that
+ * depletion of the resource can be monitored.
  */
 public class CapacityManager {
 
-    private volatile int availableCapacity;
+    private final AtomicInteger availableCapacity;
     private final int maxCapacity;
-
-    private final Object lock = new Object();
+    private final AtomicLong rejectedAcquisitions = new AtomicLong();
 
     /**
      * Creates a CapacityManager.
@@ -35,7 +42,7 @@ public class CapacityManager {
      */
     public CapacityManager(final int maxCapacity) {
         this.maxCapacity = maxCapacity;
-        this.availableCapacity = maxCapacity;
+        this.availableCapacity = new AtomicInteger(maxCapacity);
     }
 
     /**
@@ -61,17 +68,19 @@ public class CapacityManager {
             throw new IllegalArgumentException("capacity to acquire cannot be negative");
         }
 
-        if (availableCapacity < 0) {
+        if (maxCapacity < 0) {
             return true;
         }
 
-        synchronized (lock) {
-            if (availableCapacity - capacity >= 0) {
-                availableCapacity -= capacity;
-                return true;
-            } else {
+        while (true) {
+            final int current = availableCapacity.get();
+            if (current - capacity < 0) {
+                rejectedAcquisitions.incrementAndGet();
                 return false;
             }
+            if (availableCapacity.compareAndSet(current, current - capacity)) {
+                return true;
+            }
         }
     }
 
@@ -95,11 +104,19 @@ public class CapacityManager {
             throw new IllegalArgumentException("capacity to release cannot be negative");
         }
 
-        // in the common 'good' case where we have our full capacity available we can
-        // short circuit going any further and avoid unnecessary locking.
-        if (availableCapacity >= 0 && availableCapacity != maxCapacity) {
-            synchronized (lock) {
-                availableCapacity = Math.min((availableCapacity + capacity), maxCapacity);
+        if (maxCapacity < 0) {
+            return;
+        }
+
+        while (true) {
+            final int current = availableCapacity.get();
+            // in the common 'good' case where we have our full capacity available we can
+            // short circuit going any further and avoid an unnecessary write.
+            if (current == maxCapacity) {
+                return;
+            }
+            if (availableCapacity.compareAndSet(current, Math.min(current + capacity, maxCapacity))) {
+                return;
             }
         }
     }
@@ -110,7 +127,7 @@ public class CapacityManager {
      * @return consumed capacity
      */
     public int consumedCapacity() {
-        return (availableCapacity < 0) ? 0 : (maxCapacity - availableCapacity);
+        return (maxCapacity < 0) ? 0 : (maxCapacity - availableCapacity.get());
     }
 
     /**
@@ -119,6 +136,17 @@ public class CapacityManager {
      * @return available capacity
      */
     public int availableCapacity() {
-        return availableCapacity;
+        return availableCapacity.get();
+    }
+
+    /**
+     * Returns the number of times capacity could not be acquired because
+     * there wasn't enough of it available, since this capacity manager was
+     * created.
+     *
+     * @return number of refused acquisitions
+     */
+    public long rejectedAcquisitions() {
+        return rejectedAcquisitions.get();
     }
 }
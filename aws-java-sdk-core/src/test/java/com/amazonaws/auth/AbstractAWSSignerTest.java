@@ -15,10 +15,16 @@
 
 package com.amazonaws.auth;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.security.MessageDigest;
+import java.util.Arrays;
+
 import org.junit.Test;
 
+import com.amazonaws.util.StringUtils;
+
 public class AbstractAWSSignerTest {
 
     @Test
@@ -28,4 +34,41 @@ public class AbstractAWSSignerTest {
             AbstractAWSSigner.EMPTY_STRING_SHA256_HEX);
     }
 
+    @Test
+    public void hashAndSignMatchGetBytesEncoding() throws Exception {
+        char[] longText = new char[10000];
+        Arrays.fill(longText, '\u00e9');
+        String[] inputs = {
+                "",
+                "GET\n/\n\nhost:example.amazonaws.com\n",
+                "h\u00e9llo \u2603 \ud83d\ude00",
+                "lone surrogate \ud800 here",
+                new String(longText)
+        };
+        AWS4Signer signer = new AWS4Signer();
+        byte[] key = "key".getBytes(StringUtils.UTF8);
+        for (String input : inputs) {
+            byte[] bytes = input.getBytes(StringUtils.UTF8);
+            assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(bytes),
+                    signer.hash(input));
+            assertArrayEquals(signer.sign(bytes, key, SigningAlgorithm.HmacSHA256),
+                    signer.sign(input, key, SigningAlgorithm.HmacSHA256));
+        }
+    }
+
+    @Test
+    public void signStringDelegatesToByteArrayOverload() {
+        final byte[] signature = { 1, 2, 3 };
+        AWS4Signer signer = new AWS4Signer() {
+            @Override
+            protected byte[] sign(byte[] data, byte[] key,
+                    SigningAlgorithm algorithm) {
+                assertEquals("string to sign", new String(data, StringUtils.UTF8));
+                return signature;
+            }
+        };
+        assertArrayEquals(signature, signer.sign("string to sign",
+                "key".getBytes(StringUtils.UTF8), SigningAlgorithm.HmacSHA256));
+    }
+
 }
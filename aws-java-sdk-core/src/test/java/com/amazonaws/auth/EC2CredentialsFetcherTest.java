@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -149,6 +150,56 @@ public class EC2CredentialsFetcherTest {
         }
     }
 
+    /**
+     * Tests that credentials refreshed in the background are served from the
+     * cache, without calling the endpoint, while they are within the
+     * expiration threshold.
+     */
+    @Test
+    public void testBackgroundRefreshServesCachedCredentialsWithinExpirationThreshold() throws Exception {
+        stubForSuccessResonseWithCustomExpirationDate(200, DateUtils.formatISO8601Date(new Date(System.currentTimeMillis() + ONE_MINUTE * 14)).toString());
+
+        ScheduledExecutorService executor = CredentialsRefreshExecutors.newRefreshExecutor("test-refresh");
+        try {
+            TestCredentialsProvider credentialsProvider = new TestCredentialsProvider(executor);
+            awaitCredentials(credentialsProvider);
+            assertTrue(credentialsProvider.needsToLoadCredentials());
+
+            stubForErrorResponse();
+            assertEquals("ACCESS_KEY_ID", credentialsProvider.getCredentials().getAWSAccessKeyId());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that callers load credentials themselves once credentials
+     * refreshed in the background are about to expire.
+     */
+    @Test
+    public void testBackgroundRefreshLoadsCredentialsCloseToExpiring() throws Exception {
+        stubForSuccessResonseWithCustomExpirationDate(200, DateUtils.formatISO8601Date(new Date(System.currentTimeMillis() + ONE_MINUTE * 4)).toString());
+
+        ScheduledExecutorService executor = CredentialsRefreshExecutors.newRefreshExecutor("test-refresh");
+        try {
+            TestCredentialsProvider credentialsProvider = new TestCredentialsProvider(executor);
+            awaitCredentials(credentialsProvider);
+
+            stubForSuccessResponseWithCustomBody(200, successResponse);
+            AWSSessionCredentials credentials = (AWSSessionCredentials) credentialsProvider.getCredentials();
+            assertEquals("TOKEN_TOKEN_TOKEN", credentials.getSessionToken());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitCredentials(EC2CredentialsFetcher credentialsProvider) throws InterruptedException {
+        for (int i = 0; i < 100 && credentialsProvider.getCredentialsExpiration() == null; i++) {
+            Thread.sleep(50);
+        }
+        assertNotNull(credentialsProvider.getCredentialsExpiration());
+    }
+
     private void stubForSuccessResponseWithCustomBody(int statusCode, String body) {
         stubFor(
                 get(urlPathEqualTo(CREDENTIALS_PATH))
@@ -186,6 +237,10 @@ public class EC2CredentialsFetcherTest {
             super(new TestCredentialsEndpointProvider("http://localhost:" + mockServer.port()));
         }
 
+        public TestCredentialsProvider(ScheduledExecutorService refreshExecutor) {
+            super(new TestCredentialsEndpointProvider("http://localhost:" + mockServer.port()), refreshExecutor);
+        }
+
         public void setLastInstanceProfileCheck(Date lastInstanceProfileCheck) {
             this.lastInstanceProfileCheck = lastInstanceProfileCheck;
         }
@@ -36,8 +36,10 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import utils.builder.StaticExecutorFactory;
@@ -49,6 +51,8 @@ import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -265,6 +269,71 @@ public class AwsClientBuilderTest {
         assertEquals(maxConns, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
     }
 
+    @Test
+    public void noExplicitExecutor_DefaultExecutorReclaimsIdleThreads() {
+        ExecutorService executor = builderWithRegion().build().getAsyncParams().getExecutor();
+        assertThat(executor, instanceOf(ThreadPoolExecutor.class));
+        assertTrue(((ThreadPoolExecutor) executor).allowsCoreThreadTimeOut());
+    }
+
+    @Test
+    public void noExecutorQueueSize_DefaultExecutorQueueIsUnbounded() {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) builderWithRegion().build()
+                .getAsyncParams().getExecutor();
+        assertEquals(Integer.MAX_VALUE, executor.getQueue().remainingCapacity());
+        assertThat(executor.getRejectedExecutionHandler(),
+                   instanceOf(ThreadPoolExecutor.AbortPolicy.class));
+    }
+
+    @Test
+    public void executorQueueSize_DefaultExecutorRejectsOverflow() throws Exception {
+        final ThreadPoolExecutor executor = (ThreadPoolExecutor) builderWithRegion()
+                .withClientConfiguration(new ClientConfiguration().withMaxConnections(1))
+                .withExecutorQueueSize(1)
+                .build().getAsyncParams().getExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try {
+            executor.execute(blocked);
+            executor.execute(blocked);
+            try {
+                executor.submit(blocked);
+                fail("Expected the call beyond the queue to be rejected");
+            } catch (RejectedExecutionException expected) {
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void executorQueueSize_DefaultExecutorRejectsCallsOnceShutDown() {
+        ExecutorService executor = builderWithRegion()
+                .withExecutorQueueSize(1)
+                .build().getAsyncParams().getExecutor();
+        executor.shutdown();
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveExecutorQueueSize_ThrowsException() {
+        builderWithRegion().withExecutorQueueSize(0);
+    }
+
     /**
      * If a custom executor is set then the Max Connections in Client Configuration should be
      * ignored and the executor should be used as is.
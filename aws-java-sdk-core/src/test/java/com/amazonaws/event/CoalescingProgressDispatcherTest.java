@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class CoalescingProgressDispatcherTest {
+
+    private CoalescingProgressDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown(true);
+        }
+    }
+
+    /**
+     * Records the events it receives, failing if it is ever called
+     * concurrently.
+     */
+    private static class RecordingListener implements ProgressListener {
+        private final List<ProgressEvent> events =
+                Collections.synchronizedList(new ArrayList<ProgressEvent>());
+        private final AtomicBoolean inCallback = new AtomicBoolean();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean concurrentCall;
+
+        @Override
+        public void progressChanged(ProgressEvent event) {
+            if (!inCallback.compareAndSet(false, true)) {
+                concurrentCall = true;
+            }
+            events.add(event);
+            inCallback.set(false);
+            if (event.getEventType() == ProgressEventType.TRANSFER_COMPLETED_EVENT) {
+                completed.countDown();
+            }
+        }
+
+        void awaitCompletion() throws InterruptedException {
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+            assertFalse(concurrentCall);
+        }
+    }
+
+    @Test
+    public void byteTransferEvents_CoalescedWithinWindow() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(2, 1000, 16);
+        RecordingListener listener = new RecordingListener();
+        dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.TRANSFER_STARTED_EVENT));
+        for (int i = 0; i < 1000; i++) {
+            dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT, 10));
+            dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT, 1));
+        }
+        dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.TRANSFER_COMPLETED_EVENT));
+        listener.awaitCompletion();
+
+        List<ProgressEvent> events = listener.events;
+        assertTrue(String.valueOf(events.size()), events.size() <= 6);
+        assertEquals(ProgressEventType.TRANSFER_STARTED_EVENT, events.get(0).getEventType());
+        assertEquals(ProgressEventType.TRANSFER_COMPLETED_EVENT, events.get(events.size() - 1).getEventType());
+        long requestBytes = 0;
+        long responseBytes = 0;
+        for (ProgressEvent event : events) {
+            if (event.getEventType() == ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT) {
+                requestBytes += event.getBytes();
+            } else if (event.getEventType() == ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT) {
+                responseBytes += event.getBytes();
+            }
+        }
+        assertEquals(10000, requestBytes);
+        assertEquals(1000, responseBytes);
+    }
+
+    @Test
+    public void pendingEventsBounded_DeliveredInOrder() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(1, 0, 4);
+        RecordingListener listener = new RecordingListener();
+        for (int i = 1; i <= 10000; i++) {
+            dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.REQUEST_CONTENT_LENGTH_EVENT, i));
+        }
+        dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.TRANSFER_COMPLETED_EVENT));
+        listener.awaitCompletion();
+
+        assertEquals(10001, listener.events.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i + 1, listener.events.get(i).getBytes());
+        }
+    }
+
+    @Test
+    public void manyListeners_EachReceivesOwnEventsInOrder() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(3, 5, 8);
+        List<RecordingListener> listeners = new ArrayList<RecordingListener>();
+        for (int i = 0; i < 20; i++) {
+            listeners.add(new RecordingListener());
+        }
+        for (int i = 1; i <= 100; i++) {
+            for (RecordingListener listener : listeners) {
+                dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.REQUEST_CONTENT_LENGTH_EVENT, i));
+                dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT, 1));
+            }
+        }
+        for (RecordingListener listener : listeners) {
+            dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.TRANSFER_COMPLETED_EVENT));
+        }
+        for (RecordingListener listener : listeners) {
+            listener.awaitCompletion();
+            long lastContentLength = 0;
+            long bytes = 0;
+            for (ProgressEvent event : listener.events) {
+                if (event.getEventType() == ProgressEventType.REQUEST_CONTENT_LENGTH_EVENT) {
+                    assertEquals(lastContentLength + 1, event.getBytes());
+                    // Bytes published before an event are delivered before it
+                    assertEquals(lastContentLength, bytes);
+                    lastContentLength = event.getBytes();
+                } else {
+                    bytes += event.getBytesTransferred();
+                }
+            }
+            assertEquals(100, lastContentLength);
+            assertEquals(100, bytes);
+        }
+    }
+
+    @Test
+    public void listenerFailure_DoesNotStopDelivery() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(1, 0, 4);
+        final CountDownLatch delivered = new CountDownLatch(2);
+        ProgressListener listener = new ProgressListener() {
+            @Override
+            public void progressChanged(ProgressEvent event) {
+                delivered.countDown();
+                throw new Error();
+            }
+        };
+        dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.TRANSFER_STARTED_EVENT));
+        dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.TRANSFER_COMPLETED_EVENT));
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void idleListeners_NotRetained() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(1, 0, 4);
+        RecordingListener listener = new RecordingListener();
+        dispatcher.deliver(listener, new ProgressEvent(ProgressEventType.TRANSFER_COMPLETED_EVENT));
+        listener.awaitCompletion();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (dispatcher.getMailboxCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, dispatcher.getMailboxCount());
+    }
+}
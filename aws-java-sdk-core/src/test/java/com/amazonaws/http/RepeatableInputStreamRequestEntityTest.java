@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.amazonaws.DefaultRequest;
+
+public class RepeatableInputStreamRequestEntityTest {
+
+    @Test
+    public void testOutputBufferSizedToContentLength() {
+        assertEquals(4096, RepeatableInputStreamRequestEntity.outputBufferSize(-1));
+        assertEquals(4096, RepeatableInputStreamRequestEntity.outputBufferSize(10));
+        assertEquals(20000, RepeatableInputStreamRequestEntity.outputBufferSize(20000));
+        assertEquals(RepeatableInputStreamRequestEntity.MAX_OUTPUT_BUFFER_SIZE,
+                RepeatableInputStreamRequestEntity.outputBufferSize(10L * 1024 * 1024 * 1024));
+    }
+
+    @Test
+    public void testLargeContentWrittenInLargeChunksAndRepeatable() throws IOException {
+        byte[] data = new byte[300 * 1024];
+        new Random(42).nextBytes(data);
+        DefaultRequest<Object> request = new DefaultRequest<Object>("test");
+        request.addHeader("Content-Length", Integer.toString(data.length));
+        request.setContent(new ByteArrayInputStream(data));
+
+        RepeatableInputStreamRequestEntity entity = new RepeatableInputStreamRequestEntity(request);
+        assertTrue(entity.isRepeatable());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            CountingOutputStream out = new CountingOutputStream();
+            entity.writeTo(out);
+            assertArrayEquals(data, out.toByteArray());
+            assertEquals(5, out.writes);
+        }
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+        private int writes;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.timers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.http.timers.HashedWheelTimeoutScheduler.Timeout;
+
+public class HashedWheelTimeoutSchedulerTest {
+
+    private static final long TICK_MILLIS = 10;
+    private static final long IDLE_MILLIS = 200;
+
+    /** Small wheel so longer delays take several rounds. */
+    private final HashedWheelTimeoutScheduler scheduler = new HashedWheelTimeoutScheduler(TICK_MILLIS, 8, IDLE_MILLIS);
+
+    @Test
+    public void timeoutExpires_RunsTaskAfterDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        Timeout timeout = scheduler.schedule(countDown(latch), 100);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertEquals(0, scheduler.getPendingTimeoutCount());
+    }
+
+    @Test
+    public void timeoutCanceled_TaskNeverRuns() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger();
+        Timeout timeout = scheduler.schedule(increment(runs), 50);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, scheduler.getPendingTimeoutCount());
+        Thread.sleep(200);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void delaysLongerThanOneRound_AllExpire() throws InterruptedException {
+        final int count = 50;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicInteger canceledRuns = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            // Up to 25 ticks, or three times around the wheel
+            scheduler.schedule(countDown(latch), i * 5);
+            scheduler.schedule(increment(canceledRuns), i * 5).cancel();
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(0, canceledRuns.get());
+        assertEquals(0, scheduler.getPendingTimeoutCount());
+    }
+
+    @Test
+    public void taskThrows_SchedulerKeepsRunning() throws InterruptedException {
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                throw new RuntimeException("Boom");
+            }
+        }, 0);
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(countDown(latch), 50);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void taskBlocks_OtherTimeoutsStillExpire() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }, 0);
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(countDown(latch), 50);
+
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void timeoutExpires_TaskRunsOnTaskExecutor() throws InterruptedException {
+        final AtomicInteger executed = new AtomicInteger();
+        HashedWheelTimeoutScheduler scheduler = new HashedWheelTimeoutScheduler(TICK_MILLIS, 8, IDLE_MILLIS,
+                new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        executed.incrementAndGet();
+                        command.run();
+                    }
+                });
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(countDown(latch), 20);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, executed.get());
+    }
+
+    @Test
+    public void schedulerIdle_WorkerStopsAndRestartsOnDemand() throws InterruptedException {
+        assertFalse(scheduler.isWorkerRunning());
+        scheduler.schedule(countDown(new CountDownLatch(1)), 0);
+        assertTrue(scheduler.isWorkerRunning());
+
+        Thread.sleep(IDLE_MILLIS + 500);
+        assertFalse(scheduler.isWorkerRunning());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(countDown(latch), 20);
+        assertTrue(scheduler.isWorkerRunning());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void scheduledConcurrently_AllExpire() throws InterruptedException {
+        final int threads = 8;
+        final int perThread = 1000;
+        final CountDownLatch latch = new CountDownLatch(threads * perThread);
+        Thread[] schedulers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            schedulers[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < perThread; j++) {
+                        scheduler.schedule(countDown(latch), j % 100);
+                        scheduler.schedule(countDown(latch), j % 100).cancel();
+                    }
+                }
+            };
+            schedulers[i].start();
+        }
+        for (Thread thread : schedulers) {
+            thread.join();
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.getPendingTimeoutCount());
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+
+    private static Runnable increment(final AtomicInteger counter) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        };
+    }
+}
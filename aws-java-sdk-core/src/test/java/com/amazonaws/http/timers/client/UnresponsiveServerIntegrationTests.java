@@ -14,6 +14,7 @@
  */
 package com.amazonaws.http.timers.client;
 
+import static com.amazonaws.http.timers.ClientExecutionAndRequestTimerTestUtils.assertCanceledTasksRemoved;
 import static com.amazonaws.http.timers.ClientExecutionAndRequestTimerTestUtils.assertClientExecutionTimerExecutorNotCreated;
 import static com.amazonaws.http.timers.ClientExecutionAndRequestTimerTestUtils.assertNumberOfTasksTriggered;
 import static com.amazonaws.http.timers.ClientExecutionAndRequestTimerTestUtils.interruptCurrentThreadAfterDelay;
@@ -131,6 +132,7 @@ public class UnresponsiveServerIntegrationTests extends UnresponsiveMockServerTe
         } catch (AmazonClientException e) {
             assertThat(e.getCause(), instanceOf(SocketTimeoutException.class));
             assertNumberOfTasksTriggered(httpClient.getClientExecutionTimer(), 0);
+            assertCanceledTasksRemoved(httpClient.getClientExecutionTimer().getScheduler());
         }
     }
 
@@ -29,6 +29,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 
+import static com.amazonaws.http.timers.ClientExecutionAndRequestTimerTestUtils.assertCanceledTasksRemoved;
 import static com.amazonaws.http.timers.ClientExecutionAndRequestTimerTestUtils.assertNumberOfRetries;
 import static com.amazonaws.http.timers.ClientExecutionAndRequestTimerTestUtils.assertNumberOfTasksTriggered;
 import static com.amazonaws.http.timers.ClientExecutionAndRequestTimerTestUtils.execute;
@@ -76,6 +77,7 @@ public class DummyResponseServerIntegrationTests extends MockServerTestBase {
             assertNumberOfRetries(rawHttpClient, expectedNumberOfRequests);
             assertNumberOfTasksTriggered(httpClient.getHttpRequestTimer(), 0);
             assertNumberOfTasksTriggered(httpClient.getClientExecutionTimer(), 0);
+            assertCanceledTasksRemoved(httpClient.getHttpRequestTimer().getScheduler());
         }
     }
 
@@ -21,6 +21,12 @@ package com.amazonaws.internal;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 public class FIFOCacheTest {
 
     @Test
@@ -43,6 +49,16 @@ public class FIFOCacheTest {
         assertNull(cache.get("k1"));
     }
 
+    @Test
+    public void testValues() {
+        FIFOCache<String> cache = new FIFOCache<String>(2);
+        cache.add("k1", "v1");
+        cache.add("k2", "v2");
+        cache.add("k3", "v3");
+        assertEquals(new HashSet<String>(Arrays.asList("v2", "v3")),
+                new HashSet<String>(cache.values()));
+    }
+
     @Test(expected=IllegalArgumentException.class)
     public void testZeroSize() {
         new FIFOCache<Object>(0);
@@ -73,4 +89,26 @@ public class FIFOCacheTest {
         assertEquals("v3", cache.get("k3"));
         assertNull(cache.get("k2"));
     }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final FIFOCache<String> cache = new FIFOCache<String>(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        String key = "k" + thread + "-" + i;
+                        cache.add(key, "v" + i);
+                        cache.get(key);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertTrue(cache.size() <= cache.getMaxSize());
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.amazonaws.util.TimingInfo;
+
+public class HistogramRequestMetricCollectorTest {
+
+    private static class GetThingRequest extends AmazonWebServiceRequest {
+    }
+
+    private static class PutThingRequest extends AmazonWebServiceRequest {
+    }
+
+    @After
+    public void tearDown() {
+        AwsSdkMetrics.disableMetrics();
+    }
+
+    private static DefaultRequest<?> request(AmazonWebServiceRequest original, long httpRequestMillis,
+            int leasedConnections) {
+        DefaultRequest<?> request = new DefaultRequest<Object>(original, "AmazonThings");
+        AWSRequestMetrics metrics = new AWSRequestMetricsFullSupport();
+        metrics.getTimingInfo().addSubMeasurement(Field.HttpRequestTime.name(),
+                TimingInfo.newTimingInfoFullSupport(0, httpRequestMillis * 1000 * 1000));
+        metrics.setCounter(Field.HttpClientPoolLeasedCount, leasedConnections);
+        metrics.getTimingInfo().endTiming();
+        request.setAWSRequestMetrics(metrics);
+        return request;
+    }
+
+    private static Map<String, HistogramSnapshot> export(HistogramRequestMetricCollector collector, boolean reset) {
+        final Map<String, HistogramSnapshot> exported = new HashMap<String, HistogramSnapshot>();
+        collector.export(new HistogramExporter() {
+            @Override
+            public void export(String serviceName, String requestType, MetricType metricType, boolean latency,
+                    HistogramSnapshot snapshot) {
+                exported.put(serviceName + "/" + requestType + "/" + metricType.name() + "/" + latency, snapshot);
+            }
+        }, reset);
+        return exported;
+    }
+
+    @Test
+    public void collectMetrics_KeepsHistogramPerRequestTypeAndMetricType() {
+        HistogramRequestMetricCollector collector = new HistogramRequestMetricCollector();
+        for (int i = 1; i <= 100; i++) {
+            collector.collectMetrics(request(new GetThingRequest(), i, 3), null);
+        }
+        collector.collectMetrics(request(new PutThingRequest(), 1000, 10), null);
+
+        Map<String, HistogramSnapshot> exported = export(collector, false);
+        HistogramSnapshot getLatency = exported.get("AmazonThings/GetThingRequest/HttpRequestTime/true");
+        assertEquals(100, getLatency.getTotalCount());
+        // Latencies are in microseconds
+        long p99 = getLatency.getValueAtPercentile(99);
+        assertTrue(String.valueOf(p99), p99 >= 99 * 1000 && p99 < 100 * 1000);
+        assertEquals(100 * 1000, getLatency.getMax());
+
+        HistogramSnapshot getLeased = exported.get("AmazonThings/GetThingRequest/HttpClientPoolLeasedCount/false");
+        assertEquals(100, getLeased.getTotalCount());
+        assertEquals(3, getLeased.getValueAtPercentile(50));
+
+        assertEquals(1, exported.get("AmazonThings/PutThingRequest/HttpRequestTime/true").getTotalCount());
+        assertEquals(1, exported.get("AmazonThings/PutThingRequest/ClientExecuteTime/true").getTotalCount());
+        assertEquals(10, exported.get("AmazonThings/PutThingRequest/HttpClientPoolLeasedCount/false").getMax());
+    }
+
+    @Test
+    public void collectMetrics_MetricsDisabled_NothingRecorded() {
+        HistogramRequestMetricCollector collector = new HistogramRequestMetricCollector();
+        DefaultRequest<?> request = new DefaultRequest<Object>(new GetThingRequest(), "AmazonThings");
+        collector.collectMetrics(request, null);
+        assertTrue(export(collector, false).isEmpty());
+    }
+
+    @Test
+    public void export_WithReset_ExportsEachValueOnce() {
+        HistogramRequestMetricCollector collector = new HistogramRequestMetricCollector();
+        collector.collectMetrics(request(new GetThingRequest(), 5, 1), null);
+
+        assertFalse(export(collector, true).isEmpty());
+        assertTrue(export(collector, true).isEmpty());
+        collector.collectMetrics(request(new GetThingRequest(), 5, 1), null);
+        assertEquals(1, export(collector, true).get("AmazonThings/GetThingRequest/HttpRequestTime/true")
+                .getTotalCount());
+    }
+
+    @Test
+    public void metricAdmin_ReportsSdkLevelHistograms() {
+        MetricAdmin admin = new MetricAdmin();
+        AwsSdkMetrics.disableMetrics();
+        assertEquals("NONE", admin.getRequestMetricHistograms());
+
+        assertTrue(admin.enableHistogramMetrics());
+        assertFalse(admin.enableHistogramMetrics());
+        RequestMetricCollector collector = AwsSdkMetrics.getRequestMetricCollector();
+        assertTrue(collector instanceof HistogramRequestMetricCollector);
+        collector.collectMetrics(request(new GetThingRequest(), 5, 1), null);
+
+        String summary = admin.getRequestMetricHistograms();
+        assertTrue(summary, summary.contains("AmazonThings GetThingRequest HttpRequestTime: count=1"));
+        assertTrue(summary, summary.contains("p99=5.000ms"));
+        assertTrue(summary, summary.contains("AmazonThings GetThingRequest HttpClientPoolLeasedCount: count=1"));
+
+        admin.resetRequestMetricHistograms();
+        assertEquals("", admin.getRequestMetricHistograms());
+    }
+}
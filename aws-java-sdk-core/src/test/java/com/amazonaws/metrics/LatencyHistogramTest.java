@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketIndex_RoundTripsWithinPrecision() {
+        long previousHighest = -1;
+        for (int i = 0; i < LatencyHistogram.indexOf(Long.MAX_VALUE); i++) {
+            long highest = LatencyHistogram.highestValueAt(i);
+            // Buckets are contiguous
+            assertTrue(highest > previousHighest);
+            assertEquals(i, LatencyHistogram.indexOf(previousHighest + 1));
+            assertEquals(i, LatencyHistogram.indexOf(highest));
+            long lowest = previousHighest + 1;
+            assertTrue((double) (highest - lowest) / Math.max(lowest, 1) < 1.0 / 63);
+            previousHighest = highest;
+        }
+    }
+
+    @Test
+    public void smallValues_AreExact() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordValue(i);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getTotalCount());
+        assertEquals(50, snapshot.getValueAtPercentile(50));
+        assertEquals(99, snapshot.getValueAtPercentile(99));
+        assertEquals(100, snapshot.getValueAtPercentile(100));
+        assertEquals(1, snapshot.getValueAtPercentile(0));
+        assertEquals(100, snapshot.getMax());
+        assertEquals(50.5, snapshot.getMean(), 0.0001);
+    }
+
+    @Test
+    public void largeValues_WithinRelativePrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(60 * 1000 * 1000);
+        Random random = new Random(42);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + random.nextInt(10 * 1000 * 1000);
+            histogram.recordValue(values[i]);
+        }
+        Arrays.sort(values);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+            long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long actual = snapshot.getValueAtPercentile(percentile);
+            assertTrue(percentile + ": " + actual + " vs " + expected,
+                    Math.abs(actual - expected) <= expected / 60);
+        }
+        assertEquals(values[values.length - 1], snapshot.getMax());
+    }
+
+    @Test
+    public void valuesAboveHighestTrackable_CountedAsHighest() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        histogram.recordValue(10);
+        histogram.recordValue(1000 * 1000);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getTotalCount());
+        assertEquals(1000 * 1000, snapshot.getMax());
+        long p100 = snapshot.getValueAtPercentile(100);
+        assertTrue(p100 >= 1000 && p100 <= 1016);
+    }
+
+    @Test
+    public void negativeValues_Ignored() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        histogram.recordValue(-1);
+        assertEquals(0, histogram.snapshot().getTotalCount());
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+    }
+
+    @Test
+    public void snapshotAndReset_StartsNewInterval() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        histogram.recordValue(500);
+        HistogramSnapshot first = histogram.snapshotAndReset();
+        histogram.recordValue(7);
+        HistogramSnapshot second = histogram.snapshotAndReset();
+
+        assertEquals(1, first.getTotalCount());
+        assertEquals(500, first.getMax());
+        assertEquals(1, second.getTotalCount());
+        assertEquals(7, second.getMax());
+        assertEquals(0, histogram.snapshot().getTotalCount());
+    }
+
+    @Test
+    public void concurrentRecording_NoValueLost() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram(1000 * 1000);
+        final int threads = 8;
+        final int perThread = 100 * 1000;
+        Thread[] recorders = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            recorders[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < perThread; j++) {
+                        histogram.recordValue(j);
+                    }
+                }
+            };
+            recorders[i].start();
+        }
+        long exported = 0;
+        for (int i = 0; i < 10; i++) {
+            exported += histogram.snapshotAndReset().getTotalCount();
+        }
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+        exported += histogram.snapshotAndReset().getTotalCount();
+        assertEquals(threads * perThread, exported);
+    }
+}
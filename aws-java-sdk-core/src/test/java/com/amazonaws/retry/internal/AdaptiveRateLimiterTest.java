@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveRateLimiterTest {
+
+    private ManualClockRateLimiter limiter;
+
+    @Before
+    public void setup() {
+        limiter = new ManualClockRateLimiter();
+    }
+
+    @Test
+    public void testNoDelayBeforeFirstThrottle() {
+        sendSuccessfully(10, 100);
+
+        assertFalse(limiter.isEnabled());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    public void testThrottleReducesRateBelowMeasuredSendRate() {
+        sendSuccessfully(20, 100);
+        limiter.onResponse(true);
+
+        assertTrue(limiter.isEnabled());
+        assertTrue("Fill rate " + limiter.getFillRate(), limiter.getFillRate() < 10);
+        assertTrue("Fill rate " + limiter.getFillRate(), limiter.getFillRate() >= 0.5);
+    }
+
+    @Test
+    public void testReservationsAreSpacedAtFillRate() {
+        sendSuccessfully(20, 100);
+        limiter.onResponse(true);
+        double fillRate = limiter.getFillRate();
+
+        // Drain whatever burst is available, then check the spacing of waits
+        long previous;
+        do {
+            previous = limiter.reserve();
+        } while (previous == 0);
+        long next = limiter.reserve();
+
+        long expectedSpacing = (long) (TimeUnit.SECONDS.toNanos(1) / fillRate);
+        assertTrue(Math.abs((next - previous) - expectedSpacing) <= 1);
+    }
+
+    @Test
+    public void testRateRecoversAfterSuccessfulResponses() {
+        sendSuccessfully(20, 100);
+        limiter.onResponse(true);
+        double throttledRate = limiter.getFillRate();
+
+        sendSuccessfully(40, 100);
+
+        assertTrue("Fill rate " + limiter.getFillRate() + " should exceed " + throttledRate,
+                limiter.getFillRate() > throttledRate);
+    }
+
+    @Test
+    public void testRepeatedThrottlingKeepsReducingRate() {
+        sendSuccessfully(20, 100);
+        limiter.onResponse(true);
+        double firstRate = limiter.getFillRate();
+
+        limiter.advanceMillis(100);
+        limiter.onResponse(true);
+
+        assertTrue(limiter.getFillRate() < firstRate);
+    }
+
+    private void sendSuccessfully(int count, long intervalMillis) {
+        for (int i = 0; i < count; i++) {
+            limiter.advanceMillis(intervalMillis);
+            limiter.onResponse(false);
+        }
+    }
+
+    private static class ManualClockRateLimiter extends AdaptiveRateLimiter {
+        private long nanos;
+
+        void advanceMillis(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        long nanoTime() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.junit.Test;
+
+import com.amazonaws.util.StringUtils;
+
+public class StaxUnmarshallerContextTest {
+
+    private static final String DOCUMENT = "<?xml version=\"1.0\"?>\n"
+            + "<SendMessageResponse xmlns=\"http://queue.amazonaws.com/doc/2012-11-05/\">\n"
+            + "  <SendMessageResult>\n"
+            + "    <MessageId id=\"1\">5fea7756-0ea4-451a-a703-a558b933e274</MessageId>\n"
+            + "    <MD5OfMessageBody>fafb00f5732ab283681e124bf8747ed1</MD5OfMessageBody>\n"
+            + "    <Body><![CDATA[a < b]]> &amp; c</Body>\n"
+            + "    <Empty/>\n"
+            + "  </SendMessageResult>\n"
+            + "  <ResponseMetadata>\n"
+            + "    <RequestId>27daac76-34dd-47df-bd01-1f6e873584a0</RequestId>\n"
+            + "  </ResponseMetadata>\n"
+            + "</SendMessageResponse>";
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    private static StaxUnmarshallerContext eventReaderContext() throws Exception {
+        return new StaxUnmarshallerContext(FACTORY.createXMLEventReader(input()), null);
+    }
+
+    private static StaxUnmarshallerContext streamReaderContext() throws Exception {
+        return new StaxUnmarshallerContext(FACTORY.createXMLStreamReader(input()), null);
+    }
+
+    private static ByteArrayInputStream input() {
+        return new ByteArrayInputStream(DOCUMENT.getBytes(StringUtils.UTF8));
+    }
+
+    /**
+     * Walks the document the way generated unmarshallers do, reading the text
+     * of every leaf element and attribute, and records what it sees.
+     */
+    private static List<String> walk(StaxUnmarshallerContext context) throws Exception {
+        context.registerMetadataExpression("ResponseMetadata/RequestId", 2, "RequestId");
+        List<String> trace = new ArrayList<String>();
+        trace.add("start:" + context.isStartOfDocument());
+        while (true) {
+            XMLEvent event = context.nextEvent();
+            if (event.isEndDocument()) {
+                trace.add("end depth " + context.getCurrentDepth());
+                return trace;
+            }
+            if (event.isAttribute()) {
+                trace.add("attr depth " + context.getCurrentDepth() + " id=" + context.testExpression("MessageId/@id")
+                        + " " + context.readText());
+            } else if (event.isStartElement()) {
+                if (context.testExpression("SendMessageResult/MD5OfMessageBody", 2)
+                        || context.testExpression("SendMessageResult/Body", 2)
+                        || context.testExpression("SendMessageResult/Empty", 2)) {
+                    trace.add("text depth " + context.getCurrentDepth() + " [" + context.readText() + "]");
+                } else {
+                    trace.add("element depth " + context.getCurrentDepth());
+                }
+            } else if (event.isEndElement()) {
+                trace.add("end element depth " + context.getCurrentDepth());
+            }
+        }
+    }
+
+    @Test
+    public void streamReader_WalksDocumentLikeEventReader() throws Exception {
+        assertEquals(walk(eventReaderContext()), walk(streamReaderContext()));
+    }
+
+    @Test
+    public void streamReader_ReadsTextAndAttributes() throws Exception {
+        List<String> trace = walk(streamReaderContext());
+        assertEquals("start:true", trace.get(0));
+        assertTrue(trace.contains("attr depth 3 id=true 1"));
+        assertTrue(trace.contains("text depth 3 [fafb00f5732ab283681e124bf8747ed1]"));
+        assertTrue(trace.contains("text depth 3 [a < b & c]"));
+        assertTrue(trace.contains("text depth 3 []"));
+        assertEquals("end depth 0", trace.get(trace.size() - 1));
+    }
+
+    @Test
+    public void streamReader_CollectsMetadata() throws Exception {
+        StaxUnmarshallerContext context = streamReaderContext();
+        walk(context);
+        assertEquals("27daac76-34dd-47df-bd01-1f6e873584a0", context.getMetadata().get("RequestId"));
+    }
+
+    @Test
+    public void streamReader_IsStartOfDocumentOnlyBeforeFirstEvent() throws Exception {
+        StaxUnmarshallerContext context = streamReaderContext();
+        assertTrue(context.isStartOfDocument());
+        assertTrue(context.nextEvent().isStartDocument());
+        assertFalse(context.isStartOfDocument());
+    }
+
+    @Test
+    public void streamReader_ReturnsAttributesAfterElementText() throws Exception {
+        StaxUnmarshallerContext context = new StaxUnmarshallerContext(FACTORY.createXMLStreamReader(
+                new ByteArrayInputStream("<Item><Name encoding=\"base64\" lang=\"en\">Zm9v</Name></Item>"
+                        .getBytes(StringUtils.UTF8))), null);
+        context.nextEvent();
+        context.nextEvent();
+        assertTrue(context.nextEvent().isStartElement());
+        assertEquals("Zm9v", context.readText());
+
+        XMLEvent event = context.nextEvent();
+        assertTrue(event.isAttribute());
+        assertTrue(context.testExpression("Name/@encoding", 2));
+        assertEquals("base64", context.readText());
+        assertEquals("encoding", ((Attribute) event).getName().getLocalPart());
+
+        assertTrue(context.nextEvent().isAttribute());
+        assertTrue(context.testExpression("Name/@lang", 2));
+        assertEquals("en", context.readText());
+
+        assertTrue(context.nextEvent().isEndElement());
+        assertEquals(1, context.getCurrentDepth());
+    }
+
+    @Test
+    public void streamReader_ConvertsEventsOnDemand() throws Exception {
+        StaxUnmarshallerContext context = streamReaderContext();
+        context.nextEvent();
+        StartElement start = context.nextEvent().asStartElement();
+        assertEquals("SendMessageResponse", start.getName().getLocalPart());
+        assertEquals("http://queue.amazonaws.com/doc/2012-11-05/", start.getName().getNamespaceURI());
+
+        XMLEvent event = context.nextEvent();
+        assertTrue(event.isCharacters());
+        assertEquals("\n  ", event.asCharacters().getData());
+    }
+}
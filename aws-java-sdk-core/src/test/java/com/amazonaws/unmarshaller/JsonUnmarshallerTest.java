@@ -19,9 +19,11 @@
 package com.amazonaws.unmarshaller;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +31,7 @@ import java.util.Map;
 import com.amazonaws.protocol.json.SdkStructuredPlainJsonFactory;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import org.junit.Test;
 
@@ -69,6 +72,66 @@ public class JsonUnmarshallerTest {
         assertEquals(Arrays.asList("value2"), map.get("key2"));
     }
 
+    @Test
+    public void testScalarsReadFromTokens() throws Exception {
+        JsonUnmarshallerContext context = setupUnmarshaller(
+                "[1, 2.5, 9000000000, true, false, \"AAEC\", null]");
+        context.nextToken();
+        context.nextToken();
+        assertEquals(Integer.valueOf(1), SimpleTypeJsonUnmarshallers.IntegerJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertEquals(Double.valueOf(2.5), SimpleTypeJsonUnmarshallers.DoubleJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertEquals(Long.valueOf(9000000000L), SimpleTypeJsonUnmarshallers.LongJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertEquals(Boolean.TRUE, SimpleTypeJsonUnmarshallers.BooleanJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertEquals(Boolean.FALSE, SimpleTypeJsonUnmarshallers.BooleanJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertEquals(ByteBuffer.wrap(new byte[] {0, 1, 2}),
+                SimpleTypeJsonUnmarshallers.ByteBufferJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertNull(SimpleTypeJsonUnmarshallers.IntegerJsonUnmarshaller.getInstance().unmarshall(context));
+        assertNull(SimpleTypeJsonUnmarshallers.ByteBufferJsonUnmarshaller.getInstance().unmarshall(context));
+    }
+
+    @Test
+    public void testScalarsReadFromText() throws Exception {
+        JsonUnmarshallerContext context = setupUnmarshaller("[\"1\", \"2.5\", \"true\", 3]");
+        context.nextToken();
+        context.nextToken();
+        assertEquals(Integer.valueOf(1), SimpleTypeJsonUnmarshallers.IntegerJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertEquals(Double.valueOf(2.5), SimpleTypeJsonUnmarshallers.DoubleJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertEquals(Boolean.TRUE, SimpleTypeJsonUnmarshallers.BooleanJsonUnmarshaller.getInstance().unmarshall(context));
+        context.nextToken();
+        assertEquals(Double.valueOf(3), SimpleTypeJsonUnmarshallers.DoubleJsonUnmarshaller.getInstance().unmarshall(context));
+    }
+
+    @Test
+    public void testCurrentFieldName() throws Exception {
+        JsonUnmarshallerContext context = setupUnmarshaller("{\"a\" : 1, \"b\" : {\"c\" : 2}}");
+        assertEquals(JsonToken.START_OBJECT, context.nextToken());
+        assertNull(context.getCurrentFieldName());
+        assertEquals(JsonToken.FIELD_NAME, context.nextToken());
+        assertEquals("a", context.getCurrentFieldName());
+        assertEquals(1, context.getCurrentDepth());
+        assertEquals(JsonToken.VALUE_NUMBER_INT, context.nextToken());
+        assertEquals("a", context.getCurrentFieldName());
+        context.nextToken();
+        assertEquals(JsonToken.START_OBJECT, context.nextToken());
+        assertNull(context.getCurrentFieldName());
+        assertEquals("b", context.getCurrentParentElement());
+        context.nextToken();
+        assertEquals("c", context.getCurrentFieldName());
+        assertEquals(2, context.getCurrentDepth());
+        context.nextToken();
+        assertEquals(JsonToken.END_OBJECT, context.nextToken());
+        assertEquals("b", context.getLastParsedParentElement());
+        assertEquals(0, context.getCurrentDepth());
+    }
+
     private JsonUnmarshallerContext setupUnmarshaller(String snippet) throws Exception {
         JsonParser jsonParser = jsonFactory
                 .createJsonParser(new ByteArrayInputStream(snippet.getBytes()));
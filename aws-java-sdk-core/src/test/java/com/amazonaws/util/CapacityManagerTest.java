@@ -18,6 +18,12 @@ package com.amazonaws.util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Tests the behavior of the {@link CapacityManager}
  */
@@ -39,6 +45,21 @@ public class CapacityManagerTest {
         Assert.assertFalse(mgr.acquire(1));
     }
 
+    /**
+     * Tests that acquisitions refused for lack of capacity are counted.
+     */
+    @Test
+    public void rejectedAcquisitions() {
+        CapacityManager mgr = new CapacityManager(10);
+        Assert.assertTrue(mgr.acquire(8));
+        Assert.assertEquals(0, mgr.rejectedAcquisitions());
+        Assert.assertFalse(mgr.acquire(5));
+        Assert.assertFalse(mgr.acquire(3));
+        Assert.assertTrue(mgr.acquire(2));
+        Assert.assertEquals(2, mgr.rejectedAcquisitions());
+        Assert.assertEquals(0, new CapacityManager(-1).rejectedAcquisitions());
+    }
+
     /**
      * Tests that capacity can be properly released, making additional capacity
      * available to be acquired.
@@ -69,4 +90,40 @@ public class CapacityManagerTest {
         Assert.assertEquals(mgr.consumedCapacity(), 0);
     }
 
+    /**
+     * Tests that concurrent acquisitions never hand out more capacity than is
+     * available.
+     */
+    @Test
+    public void concurrentAcquire() throws Exception {
+        final int threads = 8;
+        final CapacityManager mgr = new CapacityManager(1000);
+        final AtomicInteger acquired = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 500; j++) {
+                        if (mgr.acquire(3)) {
+                            acquired.addAndGet(3);
+                        }
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        Assert.assertEquals(999, acquired.get());
+        Assert.assertEquals(1, mgr.availableCapacity());
+        Assert.assertEquals(999, mgr.consumedCapacity());
+    }
+
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-table backoff shared by the batches of a parallel
+ * {@link DynamoDBMapper#batchWrite}. When a table returns unprocessed items
+ * or throttles, every in-flight batch for that table waits before its next
+ * attempt, while batches for other tables keep being sent. The delay grows
+ * with each consecutive throttle of the table, as computed by the configured
+ * {@link BatchWriteRetryStrategy}, and shrinks again as writes to it succeed.
+ */
+final class BatchWriteTableBackoff {
+
+    private final BatchWriteRetryStrategy retryStrategy;
+
+    private final ConcurrentMap<String, TableState> tables = new ConcurrentHashMap<String, TableState>();
+
+    BatchWriteTableBackoff(BatchWriteRetryStrategy retryStrategy) {
+        this.retryStrategy = retryStrategy;
+    }
+
+    /**
+     * Blocks until none of the given tables is backing off.
+     */
+    void awaitTables(Collection<String> tableNames) {
+        long delayNanos;
+        while ((delayNanos = remainingDelayNanos(tableNames)) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SdkClientException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Backs off every table that still has unprocessed items, either returned
+     * as UnprocessedItems or rejected with a throttling error.
+     */
+    void onUnprocessedItems(Map<String, List<WriteRequest>> unprocessedItems) {
+        for (Map.Entry<String, List<WriteRequest>> entry : unprocessedItems.entrySet()) {
+            backOff(entry.getKey(), Collections.singletonMap(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * Records that the given tables accepted a batch.
+     */
+    void onSuccess(Collection<String> tableNames) {
+        for (String tableName : tableNames) {
+            TableState state = tables.get(tableName);
+            if (state != null) {
+                synchronized (state) {
+                    if (state.consecutiveThrottles > 0) {
+                        state.consecutiveThrottles--;
+                    }
+                }
+            }
+        }
+    }
+
+    private void backOff(String tableName, Map<String, List<WriteRequest>> unprocessedItems) {
+        TableState state = getTableState(tableName);
+        synchronized (state) {
+            long delayMillis = retryStrategy.getDelayBeforeRetryUnprocessedItems(
+                    Collections.unmodifiableMap(unprocessedItems), state.consecutiveThrottles);
+            state.consecutiveThrottles++;
+            long resumeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0));
+            if (resumeAt - state.resumeAtNanos > 0) {
+                state.resumeAtNanos = resumeAt;
+            }
+        }
+    }
+
+    private long remainingDelayNanos(Collection<String> tableNames) {
+        long now = System.nanoTime();
+        long delayNanos = 0;
+        for (String tableName : tableNames) {
+            TableState state = tables.get(tableName);
+            if (state != null) {
+                synchronized (state) {
+                    delayNanos = Math.max(delayNanos, state.resumeAtNanos - now);
+                }
+            }
+        }
+        return delayNanos;
+    }
+
+    private TableState getTableState(String tableName) {
+        TableState state = tables.get(tableName);
+        if (state == null) {
+            TableState newState = new TableState(System.nanoTime());
+            state = tables.putIfAbsent(tableName, newState);
+            if (state == null) {
+                state = newState;
+            }
+        }
+        return state;
+    }
+
+    private static final class TableState {
+        private long resumeAtNanos;
+        private int consecutiveThrottles;
+
+        private TableState(long resumeAtNanos) {
+            this.resumeAtNanos = resumeAtNanos;
+        }
+    }
+}
@@ -30,6 +30,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -1132,15 +1137,22 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
         }
 
         // Break into chunks of 25 items and make service requests to DynamoDB
-        for (final StringListMap<WriteRequest> batch : requestItems.subMaps(MAX_ITEMS_PER_BATCH, true)) {
-            List<FailedBatch> failedBatches = writeOneBatch(batch, config.getBatchWriteRetryStrategy());
-            if (failedBatches != null) {
-                totalFailedBatches.addAll(failedBatches);
-
-                // If contains throttling exception, we do a backoff
-                if (containsThrottlingException(failedBatches)) {
-                    pause(config.getBatchWriteRetryStrategy().getDelayBeforeRetryUnprocessedItems(
-                            Collections.unmodifiableMap(batch), 0));
+        final List<StringListMap<WriteRequest>> batches = requestItems.subMaps(MAX_ITEMS_PER_BATCH, true);
+        final Integer concurrency = config.getBatchWriteConcurrency();
+        if (concurrency != null && concurrency > 1 && batches.size() > 1) {
+            totalFailedBatches.addAll(writeBatchesInParallel(
+                    batches, config.getBatchWriteRetryStrategy(), concurrency));
+        } else {
+            for (final StringListMap<WriteRequest> batch : batches) {
+                List<FailedBatch> failedBatches = writeOneBatch(batch, config.getBatchWriteRetryStrategy(), null);
+                if (failedBatches != null) {
+                    totalFailedBatches.addAll(failedBatches);
+
+                    // If contains throttling exception, we do a backoff
+                    if (containsThrottlingException(failedBatches)) {
+                        pause(config.getBatchWriteRetryStrategy().getDelayBeforeRetryUnprocessedItems(
+                                Collections.unmodifiableMap(batch), 0));
+                    }
                 }
             }
         }
@@ -1153,16 +1165,59 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
         return totalFailedBatches;
     }
 
+    /**
+     * Writes the batches with up to the given number of BatchWriteItem
+     * requests in flight. Unprocessed items are retried by the batch that
+     * owns them, backing off only the tables that returned them.
+     */
+    private List<FailedBatch> writeBatchesInParallel(
+            final List<StringListMap<WriteRequest>> batches,
+            final BatchWriteRetryStrategy batchWriteRetryStrategy,
+            final int concurrency) {
+
+        final BatchWriteTableBackoff backoff = new BatchWriteTableBackoff(batchWriteRetryStrategy);
+        final ExecutorService executorService = Executors.newFixedThreadPool(
+                Math.min(concurrency, batches.size()));
+        try {
+            final List<Future<List<FailedBatch>>> futures = new ArrayList<Future<List<FailedBatch>>>(batches.size());
+            for (final StringListMap<WriteRequest> batch : batches) {
+                futures.add(executorService.submit(new Callable<List<FailedBatch>>() {
+                    @Override
+                    public List<FailedBatch> call() {
+                        return writeOneBatch(batch, batchWriteRetryStrategy, backoff);
+                    }
+                }));
+            }
+
+            final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
+            for (final Future<List<FailedBatch>> future : futures) {
+                failedBatches.addAll(future.get());
+            }
+            return failedBatches;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SdkClientException("Parallel batch write interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SdkClientException("Parallel batch write failed", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     /**
      * Process one batch of requests(max 25). It will divide the batch if
      * receives request too large exception(the total size of the request is beyond 1M).
      */
     private List<FailedBatch> writeOneBatch(
             StringListMap<WriteRequest> batch,
-            BatchWriteRetryStrategy batchWriteRetryStrategy) {
+            BatchWriteRetryStrategy batchWriteRetryStrategy,
+            BatchWriteTableBackoff backoff) {
 
         List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
-        FailedBatch failedBatch = doBatchWriteItemWithRetry(batch, batchWriteRetryStrategy);
+        FailedBatch failedBatch = doBatchWriteItemWithRetry(batch, batchWriteRetryStrategy, backoff);
 
         if (failedBatch != null) {
             // If the exception is request entity too large, we divide the batch
@@ -1177,7 +1232,7 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
                     failedBatches.add(failedBatch);
                 } else {
                     for (final StringListMap<WriteRequest> subBatch : batch.subMaps(2, false)) {
-                        failedBatches.addAll(writeOneBatch(subBatch, batchWriteRetryStrategy));
+                        failedBatches.addAll(writeOneBatch(subBatch, batchWriteRetryStrategy, backoff));
                     }
                 }
 
@@ -1203,11 +1258,14 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
 
     /**
      * Continue trying to process the batch and retry on UnproccessedItems as
-     * according to the specified BatchWriteRetryStrategy
+     * according to the specified BatchWriteRetryStrategy. When a backoff is
+     * given, delays are coordinated per table with the other batches in flight
+     * instead of pausing this batch alone.
      */
     private FailedBatch doBatchWriteItemWithRetry(
             Map<String, List<WriteRequest>> batch,
-            BatchWriteRetryStrategy batchWriteRetryStrategy) {
+            BatchWriteRetryStrategy batchWriteRetryStrategy,
+            BatchWriteTableBackoff backoff) {
 
         BatchWriteItemResult result = null;
         int retries = 0;
@@ -1219,6 +1277,9 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
         Map<String, List<WriteRequest>> pendingItems = batch;
 
         while (true) {
+            if (backoff != null) {
+                backoff.awaitTables(pendingItems.keySet());
+            }
             try {
                 result = db.batchWriteItem(applyBatchOperationUserAgent(
                         new BatchWriteItemRequest().withRequestItems(pendingItems)));
@@ -1226,10 +1287,20 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
                 failedBatch = new FailedBatch();
                 failedBatch.setUnprocessedItems(pendingItems);
                 failedBatch.setException(e);
+                if (backoff != null && failedBatch.isThrottling()) {
+                    backoff.onUnprocessedItems(pendingItems);
+                }
                 return failedBatch;
             }
+            final Map<String, List<WriteRequest>> sentItems = pendingItems;
             pendingItems = result.getUnprocessedItems();
 
+            if (backoff != null) {
+                final Set<String> acceptedTables = new HashSet<String>(sentItems.keySet());
+                acceptedTables.removeAll(pendingItems.keySet());
+                backoff.onSuccess(acceptedTables);
+            }
+
             if (pendingItems.size() > 0) {
 
                 // return pendingItems as a FailedBatch if we have exceeded max retry
@@ -1240,8 +1311,12 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
                     return failedBatch;
                 }
 
-                pause(batchWriteRetryStrategy.getDelayBeforeRetryUnprocessedItems(
-                        Collections.unmodifiableMap(pendingItems), retries));
+                if (backoff != null) {
+                    backoff.onUnprocessedItems(pendingItems);
+                } else {
+                    pause(batchWriteRetryStrategy.getDelayBeforeRetryUnprocessedItems(
+                            Collections.unmodifiableMap(pendingItems), retries));
+                }
                 retries++;
             } else {
                 break;
@@ -1468,6 +1543,66 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
         return new PaginatedParallelScanList<T>(this, clazz, db, parallelScanTask, config.getPaginationLoadingStrategy(), config);
     }
 
+    /**
+     * Scans through an Amazon DynamoDB table on logically partitioned segments
+     * in parallel, streaming the results through the returned iterator as
+     * pages arrive. Unlike {@link #parallelScan(Class, DynamoDBScanExpression, int)},
+     * no more than {@link ParallelScanOptions#getMaxPrefetchedPagesPerSegment()}
+     * pages per segment are held in memory at any time.
+     *
+     * @see #parallelScanIterator(Class, DynamoDBScanExpression, int, ParallelScanOptions, DynamoDBMapperConfig)
+     */
+    public <T> ParallelScanIterator<T> parallelScanIterator(Class<T> clazz,
+                                                            DynamoDBScanExpression scanExpression,
+                                                            int totalSegments,
+                                                            ParallelScanOptions options) {
+        return parallelScanIterator(clazz, scanExpression, totalSegments, options, (DynamoDBMapperConfig) null);
+    }
+
+    /**
+     * Scans through an Amazon DynamoDB table on logically partitioned segments
+     * in parallel, streaming the results through the returned iterator as
+     * pages arrive.
+     * <p>
+     * Segments are scanned on the executor given in {@code options}, or on a
+     * private thread pool if none is given. Each segment stops fetching pages
+     * once it has {@link ParallelScanOptions#getMaxPrefetchedPagesPerSegment()}
+     * pages waiting for the caller, and if
+     * {@link ParallelScanOptions#getReadCapacityUnitsPerSecond()} is set all
+     * segments together are held to that read capacity budget.
+     * <p>
+     * The iterator must be closed if the caller stops iterating before the
+     * end of the results.
+     *
+     * @param clazz
+     *            The class annotated with DynamoDB annotations describing how
+     *            to store the object data in Amazon DynamoDB.
+     * @param scanExpression
+     *            Details on how to run the scan, including any filters to apply
+     *            to limit results.
+     * @param totalSegments
+     *            Number of total parallel scan segments.
+     *            <b>Range:</b> 1 - 4096
+     * @param options
+     *            Prefetch, executor and rate limiting options for the scan.
+     * @param config
+     *            The configuration to use for this scan, which overrides the
+     *            default provided at object construction.
+     * @return An iterator over the results of the scan, in no particular order.
+     */
+    public <T> ParallelScanIterator<T> parallelScanIterator(Class<T> clazz,
+                                                            DynamoDBScanExpression scanExpression,
+                                                            int totalSegments,
+                                                            ParallelScanOptions options,
+                                                            DynamoDBMapperConfig config) {
+        config = mergeConfig(config);
+
+        List<ScanRequest> parallelScanRequests = createParallelScanRequestsFromExpression(clazz, scanExpression, totalSegments, config);
+
+        return new ParallelScanIterator<T>(this, clazz, db, parallelScanRequests,
+                options == null ? new ParallelScanOptions() : options, config);
+    }
+
     @Override
     public <T> ScanResultPage<T> scanPage(Class<T> clazz,
                                           DynamoDBScanExpression scanExpression,
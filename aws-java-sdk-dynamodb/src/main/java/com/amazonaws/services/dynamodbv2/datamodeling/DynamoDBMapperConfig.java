@@ -88,6 +88,7 @@ public class DynamoDBMapperConfig {
         private RequestMetricCollector requestMetricCollector;
         private ConversionSchema conversionSchema;
         private BatchWriteRetryStrategy batchWriteRetryStrategy;
+        private Integer batchWriteConcurrency;
         private BatchLoadRetryStrategy batchLoadRetryStrategy;
         private DynamoDBTypeConverterFactory typeConverterFactory;
 
@@ -126,6 +127,7 @@ public class DynamoDBMapperConfig {
             if (o.requestMetricCollector != null) requestMetricCollector = o.requestMetricCollector;
             if (o.conversionSchema != null) conversionSchema = o.conversionSchema;
             if (o.batchWriteRetryStrategy != null) batchWriteRetryStrategy = o.batchWriteRetryStrategy;
+            if (o.batchWriteConcurrency != null) batchWriteConcurrency = o.batchWriteConcurrency;
             if (o.batchLoadRetryStrategy != null) batchLoadRetryStrategy = o.batchLoadRetryStrategy;
             if (o.typeConverterFactory != null) typeConverterFactory = o.typeConverterFactory;
             return this;
@@ -360,6 +362,41 @@ public class DynamoDBMapperConfig {
             return this;
         }
 
+        /**
+         * @return the current batch write concurrency
+         */
+        public Integer getBatchWriteConcurrency() {
+            return batchWriteConcurrency;
+        }
+
+        /**
+         * Sets the maximum number of BatchWriteItem requests that
+         * {@link DynamoDBMapper#batchWrite} keeps in flight at once. When
+         * greater than one, batches are written in parallel and a table that
+         * returns unprocessed items or throttling errors is backed off
+         * without stalling batches for other tables. When not set, batches are
+         * written one at a time.
+         *
+         * @param value the new batch write concurrency, at least 1
+         */
+        public void setBatchWriteConcurrency(Integer value) {
+            if (value != null && value < 1) {
+                throw new IllegalArgumentException(
+                        "Batch write concurrency must be at least 1, was " + value);
+            }
+            this.batchWriteConcurrency = value;
+        }
+
+        /**
+         * @param value the new batch write concurrency, at least 1
+         * @return this builder
+         * @see #setBatchWriteConcurrency(Integer)
+         */
+        public Builder withBatchWriteConcurrency(Integer value) {
+            setBatchWriteConcurrency(value);
+            return this;
+        }
+
         public BatchLoadRetryStrategy getBatchLoadRetryStrategy() {
             return batchLoadRetryStrategy;
         }
@@ -893,6 +930,7 @@ public class DynamoDBMapperConfig {
     private final RequestMetricCollector requestMetricCollector;
     private final ConversionSchema conversionSchema;
     private final BatchWriteRetryStrategy batchWriteRetryStrategy;
+    private final Integer batchWriteConcurrency;
     private final BatchLoadRetryStrategy batchLoadRetryStrategy;
     private final DynamoDBTypeConverterFactory typeConverterFactory;
 
@@ -909,6 +947,7 @@ public class DynamoDBMapperConfig {
         this.requestMetricCollector = builder.requestMetricCollector;
         this.conversionSchema = builder.conversionSchema;
         this.batchWriteRetryStrategy = builder.batchWriteRetryStrategy;
+        this.batchWriteConcurrency = builder.batchWriteConcurrency;
         this.batchLoadRetryStrategy = builder.batchLoadRetryStrategy;
         this.typeConverterFactory = builder.typeConverterFactory;
     }
@@ -1020,6 +1059,7 @@ public class DynamoDBMapperConfig {
         this.requestMetricCollector = requestMetricCollector;
         this.conversionSchema = conversionSchema;
         this.batchWriteRetryStrategy = batchWriteRetryStrategy;
+        this.batchWriteConcurrency = null;
         this.batchLoadRetryStrategy = batchLoadRetryStrategy;
         this.typeConverterFactory = null;
     }
@@ -1213,6 +1253,15 @@ public class DynamoDBMapperConfig {
         return batchWriteRetryStrategy;
     }
 
+    /**
+     * Returns the maximum number of BatchWriteItem requests kept in flight by
+     * {@link DynamoDBMapper#batchWrite}, or null if not specified, in which
+     * case batches are written one at a time.
+     */
+    public Integer getBatchWriteConcurrency() {
+        return batchWriteConcurrency;
+    }
+
     /**
      * @return the current type-converter factory
      */
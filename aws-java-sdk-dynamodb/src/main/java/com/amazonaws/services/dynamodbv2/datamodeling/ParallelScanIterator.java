@@ -0,0 +1,338 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+/**
+ * Iterator over the results of a parallel scan that streams items as pages
+ * arrive instead of materializing the whole table.
+ * <p>
+ * Every segment scans independently of the others. A segment fetches its next
+ * page only while it has fewer than
+ * {@link ParallelScanOptions#getMaxPrefetchedPagesPerSegment()} pages waiting
+ * to be consumed, so memory use stays bounded no matter how fast DynamoDB
+ * returns data. Items are returned in the order their pages arrive; there is no
+ * ordering guarantee across segments.
+ * <p>
+ * Callers that stop iterating early must call {@link #close()} to stop
+ * outstanding segment scans. Iterators are not safe for use by multiple
+ * consumer threads.
+ *
+ * @param <T>
+ *            The type of objects returned by this iterator.
+ * @see DynamoDBMapper#parallelScanIterator(Class, DynamoDBScanExpression, int, ParallelScanOptions, DynamoDBMapperConfig)
+ */
+public class ParallelScanIterator<T> implements Iterator<T>, Closeable {
+
+    private final DynamoDBMapper mapper;
+    private final Class<T> clazz;
+    private final AmazonDynamoDB dynamo;
+    private final DynamoDBMapperConfig config;
+
+    private final ExecutorService executorService;
+    /** Whether the executor was created by this iterator and must be shut down by it. */
+    private final boolean ownsExecutorService;
+    private final int maxPrefetchedPagesPerSegment;
+    /** Shared across segments; null when the scan is not rate limited. */
+    private final ReadCapacityLimiter readCapacityLimiter;
+
+    /**
+     * Pages ready for the consumer. Not bounded itself; each segment bounds
+     * its own contribution.
+     */
+    private final BlockingQueue<Page> pages = new LinkedBlockingQueue<Page>();
+    private final List<Segment> segments;
+
+    private volatile boolean closed;
+
+    /** Consumer-side state, only touched by the iterating thread. */
+    private int finishedSegments;
+    private Iterator<T> currentPage = Collections.<T>emptyList().iterator();
+
+    ParallelScanIterator(DynamoDBMapper mapper,
+                         Class<T> clazz,
+                         AmazonDynamoDB dynamo,
+                         List<ScanRequest> parallelScanRequests,
+                         ParallelScanOptions options,
+                         DynamoDBMapperConfig config) {
+        this.mapper = mapper;
+        this.clazz = clazz;
+        this.dynamo = dynamo;
+        this.config = config;
+
+        if (options.getExecutorService() != null) {
+            this.executorService = options.getExecutorService();
+            this.ownsExecutorService = false;
+        } else {
+            this.executorService = Executors.newCachedThreadPool();
+            this.ownsExecutorService = true;
+        }
+        this.maxPrefetchedPagesPerSegment = options.getMaxPrefetchedPagesPerSegment();
+        this.readCapacityLimiter = options.getReadCapacityUnitsPerSecond() > 0
+                ? new ReadCapacityLimiter(options.getReadCapacityUnitsPerSecond())
+                : null;
+
+        this.segments = new ArrayList<Segment>(parallelScanRequests.size());
+        for (ScanRequest request : parallelScanRequests) {
+            if (readCapacityLimiter != null && request.getReturnConsumedCapacity() == null) {
+                // The limiter can only charge what DynamoDB reports back.
+                request.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            }
+            segments.add(new Segment(DynamoDBMapper.applyUserAgent(request)));
+        }
+        for (Segment segment : segments) {
+            segment.scheduleIfReady();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (closed || finishedSegments == segments.size()) {
+                return false;
+            }
+            Page page;
+            try {
+                page = pages.take();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new SdkClientException("Parallel scan interrupted by other thread.", ie);
+            }
+            if (page.failure != null) {
+                close();
+                throw page.failure;
+            }
+            if (page.last) {
+                finishedSegments++;
+                if (finishedSegments == segments.size()) {
+                    shutdownExecutorIfOwned();
+                }
+            } else {
+                page.segment.onPageConsumed();
+            }
+            currentPage = page.items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("ParallelScanIterator is read-only.");
+    }
+
+    /**
+     * Stops scheduling further segment scans and discards any buffered pages.
+     * Scans already in progress complete but their results are dropped. An
+     * executor supplied through {@link ParallelScanOptions} is left running.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pages.clear();
+        currentPage = Collections.<T>emptyList().iterator();
+        shutdownExecutorIfOwned();
+    }
+
+    private void shutdownExecutorIfOwned() {
+        if (ownsExecutorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * One segment of the scan. Each run fetches exactly one page, so segments
+     * never hold an executor thread while waiting for the consumer.
+     */
+    private final class Segment implements Runnable {
+        private final ScanRequest request;
+
+        /** Guarded by this. */
+        private int bufferedPages;
+        private boolean scheduled;
+        private boolean done;
+
+        Segment(ScanRequest request) {
+            this.request = request;
+        }
+
+        void scheduleIfReady() {
+            synchronized (this) {
+                if (closed || done || scheduled || bufferedPages >= maxPrefetchedPagesPerSegment) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                executorService.execute(this);
+            } catch (RejectedExecutionException e) {
+                finish(new Page(this, new SdkClientException(
+                        "Unable to schedule parallel scan segment " + request.getSegment(), e)));
+            }
+        }
+
+        void onPageConsumed() {
+            synchronized (this) {
+                bufferedPages--;
+            }
+            scheduleIfReady();
+        }
+
+        @Override
+        public void run() {
+            if (closed) {
+                return;
+            }
+            Page page;
+            try {
+                if (readCapacityLimiter != null) {
+                    readCapacityLimiter.awaitCapacity();
+                }
+                ScanResult result = dynamo.scan(request);
+                if (readCapacityLimiter != null) {
+                    readCapacityLimiter.consume(result.getConsumedCapacity());
+                }
+                List<T> items = mapper.marshallIntoObjects(mapper.toParameters(
+                        result.getItems(), clazz, request.getTableName(), config));
+                request.setExclusiveStartKey(result.getLastEvaluatedKey());
+                page = new Page(this, items, result.getLastEvaluatedKey() == null);
+            } catch (RuntimeException e) {
+                page = new Page(this, e);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                page = new Page(this, new SdkClientException(
+                        "Parallel scan interrupted by other thread.", ie));
+            }
+
+            if (page.last) {
+                finish(page);
+            } else {
+                synchronized (this) {
+                    scheduled = false;
+                    bufferedPages++;
+                }
+                pages.offer(page);
+                scheduleIfReady();
+            }
+        }
+
+        private void finish(Page page) {
+            synchronized (this) {
+                scheduled = false;
+                done = true;
+            }
+            pages.offer(page);
+        }
+    }
+
+    private final class Page {
+        private final Segment segment;
+        private final List<T> items;
+        private final RuntimeException failure;
+        /** Whether this is the last page its segment will deliver. */
+        private final boolean last;
+
+        Page(Segment segment, List<T> items, boolean last) {
+            this.segment = segment;
+            this.items = items;
+            this.failure = null;
+            this.last = last;
+        }
+
+        Page(Segment segment, RuntimeException failure) {
+            this.segment = segment;
+            this.items = Collections.<T>emptyList();
+            this.failure = failure;
+            this.last = true;
+        }
+    }
+
+    /**
+     * Token bucket of read capacity units shared by all segments. The cost of
+     * a page is only known after it is read, so consumption is charged after
+     * the fact and may overdraw the bucket; segments then wait until it has
+     * refilled before issuing their next request.
+     */
+    static final class ReadCapacityLimiter {
+        private final double unitsPerSecond;
+
+        /** Guarded by this. */
+        private double availableUnits;
+        private long lastRefillNanos;
+
+        ReadCapacityLimiter(double unitsPerSecond) {
+            this.unitsPerSecond = unitsPerSecond;
+            this.availableUnits = unitsPerSecond;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        void awaitCapacity() throws InterruptedException {
+            long waitNanos;
+            while ((waitNanos = nanosUntilAvailable()) > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        synchronized long nanosUntilAvailable() {
+            refill();
+            if (availableUnits >= 0) {
+                return 0;
+            }
+            return (long) Math.ceil(-availableUnits / unitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        synchronized void consume(ConsumedCapacity consumedCapacity) {
+            if (consumedCapacity == null || consumedCapacity.getCapacityUnits() == null) {
+                return;
+            }
+            refill();
+            availableUnits -= consumedCapacity.getCapacityUnits();
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            double refilled = (now - lastRefillNanos) * unitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            availableUnits = Math.min(unitsPerSecond, availableUnits + refilled);
+            lastRefillNanos = now;
+        }
+    }
+}
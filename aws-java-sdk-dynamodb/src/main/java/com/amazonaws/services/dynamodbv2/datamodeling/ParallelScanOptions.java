@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Options controlling how a {@link ParallelScanIterator} fetches pages from
+ * DynamoDB.
+ *
+ * @see DynamoDBMapper#parallelScanIterator(Class, DynamoDBScanExpression, int, ParallelScanOptions, DynamoDBMapperConfig)
+ */
+public class ParallelScanOptions {
+
+    /** Default number of pages each segment may buffer ahead of the consumer. */
+    public static final int DEFAULT_MAX_PREFETCHED_PAGES_PER_SEGMENT = 1;
+
+    private ExecutorService executorService;
+
+    private int maxPrefetchedPagesPerSegment = DEFAULT_MAX_PREFETCHED_PAGES_PER_SEGMENT;
+
+    private double readCapacityUnitsPerSecond;
+
+    /**
+     * Returns the executor used to run segment scans, or null if the iterator
+     * creates (and shuts down) its own.
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor used to run segment scans. The executor is not shut
+     * down by the iterator. Each scheduled task fetches a single page, so a
+     * shared executor with fewer threads than segments still makes progress
+     * on every segment.
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Sets the executor used to run segment scans and returns this object
+     * for method chaining.
+     *
+     * @see #setExecutorService(ExecutorService)
+     */
+    public ParallelScanOptions withExecutorService(ExecutorService executorService) {
+        setExecutorService(executorService);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of pages each segment may have fetched but
+     * not yet consumed.
+     */
+    public int getMaxPrefetchedPagesPerSegment() {
+        return maxPrefetchedPagesPerSegment;
+    }
+
+    /**
+     * Sets the maximum number of pages each segment may have fetched but not
+     * yet consumed. Once a segment reaches this limit it stops scanning until
+     * the caller iterates past one of its pages.
+     *
+     * @throws IllegalArgumentException if the value is less than 1.
+     */
+    public void setMaxPrefetchedPagesPerSegment(int maxPrefetchedPagesPerSegment) {
+        if (maxPrefetchedPagesPerSegment < 1) {
+            throw new IllegalArgumentException(
+                    "maxPrefetchedPagesPerSegment must be at least 1");
+        }
+        this.maxPrefetchedPagesPerSegment = maxPrefetchedPagesPerSegment;
+    }
+
+    /**
+     * Sets the maximum number of pages each segment may have fetched but not
+     * yet consumed and returns this object for method chaining.
+     *
+     * @see #setMaxPrefetchedPagesPerSegment(int)
+     */
+    public ParallelScanOptions withMaxPrefetchedPagesPerSegment(int maxPrefetchedPagesPerSegment) {
+        setMaxPrefetchedPagesPerSegment(maxPrefetchedPagesPerSegment);
+        return this;
+    }
+
+    /**
+     * Returns the read capacity units per second shared by all segments, or
+     * zero if the scan is not rate limited.
+     */
+    public double getReadCapacityUnitsPerSecond() {
+        return readCapacityUnitsPerSecond;
+    }
+
+    /**
+     * Sets the read capacity units per second that all segments together may
+     * consume. The consumed capacity reported by each page is charged against
+     * this budget, and no segment requests another page while the budget is
+     * overdrawn. Zero disables rate limiting.
+     *
+     * @throws IllegalArgumentException if the value is negative.
+     */
+    public void setReadCapacityUnitsPerSecond(double readCapacityUnitsPerSecond) {
+        if (readCapacityUnitsPerSecond < 0) {
+            throw new IllegalArgumentException(
+                    "readCapacityUnitsPerSecond must not be negative");
+        }
+        this.readCapacityUnitsPerSecond = readCapacityUnitsPerSecond;
+    }
+
+    /**
+     * Sets the read capacity units per second that all segments together may
+     * consume and returns this object for method chaining.
+     *
+     * @see #setReadCapacityUnitsPerSecond(double)
+     */
+    public ParallelScanOptions withReadCapacityUnitsPerSecond(double readCapacityUnitsPerSecond) {
+        setReadCapacityUnitsPerSecond(readCapacityUnitsPerSecond);
+        return this;
+    }
+}
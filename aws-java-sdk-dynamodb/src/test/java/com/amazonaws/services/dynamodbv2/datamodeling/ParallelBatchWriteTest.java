@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+public class ParallelBatchWriteTest {
+
+    private static final String FAST_TABLE = "fastTable";
+    private static final String SLOW_TABLE = "slowTable";
+    private static final int CONCURRENCY = 4;
+
+    @Test
+    public void testBatchesWrittenConcurrentlyWithinLimit() {
+        RecordingDynamoDB ddb = new RecordingDynamoDB(false);
+        DynamoDBMapper mapper = new DynamoDBMapper(ddb, config(CONCURRENCY));
+
+        List<FailedBatch> failedBatches = mapper.batchSave(items(200, FAST_TABLE));
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(200, ddb.writtenItems(FAST_TABLE));
+        assertTrue("At most " + CONCURRENCY + " batches may be in flight, saw " + ddb.maxInFlight.get(),
+                ddb.maxInFlight.get() <= CONCURRENCY);
+        assertTrue("Expected batches to be written concurrently", ddb.maxInFlight.get() > 1);
+    }
+
+    @Test
+    public void testUnprocessedItemsRetriedWithoutFailingOtherTables() {
+        RecordingDynamoDB ddb = new RecordingDynamoDB(true);
+        DynamoDBMapper mapper = new DynamoDBMapper(ddb, config(CONCURRENCY));
+
+        List<Object> objects = new ArrayList<Object>();
+        objects.addAll(items(100, FAST_TABLE));
+        objects.addAll(items(100, SLOW_TABLE));
+        List<FailedBatch> failedBatches = mapper.batchSave(objects);
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(100, ddb.writtenItems(FAST_TABLE));
+        assertEquals(100, ddb.writtenItems(SLOW_TABLE));
+    }
+
+    @Test
+    public void testSequentialWhenConcurrencyNotSet() {
+        RecordingDynamoDB ddb = new RecordingDynamoDB(false);
+        DynamoDBMapper mapper = new DynamoDBMapper(ddb, new DynamoDBMapperConfig.Builder()
+                .withBatchWriteRetryStrategy(new NoDelayRetryStrategy())
+                .build());
+
+        assertEquals(0, mapper.batchSave(items(100, FAST_TABLE)).size());
+        assertEquals(100, ddb.writtenItems(FAST_TABLE));
+        assertEquals(1, ddb.maxInFlight.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidConcurrencyRejected() {
+        new DynamoDBMapperConfig.Builder().withBatchWriteConcurrency(0);
+    }
+
+    private static DynamoDBMapperConfig config(int concurrency) {
+        return new DynamoDBMapperConfig.Builder()
+                .withBatchWriteRetryStrategy(new NoDelayRetryStrategy())
+                .withBatchWriteConcurrency(concurrency)
+                .build();
+    }
+
+    private static List<Object> items(int count, String tableName) {
+        List<Object> items = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(FAST_TABLE.equals(tableName)
+                    ? new FastItem(tableName + i)
+                    : new SlowItem(tableName + i));
+        }
+        return items;
+    }
+
+    /**
+     * Records the items written per table and the peak number of concurrent
+     * requests. When throttling, writes of more than one item to the slow
+     * table leave the last item unprocessed.
+     */
+    private static class RecordingDynamoDB extends AbstractAmazonDynamoDB {
+        private final boolean throttleSlowTable;
+        private final Map<String, AtomicInteger> written = new HashMap<String, AtomicInteger>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        RecordingDynamoDB(boolean throttleSlowTable) {
+            this.throttleSlowTable = throttleSlowTable;
+            written.put(FAST_TABLE, new AtomicInteger());
+            written.put(SLOW_TABLE, new AtomicInteger());
+        }
+
+        @Override
+        public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+            int current = inFlight.incrementAndGet();
+            try {
+                int max;
+                while ((max = maxInFlight.get()) < current && !maxInFlight.compareAndSet(max, current)) {
+                }
+                Thread.sleep(20);
+
+                Map<String, List<WriteRequest>> unprocessed = new HashMap<String, List<WriteRequest>>();
+                for (Map.Entry<String, List<WriteRequest>> entry : request.getRequestItems().entrySet()) {
+                    List<WriteRequest> writes = entry.getValue();
+                    if (throttleSlowTable && SLOW_TABLE.equals(entry.getKey()) && writes.size() > 1) {
+                        unprocessed.put(entry.getKey(), writes.subList(writes.size() - 1, writes.size()));
+                        writes = writes.subList(0, writes.size() - 1);
+                    }
+                    written.get(entry.getKey()).addAndGet(writes.size());
+                }
+                return new BatchWriteItemResult().withUnprocessedItems(unprocessed);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        int writtenItems(String tableName) {
+            return written.get(tableName).get();
+        }
+    }
+
+    private static class NoDelayRetryStrategy implements BatchWriteRetryStrategy {
+        @Override
+        public int getMaxRetryOnUnprocessedItems(Map<String, List<WriteRequest>> batchWriteItemInput) {
+            return 10;
+        }
+
+        @Override
+        public long getDelayBeforeRetryUnprocessedItems(Map<String, List<WriteRequest>> unprocessedItems,
+                                                        int retriesAttempted) {
+            return 1;
+        }
+    }
+
+    @DynamoDBTable(tableName = FAST_TABLE)
+    public static class FastItem {
+        private String hash;
+
+        public FastItem(String hash) {
+            this.hash = hash;
+        }
+
+        @DynamoDBHashKey
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+    }
+
+    @DynamoDBTable(tableName = SLOW_TABLE)
+    public static class SlowItem {
+        private String hash;
+
+        public SlowItem(String hash) {
+            this.hash = hash;
+        }
+
+        @DynamoDBHashKey
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+public class ParallelScanIteratorTest {
+
+    private static final String TABLE = "scanTable";
+    private static final int SEGMENTS = 4;
+    private static final int PAGES_PER_SEGMENT = 5;
+    private static final int ITEMS_PER_PAGE = 3;
+
+    @Test
+    public void testAllItemsReturned() {
+        PagingDynamoDB ddb = new PagingDynamoDB(-1);
+        DynamoDBMapper mapper = new DynamoDBMapper(ddb);
+
+        ParallelScanIterator<ScanItem> iterator = mapper.parallelScanIterator(
+                ScanItem.class, new DynamoDBScanExpression(), SEGMENTS, new ParallelScanOptions());
+
+        Set<String> hashes = new HashSet<String>();
+        while (iterator.hasNext()) {
+            assertTrue(hashes.add(iterator.next().getHash()));
+        }
+        assertEquals(SEGMENTS * PAGES_PER_SEGMENT * ITEMS_PER_PAGE, hashes.size());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testPrefetchBoundedPerSegment() throws InterruptedException {
+        PagingDynamoDB ddb = new PagingDynamoDB(-1);
+        DynamoDBMapper mapper = new DynamoDBMapper(ddb);
+
+        ParallelScanIterator<ScanItem> iterator = mapper.parallelScanIterator(
+                ScanItem.class, new DynamoDBScanExpression(), SEGMENTS,
+                new ParallelScanOptions().withMaxPrefetchedPagesPerSegment(2));
+        try {
+            Thread.sleep(200);
+            assertEquals(SEGMENTS * 2, ddb.scans.get());
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void testCallerExecutorReusedAndLeftRunning() {
+        PagingDynamoDB ddb = new PagingDynamoDB(-1);
+        DynamoDBMapper mapper = new DynamoDBMapper(ddb);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ParallelScanIterator<ScanItem> iterator = mapper.parallelScanIterator(
+                    ScanItem.class, new DynamoDBScanExpression(), SEGMENTS,
+                    new ParallelScanOptions().withExecutorService(executor));
+
+            int count = 0;
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+            assertEquals(SEGMENTS * PAGES_PER_SEGMENT * ITEMS_PER_PAGE, count);
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSegmentFailurePropagated() {
+        PagingDynamoDB ddb = new PagingDynamoDB(2);
+        DynamoDBMapper mapper = new DynamoDBMapper(ddb);
+
+        ParallelScanIterator<ScanItem> iterator = mapper.parallelScanIterator(
+                ScanItem.class, new DynamoDBScanExpression(), SEGMENTS, new ParallelScanOptions());
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail("Expected the failed segment to surface to the caller");
+        } catch (AmazonServiceException expected) {
+            assertEquals("segment 2 failed", expected.getErrorMessage());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testReadCapacityRequestedWhenRateLimited() {
+        PagingDynamoDB ddb = new PagingDynamoDB(-1);
+        DynamoDBMapper mapper = new DynamoDBMapper(ddb);
+
+        ParallelScanIterator<ScanItem> iterator = mapper.parallelScanIterator(
+                ScanItem.class, new DynamoDBScanExpression(), SEGMENTS,
+                new ParallelScanOptions().withReadCapacityUnitsPerSecond(1000));
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        assertEquals(Collections.singleton("TOTAL"), ddb.returnConsumedCapacity);
+    }
+
+    @Test
+    public void testReadCapacityLimiterWaitsWhenOverdrawn() {
+        ParallelScanIterator.ReadCapacityLimiter limiter = new ParallelScanIterator.ReadCapacityLimiter(10);
+
+        limiter.consume(new ConsumedCapacity().withCapacityUnits(10.0));
+        assertEquals(0, limiter.nanosUntilAvailable());
+
+        limiter.consume(new ConsumedCapacity().withCapacityUnits(5.0));
+        long waitNanos = limiter.nanosUntilAvailable();
+        assertTrue(waitNanos > 0);
+        assertTrue(waitNanos <= 500000000L);
+
+        limiter.consume(null);
+        limiter.consume(new ConsumedCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPrefetchRejected() {
+        new ParallelScanOptions().withMaxPrefetchedPagesPerSegment(0);
+    }
+
+    /**
+     * Serves a fixed number of pages for every segment and counts the scan
+     * requests it receives. A non-negative failing segment throws on its
+     * second page.
+     */
+    private static class PagingDynamoDB extends AbstractAmazonDynamoDB {
+        private final int failingSegment;
+        private final AtomicInteger scans = new AtomicInteger();
+        private final Set<String> returnConsumedCapacity =
+                Collections.synchronizedSet(new HashSet<String>());
+
+        PagingDynamoDB(int failingSegment) {
+            this.failingSegment = failingSegment;
+        }
+
+        @Override
+        public ScanResult scan(ScanRequest request) {
+            scans.incrementAndGet();
+            if (request.getReturnConsumedCapacity() != null) {
+                returnConsumedCapacity.add(request.getReturnConsumedCapacity());
+            }
+
+            int segment = request.getSegment();
+            int page = request.getExclusiveStartKey() == null
+                    ? 0
+                    : Integer.parseInt(request.getExclusiveStartKey().get("page").getN());
+            if (segment == failingSegment && page == 1) {
+                AmazonServiceException e = new AmazonServiceException("segment " + segment + " failed");
+                e.setErrorMessage("segment " + segment + " failed");
+                throw e;
+            }
+
+            List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+            for (int i = 0; i < ITEMS_PER_PAGE; i++) {
+                Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+                item.put("hash", new AttributeValue(segment + "-" + page + "-" + i));
+                items.add(item);
+            }
+            ScanResult result = new ScanResult()
+                    .withItems(items)
+                    .withConsumedCapacity(new ConsumedCapacity().withCapacityUnits(0.5));
+            if (page + 1 < PAGES_PER_SEGMENT) {
+                Map<String, AttributeValue> lastKey = new HashMap<String, AttributeValue>();
+                lastKey.put("page", new AttributeValue().withN(Integer.toString(page + 1)));
+                result.setLastEvaluatedKey(lastKey);
+            }
+            return result;
+        }
+    }
+
+    @DynamoDBTable(tableName = TABLE)
+    public static class ScanItem {
+        private String hash;
+
+        @DynamoDBHashKey
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+    }
+}
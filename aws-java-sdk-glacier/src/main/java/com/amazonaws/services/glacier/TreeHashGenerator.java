@@ -14,18 +14,12 @@
  */
 package com.amazonaws.services.glacier;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
 import java.util.List;
 
 import com.amazonaws.AmazonClientException;
-import com.amazonaws.internal.ResettableInputStream;
+import com.amazonaws.services.glacier.internal.MappedTreeHasher;
 import com.amazonaws.services.glacier.internal.TreeHashInputStream;
 import com.amazonaws.util.BinaryUtils;
 
@@ -39,7 +33,9 @@ public class TreeHashGenerator {
 
 	/**
 	 * Calculates a hex encoded binary hash using a tree hashing algorithm for
-	 * the data in the specified file.
+	 * the data in the specified file. The file is memory mapped, and its
+	 * megabyte checksums are computed in parallel across the available
+	 * processors.
 	 * 
 	 * @param file
 	 *            The file containing the data to hash.
@@ -53,17 +49,8 @@ public class TreeHashGenerator {
 	 */
     public static String calculateTreeHash(File file)
             throws AmazonClientException {
-        ResettableInputStream is = null;
-        try {
-            is = new ResettableInputStream(file);
-            return calculateTreeHash(is);
-        } catch (IOException e) {
-            throw new AmazonClientException("Unable to compute hash for file: "
-                    + file.getAbsolutePath(), e);
-        } finally {
-            if (is != null)
-                is.release();
-        }
+        return BinaryUtils.toHex(MappedTreeHasher.treeHash(file, 0, file.length(),
+                MappedTreeHasher.getSharedExecutor()));
     }
 
 	/**
@@ -86,7 +73,7 @@ public class TreeHashGenerator {
         try {
             TreeHashInputStream treeHashInputStream =
                 new TreeHashInputStream(input);
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[64 * 1024];
             while (treeHashInputStream.read(buffer, 0, buffer.length) != -1);
             // closing is currently required to compute the checksum 
             treeHashInputStream.close();
@@ -118,44 +105,6 @@ public class TreeHashGenerator {
          * one element. Any final odd-numbered parts at each step are carried
          * over to the next iteration as-is.
          */
-        List<byte[]> hashes = new ArrayList<byte[]>();
-        hashes.addAll(checksums);
-        while ( hashes.size() > 1 ) {
-            List<byte[]> treeHashes = new ArrayList<byte[]>();
-            for ( int i = 0; i < hashes.size() / 2; i++ ) {
-                byte[] firstPart = hashes.get(2 * i);
-                byte[] secondPart = hashes.get(2 * i + 1);
-                byte[] concatenation = new byte[firstPart.length + secondPart.length];
-                System.arraycopy(firstPart, 0, concatenation, 0, firstPart.length);
-                System.arraycopy(secondPart, 0, concatenation, firstPart.length, secondPart.length);
-                try {
-					treeHashes.add(computeSHA256Hash(concatenation));
-				} catch (Exception e) {
-					throw new AmazonClientException("Unable to compute hash", e);
-				}
-            }
-            if ( hashes.size() % 2 == 1 ) {
-                treeHashes.add(hashes.get(hashes.size() - 1));
-            }
-            hashes = treeHashes;
-        }
-
-        return BinaryUtils.toHex(hashes.get(0));
-    }
-    
-
-    private static byte[] computeSHA256Hash(byte[] data) throws NoSuchAlgorithmException, IOException {
-        BufferedInputStream bis = new BufferedInputStream(new ByteArrayInputStream(data));
-        try {
-            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-            byte[] buffer = new byte[16384];
-            int bytesRead = -1;
-            while ( (bytesRead = bis.read(buffer, 0, buffer.length)) != -1 ) {
-                messageDigest.update(buffer, 0, bytesRead);
-            }
-            return messageDigest.digest();
-        } finally {
-            try { bis.close(); } catch ( Exception e ) {}
-        }
+        return BinaryUtils.toHex(MappedTreeHasher.treeHash(checksums));
     }
 }
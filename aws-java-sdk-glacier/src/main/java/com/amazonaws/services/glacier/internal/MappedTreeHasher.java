@@ -0,0 +1,308 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.glacier.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.util.IOUtils;
+
+/**
+ * Computes tree hashes of file regions by memory mapping them, rather than
+ * streaming them through a buffer.
+ * <p>
+ * A region is mapped in segments of a whole number of megabytes, and the
+ * SHA-256 checksum of each megabyte is computed straight from the mapped
+ * buffer. The segments of a region may be hashed in parallel, since the
+ * checksum of each megabyte only depends on its own bytes. The digests are
+ * reused per thread.
+ * <p>
+ * Mapped segments are released when their buffers are garbage collected.
+ * Hashing a large file may then hold on to much more address space and page
+ * cache than the segments being hashed; setting the
+ * {@value #UNMAP_SEGMENTS_PROPERTY} system property to true unmaps each
+ * segment as soon as it has been hashed instead, through JDK internals, where
+ * the JVM allows it.
+ */
+@SdkInternalApi
+public final class MappedTreeHasher {
+
+    /**
+     * The system property which, when set to true, unmaps each file segment
+     * as soon as it has been hashed.
+     */
+    public static final String UNMAP_SEGMENTS_PROPERTY =
+            "com.amazonaws.services.glacier.transfer.unmapHashedSegments";
+
+    private static final int MB = 1024 * 1024;
+
+    /** The size of the file segments mapped, and hashed in parallel, at a time. */
+    private static final int SEGMENT_SIZE = 64 * MB;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new AmazonClientException("Unable to compute hash", e);
+            }
+        }
+    };
+
+    private MappedTreeHasher() {
+    }
+
+    /**
+     * Returns the binary tree hash of the given region of a file, computed on
+     * the calling thread.
+     */
+    public static byte[] treeHash(File file, long position, long length) {
+        return treeHash(file, position, length, null);
+    }
+
+    /**
+     * Returns the binary tree hash of the given region of a file, computed in
+     * parallel by the given executor; or on the calling thread if it is null.
+     * The executor must not be one whose threads are waiting for this call,
+     * or they may deadlock.
+     */
+    public static byte[] treeHash(File file, long position, long length, ExecutorService executor) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            byte[][] checksums = new byte[(int) Math.max(1, (length + MB - 1) / MB)][];
+            int segmentCount = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            if (executor == null || segmentCount <= 1) {
+                for (int segment = 0; segment < segmentCount; segment++) {
+                    hashSegment(channel, position, length, segment, checksums);
+                }
+            } else {
+                hashSegments(executor, channel, position, length, segmentCount, checksums);
+            }
+            if (length == 0) {
+                checksums[0] = sha256().digest();
+            }
+            return treeHash(Arrays.asList(checksums));
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to compute hash for file: "
+                    + file.getAbsolutePath(), e);
+        } finally {
+            IOUtils.closeQuietly(raf, null);
+        }
+    }
+
+    private static void hashSegments(ExecutorService executor, final FileChannel channel,
+            final long position, final long length, int segmentCount, final byte[][] checksums)
+            throws IOException {
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(segmentCount);
+        try {
+            for (int i = 0; i < segmentCount; i++) {
+                final int segment = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        hashSegment(channel, position, length, segment, checksums);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while computing hash", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AmazonClientException("Unable to compute hash", cause);
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Stores the checksum of each megabyte of the given segment of a region
+     * at its index in the region.
+     */
+    private static void hashSegment(FileChannel channel, long position, long length,
+            int segment, byte[][] checksums) throws IOException {
+        long offset = (long) segment * SEGMENT_SIZE;
+        int segmentLength = (int) Math.min(SEGMENT_SIZE, length - offset);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                position + offset, segmentLength);
+        try {
+            MessageDigest digest = sha256();
+            int index = (int) (offset / MB);
+            for (int start = 0; start < segmentLength; start += MB) {
+                buffer.limit(Math.min(start + MB, segmentLength));
+                buffer.position(start);
+                digest.update(buffer);
+                checksums[index++] = digest.digest();
+            }
+        } finally {
+            if (Boolean.getBoolean(UNMAP_SEGMENTS_PROPERTY)) {
+                Unmapper.unmap(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns the binary tree hash for the checksums of the consecutive
+     * megabytes of some data; see
+     * {@link com.amazonaws.services.glacier.TreeHashGenerator#calculateTreeHash(List)}.
+     */
+    public static byte[] treeHash(List<byte[]> checksums) {
+        if (checksums.isEmpty()) {
+            throw new AmazonClientException("Unable to compute hash of no checksums");
+        }
+        /*
+         * Concatenate adjacent pairs of checksums and take the checksum of
+         * the result, carrying any final odd checksum over as-is, until there
+         * is only one left.
+         */
+        MessageDigest digest = sha256();
+        List<byte[]> hashes = checksums;
+        while (hashes.size() > 1) {
+            List<byte[]> treeHashes = new ArrayList<byte[]>((hashes.size() + 1) / 2);
+            for (int i = 0; i + 1 < hashes.size(); i += 2) {
+                digest.update(hashes.get(i));
+                digest.update(hashes.get(i + 1));
+                treeHashes.add(digest.digest());
+            }
+            if (hashes.size() % 2 == 1) {
+                treeHashes.add(hashes.get(hashes.size() - 1));
+            }
+            hashes = treeHashes;
+        }
+        return hashes.get(0);
+    }
+
+    /**
+     * Returns a SHA-256 digest reset for use by the calling thread.
+     */
+    private static MessageDigest sha256() {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return digest;
+    }
+
+    /**
+     * Returns the executor shared by the tree hash computations that are
+     * parallelized across the available processors.
+     */
+    public static ExecutorService getSharedExecutor() {
+        return SharedExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Releases mapped buffers through the JDK internal cleaner API found at
+     * runtime: {@code sun.misc.Unsafe.invokeCleaner} on Java 9 and later, or
+     * the {@code cleaner()} of the buffer before that. If neither is available
+     * or accessible, buffers are left to be unmapped when garbage collected.
+     * Only loaded, and so only reflecting into the JDK, once unmapping is
+     * enabled by {@link #UNMAP_SEGMENTS_PROPERTY}.
+     */
+    private static final class Unmapper {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+        private static volatile boolean disabled;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+            } catch (Exception e) {
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void unmap(MappedByteBuffer buffer) {
+            if (disabled) {
+                return;
+            }
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } else {
+                    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    if (cleaner != null) {
+                        Method clean = cleaner.getClass().getMethod("clean");
+                        clean.setAccessible(true);
+                        clean.invoke(cleaner);
+                    }
+                }
+            } catch (Throwable t) {
+                // Best effort only; don't keep trying on every segment
+                disabled = true;
+                LogFactory.getLog(MappedTreeHasher.class).debug(
+                        "Unable to unmap hashed file segments; leaving them to the garbage collector", t);
+            }
+        }
+    }
+
+    private static final class SharedExecutorHolder {
+        static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r);
+                        thread.setName("glacier-tree-hash-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+}
@@ -27,9 +27,19 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -39,6 +49,8 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.event.DeliveryMode;
+import com.amazonaws.event.ProgressEvent;
 import com.amazonaws.event.ProgressEventType;
 import com.amazonaws.event.ProgressListener;
 import com.amazonaws.internal.ResettableInputStream;
@@ -46,6 +58,7 @@ import com.amazonaws.internal.StaticCredentialsProvider;
 import com.amazonaws.services.glacier.AmazonGlacier;
 import com.amazonaws.services.glacier.AmazonGlacierClient;
 import com.amazonaws.services.glacier.TreeHashGenerator;
+import com.amazonaws.services.glacier.internal.MappedTreeHasher;
 import com.amazonaws.services.glacier.internal.TreeHashInputStream;
 import com.amazonaws.services.glacier.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.glacier.model.CompleteMultipartUploadRequest;
@@ -87,6 +100,15 @@ public class ArchiveTransferManager {
     /** Default retry time when downloading in multiple chunks using range retrieval */
     private static final int DEFAULT_MAX_RETRIES = 3;
 
+    /** The number of attempts made to upload each part of a multipart upload. */
+    private static final int MAX_UPLOAD_PART_ATTEMPTS = 5;
+
+    /** The default number of parts of a multipart upload uploaded concurrently. */
+    private static final int DEFAULT_UPLOAD_CONCURRENCY = 4;
+
+    /** The default number of chunks of a job output downloaded concurrently. */
+    private static final int DEFAULT_DOWNLOAD_CONCURRENCY = 4;
+
     /** Glacier client used for making all requests. */
     private final AmazonGlacier glacier;
 
@@ -98,6 +120,13 @@ public class ArchiveTransferManager {
 
     private final AmazonSNSClient sns;
 
+    /**
+     * The executor uploading the parts of multipart uploads and downloading
+     * the chunks of job outputs; or null to use a new thread pool for each
+     * transfer.
+     */
+    private final ExecutorService executorService;
+
     private static final Log log = LogFactory.getLog(ArchiveTransferManager.class);
 
     /**
@@ -163,11 +192,36 @@ public class ArchiveTransferManager {
      *            timeouts.
      */
     public ArchiveTransferManager(AmazonGlacierClient glacier, AWSCredentialsProvider credentialsProvider, ClientConfiguration clientConfiguration) {
+        this(glacier, credentialsProvider, clientConfiguration, null);
+    }
+
+    /**
+     * Constructs a new ArchiveTransferManager, using the specified Amazon
+     * Glacier client, AWS credentials provider and client configuration, and
+     * the specified executor to upload the parts of multipart uploads and
+     * download the chunks of archives concurrently.
+     *
+     * @param glacier
+     *            The client for working with Amazon Glacier.
+     * @param credentialsProvider
+     *            The AWS credentials provider used to authenticate requests.
+     * @param clientConfiguration
+     *            Client specific options, such as proxy settings, retries, and
+     *            timeouts.
+     * @param executorService
+     *            The executor used to upload the parts of multipart uploads and
+     *            download the chunks of archives, or null to use a new thread
+     *            pool for each transfer. The executor is not shut down by this
+     *            transfer manager.
+     */
+    public ArchiveTransferManager(AmazonGlacierClient glacier, AWSCredentialsProvider credentialsProvider,
+            ClientConfiguration clientConfiguration, ExecutorService executorService) {
         this.credentialsProvider = credentialsProvider;
         this.clientConfiguration = clientConfiguration;
         this.glacier = glacier;
         this.sns = null;
         this.sqs = null;
+        this.executorService = executorService;
     }
 
     /**
@@ -190,11 +244,38 @@ public class ArchiveTransferManager {
      *            retrieval job status.
      */
     public ArchiveTransferManager(AmazonGlacierClient glacier, AmazonSQSClient sqs, AmazonSNSClient sns) {
+        this(glacier, sqs, sns, null);
+    }
+
+    /**
+     * Constructs a new ArchiveTransferManager, using the specified Amazon
+     * Glacier client, the specified Amazon SQS and Amazon SNS clients for
+     * polling download job status, and the specified executor to upload the
+     * parts of multipart uploads and download the chunks of archives
+     * concurrently.
+     *
+     * @param glacier
+     *            The client for working with Amazon Glacier.
+     * @param sqs
+     *            The client for working with Amazon SQS when polling archive
+     *            retrieval job status.
+     * @param sns
+     *            The client for working with Amazon SNS when polling archive
+     *            retrieval job status.
+     * @param executorService
+     *            The executor used to upload the parts of multipart uploads and
+     *            download the chunks of archives, or null to use a new thread
+     *            pool for each transfer. The executor is not shut down by this
+     *            transfer manager.
+     */
+    public ArchiveTransferManager(AmazonGlacierClient glacier, AmazonSQSClient sqs, AmazonSNSClient sns,
+            ExecutorService executorService) {
         this.credentialsProvider = null;
         this.clientConfiguration = null;
         this.glacier = glacier;
         this.sqs = sqs;
         this.sns = sns;
+        this.executorService = executorService;
     }
 
     /**
@@ -291,7 +372,9 @@ public class ArchiveTransferManager {
      *            The file to upload to Amazon Glacier.
      * @param progressListener
      *            The optional progress listener for receiving updates about
-     *            the upload status.
+     *            the upload status. The parts of a large file are uploaded
+     *            concurrently, but the listener is only ever called by one
+     *            thread at a time.
      *
      * @return The result of the upload, including the archive ID needed to
      *         access the upload later.
@@ -460,8 +543,10 @@ public class ArchiveTransferManager {
      * Downloads the job output for the specified job (which must be ready to
      * download already, and must be a complete archive retrieval, not a partial
      * range retrieval), into the specified file. This method will request
-     * individual chunks of the data, one at a time, in order to handle any
-     * transient errors along the way.
+     * individual chunks of the data, several at a time, in order to handle any
+     * transient errors along the way. If a previous call to download the same
+     * job output into the same file was interrupted, only the chunks it did
+     * not complete are downloaded.
      *
      * @param accountId
      *            The account ID containing the job output to download (or null
@@ -482,9 +567,19 @@ public class ArchiveTransferManager {
      * Downloads the job output for the specified job (which must be ready to
      * download already, and must be a complete archive retrieval, not a partial
      * range retrieval), into the specified file. This method will request
-     * individual chunks of the data, one at a time, in order to handle any
+     * individual chunks of the data, several at a time, in order to handle any
      * transient errors along the way. You can also add an optional progress
      * listener for receiving updates about the download status.
+     * <p>
+     * The chunks are written into their positions in the file as they are
+     * downloaded, and the tree hash of each is checked against the one
+     * returned by Amazon Glacier. The chunks completed are recorded in a
+     * manifest next to the file, so that if the download is interrupted,
+     * calling this method again for the same job and file only downloads the
+     * missing chunks. The manifest is deleted once the download completes.
+     * The number of chunks downloaded concurrently can be set by the
+     * {@code com.amazonaws.services.glacier.transfer.downloadConcurrency}
+     * system property.
      *
      * @param accountId
      *            The account ID containing the job output to download (or null
@@ -498,14 +593,14 @@ public class ArchiveTransferManager {
      *            The file to download the job output into.
      * @param progressListener
      *            The optional progress listener for receiving updates about the
-     *            download status.
+     *            download status. The chunks are downloaded concurrently, but
+     *            the listener is only ever called by one thread at a time.
      */
     public void downloadJobOutput(String accountId, String vaultName,
             String jobId, File file, ProgressListener progressListener) {
+        progressListener = SerializedProgressListener.wrap(progressListener);
         long archiveSize = 0;
         long chunkSize = DEFAULT_DOWNLOAD_CHUNK_SIZE;
-        long currentPosition = 0;
-        long endPosition = 0;
 
         RandomAccessFile output = null;
         String customizedChunkSize = null;
@@ -523,6 +618,8 @@ public class ArchiveTransferManager {
             }
             validateChunkSize(chunkSize);
         }
+        final int chunkCount = (int) ((archiveSize + chunkSize - 1) / chunkSize);
+        final DownloadManifest manifest = DownloadManifest.load(file, jobId, archiveSize, chunkSize);
 
         try {
             output = new RandomAccessFile(file, "rw");
@@ -531,28 +628,36 @@ public class ArchiveTransferManager {
             throw new AmazonClientException("Unable to open the output file " + file.getPath(), e);
         }
 
+        final int concurrency = Math.min(getConcurrency("downloadConcurrency", DEFAULT_DOWNLOAD_CONCURRENCY),
+                chunkCount - manifest.getCompletedCount());
+        ExecutorService executor = executorService;
+        if (executor == null && concurrency > 0) {
+            executor = Executors.newFixedThreadPool(concurrency, new TransferThreadFactory("glacier-download-"));
+        }
+        ChunkDownloader downloader = new ChunkDownloader(accountId, vaultName, jobId,
+                output.getChannel(), archiveSize, chunkSize, chunkCount, manifest, progressListener);
+        List<Future<Void>> workers = new ArrayList<Future<Void>>(Math.max(0, concurrency));
         try {
             publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
-            while (currentPosition < archiveSize) {
-                if (currentPosition + chunkSize > archiveSize) {
-                    endPosition = archiveSize - 1;
-                } else {
-                    endPosition = currentPosition + chunkSize - 1;
-                }
-    
-                // Download the chunk
-                try {
-                    downloadOneChunk(accountId, vaultName, jobId, output,
-                            currentPosition, endPosition, progressListener);
-                } catch (Throwable t) {
-                    publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
-                    throw failure(t);
+            try {
+                output.setLength(archiveSize);
+                for (int i = 0; i < concurrency; i++) {
+                    workers.add(executor.submit(downloader));
                 }
-                currentPosition += chunkSize;
+                awaitAll(workers);
+            } catch (Throwable t) {
+                downloader.stopped = true;
+                awaitQuietly(workers);
+                publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
+                throw failure(t);
             }
+            manifest.delete();
             publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
         } finally {
             closeQuietly(output, log);
+            if (executor != executorService) {
+                executor.shutdownNow();
+            }
         }
     }
 
@@ -567,12 +672,68 @@ public class ArchiveTransferManager {
         }
     }
 
+    /**
+     * Downloads the chunks of a job output. Each worker running it claims the
+     * next chunk in order until none are left, skipping those completed by a
+     * previous attempt, and writes it into its position in the output file.
+     */
+    private final class ChunkDownloader implements Callable<Void> {
+        private final String accountId;
+        private final String vaultName;
+        private final String jobId;
+        private final FileChannel output;
+        private final long archiveSize;
+        private final long chunkSize;
+        private final int chunkCount;
+        private final DownloadManifest manifest;
+        private final ProgressListener progressListener;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+
+        volatile boolean stopped;
+
+        ChunkDownloader(String accountId, String vaultName, String jobId, FileChannel output,
+                long archiveSize, long chunkSize, int chunkCount, DownloadManifest manifest,
+                ProgressListener progressListener) {
+            this.accountId = accountId;
+            this.vaultName = vaultName;
+            this.jobId = jobId;
+            this.output = output;
+            this.archiveSize = archiveSize;
+            this.chunkSize = chunkSize;
+            this.chunkCount = chunkCount;
+            this.manifest = manifest;
+            this.progressListener = progressListener;
+        }
+
+        public Void call() throws Exception {
+            int chunk;
+            while (!stopped && (chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                if (manifest.isCompleted(chunk)) {
+                    continue;
+                }
+                long currentPosition = chunk * chunkSize;
+                long endPosition = Math.min(currentPosition + chunkSize, archiveSize) - 1;
+                try {
+                    downloadOneChunk(accountId, vaultName, jobId, output,
+                            currentPosition, endPosition, progressListener);
+                    // Make sure the chunk is on disk before recording it
+                    output.force(false);
+                } catch (Exception e) {
+                    stopped = true;
+                    throw e;
+                }
+                manifest.chunkCompleted(chunk);
+            }
+            return null;
+        }
+    }
+
     /**
      * Download one chunk from Amazon Glacier. It will do the retry if any
      * errors are encountered while streaming the data from Amazon Glacier.
      */
     private void downloadOneChunk(String accountId, String vaultName,
-            String jobId, RandomAccessFile output, long currentPosition,
+            String jobId, FileChannel output, long currentPosition,
             long endPosition, ProgressListener progressListener) {
         final long chunkSize = endPosition - currentPosition + 1;
         TreeHashInputStream input = null;
@@ -589,7 +750,7 @@ public class ArchiveTransferManager {
                 GetJobOutputResult jobOutputResult = glacier.getJobOutput(req);
                 try {
                     input = new TreeHashInputStream(new BufferedInputStream(jobOutputResult.getBody()));
-                    appendToFile(output, input);
+                    writeToFile(output, currentPosition, input);
                 } catch (NoSuchAlgorithmException e) {
                     throw failure(e, "Unable to compute hash for data integrity");
                 } finally {
@@ -624,11 +785,6 @@ public class ArchiveTransferManager {
                                 + currentPosition + " endPosition="
                                 + endPosition);
                     }
-                    try {
-                        output.seek(currentPosition);
-                    } catch (IOException e) {
-                        throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), e);
-                    }
                 } else {
                     throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), ioe);
                 }
@@ -637,19 +793,20 @@ public class ArchiveTransferManager {
     }
 
     /**
-     * Writes the data from the given input stream to the given output stream.
+     * Writes the data from the given input stream into the given file,
+     * starting at the given position. The file channel may be written
+     * concurrently at other positions.
      */
-    private void appendToFile(RandomAccessFile output, InputStream input)
+    private void writeToFile(FileChannel output, long position, InputStream input)
             throws IOException {
         byte[] buffer = new byte[1024 * 1024];
         int bytesRead = 0;
-        do {
-            bytesRead = input.read(buffer);
-            if (bytesRead < 0)
-                break;
-            output.write(buffer, 0, bytesRead);
-        } while (bytesRead > 0);
-        return;
+        while ((bytesRead = input.read(buffer)) >= 0) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, bytesRead);
+            while (bytes.hasRemaining()) {
+                position += output.write(bytes, position);
+            }
+        }
     }
 
     /**
@@ -674,11 +831,42 @@ public class ArchiveTransferManager {
         return partSize;
     }
 
+    /**
+     * Returns the number of parts or chunks to transfer concurrently, as set
+     * by the given {@code com.amazonaws.services.glacier.transfer} system
+     * property.
+     */
+    private int getConcurrency(String property, int defaultConcurrency) {
+        String concurrency = System.getProperty("com.amazonaws.services.glacier.transfer." + property);
+        if (concurrency == null) {
+            return defaultConcurrency;
+        }
+        try {
+            int value = Integer.parseInt(concurrency);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new AmazonClientException("Invalid " + property + ": " + concurrency);
+    }
+
+    /**
+     * Uploads the parts of a file concurrently. Each part is tree hashed from
+     * the memory mapped file once, and its tree hash is both sent with the
+     * part and combined with those of the other parts into the checksum of the
+     * whole archive, so the file is only read once for hashing.
+     */
     private UploadResult uploadInMultipleParts(final String accountId,
             final String vaultName, final String archiveDescription,
             final File file, ProgressListener progressListener) {
-        final long partSize = calculatePartSize(file.length());
+        progressListener = SerializedProgressListener.wrap(progressListener);
+        final long fileLength = file.length();
+        final long partSize = calculatePartSize(fileLength);
         String partSizeString = Long.toString(partSize);
+        final int partCount = (int) ((fileLength + partSize - 1) / partSize);
+        final int concurrency = Math.min(getConcurrency("uploadConcurrency", DEFAULT_UPLOAD_CONCURRENCY), partCount);
 
         publishProgress(progressListener, ProgressEventType.TRANSFER_PREPARING_EVENT);
         String uploadId = null;
@@ -694,60 +882,23 @@ public class ArchiveTransferManager {
             throw failure(t);
         }
         publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
-        final String fileNotFoundMsg = "Unable to find file '"
-                + file.getAbsolutePath() + "'";
+
+        ExecutorService executor = executorService;
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(concurrency, new TransferThreadFactory("glacier-upload-"));
+        }
+        PartUploader uploader = new PartUploader(accountId, vaultName, uploadId, file,
+                partSize, partCount, progressListener);
+        List<Future<Void>> workers = new ArrayList<Future<Void>>(concurrency);
         try {
-            List<byte[]> binaryChecksums = new LinkedList<byte[]>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(uploader));
+            }
+            awaitAll(workers);
 
-            long currentPosition = 0;
-            while (currentPosition < file.length()) {
-                long length = partSize;
-                if (currentPosition + partSize > file.length()) {
-                    length = file.length() - currentPosition;
-                }
+            String checksum = TreeHashGenerator.calculateTreeHash(Arrays.asList(uploader.partChecksums));
 
-                Exception failedException = null;
-                boolean completed = false;
-                int tries = 0;
-                    while (!completed && tries < 5){
-                        tries++;
-                        InputSubstream inputSubStream = null;
-                        try {
-                            inputSubStream = new InputSubstream(
-                                    newResettableInputStream(file, fileNotFoundMsg)
-                                        .disableClose(), // requires explicit release
-                                    currentPosition, length, true);
-                            String checksum = TreeHashGenerator.calculateTreeHash(inputSubStream);
-                            byte[] binaryChecksum = BinaryUtils.fromHex(checksum);
-                            inputSubStream.reset();
-                            UploadMultipartPartRequest req = new UploadMultipartPartRequest()
-                                .withAccountId(accountId)
-                                .withChecksum(checksum)
-                                .withBody(inputSubStream)
-                                .withRange("bytes " + currentPosition + "-" + (currentPosition + length - 1) + "/*")
-                                .withUploadId(uploadId)
-                                .withVaultName(vaultName)
-                                .withGeneralProgressListener(progressListener)
-                                ;
-                            
-                            glacier.uploadMultipartPart(req);
-                            completed = true;
-                            binaryChecksums.add(binaryChecksum);
-                        } catch (Exception e){
-                            failedException = e;
-                        } finally {
-                            // We opened the file underneath; so need to release it
-                            release(inputSubStream, log);
-                        }
-                    } // end inner while
-                if (!completed && failedException!=null)
-                    throw failedException;
-                currentPosition += partSize;
-            } // end outer while
-
-            String checksum = TreeHashGenerator.calculateTreeHash(binaryChecksums);
-
-            String archiveSize = Long.toString(file.length());
+            String archiveSize = Long.toString(fileLength);
             CompleteMultipartUploadResult completeMultipartUploadResult =
                 glacier.completeMultipartUpload(new CompleteMultipartUploadRequest()
                     .withAccountId(accountId)
@@ -760,9 +911,180 @@ public class ArchiveTransferManager {
             publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
             return new UploadResult(artifactId);
         } catch (Throwable t) {
+            // Let the parts being uploaded finish before aborting the upload
+            uploader.stopped = true;
+            awaitQuietly(workers);
             publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
             glacier.abortMultipartUpload(new AbortMultipartUploadRequest(accountId, vaultName, uploadId));
             throw failure(t, "Unable to finish the upload");
+        } finally {
+            if (executor != executorService) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Waits for all the given workers, throwing the failure of the first one
+     * that fails.
+     */
+    private static void awaitAll(List<Future<Void>> workers) throws Throwable {
+        for (Future<Void> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static void awaitQuietly(List<Future<Void>> workers) {
+        for (Future<Void> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // already reported, or superseded by the first failure
+            }
+        }
+    }
+
+    /**
+     * Uploads the parts of a multipart upload. Each worker running it claims
+     * the next part in order until none are left, so the parts being uploaded
+     * at any time stay close together in the file.
+     */
+    private final class PartUploader implements Callable<Void> {
+        private final String accountId;
+        private final String vaultName;
+        private final String uploadId;
+        private final File file;
+        private final long partSize;
+        private final int partCount;
+        private final ProgressListener progressListener;
+        private final String fileNotFoundMsg;
+        private final AtomicInteger nextPart = new AtomicInteger();
+
+        /** The binary tree hash of each part, once uploaded. */
+        final byte[][] partChecksums;
+
+        volatile boolean stopped;
+
+        PartUploader(String accountId, String vaultName, String uploadId, File file,
+                long partSize, int partCount, ProgressListener progressListener) {
+            this.accountId = accountId;
+            this.vaultName = vaultName;
+            this.uploadId = uploadId;
+            this.file = file;
+            this.partSize = partSize;
+            this.partCount = partCount;
+            this.progressListener = progressListener;
+            this.fileNotFoundMsg = "Unable to find file '" + file.getAbsolutePath() + "'";
+            this.partChecksums = new byte[partCount][];
+        }
+
+        public Void call() throws Exception {
+            int part;
+            while (!stopped && (part = nextPart.getAndIncrement()) < partCount) {
+                try {
+                    uploadPart(part);
+                } catch (Exception e) {
+                    stopped = true;
+                    throw e;
+                }
+            }
+            return null;
+        }
+
+        private void uploadPart(int part) throws Exception {
+            long position = part * partSize;
+            long length = Math.min(partSize, file.length() - position);
+            byte[] binaryChecksum = MappedTreeHasher.treeHash(file, position, length);
+            String checksum = BinaryUtils.toHex(binaryChecksum);
+
+            Exception failedException = null;
+            for (int tries = 0; tries < MAX_UPLOAD_PART_ATTEMPTS && !stopped; tries++) {
+                InputSubstream inputSubStream = null;
+                try {
+                    inputSubStream = new InputSubstream(
+                            newResettableInputStream(file, fileNotFoundMsg)
+                                .disableClose(), // requires explicit release
+                            position, length, true);
+                    UploadMultipartPartRequest req = new UploadMultipartPartRequest()
+                        .withAccountId(accountId)
+                        .withChecksum(checksum)
+                        .withBody(inputSubStream)
+                        .withRange("bytes " + position + "-" + (position + length - 1) + "/*")
+                        .withUploadId(uploadId)
+                        .withVaultName(vaultName)
+                        .withGeneralProgressListener(progressListener)
+                        ;
+
+                    glacier.uploadMultipartPart(req);
+                    partChecksums[part] = binaryChecksum;
+                    return;
+                } catch (Exception e) {
+                    failedException = e;
+                } finally {
+                    // We opened the file underneath; so need to release it
+                    release(inputSubStream, log);
+                }
+            }
+            if (failedException != null) {
+                throw failedException;
+            }
+        }
+    }
+
+    /**
+     * Calls a progress listener one event at a time, since the concurrent
+     * parts of a transfer publish their byte transfer events from different
+     * threads, and a listener that is safe to call synchronously would
+     * otherwise be called by them all at once.
+     */
+    private static final class SerializedProgressListener implements ProgressListener, DeliveryMode {
+        private final ProgressListener listener;
+        private final boolean syncCallSafe;
+
+        private SerializedProgressListener(ProgressListener listener) {
+            this.listener = listener;
+            this.syncCallSafe = DeliveryMode.Check.isSyncCallSafe(listener);
+        }
+
+        static ProgressListener wrap(ProgressListener listener) {
+            if (listener == null || listener == ProgressListener.NOOP
+                    || listener instanceof SerializedProgressListener) {
+                return listener;
+            }
+            return new SerializedProgressListener(listener);
+        }
+
+        @Override
+        public synchronized void progressChanged(ProgressEvent progressEvent) {
+            listener.progressChanged(progressEvent);
+        }
+
+        @Override
+        public boolean isSyncCallSafe() {
+            return syncCallSafe;
+        }
+    }
+
+    private static final class TransferThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        TransferThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r);
+            thread.setName(namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.glacier.transfer;
+
+import static com.amazonaws.util.IOUtils.closeQuietly;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Records which chunks of a job output have been written to the file it is
+ * downloaded into, so that a download interrupted part way can be resumed by
+ * downloading only the missing chunks.
+ * <p>
+ * The manifest is kept as a properties file next to the downloaded file, and
+ * rewritten each time a chunk is completed. It only applies to a download of
+ * the same job output, with the same chunk size, into the same file; any other
+ * manifest found there is ignored and replaced. It is deleted once the
+ * download completes.
+ */
+final class DownloadManifest {
+
+    /** The suffix appended to the name of the downloaded file to name its manifest. */
+    static final String SUFFIX = ".glacier-download";
+
+    private static final String JOB_ID = "jobId";
+    private static final String ARCHIVE_SIZE = "archiveSize";
+    private static final String CHUNK_SIZE = "chunkSize";
+    private static final String COMPLETED_CHUNKS = "completedChunks";
+
+    private static final Log log = LogFactory.getLog(DownloadManifest.class);
+
+    private final File manifestFile;
+    private final String jobId;
+    private final long archiveSize;
+    private final long chunkSize;
+
+    /** The chunks written to the downloaded file; guarded by this. */
+    private final BitSet completedChunks;
+
+    private DownloadManifest(File manifestFile, String jobId, long archiveSize, long chunkSize,
+            BitSet completedChunks) {
+        this.manifestFile = manifestFile;
+        this.jobId = jobId;
+        this.archiveSize = archiveSize;
+        this.chunkSize = chunkSize;
+        this.completedChunks = completedChunks;
+    }
+
+    /**
+     * Returns the manifest of the download of the given job output into the
+     * given file, with the chunks already completed by a previous attempt if
+     * its manifest was left behind.
+     */
+    static DownloadManifest load(File file, String jobId, long archiveSize, long chunkSize) {
+        File manifestFile = new File(file.getPath() + SUFFIX);
+        BitSet completed = new BitSet();
+        if (manifestFile.isFile() && file.isFile()) {
+            InputStream in = null;
+            try {
+                in = new FileInputStream(manifestFile);
+                Properties properties = new Properties();
+                properties.load(in);
+                if (jobId.equals(properties.getProperty(JOB_ID))
+                        && Long.toString(archiveSize).equals(properties.getProperty(ARCHIVE_SIZE))
+                        && Long.toString(chunkSize).equals(properties.getProperty(CHUNK_SIZE))) {
+                    completed = parseChunks(properties.getProperty(COMPLETED_CHUNKS, ""));
+                    if (log.isDebugEnabled()) {
+                        log.debug("Resuming the download of job " + jobId + " into " + file
+                                + " with " + completed.cardinality() + " chunks already downloaded");
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("Ignoring the unreadable download manifest " + manifestFile, e);
+                completed = new BitSet();
+            } finally {
+                closeQuietly(in, log);
+            }
+        }
+        return new DownloadManifest(manifestFile, jobId, archiveSize, chunkSize, completed);
+    }
+
+    synchronized boolean isCompleted(int chunk) {
+        return completedChunks.get(chunk);
+    }
+
+    synchronized int getCompletedCount() {
+        return completedChunks.cardinality();
+    }
+
+    /**
+     * Records that the given chunk has been written, and durably so, to the
+     * downloaded file. A manifest that cannot be saved only means that the
+     * chunk will be downloaded again if the download is resumed.
+     */
+    synchronized void chunkCompleted(int chunk) {
+        completedChunks.set(chunk);
+        try {
+            save();
+        } catch (IOException e) {
+            log.warn("Unable to save the download manifest " + manifestFile, e);
+        }
+    }
+
+    /**
+     * Deletes the manifest, once the download has completed.
+     */
+    synchronized void delete() {
+        if (manifestFile.exists() && !manifestFile.delete()) {
+            log.warn("Unable to delete the download manifest " + manifestFile);
+        }
+    }
+
+    private void save() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(JOB_ID, jobId);
+        properties.setProperty(ARCHIVE_SIZE, Long.toString(archiveSize));
+        properties.setProperty(CHUNK_SIZE, Long.toString(chunkSize));
+        properties.setProperty(COMPLETED_CHUNKS, formatChunks(completedChunks));
+
+        // Replace the manifest as a whole, so it is never seen half written
+        File tmp = new File(manifestFile.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(tmp);
+        try {
+            properties.store(out, "Amazon Glacier job output download");
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(manifestFile)) {
+            manifestFile.delete();
+            if (!tmp.renameTo(manifestFile)) {
+                throw new IOException("Unable to rename " + tmp + " to " + manifestFile);
+            }
+        }
+    }
+
+    /**
+     * Formats the given chunks as a comma separated list of ranges, such as
+     * {@code 0-15,17,20-31}.
+     */
+    static String formatChunks(BitSet chunks) {
+        StringBuilder sb = new StringBuilder();
+        for (int start = chunks.nextSetBit(0); start >= 0; ) {
+            int end = chunks.nextClearBit(start) - 1;
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(start);
+            if (end > start) {
+                sb.append('-').append(end);
+            }
+            start = chunks.nextSetBit(end + 1);
+        }
+        return sb.toString();
+    }
+
+    static BitSet parseChunks(String ranges) {
+        BitSet chunks = new BitSet();
+        for (String range : ranges.split(",")) {
+            range = range.trim();
+            if (range.length() == 0) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                chunks.set(Integer.parseInt(range));
+            } else {
+                chunks.set(Integer.parseInt(range.substring(0, dash)),
+                        Integer.parseInt(range.substring(dash + 1)) + 1);
+            }
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.glacier.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.amazonaws.services.glacier.TreeHashGenerator;
+import com.amazonaws.services.s3.internal.InputSubstream;
+import com.amazonaws.util.BinaryUtils;
+
+public class MappedTreeHasherTest {
+
+    private static final int MB = 1024 * 1024;
+
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void emptyFile_HashesToChecksumOfNoData() throws Exception {
+        File file = newFile(0);
+        String expected = BinaryUtils.toHex(MessageDigest.getInstance("SHA-256").digest());
+        assertEquals(expected, BinaryUtils.toHex(MappedTreeHasher.treeHash(file, 0, 0)));
+        assertEquals(expected, TreeHashGenerator.calculateTreeHash(file));
+    }
+
+    @Test
+    public void wholeFile_MatchesStreamingHash() throws IOException {
+        for (long size : new long[] { 1, MB - 1, MB, MB + 1, 3 * MB + MB / 2, 8 * MB }) {
+            File file = newFile(size);
+            String expected = streamingTreeHash(file, 0, size);
+            assertEquals("size " + size, expected,
+                    BinaryUtils.toHex(MappedTreeHasher.treeHash(file, 0, size)));
+            assertEquals("size " + size, expected,
+                    BinaryUtils.toHex(MappedTreeHasher.treeHash(file, 0, size, executor)));
+            assertEquals("size " + size, expected, TreeHashGenerator.calculateTreeHash(file));
+        }
+    }
+
+    @Test
+    public void fileOfSeveralSegments_MatchesStreamingHashInParallel() throws IOException {
+        long size = 129L * MB + 12345;
+        File file = newFile(size);
+        String expected = streamingTreeHash(file, 0, size);
+        assertEquals(expected, BinaryUtils.toHex(MappedTreeHasher.treeHash(file, 0, size)));
+        assertEquals(expected, BinaryUtils.toHex(MappedTreeHasher.treeHash(file, 0, size, executor)));
+    }
+
+    @Test
+    public void fileOfSeveralSegments_Unmapped_MatchesStreamingHash() throws IOException {
+        long size = 129L * MB + 12345;
+        File file = newFile(size);
+        String expected = streamingTreeHash(file, 0, size);
+        System.setProperty(MappedTreeHasher.UNMAP_SEGMENTS_PROPERTY, "true");
+        try {
+            assertEquals(expected, BinaryUtils.toHex(MappedTreeHasher.treeHash(file, 0, size)));
+            assertEquals(expected, BinaryUtils.toHex(MappedTreeHasher.treeHash(file, 0, size, executor)));
+        } finally {
+            System.clearProperty(MappedTreeHasher.UNMAP_SEGMENTS_PROPERTY);
+        }
+    }
+
+    @Test
+    public void regionOfFile_MatchesStreamingHashOfRegion() throws IOException {
+        long size = 70L * MB + 7;
+        File file = newFile(size);
+        long[][] regions = { { MB, 2 * MB }, { 3 * MB + 5, MB + 1 }, { 4 * MB, 66 * MB + 7 } };
+        for (long[] region : regions) {
+            assertEquals("region at " + region[0], streamingTreeHash(file, region[0], region[1]),
+                    BinaryUtils.toHex(MappedTreeHasher.treeHash(file, region[0], region[1], executor)));
+        }
+    }
+
+    private static String streamingTreeHash(File file, long position, long length) throws IOException {
+        InputStream input = new InputSubstream(new FileInputStream(file), position, length, true);
+        return TreeHashGenerator.calculateTreeHash(input);
+    }
+
+    private static File newFile(long size) throws IOException {
+        File file = File.createTempFile("tree-hash", ".bin");
+        file.deleteOnExit();
+        Random random = new Random(size);
+        byte[] buffer = new byte[64 * 1024];
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                output.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        } finally {
+            output.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.glacier.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.glacier.AmazonGlacierClient;
+import com.amazonaws.services.glacier.TreeHashGenerator;
+import com.amazonaws.services.glacier.model.DescribeJobRequest;
+import com.amazonaws.services.glacier.model.DescribeJobResult;
+import com.amazonaws.services.glacier.model.GetJobOutputRequest;
+import com.amazonaws.services.glacier.model.GetJobOutputResult;
+import com.amazonaws.services.sns.AmazonSNSClient;
+import com.amazonaws.services.sqs.AmazonSQSClient;
+import com.amazonaws.util.IOUtils;
+
+public class ArchiveTransferManagerDownloadTest {
+
+    private static final String CHUNK_SIZE_PROPERTY = "com.amazonaws.services.glacier.transfer.downloadChunkSizeInMB";
+    private static final String CONCURRENCY_PROPERTY = "com.amazonaws.services.glacier.transfer.downloadConcurrency";
+    private static final int MB = 1024 * 1024;
+
+    private final byte[] archive = new byte[4 * MB + 12345];
+    private final FakeGlacier glacier = new FakeGlacier();
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        new Random(42).nextBytes(archive);
+        file = File.createTempFile("download", ".bin");
+        System.setProperty(CHUNK_SIZE_PROPERTY, "1");
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(CHUNK_SIZE_PROPERTY);
+        System.clearProperty(CONCURRENCY_PROPERTY);
+        file.delete();
+        new File(file.getPath() + DownloadManifest.SUFFIX).delete();
+    }
+
+    @Test
+    public void download_WritesAllChunksConcurrently() throws IOException {
+        System.setProperty(CONCURRENCY_PROPERTY, "3");
+        newManager().downloadJobOutput("-", "vault", "job", file);
+
+        assertArrayEquals(archive, readFile());
+        assertEquals(5, glacier.ranges.size());
+        assertFalse(new File(file.getPath() + DownloadManifest.SUFFIX).exists());
+    }
+
+    @Test
+    public void download_ResumedAfterFailure_OnlyDownloadsMissingChunks() throws IOException {
+        System.setProperty(CONCURRENCY_PROPERTY, "1");
+        glacier.failingRange = rangeOf(2);
+        try {
+            newManager().downloadJobOutput("-", "vault", "job", file);
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+        }
+        assertTrue(new File(file.getPath() + DownloadManifest.SUFFIX).isFile());
+        assertEquals(3, glacier.ranges.size());
+
+        glacier.failingRange = null;
+        glacier.ranges.clear();
+        newManager().downloadJobOutput("-", "vault", "job", file);
+
+        assertArrayEquals(archive, readFile());
+        List<String> ranges = new ArrayList<String>(glacier.ranges);
+        Collections.sort(ranges);
+        assertEquals(Arrays.asList(rangeOf(2), rangeOf(3), rangeOf(4)), ranges);
+        assertFalse(new File(file.getPath() + DownloadManifest.SUFFIX).exists());
+    }
+
+    @Test
+    public void download_ResumedForOtherJob_DownloadsEverything() throws IOException {
+        System.setProperty(CONCURRENCY_PROPERTY, "1");
+        glacier.failingRange = rangeOf(2);
+        try {
+            newManager().downloadJobOutput("-", "vault", "job", file);
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        glacier.failingRange = null;
+        glacier.ranges.clear();
+        newManager().downloadJobOutput("-", "vault", "other-job", file);
+
+        assertArrayEquals(archive, readFile());
+        assertEquals(5, glacier.ranges.size());
+    }
+
+    @Test
+    public void download_ChecksumMismatch_RetriesChunk() throws IOException {
+        System.setProperty(CONCURRENCY_PROPERTY, "2");
+        glacier.corruptRange = rangeOf(1);
+        newManager().downloadJobOutput("-", "vault", "job", file);
+
+        assertArrayEquals(archive, readFile());
+        assertEquals(6, glacier.ranges.size());
+    }
+
+    private ArchiveTransferManager newManager() {
+        return new ArchiveTransferManager(glacier, (AmazonSQSClient) null, (AmazonSNSClient) null);
+    }
+
+    private String rangeOf(int chunk) {
+        long start = (long) chunk * MB;
+        long end = Math.min(start + MB, archive.length) - 1;
+        return "bytes=" + start + "-" + end;
+    }
+
+    private byte[] readFile() throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private class FakeGlacier extends AmazonGlacierClient {
+        final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+        volatile String failingRange;
+        volatile String corruptRange;
+
+        FakeGlacier() {
+            super(new BasicAWSCredentials("akid", "skid"));
+        }
+
+        @Override
+        public DescribeJobResult describeJob(DescribeJobRequest request) {
+            return new DescribeJobResult().withArchiveSizeInBytes((long) archive.length);
+        }
+
+        @Override
+        public GetJobOutputResult getJobOutput(GetJobOutputRequest request) {
+            String range = request.getRange();
+            ranges.add(range);
+            if (range.equals(failingRange)) {
+                throw new AmazonClientException("Unable to execute HTTP request");
+            }
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Integer.parseInt(bounds[1]);
+            byte[] body = new byte[end - start + 1];
+            System.arraycopy(archive, start, body, 0, body.length);
+            String checksum = TreeHashGenerator.calculateTreeHash(new ByteArrayInputStream(body));
+            if (range.equals(corruptRange)) {
+                // corrupt only the first attempt
+                corruptRange = null;
+                body[0]++;
+            }
+            return new GetJobOutputResult().withBody(new ByteArrayInputStream(body)).withChecksum(checksum);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.glacier.transfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.glacier.AmazonGlacierClient;
+import com.amazonaws.services.glacier.TreeHashGenerator;
+import com.amazonaws.services.glacier.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.glacier.model.AbortMultipartUploadResult;
+import com.amazonaws.services.glacier.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.glacier.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.glacier.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.glacier.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.glacier.model.UploadMultipartPartRequest;
+import com.amazonaws.services.glacier.model.UploadMultipartPartResult;
+import com.amazonaws.services.sns.AmazonSNSClient;
+import com.amazonaws.services.sqs.AmazonSQSClient;
+import com.amazonaws.util.IOUtils;
+
+public class ArchiveTransferManagerUploadTest {
+
+    private static final String CONCURRENCY_PROPERTY = "com.amazonaws.services.glacier.transfer.uploadConcurrency";
+    private static final int MB = 1024 * 1024;
+    /** Just above the multipart upload threshold, so uploaded in seven parts of 16 MB. */
+    private static final long FILE_SIZE = 100L * MB + 12345;
+    private static final long PART_SIZE = 16L * MB;
+
+    private static final String UPLOAD_ID = "upload-id";
+    private static final String ARCHIVE_ID = "archive-id";
+
+    private final FakeGlacier glacier = new FakeGlacier();
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("upload", ".bin");
+        Random random = new Random(42);
+        byte[] buffer = new byte[MB];
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            for (long written = 0; written < FILE_SIZE; written += buffer.length) {
+                random.nextBytes(buffer);
+                output.write(buffer, 0, (int) Math.min(buffer.length, FILE_SIZE - written));
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(CONCURRENCY_PROPERTY);
+        file.delete();
+    }
+
+    @Test
+    public void upload_UploadsAllPartsConcurrently() {
+        System.setProperty(CONCURRENCY_PROPERTY, "3");
+        UploadResult result = newManager().upload("-", "vault", "archive", file, null);
+
+        assertEquals(ARCHIVE_ID, result.getArchiveId());
+        List<String> ranges = new ArrayList<String>(glacier.partChecksums.keySet());
+        Collections.sort(ranges, new RangeStartComparator());
+        assertEquals(7, ranges.size());
+        for (int part = 0; part < ranges.size(); part++) {
+            long start = part * PART_SIZE;
+            long end = Math.min(start + PART_SIZE, FILE_SIZE) - 1;
+            assertEquals("bytes " + start + "-" + end + "/*", ranges.get(part));
+        }
+        assertTrue(glacier.maxConcurrentParts.get() > 1);
+        assertNull(glacier.abortedUploadId);
+    }
+
+    @Test
+    public void upload_ChecksumsMatchTreeHashGenerator() {
+        newManager().upload("-", "vault", "archive", file, null);
+
+        assertEquals(0, glacier.checksumMismatches.get());
+        assertEquals(TreeHashGenerator.calculateTreeHash(file), glacier.completeRequest.getChecksum());
+        assertEquals(Long.toString(FILE_SIZE), glacier.completeRequest.getArchiveSize());
+        assertEquals(UPLOAD_ID, glacier.completeRequest.getUploadId());
+    }
+
+    @Test
+    public void upload_FailingPart_AbortsUpload() {
+        System.setProperty(CONCURRENCY_PROPERTY, "2");
+        glacier.failingRange = "bytes " + 2 * PART_SIZE + "-" + (3 * PART_SIZE - 1) + "/*";
+        try {
+            newManager().upload("-", "vault", "archive", file, null);
+            fail("Expected the upload to fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        assertEquals(UPLOAD_ID, glacier.abortedUploadId);
+        assertNull(glacier.completeRequest);
+        assertTrue(glacier.failedAttempts.get() > 0);
+        assertTrue(glacier.partChecksums.size() < 7);
+        assertEquals(0, glacier.concurrentParts.get());
+    }
+
+    private ArchiveTransferManager newManager() {
+        return new ArchiveTransferManager(glacier, (AmazonSQSClient) null, (AmazonSNSClient) null);
+    }
+
+    private static final class RangeStartComparator implements Comparator<String> {
+        public int compare(String a, String b) {
+            return Long.valueOf(start(a)).compareTo(start(b));
+        }
+
+        private static long start(String range) {
+            return Long.parseLong(range.substring("bytes ".length(), range.indexOf('-')));
+        }
+    }
+
+    private static class FakeGlacier extends AmazonGlacierClient {
+        final Map<String, String> partChecksums = new ConcurrentHashMap<String, String>();
+        final AtomicInteger checksumMismatches = new AtomicInteger();
+        final AtomicInteger failedAttempts = new AtomicInteger();
+        final AtomicInteger concurrentParts = new AtomicInteger();
+        final AtomicInteger maxConcurrentParts = new AtomicInteger();
+        volatile String failingRange;
+        volatile CompleteMultipartUploadRequest completeRequest;
+        volatile String abortedUploadId;
+
+        FakeGlacier() {
+            super(new BasicAWSCredentials("akid", "skid"));
+        }
+
+        @Override
+        public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+            assertEquals(Long.toString(PART_SIZE), request.getPartSize());
+            return new InitiateMultipartUploadResult().withUploadId(UPLOAD_ID);
+        }
+
+        @Override
+        public UploadMultipartPartResult uploadMultipartPart(UploadMultipartPartRequest request) {
+            int concurrent = concurrentParts.incrementAndGet();
+            try {
+                int max;
+                while ((max = maxConcurrentParts.get()) < concurrent
+                        && !maxConcurrentParts.compareAndSet(max, concurrent)) {
+                }
+                if (request.getRange().equals(failingRange)) {
+                    failedAttempts.incrementAndGet();
+                    throw new AmazonClientException("Unable to execute HTTP request");
+                }
+                String checksum = TreeHashGenerator.calculateTreeHash(request.getBody());
+                if (!checksum.equals(request.getChecksum())) {
+                    checksumMismatches.incrementAndGet();
+                }
+                partChecksums.put(request.getRange(), checksum);
+                return new UploadMultipartPartResult().withChecksum(checksum);
+            } finally {
+                IOUtils.closeQuietly(request.getBody(), null);
+                concurrentParts.decrementAndGet();
+            }
+        }
+
+        @Override
+        public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            completeRequest = request;
+            return new CompleteMultipartUploadResult().withArchiveId(ARCHIVE_ID);
+        }
+
+        @Override
+        public AbortMultipartUploadResult abortMultipartUpload(AbortMultipartUploadRequest request) {
+            abortedUploadId = request.getUploadId();
+            return new AbortMultipartUploadResult();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.glacier.transfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DownloadManifestTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private File file;
+    private File manifestFile;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("download", ".bin");
+        manifestFile = new File(file.getPath() + DownloadManifest.SUFFIX);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        manifestFile.delete();
+    }
+
+    @Test
+    public void formatChunks_FormatsRunsAsRanges() {
+        assertEquals("", DownloadManifest.formatChunks(new BitSet()));
+        assertEquals("3", DownloadManifest.formatChunks(chunks(3)));
+        assertEquals("0-1", DownloadManifest.formatChunks(chunks(0, 1)));
+        assertEquals("0-2,4,6-7,100", DownloadManifest.formatChunks(chunks(0, 1, 2, 4, 6, 7, 100)));
+    }
+
+    @Test
+    public void parseChunks_ParsesFormattedChunks() {
+        assertEquals(new BitSet(), DownloadManifest.parseChunks(""));
+        assertEquals(chunks(3), DownloadManifest.parseChunks("3"));
+        assertEquals(chunks(0, 1, 2, 4, 6, 7, 100), DownloadManifest.parseChunks("0-2,4,6-7,100"));
+        assertEquals(chunks(0, 1, 5), DownloadManifest.parseChunks(" 0-1 , 5 ,"));
+    }
+
+    @Test
+    public void formatAndParseChunks_RoundTrip() {
+        BitSet[] cases = { new BitSet(), chunks(0), chunks(1, 2), chunks(0, 2, 4), chunks(5, 6, 7, 9, 10, 63, 64) };
+        for (BitSet chunks : cases) {
+            assertEquals(chunks, DownloadManifest.parseChunks(DownloadManifest.formatChunks(chunks)));
+        }
+        BitSet all = new BitSet();
+        all.set(0, 1000);
+        all.clear(500);
+        assertEquals("0-499,501-999", DownloadManifest.formatChunks(all));
+        assertEquals(all, DownloadManifest.parseChunks(DownloadManifest.formatChunks(all)));
+    }
+
+    @Test
+    public void load_NoManifest_NothingCompleted() {
+        DownloadManifest manifest = DownloadManifest.load(file, "job", 4 * MB, MB);
+        assertEquals(0, manifest.getCompletedCount());
+        assertFalse(manifestFile.exists());
+    }
+
+    @Test
+    public void load_SavedManifestOfSameDownload_ResumesCompletedChunks() {
+        DownloadManifest manifest = DownloadManifest.load(file, "job", 4 * MB, MB);
+        manifest.chunkCompleted(0);
+        manifest.chunkCompleted(2);
+        assertTrue(manifestFile.isFile());
+
+        DownloadManifest resumed = DownloadManifest.load(file, "job", 4 * MB, MB);
+        assertEquals(2, resumed.getCompletedCount());
+        assertTrue(resumed.isCompleted(0));
+        assertFalse(resumed.isCompleted(1));
+        assertTrue(resumed.isCompleted(2));
+        assertFalse(resumed.isCompleted(3));
+    }
+
+    @Test
+    public void load_SavedManifestOfOtherDownload_Ignored() {
+        DownloadManifest.load(file, "job", 4 * MB, MB).chunkCompleted(1);
+
+        assertEquals(0, DownloadManifest.load(file, "other-job", 4 * MB, MB).getCompletedCount());
+        assertEquals(0, DownloadManifest.load(file, "job", 8 * MB, MB).getCompletedCount());
+        assertEquals(0, DownloadManifest.load(file, "job", 4 * MB, 2 * MB).getCompletedCount());
+        assertEquals(1, DownloadManifest.load(file, "job", 4 * MB, MB).getCompletedCount());
+    }
+
+    @Test
+    public void load_DownloadedFileMissing_ManifestIgnored() {
+        DownloadManifest.load(file, "job", 4 * MB, MB).chunkCompleted(1);
+        assertTrue(file.delete());
+
+        assertEquals(0, DownloadManifest.load(file, "job", 4 * MB, MB).getCompletedCount());
+    }
+
+    @Test
+    public void load_UnreadableManifest_Ignored() throws IOException {
+        FileOutputStream out = new FileOutputStream(manifestFile);
+        try {
+            out.write("jobId=job\narchiveSize=4194304\nchunkSize=1048576\ncompletedChunks=0-x\n".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        assertEquals(0, DownloadManifest.load(file, "job", 4 * MB, MB).getCompletedCount());
+    }
+
+    @Test
+    public void delete_RemovesManifest() {
+        DownloadManifest manifest = DownloadManifest.load(file, "job", 4 * MB, MB);
+        manifest.chunkCompleted(0);
+        manifest.delete();
+
+        assertFalse(manifestFile.exists());
+        assertEquals(0, DownloadManifest.load(file, "job", 4 * MB, MB).getCompletedCount());
+    }
+
+    private static BitSet chunks(int... indexes) {
+        BitSet chunks = new BitSet();
+        for (int index : indexes) {
+            chunks.set(index);
+        }
+        return chunks;
+    }
+}
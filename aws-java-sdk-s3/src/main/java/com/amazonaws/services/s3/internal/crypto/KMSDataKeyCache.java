@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static com.amazonaws.util.BinaryUtils.copyAllBytesFrom;
+import static com.amazonaws.util.BinaryUtils.toHex;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.annotation.ThreadSafe;
+import com.amazonaws.internal.FIFOCache;
+import com.amazonaws.services.kms.AWSKMS;
+import com.amazonaws.services.kms.model.DecryptRequest;
+import com.amazonaws.services.kms.model.DecryptResult;
+import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
+import com.amazonaws.services.kms.model.GenerateDataKeyResult;
+import com.amazonaws.services.s3.model.KMSDataKeyCacheConfiguration;
+import com.amazonaws.util.json.Jackson;
+
+/**
+ * Caches KMS data keys on behalf of a crypto module.
+ * <p>
+ * Generated data keys are cached by customer master key, key spec and
+ * encryption context, and reused until they reach the configured age or the
+ * configured number of objects or bytes. Decrypted data keys are cached by
+ * their ciphertext blob and encryption context until they reach the
+ * configured age.
+ * <p>
+ * Concurrent misses on the same cache key are coalesced into a single call to
+ * KMS, whose result is shared by all the threads waiting for it.
+ */
+@SdkInternalApi
+@ThreadSafe
+class KMSDataKeyCache {
+    private final FIFOCache<DataKey> dataKeys;
+    private final FIFOCache<DecryptedKey> decryptedKeys;
+    private final ConcurrentMap<String, FutureTask<DataKey>> pendingDataKeys =
+            new ConcurrentHashMap<String, FutureTask<DataKey>>();
+    private final ConcurrentMap<String, FutureTask<DecryptedKey>> pendingDecryptedKeys =
+            new ConcurrentHashMap<String, FutureTask<DecryptedKey>>();
+    private final long maxAgeNanos;
+    private final long maxMessagesPerKey;
+    private final long maxBytesPerKey;
+
+    KMSDataKeyCache(KMSDataKeyCacheConfiguration config) {
+        this.dataKeys = new FIFOCache<DataKey>(config.getMaxEntries());
+        this.decryptedKeys = new FIFOCache<DecryptedKey>(config.getMaxEntries());
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxAgeMillis());
+        this.maxMessagesPerKey = config.getMaxMessagesPerKey();
+        this.maxBytesPerKey = config.getMaxBytesPerKey();
+    }
+
+    /**
+     * Returns a data key that may encrypt one more object of the given length,
+     * reusing a cached key when possible and otherwise calling KMS.
+     *
+     * @param plaintextLength
+     *            the length of the object to be encrypted, or -1 if unknown
+     */
+    GenerateDataKeyResult generateDataKey(final AWSKMS kms, final GenerateDataKeyRequest req,
+            long plaintextLength) {
+        final boolean lengthBounded = maxBytesPerKey != Long.MAX_VALUE;
+        if ((plaintextLength < 0 && lengthBounded) || plaintextLength > maxBytesPerKey) {
+            // Can't account for the bytes encrypted, or the object alone
+            // exceeds the byte limit, so don't share the key
+            return kms.generateDataKey(req);
+        }
+        final long bytes = lengthBounded ? plaintextLength : 0;
+        final String cacheKey = req.getKeyId() + '/' + req.getKeySpec() + '/'
+                + contextKey(req.getEncryptionContext());
+
+        final long now = nanoTime();
+        DataKey dataKey = dataKeys.get(cacheKey);
+        while (dataKey == null || !dataKey.tryUse(now, bytes)) {
+            // A fresh key may have been used up by the other threads sharing it
+            final DataKey stale = dataKey;
+            dataKey = load(pendingDataKeys, cacheKey, new Callable<DataKey>() {
+                public DataKey call() {
+                    DataKey current = dataKeys.get(cacheKey);
+                    if (current != null && current != stale) {
+                        // Replaced since this thread last looked
+                        return current;
+                    }
+                    DataKey generated = new DataKey(kms.generateDataKey(req), nanoTime());
+                    dataKeys.add(cacheKey, generated);
+                    return generated;
+                }
+            });
+        }
+        return dataKey.toResult();
+    }
+
+    /**
+     * Returns the plaintext of the data key in the given decrypt request,
+     * using a cached result when possible and otherwise calling KMS.
+     */
+    byte[] decrypt(final AWSKMS kms, final DecryptRequest req) {
+        final String cacheKey = toHex(copyAllBytesFrom(req.getCiphertextBlob()))
+                + '/' + contextKey(req.getEncryptionContext());
+
+        DecryptedKey decrypted = decryptedKeys.get(cacheKey);
+        if (decrypted == null || decrypted.isExpired(nanoTime())) {
+            decrypted = load(pendingDecryptedKeys, cacheKey, new Callable<DecryptedKey>() {
+                public DecryptedKey call() {
+                    DecryptResult result = kms.decrypt(req);
+                    DecryptedKey loaded = new DecryptedKey(
+                            copyAllBytesFrom(result.getPlaintext()), nanoTime());
+                    decryptedKeys.add(cacheKey, loaded);
+                    return loaded;
+                }
+            });
+        }
+        return decrypted.plaintext.clone();
+    }
+
+    /**
+     * Returns the result of the given loader for the given cache key, either
+     * by running it, or by waiting for the same load already started by
+     * another thread.
+     */
+    private static <T> T load(ConcurrentMap<String, FutureTask<T>> pending,
+            String cacheKey, Callable<T> loader) {
+        FutureTask<T> task = new FutureTask<T>(loader);
+        FutureTask<T> existing = pending.putIfAbsent(cacheKey, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                pending.remove(cacheKey, task);
+            }
+        } else {
+            task = existing;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for a data key", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AmazonClientException("Unable to load a data key", cause);
+        }
+    }
+
+    /**
+     * Returns the current time in nanoseconds; overridden in tests.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Returns a canonical representation of the encryption context.
+     */
+    private static String contextKey(Map<String, String> encryptionContext) {
+        return encryptionContext == null
+                ? "{}"
+                : Jackson.toJsonString(new TreeMap<String, String>(encryptionContext));
+    }
+
+    private class DataKey {
+        private final byte[] plaintext;
+        private final byte[] ciphertextBlob;
+        private final String keyId;
+        private final long createdNanos;
+        // Guarded by this
+        private long messages;
+        private long bytes;
+
+        DataKey(GenerateDataKeyResult result, long createdNanos) {
+            this.plaintext = copyAllBytesFrom(result.getPlaintext());
+            this.ciphertextBlob = copyAllBytesFrom(result.getCiphertextBlob());
+            this.keyId = result.getKeyId();
+            this.createdNanos = createdNanos;
+        }
+
+        /**
+         * Accounts for one more object of the given length; returns false if
+         * this key is expired or out of uses.
+         */
+        synchronized boolean tryUse(long now, long length) {
+            if (now - createdNanos >= maxAgeNanos
+                    || messages >= maxMessagesPerKey
+                    || length > maxBytesPerKey - bytes) {
+                return false;
+            }
+            messages++;
+            bytes += length;
+            return true;
+        }
+
+        GenerateDataKeyResult toResult() {
+            return new GenerateDataKeyResult()
+                    .withPlaintext(ByteBuffer.wrap(plaintext.clone()))
+                    .withCiphertextBlob(ByteBuffer.wrap(ciphertextBlob.clone()))
+                    .withKeyId(keyId);
+        }
+    }
+
+    private class DecryptedKey {
+        private final byte[] plaintext;
+        private final long createdNanos;
+
+        DecryptedKey(byte[] plaintext, long createdNanos) {
+            this.plaintext = plaintext;
+            this.createdNanos = createdNanos;
+        }
+
+        boolean isExpired(long now) {
+            return now - createdNanos >= maxAgeNanos;
+        }
+    }
+}
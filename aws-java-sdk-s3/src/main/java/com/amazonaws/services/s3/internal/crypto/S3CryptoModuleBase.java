@@ -74,6 +74,7 @@ import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.InstructionFileId;
+import com.amazonaws.services.s3.model.KMSDataKeyCacheConfiguration;
 import com.amazonaws.services.s3.model.MaterialsDescriptionProvider;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutInstructionFileRequest;
@@ -107,6 +108,8 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         Collections.synchronizedMap(new HashMap<String,T>());
     protected final S3Direct s3;
     protected final AWSKMSClient kms;
+    /** Cache of KMS data keys; or null if data keys are not cached. */
+    protected final KMSDataKeyCache dataKeyCache;
 
     /**
      * @param cryptoConfig a read-only copy of the crypto configuration.
@@ -123,6 +126,7 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         this.cryptoScheme = S3CryptoScheme.from(cryptoConfig.getCryptoMode());
         this.contentCryptoScheme = cryptoScheme.getContentCryptoScheme();
         this.kms = kms;
+        this.dataKeyCache = newDataKeyCache(cryptoConfig);
     }
 
     /**
@@ -138,6 +142,12 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         this.cryptoScheme = S3CryptoScheme.from(cryptoConfig.getCryptoMode());
         this.contentCryptoScheme = cryptoScheme.getContentCryptoScheme();
         this.kms = null;
+        this.dataKeyCache = newDataKeyCache(cryptoConfig);
+    }
+
+    private static KMSDataKeyCache newDataKeyCache(CryptoConfiguration cryptoConfig) {
+        KMSDataKeyCacheConfiguration cacheConfig = cryptoConfig.getDataKeyCacheConfiguration();
+        return cacheConfig == null ? null : new KMSDataKeyCache(cacheConfig);
     }
 
     /**
@@ -536,7 +546,9 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
                 .withGeneralProgressListener(req.getGeneralProgressListener())
                 .withRequestMetricCollector(req.getRequestMetricCollector())
                 ;
-            GenerateDataKeyResult keyGenRes = kms.generateDataKey(keyGenReq);
+            GenerateDataKeyResult keyGenRes = dataKeyCache == null
+                ? kms.generateDataKey(keyGenReq)
+                : dataKeyCache.generateDataKey(kms, keyGenReq, plaintextLength(req));
             final SecretKey cek =
                 new SecretKeySpec(copyAllBytesFrom(keyGenRes.getPlaintext()),
                         contentCryptoScheme.getKeyGeneratorAlgorithm());
@@ -690,6 +702,20 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         return -1;
     }
 
+    /**
+     * Returns the plaintext length of the object to be encrypted for the given
+     * request; or -1 if unknown, as is the case for multipart uploads.
+     */
+    private long plaintextLength(AmazonWebServiceRequest req) {
+        if (req instanceof PutObjectRequest) {
+            PutObjectRequest putReq = (PutObjectRequest) req;
+            ObjectMetadata metadata = putReq.getMetadata();
+            return plaintextLength(putReq,
+                    metadata == null ? new ObjectMetadata() : metadata);
+        }
+        return -1;
+    }
+
     public final S3CryptoScheme getS3CryptoScheme() {
         return cryptoScheme;
     }
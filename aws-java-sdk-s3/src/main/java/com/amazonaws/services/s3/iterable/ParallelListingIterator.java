@@ -0,0 +1,353 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.amazonaws.SdkClientException;
+
+/**
+ * Iterator over a bucket listing that lists partitions of the key space
+ * concurrently and streams summaries as pages arrive.
+ * <p>
+ * At most {@link ParallelListingOptions#getParallelism()} list requests are in
+ * flight at a time, and no request is made while
+ * {@link ParallelListingOptions#getMaxBufferedPages()} pages are fetched or in
+ * flight but not yet consumed, so memory use stays bounded no matter how large
+ * the bucket is. Summaries within a page keep their order, but there is no
+ * ordering guarantee across partitions.
+ * <p>
+ * Callers that stop iterating early must call {@link #close()} to stop
+ * outstanding listings. Iterators are not safe for use by multiple consumer
+ * threads.
+ *
+ * @param <T>
+ *            The type of summaries returned by this iterator.
+ * @see S3Objects#parallelIterator(ParallelListingOptions)
+ * @see S3Versions#parallelIterator(ParallelListingOptions)
+ */
+public class ParallelListingIterator<T> implements Iterator<T>, Closeable {
+
+    /**
+     * Orders keys as S3 lists them, by their UTF-8 bytes, which is the order
+     * of their code points. {@link String#compareTo(String)} differs for keys
+     * with supplementary characters, as it sorts their surrogates below the
+     * characters from U+E000 to U+FFFF.
+     */
+    static final Comparator<String> KEY_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            final int length = Math.min(a.length(), b.length());
+            for (int i = 0; i < length; i++) {
+                final char ca = a.charAt(i);
+                final char cb = b.charAt(i);
+                if (ca != cb) {
+                    return codePointOrder(ca) - codePointOrder(cb);
+                }
+            }
+            return a.length() - b.length();
+        }
+    };
+
+    /**
+     * Moves surrogates above the other UTF-16 code units, so the first code
+     * units that differ order two strings as their code points would.
+     */
+    private static int codePointOrder(char c) {
+        if (c >= 0xE000) {
+            return c - 0x800;
+        }
+        if (c >= Character.MIN_SURROGATE) {
+            return c + 0x2000;
+        }
+        return c;
+    }
+
+    private final Lister<T> lister;
+    private final ExecutorService executorService;
+    /** Whether the executor was created by this iterator and must be shut down by it. */
+    private final boolean ownsExecutorService;
+    private final int parallelism;
+    private final int maxBufferedPages;
+
+    // All fields below except currentPage are guarded by this.
+    /** Partitions to start and listings to continue; continuations go first. */
+    private final Deque<Work> pending = new ArrayDeque<Work>();
+    /** Pages ready for the consumer. */
+    private final Deque<List<T>> buffered = new ArrayDeque<List<T>>();
+    /** Common prefixes already turned into partitions by the probe. */
+    private final Set<String> probedPrefixes = new HashSet<String>();
+    private int running;
+    private RuntimeException failure;
+    private boolean closed;
+
+    /** Consumer-side state, only touched by the iterating thread. */
+    private Iterator<T> currentPage = Collections.<T>emptyList().iterator();
+
+    ParallelListingIterator(Lister<T> lister, String prefix, ParallelListingOptions options) {
+        this.lister = lister;
+        if (options.getExecutorService() != null) {
+            this.executorService = options.getExecutorService();
+            this.ownsExecutorService = false;
+        } else {
+            this.executorService = Executors.newCachedThreadPool();
+            this.ownsExecutorService = true;
+        }
+        this.parallelism = options.getParallelism();
+        this.maxBufferedPages = options.getMaxBufferedPages();
+
+        final List<String> splitPoints = options.getSplitPoints();
+        if (splitPoints != null && !splitPoints.isEmpty()) {
+            String lowerBound = null;
+            final TreeSet<String> sortedSplitPoints = new TreeSet<String>(KEY_ORDER);
+            sortedSplitPoints.addAll(splitPoints);
+            for (String splitPoint : sortedSplitPoints) {
+                pending.add(new Work(prefix, lowerBound, splitPoint, null, null));
+                lowerBound = splitPoint;
+            }
+            pending.add(new Work(prefix, lowerBound, null, null, null));
+        } else {
+            pending.add(new Work(prefix, null, null, options.getProbeDelimiter(), null));
+        }
+        synchronized (this) {
+            schedule();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            final List<T> page;
+            synchronized (this) {
+                try {
+                    while (!closed && failure == null && buffered.isEmpty()
+                            && (running > 0 || !pending.isEmpty())) {
+                        wait();
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new SdkClientException("Parallel listing interrupted by other thread.", ie);
+                }
+                if (closed) {
+                    return false;
+                }
+                if (failure != null) {
+                    final RuntimeException e = failure;
+                    close();
+                    throw e;
+                }
+                if (buffered.isEmpty()) {
+                    // Every partition has been listed
+                    shutdownExecutorIfOwned();
+                    return false;
+                }
+                page = buffered.poll();
+                schedule();
+            }
+            currentPage = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("ParallelListingIterator is read-only.");
+    }
+
+    /**
+     * Stops scheduling further list requests and discards any buffered pages.
+     * Requests already in progress complete but their results are dropped. An
+     * executor supplied through {@link ParallelListingOptions} is left
+     * running.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        pending.clear();
+        buffered.clear();
+        currentPage = Collections.<T>emptyList().iterator();
+        shutdownExecutorIfOwned();
+        notifyAll();
+    }
+
+    private void shutdownExecutorIfOwned() {
+        if (ownsExecutorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Starts as many pending list requests as the parallelism and buffer
+     * limits allow. Must be called while holding the lock.
+     */
+    private void schedule() {
+        while (!closed && failure == null && !pending.isEmpty()
+                && running < parallelism && running + buffered.size() < maxBufferedPages) {
+            final Work work = pending.poll();
+            running++;
+            try {
+                executorService.execute(work);
+            } catch (RejectedExecutionException e) {
+                running--;
+                failure = new SdkClientException(
+                        "Unable to schedule parallel listing of prefix " + work.prefix, e);
+                notifyAll();
+            }
+        }
+    }
+
+    private void onPageListed(Work work, ListingPage<T> page) {
+        final List<T> summaries = page.getSummaries();
+        int end = summaries.size();
+        if (work.upperBound != null) {
+            // Keys are listed in order; stop at the first one past the partition
+            for (int i = 0; i < summaries.size(); i++) {
+                if (KEY_ORDER.compare(lister.keyOf(summaries.get(i)), work.upperBound) > 0) {
+                    end = i;
+                    break;
+                }
+            }
+        }
+        final boolean partitionDone = !page.isTruncated() || end < summaries.size();
+
+        synchronized (this) {
+            running--;
+            if (!closed && failure == null) {
+                if (end > 0) {
+                    buffered.add(end == summaries.size() ? summaries : summaries.subList(0, end));
+                }
+                if (!partitionDone) {
+                    pending.addFirst(new Work(work.prefix, null, work.upperBound, null, page));
+                }
+                for (String commonPrefix : page.getCommonPrefixes()) {
+                    // A prefix can span probe pages; list it only once
+                    if (probedPrefixes.add(commonPrefix)) {
+                        pending.addLast(new Work(commonPrefix, null, null, null, null));
+                    }
+                }
+                schedule();
+            }
+            notifyAll();
+        }
+    }
+
+    private synchronized void onFailure(RuntimeException e) {
+        running--;
+        if (failure == null) {
+            failure = e;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Fetches a single page of a partition, so partitions never hold an
+     * executor thread while waiting for the consumer.
+     */
+    private final class Work implements Runnable {
+        private final String prefix;
+        /** Key after which the partition starts, or null. */
+        private final String marker;
+        /** Last key of the partition, or null. */
+        private final String upperBound;
+        /** Delimiter to probe for common prefixes with, or null. */
+        private final String delimiter;
+        /** The previous page of the partition, or null to start listing. */
+        private final ListingPage<T> previous;
+
+        Work(String prefix, String marker, String upperBound, String delimiter,
+                ListingPage<T> previous) {
+            this.prefix = prefix;
+            this.marker = marker;
+            this.upperBound = upperBound;
+            this.delimiter = delimiter;
+            this.previous = previous;
+        }
+
+        @Override
+        public void run() {
+            synchronized (ParallelListingIterator.this) {
+                if (closed) {
+                    running--;
+                    return;
+                }
+            }
+            final ListingPage<T> page;
+            try {
+                page = previous == null
+                        ? lister.list(prefix, marker, delimiter)
+                        : previous.next();
+            } catch (RuntimeException e) {
+                onFailure(e);
+                return;
+            }
+            onPageListed(this, page);
+        }
+    }
+
+    /**
+     * Lists pages of a particular kind of summary.
+     */
+    interface Lister<T> {
+        /**
+         * Lists the first page of keys beginning with the given prefix.
+         *
+         * @param marker
+         *            the key after which to start listing, or null
+         * @param delimiter
+         *            the delimiter to group keys by, or null
+         */
+        ListingPage<T> list(String prefix, String marker, String delimiter);
+
+        /**
+         * Returns the key of the given summary.
+         */
+        String keyOf(T summary);
+    }
+
+    /**
+     * A page of summaries that knows how to fetch the page after it.
+     */
+    interface ListingPage<T> {
+        List<T> getSummaries();
+
+        List<String> getCommonPrefixes();
+
+        boolean isTruncated();
+
+        ListingPage<T> next();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Options controlling how a {@link ParallelListingIterator} splits a listing
+ * into partitions and lists them concurrently.
+ * <p>
+ * The key space is partitioned in one of two ways. If split points are given,
+ * each partition covers the keys after one split point up to and including
+ * the next. Otherwise the listing is first probed with a delimiter and each
+ * common prefix found becomes a partition of its own; keys that don't contain
+ * the delimiter are returned by the probe itself.
+ *
+ * @see S3Objects#parallelIterator(ParallelListingOptions)
+ * @see S3Versions#parallelIterator(ParallelListingOptions)
+ */
+public class ParallelListingOptions {
+
+    /** Default maximum number of partitions listed at the same time. */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    /** Default maximum number of pages fetched but not yet consumed. */
+    public static final int DEFAULT_MAX_BUFFERED_PAGES = 16;
+
+    /** Default delimiter used to discover partitions. */
+    public static final String DEFAULT_PROBE_DELIMITER = "/";
+
+    private ExecutorService executorService;
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private int maxBufferedPages = DEFAULT_MAX_BUFFERED_PAGES;
+
+    private String probeDelimiter = DEFAULT_PROBE_DELIMITER;
+
+    private List<String> splitPoints;
+
+    /**
+     * Returns the executor used to list partitions, or null if the iterator
+     * creates (and shuts down) its own.
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor used to list partitions. The executor is not shut down
+     * by the iterator. Each scheduled task fetches a single page, so a shared
+     * executor never has a thread held waiting for the consumer.
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Sets the executor used to list partitions and returns this object for
+     * method chaining.
+     *
+     * @see #setExecutorService(ExecutorService)
+     */
+    public ParallelListingOptions withExecutorService(ExecutorService executorService) {
+        setExecutorService(executorService);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of list requests in flight at the same time.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of list requests in flight at the same time.
+     *
+     * @throws IllegalArgumentException if the value is less than 1.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the maximum number of list requests in flight at the same time and
+     * returns this object for method chaining.
+     *
+     * @see #setParallelism(int)
+     */
+    public ParallelListingOptions withParallelism(int parallelism) {
+        setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of pages that may be fetched, or in flight,
+     * but not yet consumed.
+     */
+    public int getMaxBufferedPages() {
+        return maxBufferedPages;
+    }
+
+    /**
+     * Sets the maximum number of pages that may be fetched, or in flight, but
+     * not yet consumed. Once the limit is reached no further list requests are
+     * made until the caller iterates past a page, which bounds the memory used
+     * by the listing.
+     *
+     * @throws IllegalArgumentException if the value is less than 1.
+     */
+    public void setMaxBufferedPages(int maxBufferedPages) {
+        if (maxBufferedPages < 1) {
+            throw new IllegalArgumentException("maxBufferedPages must be at least 1");
+        }
+        this.maxBufferedPages = maxBufferedPages;
+    }
+
+    /**
+     * Sets the maximum number of pages that may be fetched, or in flight, but
+     * not yet consumed and returns this object for method chaining.
+     *
+     * @see #setMaxBufferedPages(int)
+     */
+    public ParallelListingOptions withMaxBufferedPages(int maxBufferedPages) {
+        setMaxBufferedPages(maxBufferedPages);
+        return this;
+    }
+
+    /**
+     * Returns the delimiter used to discover partitions when no split points
+     * are given, or null if partitions are not probed for.
+     */
+    public String getProbeDelimiter() {
+        return probeDelimiter;
+    }
+
+    /**
+     * Sets the delimiter used to discover partitions when no split points are
+     * given. Each common prefix under the listed prefix is listed as a
+     * partition of its own. Only one level of common prefixes is probed; key
+     * spaces without such structure should be partitioned with split points
+     * instead. Null lists the whole prefix as a single partition.
+     */
+    public void setProbeDelimiter(String probeDelimiter) {
+        this.probeDelimiter = probeDelimiter;
+    }
+
+    /**
+     * Sets the delimiter used to discover partitions and returns this object
+     * for method chaining.
+     *
+     * @see #setProbeDelimiter(String)
+     */
+    public ParallelListingOptions withProbeDelimiter(String probeDelimiter) {
+        setProbeDelimiter(probeDelimiter);
+        return this;
+    }
+
+    /**
+     * Returns the keys at which the key space is split into partitions, or
+     * null if partitions are discovered by probing.
+     */
+    public List<String> getSplitPoints() {
+        return splitPoints;
+    }
+
+    /**
+     * Sets the keys at which the key space is split into partitions. Given
+     * split points <code>s1 &lt; s2 &lt; ... &lt; sn</code>, the first
+     * partition covers keys up to and including <code>s1</code>, the next the
+     * keys after <code>s1</code> up to and including <code>s2</code>, and the
+     * last the keys after <code>sn</code>. Split points need not be existing
+     * keys; evenly spread split points give the most parallelism. Keys and
+     * split points are ordered as S3 lists keys, by their UTF-8 bytes.
+     */
+    public void setSplitPoints(Collection<String> splitPoints) {
+        this.splitPoints = splitPoints == null ? null : new ArrayList<String>(splitPoints);
+    }
+
+    /**
+     * Sets the keys at which the key space is split into partitions and
+     * returns this object for method chaining.
+     *
+     * @see #setSplitPoints(Collection)
+     */
+    public ParallelListingOptions withSplitPoints(String... splitPoints) {
+        List<String> list = new ArrayList<String>(splitPoints.length);
+        for (String splitPoint : splitPoints) {
+            list.add(splitPoint);
+        }
+        setSplitPoints(list);
+        return this;
+    }
+}
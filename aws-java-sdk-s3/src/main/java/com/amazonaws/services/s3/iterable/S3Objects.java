@@ -15,6 +15,7 @@
 package com.amazonaws.services.s3.iterable;
 
 import java.util.Iterator;
+import java.util.List;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
@@ -34,6 +35,10 @@ import com.amazonaws.services.s3.model.S3ObjectSummary;
  * The list of {@link S3ObjectSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
  * {@link S3Objects#withBatchSize(int)} method.
+ * <p>
+ * Large buckets can be listed faster, in no particular order, by listing
+ * partitions of the key space concurrently with
+ * {@link S3Objects#parallelIterator(ParallelListingOptions)}.
  */
 public class S3Objects implements Iterable<S3ObjectSummary> {
 
@@ -154,4 +159,65 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return new S3ObjectIterator();
     }
 
+    /**
+     * Returns an iterator that lists partitions of the key space concurrently,
+     * as configured by the given options. Object summaries are returned as
+     * pages arrive, with no ordering guarantee across partitions. Callers that
+     * stop iterating early must close the iterator.
+     *
+     * @param options
+     *            How to partition the key space and list the partitions.
+     * @return An iterator for object summaries.
+     */
+    public ParallelListingIterator<S3ObjectSummary> parallelIterator(ParallelListingOptions options) {
+        return new ParallelListingIterator<S3ObjectSummary>(new ObjectLister(), getPrefix(), options);
+    }
+
+    private class ObjectLister implements ParallelListingIterator.Lister<S3ObjectSummary> {
+        @Override
+        public ParallelListingIterator.ListingPage<S3ObjectSummary> list(String prefix, String marker,
+                String delimiter) {
+            ListObjectsRequest req = new ListObjectsRequest();
+            req.setBucketName(getBucketName());
+            req.setPrefix(prefix);
+            req.setMarker(marker);
+            req.setDelimiter(delimiter);
+            req.setMaxKeys(getBatchSize());
+            return new ObjectPage(getS3().listObjects(req));
+        }
+
+        @Override
+        public String keyOf(S3ObjectSummary summary) {
+            return summary.getKey();
+        }
+    }
+
+    private class ObjectPage implements ParallelListingIterator.ListingPage<S3ObjectSummary> {
+        private final ObjectListing listing;
+
+        ObjectPage(ObjectListing listing) {
+            this.listing = listing;
+        }
+
+        @Override
+        public List<S3ObjectSummary> getSummaries() {
+            return listing.getObjectSummaries();
+        }
+
+        @Override
+        public List<String> getCommonPrefixes() {
+            return listing.getCommonPrefixes();
+        }
+
+        @Override
+        public boolean isTruncated() {
+            return listing.isTruncated();
+        }
+
+        @Override
+        public ParallelListingIterator.ListingPage<S3ObjectSummary> next() {
+            return new ObjectPage(getS3().listNextBatchOfObjects(listing));
+        }
+    }
+
 }
@@ -14,7 +14,9 @@
  */
 package com.amazonaws.services.s3.iterable;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListVersionsRequest;
@@ -34,6 +36,10 @@ import com.amazonaws.services.s3.model.VersionListing;
  * The list of {@link S3VersionSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
  * {@link S3Versions#withBatchSize(int)} method.
+ * <p>
+ * Large buckets can be listed faster, in no particular order, by listing
+ * partitions of the key space concurrently with
+ * {@link S3Versions#parallelIterator(ParallelListingOptions)}.
  */
 public class S3Versions implements Iterable<S3VersionSummary> {
 
@@ -202,4 +208,95 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return new VersionIterator();
     }
 
+    /**
+     * Returns an iterator that lists partitions of the key space concurrently,
+     * as configured by the given options. Version summaries are returned as
+     * pages arrive, with no ordering guarantee across partitions; the versions
+     * of any one key are listed in order by a single partition. Callers that
+     * stop iterating early must close the iterator.
+     *
+     * @param options
+     *            How to partition the key space and list the partitions.
+     * @return An iterator for object version summaries.
+     */
+    public ParallelListingIterator<S3VersionSummary> parallelIterator(ParallelListingOptions options) {
+        return new ParallelListingIterator<S3VersionSummary>(new VersionLister(),
+                getKey() != null ? getKey() : getPrefix(), options);
+    }
+
+    private class VersionLister implements ParallelListingIterator.Lister<S3VersionSummary> {
+        @Override
+        public ParallelListingIterator.ListingPage<S3VersionSummary> list(String prefix, String marker,
+                String delimiter) {
+            ListVersionsRequest req = new ListVersionsRequest();
+            req.setBucketName(getBucketName());
+            req.setPrefix(prefix);
+            req.setKeyMarker(marker);
+            // A single key has no partitions worth probing for
+            req.setDelimiter(getKey() != null ? null : delimiter);
+            req.setMaxResults(getBatchSize());
+            return new VersionPage(getS3().listVersions(req));
+        }
+
+        @Override
+        public String keyOf(S3VersionSummary summary) {
+            return summary.getKey();
+        }
+    }
+
+    private class VersionPage implements ParallelListingIterator.ListingPage<S3VersionSummary> {
+        private final VersionListing listing;
+
+        VersionPage(VersionListing listing) {
+            this.listing = listing;
+        }
+
+        @Override
+        public List<S3VersionSummary> getSummaries() {
+            if (getKey() == null) {
+                return listing.getVersionSummaries();
+            }
+            List<S3VersionSummary> matching = new ArrayList<S3VersionSummary>();
+            for (S3VersionSummary summary : listing.getVersionSummaries()) {
+                if (summary.getKey().equals(getKey())) {
+                    matching.add(summary);
+                }
+            }
+            return matching;
+        }
+
+        @Override
+        public List<String> getCommonPrefixes() {
+            return listing.getCommonPrefixes();
+        }
+
+        @Override
+        public boolean isTruncated() {
+            return listing.isTruncated() && !isPastKey();
+        }
+
+        /**
+         * Returns true if only versions of a single key are wanted, and the
+         * listing has moved on to the keys following it under the same
+         * prefix, so that none of the remaining pages can match.
+         */
+        private boolean isPastKey() {
+            if (getKey() == null) {
+                return false;
+            }
+            String nextKeyMarker = listing.getNextKeyMarker();
+            if (nextKeyMarker != null && !nextKeyMarker.equals(getKey())) {
+                return true;
+            }
+            List<S3VersionSummary> summaries = listing.getVersionSummaries();
+            return !summaries.isEmpty()
+                    && !summaries.get(summaries.size() - 1).getKey().equals(getKey());
+        }
+
+        @Override
+        public ParallelListingIterator.ListingPage<S3VersionSummary> next() {
+            return new VersionPage(getS3().listNextBatchOfVersions(listing));
+        }
+    }
+
 }
@@ -48,6 +48,11 @@ public class CryptoConfiguration implements Cloneable,Serializable {
      * null if no explicit KMS region is specified.
      */
     private transient com.amazonaws.regions.Region awskmsRegion;
+    /**
+     * Configures the caching of KMS data keys; or null if every object is
+     * encrypted and decrypted with its own KMS call.
+     */
+    private KMSDataKeyCacheConfiguration dataKeyCacheConfig;
 
     /**
      * Creates a new CryptoConfiguration object with default storage mode and
@@ -288,6 +293,18 @@ public class CryptoConfiguration implements Cloneable,Serializable {
         @Override public CryptoConfiguration withKmsRegion(Regions kmsRegion) {
             throw new UnsupportedOperationException();
         }
+        @Override public void setDataKeyCacheConfiguration(
+                KMSDataKeyCacheConfiguration dataKeyCacheConfig) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withDataKeyCacheConfiguration(
+                KMSDataKeyCacheConfiguration dataKeyCacheConfig) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public KMSDataKeyCacheConfiguration getDataKeyCacheConfiguration() {
+            KMSDataKeyCacheConfiguration config = super.getDataKeyCacheConfiguration();
+            return config == null ? null : config.clone();
+        }
     }
 
     /**
@@ -310,6 +327,8 @@ public class CryptoConfiguration implements Cloneable,Serializable {
         that.cryptoProvider = this.cryptoProvider;
         that.ignoreMissingInstructionFile = this.ignoreMissingInstructionFile;
         that.awskmsRegion = this.awskmsRegion;
+        that.dataKeyCacheConfig = this.dataKeyCacheConfig == null
+                ? null : this.dataKeyCacheConfig.clone();
         return that;
     }
 
@@ -406,4 +425,37 @@ public class CryptoConfiguration implements Cloneable,Serializable {
         this.awskmsRegion = awsKmsRegion;
         return this;
     }
+
+    /**
+     * Returns the configuration for caching KMS data keys; or null if data
+     * keys are not cached. Default is null.
+     */
+    public KMSDataKeyCacheConfiguration getDataKeyCacheConfiguration() {
+        return dataKeyCacheConfig;
+    }
+
+    /**
+     * Sets the configuration for caching KMS data keys, so that data keys
+     * generated under a KMS customer master key are reused across objects and
+     * decrypted data keys are remembered; or null to make a KMS call for every
+     * object. This property is ignored unless KMS encryption materials are in
+     * use.
+     *
+     * @see KMSDataKeyCacheConfiguration
+     */
+    public void setDataKeyCacheConfiguration(
+            KMSDataKeyCacheConfiguration dataKeyCacheConfig) {
+        this.dataKeyCacheConfig = dataKeyCacheConfig;
+    }
+
+    /**
+     * Fluent API for setting the configuration for caching KMS data keys.
+     *
+     * @see #setDataKeyCacheConfiguration(KMSDataKeyCacheConfiguration)
+     */
+    public CryptoConfiguration withDataKeyCacheConfiguration(
+            KMSDataKeyCacheConfiguration dataKeyCacheConfig) {
+        setDataKeyCacheConfiguration(dataKeyCacheConfig);
+        return this;
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model;
+
+import java.io.Serializable;
+
+/**
+ * Configures the caching of KMS data keys by the Amazon S3 Encryption Client.
+ * <p>
+ * Without caching, every object encrypted under a KMS customer master key
+ * costs a KMS <code>GenerateDataKey</code> call and every object decrypted
+ * costs a KMS <code>Decrypt</code> call. With caching enabled, a data key is
+ * reused to encrypt further objects with the same customer master key and
+ * encryption context until it reaches the configured age or usage limits,
+ * and decrypted data keys are kept in memory so that objects sharing a data
+ * key are decrypted with a single KMS call.
+ * <p>
+ * Caching trades KMS calls for a weaker security posture: a plaintext data
+ * key stays in memory for up to the maximum age, protects more than one
+ * object, and KMS is not consulted again before the cached key is used.
+ * Choose the limits accordingly.
+ *
+ * @see CryptoConfiguration#setDataKeyCacheConfiguration(KMSDataKeyCacheConfiguration)
+ */
+public class KMSDataKeyCacheConfiguration implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Default maximum number of data keys held by each cache. */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /** Default maximum age, in milliseconds, of a cached data key. */
+    public static final long DEFAULT_MAX_AGE_MILLIS = 60 * 1000;
+
+    /**
+     * Default maximum number of objects encrypted with a single data key; the
+     * usage limit for AES-GCM with random initialization vectors.
+     */
+    public static final long DEFAULT_MAX_MESSAGES_PER_KEY = 1L << 32;
+
+    /** Default maximum number of plaintext bytes encrypted with a single data key. */
+    public static final long DEFAULT_MAX_BYTES_PER_KEY = Long.MAX_VALUE;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+    private long maxMessagesPerKey = DEFAULT_MAX_MESSAGES_PER_KEY;
+    private long maxBytesPerKey = DEFAULT_MAX_BYTES_PER_KEY;
+
+    /**
+     * Returns the maximum number of data keys held by each cache. The
+     * encryption and decryption caches are bounded separately.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Sets the maximum number of data keys held by each cache. The encryption
+     * and decryption caches are bounded separately.
+     *
+     * @param maxEntries
+     *            the maximum number of cached data keys; must be positive
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Fluent API for {@link #setMaxEntries(int)}.
+     */
+    public KMSDataKeyCacheConfiguration withMaxEntries(int maxEntries) {
+        setMaxEntries(maxEntries);
+        return this;
+    }
+
+    /**
+     * Returns the maximum age, in milliseconds, after which a cached data key
+     * is no longer used.
+     */
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    /**
+     * Sets the maximum age, in milliseconds, after which a cached data key is
+     * no longer used.
+     *
+     * @param maxAgeMillis
+     *            the maximum age of a cached data key; must be positive
+     */
+    public void setMaxAgeMillis(long maxAgeMillis) {
+        if (maxAgeMillis < 1) {
+            throw new IllegalArgumentException("maxAgeMillis must be positive: " + maxAgeMillis);
+        }
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Fluent API for {@link #setMaxAgeMillis(long)}.
+     */
+    public KMSDataKeyCacheConfiguration withMaxAgeMillis(long maxAgeMillis) {
+        setMaxAgeMillis(maxAgeMillis);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of objects encrypted with a single cached
+     * data key.
+     */
+    public long getMaxMessagesPerKey() {
+        return maxMessagesPerKey;
+    }
+
+    /**
+     * Sets the maximum number of objects encrypted with a single cached data
+     * key.
+     *
+     * @param maxMessagesPerKey
+     *            the maximum number of objects per data key; must be positive
+     */
+    public void setMaxMessagesPerKey(long maxMessagesPerKey) {
+        if (maxMessagesPerKey < 1) {
+            throw new IllegalArgumentException("maxMessagesPerKey must be positive: " + maxMessagesPerKey);
+        }
+        this.maxMessagesPerKey = maxMessagesPerKey;
+    }
+
+    /**
+     * Fluent API for {@link #setMaxMessagesPerKey(long)}.
+     */
+    public KMSDataKeyCacheConfiguration withMaxMessagesPerKey(long maxMessagesPerKey) {
+        setMaxMessagesPerKey(maxMessagesPerKey);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of plaintext bytes encrypted with a single
+     * cached data key.
+     */
+    public long getMaxBytesPerKey() {
+        return maxBytesPerKey;
+    }
+
+    /**
+     * Sets the maximum number of plaintext bytes encrypted with a single
+     * cached data key. When this limit is set, objects whose length is not
+     * known up front, such as multipart uploads, are always encrypted with a
+     * new data key.
+     *
+     * @param maxBytesPerKey
+     *            the maximum number of plaintext bytes per data key; must be
+     *            positive
+     */
+    public void setMaxBytesPerKey(long maxBytesPerKey) {
+        if (maxBytesPerKey < 1) {
+            throw new IllegalArgumentException("maxBytesPerKey must be positive: " + maxBytesPerKey);
+        }
+        this.maxBytesPerKey = maxBytesPerKey;
+    }
+
+    /**
+     * Fluent API for {@link #setMaxBytesPerKey(long)}.
+     */
+    public KMSDataKeyCacheConfiguration withMaxBytesPerKey(long maxBytesPerKey) {
+        setMaxBytesPerKey(maxBytesPerKey);
+        return this;
+    }
+
+    @Override
+    public KMSDataKeyCacheConfiguration clone() {
+        try {
+            return (KMSDataKeyCacheConfiguration) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -34,17 +34,20 @@ public class BucketNotificationConfigurationStaxUnmarshaller implements
         return instance;
     }
 
-    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private final ThreadLocal<XMLInputFactory> inputFactory = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            return XMLInputFactory.newInstance();
+        }
+    };
 
     private BucketNotificationConfigurationStaxUnmarshaller() {
     }
 
     @Override
     public BucketNotificationConfiguration unmarshall(InputStream inputStream) throws Exception {
-        StaxUnmarshallerContext context;
-        synchronized (inputFactory) {
-            context = new StaxUnmarshallerContext(inputFactory.createXMLEventReader(inputStream));
-        }
+        StaxUnmarshallerContext context = new StaxUnmarshallerContext(
+                inputFactory.get().createXMLStreamReader(inputStream), null);
         int originalDepth = context.getCurrentDepth();
         int targetDepth = originalDepth + 1;
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model.transform;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Replaces each carriage return (\r) read from the underlying reader with the
+ * XML character entity <code>&amp;#013;</code>, so the SAX parser doesn't
+ * normalize 0x0D characters in key names to 0x0A. The document is filtered as
+ * it is read, a buffer at a time, rather than being read into memory first.
+ */
+class CarriageReturnEscapingReader extends FilterReader {
+    private static final char[] ESCAPED_CR = "&#013;".toCharArray();
+
+    private final char[] buffer = new char[8192];
+    /** Holds the character returned by {@link #read()}. */
+    private final char[] single = new char[1];
+    /** Position of the next unfiltered character in the buffer. */
+    private int position;
+    /** Number of characters in the buffer. */
+    private int limit;
+    /** Position in {@link #ESCAPED_CR} of the next character to return. */
+    private int escapePosition = ESCAPED_CR.length;
+
+    CarriageReturnEscapingReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) == -1 ? -1 : single[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < len) {
+            if (escapePosition < ESCAPED_CR.length) {
+                cbuf[off + n++] = ESCAPED_CR[escapePosition++];
+                continue;
+            }
+            if (position == limit) {
+                if (n > 0) {
+                    // Don't block for more input once there is something to return
+                    break;
+                }
+                int read = in.read(buffer, 0, buffer.length);
+                if (read == -1) {
+                    return -1;
+                }
+                position = 0;
+                limit = read;
+                continue;
+            }
+            if (buffer[position] == '\r') {
+                position++;
+                escapePosition = 0;
+                continue;
+            }
+            // Copy the run of characters up to the next carriage return
+            int end = position;
+            final int max = Math.min(limit, position + len - n);
+            while (end < max && buffer[end] != '\r') {
+                end++;
+            }
+            System.arraycopy(buffer, position, cbuf, off + n, end - position);
+            n += end - position;
+            position = end;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        char[] skipped = new char[(int) Math.min(n, buffer.length)];
+        long total = 0;
+        while (total < n) {
+            int read = read(skipped, 0, (int) Math.min(n - total, skipped.length));
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return escapePosition < ESCAPED_CR.length || position < limit || in.ready();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+}
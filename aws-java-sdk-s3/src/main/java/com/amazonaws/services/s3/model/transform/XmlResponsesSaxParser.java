@@ -26,6 +26,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -101,34 +102,91 @@ public class XmlResponsesSaxParser {
      */
     protected void parseXmlInputStream(DefaultHandler handler, InputStream inputStream)
             throws IOException {
+        parseXmlReader(handler, inputStream, false);
+    }
+
+    /**
+     * Parses an XML document from an input stream using a document handler,
+     * escaping carriage returns as the document is read unless sanitizing is
+     * disabled. Unlike {@link #sanitizeXmlDocument(DefaultHandler, InputStream)},
+     * the document is never held in memory as a whole; unless
+     * {@link #isXmlDocumentSanitizedInMemory()} returns true, in which case the
+     * document is sanitized by that method.
+     *
+     * @param handler
+     *            the handler for the XML document
+     * @param inputStream
+     *            an input stream containing the XML document to parse
+     *
+     * @throws IOException
+     *             on error reading from the input stream (ie connection reset)
+     * @throws SdkClientException
+     *             on error with malformed XML, etc
+     */
+    protected void parseSanitizedXmlInputStream(DefaultHandler handler, InputStream inputStream)
+            throws IOException {
+        if (isXmlDocumentSanitizedInMemory()) {
+            parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        } else {
+            parseXmlReader(handler, inputStream, sanitizeXmlDocument);
+        }
+    }
+
+    /**
+     * Returns true if the list response parsers should sanitize documents by
+     * reading them into memory with
+     * {@link #sanitizeXmlDocument(DefaultHandler, InputStream)}, rather than
+     * escaping carriage returns as the documents are parsed. Subclasses
+     * overriding that method must override this one to return true for their
+     * override to be called.
+     */
+    protected boolean isXmlDocumentSanitizedInMemory() {
+        return false;
+    }
+
+    private void parseXmlReader(DefaultHandler handler, InputStream inputStream, boolean escapeCarriageReturns)
+            throws IOException {
         try {
 
             if (log.isDebugEnabled()) {
                 log.debug("Parsing XML response document with handler: " + handler.getClass());
             }
 
-            BufferedReader breader = new BufferedReader(new InputStreamReader(inputStream,
-                Constants.DEFAULT_ENCODING));
+            Reader reader = new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING);
+            if (escapeCarriageReturns) {
+                // Buffers on its own, so no BufferedReader is needed
+                reader = new CarriageReturnEscapingReader(reader);
+            } else {
+                reader = new BufferedReader(reader);
+            }
             xr.setContentHandler(handler);
             xr.setErrorHandler(handler);
-            xr.parse(new InputSource(breader));
+            xr.parse(new InputSource(reader));
 
         } catch (IOException e) {
             throw e;
 
         } catch (Throwable t) {
+            throw new SdkClientException("Failed to parse XML document with handler "
+                + handler.getClass(), t);
+        } finally {
             try {
                 inputStream.close();
             } catch (IOException e) {
                 if (log.isErrorEnabled()) {
-                    log.error("Unable to close response InputStream up after XML parse failure", e);
+                    log.error("Unable to close response InputStream after parsing XML document", e);
                 }
             }
-            throw new SdkClientException("Failed to parse XML document with handler "
-                + handler.getClass(), t);
         }
     }
 
+    /**
+     * Reads the whole XML document into memory and returns a copy of it with
+     * carriage returns escaped. The list response parsers only call this
+     * method if {@link #isXmlDocumentSanitizedInMemory()} returns true;
+     * otherwise they escape carriage returns as the document is parsed with
+     * {@link #parseSanitizedXmlInputStream(DefaultHandler, InputStream)}.
+     */
     protected InputStream sanitizeXmlDocument(DefaultHandler handler, InputStream inputStream)
             throws IOException {
 
@@ -267,7 +325,7 @@ public class XmlResponsesSaxParser {
     public ListBucketHandler parseListBucketObjectsResponse(InputStream inputStream, final boolean shouldSDKDecodeResponse)
             throws IOException {
         ListBucketHandler handler = new ListBucketHandler(shouldSDKDecodeResponse);
-        parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        parseSanitizedXmlInputStream(handler, inputStream);
 
         return handler;
     }
@@ -284,7 +342,7 @@ public class XmlResponsesSaxParser {
     public ListObjectsV2Handler parseListObjectsV2Response(InputStream inputStream, final boolean shouldSDKDecodeResponse)
             throws IOException {
         ListObjectsV2Handler handler = new ListObjectsV2Handler(shouldSDKDecodeResponse);
-        parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        parseSanitizedXmlInputStream(handler, inputStream);
 
         return handler;
     }
@@ -301,7 +359,7 @@ public class XmlResponsesSaxParser {
     public ListVersionsHandler parseListVersionsResponse(InputStream inputStream, final boolean shouldSDKDecodeResponse)
             throws IOException {
         ListVersionsHandler handler = new ListVersionsHandler(shouldSDKDecodeResponse);
-        parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        parseSanitizedXmlInputStream(handler, inputStream);
         return handler;
     }
 
@@ -317,7 +375,7 @@ public class XmlResponsesSaxParser {
     public ListAllMyBucketsHandler parseListMyBucketsResponse(InputStream inputStream)
             throws IOException {
         ListAllMyBucketsHandler handler = new ListAllMyBucketsHandler();
-        parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        parseSanitizedXmlInputStream(handler, inputStream);
         return handler;
     }
 
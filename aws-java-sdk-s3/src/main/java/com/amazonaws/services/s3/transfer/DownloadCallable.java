@@ -47,6 +47,7 @@ import com.amazonaws.services.s3.transfer.internal.AbstractTransfer;
 import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
 import com.amazonaws.services.s3.transfer.internal.DownloadPartCallable;
+import com.amazonaws.services.s3.transfer.internal.ParallelRangedDownload;
 import com.amazonaws.services.s3.transfer.internal.CompleteMultipartDownload;
 import com.amazonaws.util.IOUtils;
 
@@ -69,6 +70,10 @@ final class DownloadCallable implements Callable<File> {
     private final boolean isDownloadParallel;
     private Integer lastFullyMergedPartNumber;
     private final boolean resumeOnRetry;
+    /** The size of each range of a parallel ranged download, or zero. */
+    private final long downloadRangeSize;
+    /** The number of ranges downloaded concurrently. */
+    private final int downloadRangeConcurrency;
 
     private long expectedFileLength;
 
@@ -78,7 +83,8 @@ final class DownloadCallable implements Callable<File> {
             long expectedFileLength, long timeout,
             ScheduledExecutorService timedExecutor,
             ExecutorService executor,
-            Integer lastFullyDownloadedPartNumber, boolean isDownloadParallel, boolean resumeOnRetry)
+            Integer lastFullyDownloadedPartNumber, boolean isDownloadParallel, boolean resumeOnRetry,
+            long downloadRangeSize, int downloadRangeConcurrency)
     {
         if (s3 == null || latch == null || req == null || dstfile == null || download == null)
             throw new IllegalArgumentException();
@@ -97,6 +103,8 @@ final class DownloadCallable implements Callable<File> {
         this.lastFullyMergedPartNumber = lastFullyDownloadedPartNumber;
         this.isDownloadParallel = isDownloadParallel;
         this.resumeOnRetry = resumeOnRetry;
+        this.downloadRangeSize = downloadRangeSize;
+        this.downloadRangeConcurrency = downloadRangeConcurrency;
     }
 
     /**
@@ -131,6 +139,8 @@ final class DownloadCallable implements Callable<File> {
 
             if (isDownloadParallel) {
                 downloadInParallel(ServiceUtils.getPartCount(req, s3));
+            } else if (downloadRangeSize > 0) {
+                downloadInRanges();
             } else {
                 S3Object s3Object = retryableDownloadS3ObjectToFile(dstfile,
                         new DownloadTaskImpl(s3, download, req));
@@ -196,6 +206,16 @@ final class DownloadCallable implements Callable<File> {
         ((DownloadMonitor) download.getMonitor()).setFuture(future);
     }
 
+    /**
+     * Downloads the object as concurrent byte-range GETs written directly into
+     * their positions in the destination file.
+     */
+    private void downloadInRanges() {
+        ParallelRangedDownload rangedDownload = new ParallelRangedDownload(s3, req, dstfile, download,
+                executor, downloadRangeSize, downloadRangeConcurrency, lastFullyMergedPartNumber);
+        ((DownloadMonitor) download.getMonitor()).setFuture(rangedDownload.start());
+    }
+
     /**
      * If only partial part object is merged into the dstFile(due to pause
      * operation), adjust the file length so that the part starts writing from
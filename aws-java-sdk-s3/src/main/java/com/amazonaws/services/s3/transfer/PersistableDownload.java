@@ -75,9 +75,25 @@ public final class PersistableDownload extends PersistableTransfer {
     @JsonProperty
     private final long lastModifiedTime;
 
+    /**
+     * The size of each byte range for a parallel ranged download, or null if
+     * the object is not downloaded in ranges. For ranged downloads
+     * {@link #lastFullyDownloadedPartNumber} counts the leading ranges that
+     * have been completely written into the downloaded file.
+     */
+    @JsonProperty
+    private final Long downloadRangeSize;
+
 
     public PersistableDownload() {
-        this(null, null, null, null, null, false, null, null, 0L);
+        this(null, null, null, null, null, false, null, null, 0L, null);
+    }
+
+    public PersistableDownload(String bucketName, String key, String versionId, long[] range,
+            ResponseHeaderOverrides responseHeaders, boolean isRequesterPays, String file,
+            Integer lastFullyDownloadedPartNumber, long lastModifiedTime) {
+        this(bucketName, key, versionId, range, responseHeaders, isRequesterPays, file,
+                lastFullyDownloadedPartNumber, lastModifiedTime, null);
     }
 
     public PersistableDownload(
@@ -89,7 +105,8 @@ public final class PersistableDownload extends PersistableTransfer {
             @JsonProperty(value = "isRequesterPays") boolean isRequesterPays,
             @JsonProperty(value = "file") String file,
             @JsonProperty(value = "lastFullyDownloadedPartNumber") Integer lastFullyDownloadedPartNumber,
-            @JsonProperty(value = "lastModifiedTime") long lastModifiedTime) {
+            @JsonProperty(value = "lastModifiedTime") long lastModifiedTime,
+            @JsonProperty(value = "downloadRangeSize") Long downloadRangeSize) {
         this.bucketName = bucketName;
         this.key = key;
         this.versionId = versionId;
@@ -99,6 +116,7 @@ public final class PersistableDownload extends PersistableTransfer {
         this.file = file;
         this.lastFullyDownloadedPartNumber = lastFullyDownloadedPartNumber;
         this.lastModifiedTime = lastModifiedTime;
+        this.downloadRangeSize = downloadRangeSize;
     }
 
     /**
@@ -169,4 +187,12 @@ public final class PersistableDownload extends PersistableTransfer {
     Long getlastModifiedTime() {
         return lastModifiedTime;
     }
+
+    /**
+     * Returns the size of each byte range for a parallel ranged download, or
+     * null if the object is not downloaded in ranges.
+     */
+    Long getDownloadRangeSize() {
+        return downloadRangeSize;
+    }
 }
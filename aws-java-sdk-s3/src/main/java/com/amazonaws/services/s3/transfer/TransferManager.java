@@ -955,7 +955,7 @@ public class TransferManager {
                              final File file, final S3ProgressListener progressListener,
                              final long timeoutMillis, final boolean resumeOnRetry) {
         return doDownload(getObjectRequest, file, null, progressListener,
-                OVERWRITE_MODE, timeoutMillis, null, 0L, resumeOnRetry);
+                OVERWRITE_MODE, timeoutMillis, null, 0L, resumeOnRetry, null);
     }
 
     /**
@@ -974,7 +974,7 @@ public class TransferManager {
     {
         return doDownload(getObjectRequest, file, stateListener, s3progressListener,
                 resumeExistingDownload, timeoutMillis, lastFullyDownloadedPart,
-                lastModifiedTimeRecordedDuringPause, false);
+                lastModifiedTimeRecordedDuringPause, false, null);
     }
 
     /**
@@ -990,7 +990,8 @@ public class TransferManager {
             final long timeoutMillis,
             final Integer lastFullyDownloadedPart,
             final long lastModifiedTimeRecordedDuringPause,
-            final boolean resumeOnRetry)
+            final boolean resumeOnRetry,
+            final Long downloadRangeSizeRecordedDuringPause)
     {
         assertParameterNotNull(getObjectRequest,
                 "A valid GetObjectRequest must be provided to initiate download");
@@ -1039,9 +1040,25 @@ public class TransferManager {
                 TransferManagerUtils.isDownloadParallelizable(s3, getObjectRequest, ServiceUtils.getPartCount(getObjectRequest, s3))
                         && !configuration.isDisableParallelDownloads();
 
+        // A resumed download keeps the layout it was paused with; a download
+        // paused before ranged downloads were enabled resumes serially.
+        final long configuredRangeSize;
+        if (resumeExistingDownload) {
+            configuredRangeSize = downloadRangeSizeRecordedDuringPause == null
+                    ? 0 : downloadRangeSizeRecordedDuringPause;
+        } else {
+            configuredRangeSize = configuration.isDisableParallelDownloads()
+                    ? 0 : configuration.getDownloadRangeSize();
+        }
+        final boolean isDownloadRanged = !isDownloadParallel
+                && TransferManagerUtils.isDownloadRangeable(s3, getObjectRequest,
+                        objectMetadata.getContentLength(), configuredRangeSize);
+        final long downloadRangeSize = isDownloadRanged ? configuredRangeSize : 0;
+
         // We still pass the unfiltered listener chain into DownloadImpl
         final DownloadImpl download = new DownloadImpl(description, transferProgress, listenerChain, null,
-                stateListener, getObjectRequest, file, objectMetadata, isDownloadParallel);
+                stateListener, getObjectRequest, file, objectMetadata, isDownloadParallel,
+                isDownloadRanged ? Long.valueOf(downloadRangeSize) : null);
 
         long totalBytesToDownload = lastByte - startingByte + 1;
         transferProgress.setTotalBytesToTransfer(totalBytesToDownload);
@@ -1056,7 +1073,8 @@ public class TransferManager {
         // In addition, we only set the range if the download was *NOT*
         // determined to be parallelizable above. One of the conditions for
         // parallel downloads is that getRange() returns null so preserve that.
-        if (totalBytesToDownload > 0 && !isDownloadParallel) {
+        // Ranged downloads set the range of each of their own requests.
+        if (totalBytesToDownload > 0 && !isDownloadParallel && !isDownloadRanged) {
             getObjectRequest.withRange(startingByte, lastByte);
         }
 
@@ -1068,7 +1086,7 @@ public class TransferManager {
                         + " with key " + getObjectRequest.getKey() + " is modified on Amazon S3 since the last pause.");
             }
 
-            if (!isDownloadParallel) {
+            if (!isDownloadParallel && !isDownloadRanged) {
                 if (!FileLocks.lock(file)) {
                     throw new FileLockException("Fail to lock " + file + " for resume download");
                 }
@@ -1102,7 +1120,8 @@ public class TransferManager {
             new DownloadCallable(s3, latch,
                 getObjectRequest, resumeExistingDownload,
                 download, file, origStartingByte, fileLength, timeoutMillis, timedThreadPool,
-                executorService, lastFullyDownloadedPart, isDownloadParallel, resumeOnRetry));
+                executorService, lastFullyDownloadedPart, isDownloadParallel, resumeOnRetry,
+                downloadRangeSize, configuration.getDownloadRangeConcurrency()));
         download.setMonitor(new DownloadMonitor(download, future));
         latch.countDown();
         return download;
@@ -1226,7 +1245,7 @@ public class TransferManager {
                             req,
                             f,
                             transferListener, null, false, 0,
-                            null, 0L, resumeOnRetry));
+                            null, 0L, resumeOnRetry, null));
         }
 
         if ( downloads.isEmpty() ) {
@@ -1874,7 +1893,8 @@ public class TransferManager {
         return doDownload(request, new File(persistableDownload.getFile()), null, null,
                 APPEND_MODE, 0,
                 persistableDownload.getLastFullyDownloadedPartNumber(),
-                persistableDownload.getlastModifiedTime());
+                persistableDownload.getlastModifiedTime(), false,
+                persistableDownload.getDownloadRangeSize());
     }
 
     /**
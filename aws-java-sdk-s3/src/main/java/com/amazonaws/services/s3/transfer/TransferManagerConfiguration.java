@@ -45,6 +45,14 @@ public class TransferManagerConfiguration {
     @SdkTestInternalApi
     static final long DEFAULT_MINIMUM_COPY_PART_SIZE = 100 * MB;
 
+    /** Default number of byte ranges of a single object downloaded concurrently. */
+    @SdkTestInternalApi
+    static final int DEFAULT_DOWNLOAD_RANGE_CONCURRENCY = 10;
+
+    /** Minimum size of each byte range of a parallel ranged download. */
+    @SdkTestInternalApi
+    static final long MINIMUM_DOWNLOAD_RANGE_SIZE = 5 * MB;
+
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
      * will cause multipart uploads to be split into a larger number of smaller
@@ -101,6 +109,19 @@ public class TransferManagerConfiguration {
      */
     private boolean disableParallelDownloads = false;
 
+    /**
+     * The size in bytes of each byte range when an object that was not
+     * uploaded in parts is downloaded as concurrent ranged GETs. Zero, the
+     * default, downloads such objects over a single connection.
+     */
+    private long downloadRangeSize = 0;
+
+    /**
+     * The maximum number of byte ranges of a single object that are
+     * downloaded concurrently.
+     */
+    private int downloadRangeConcurrency = DEFAULT_DOWNLOAD_RANGE_CONCURRENCY;
+
     /**
      * Returns the minimum part size for upload parts.
      * Decreasing the minimum part size causes
@@ -292,4 +313,75 @@ public class TransferManagerConfiguration {
     public void setDisableParallelDownloads(boolean disableParallelDownloads) {
         this.disableParallelDownloads = disableParallelDownloads;
     }
+
+    /**
+     * Returns the size in bytes of each byte range used for parallel ranged
+     * downloads. Zero, the default, means ranged downloads are disabled.
+     *
+     * @return The size in bytes of each range of a parallel ranged download.
+     * @see #setDownloadRangeSize(long)
+     */
+    public long getDownloadRangeSize() {
+        return downloadRangeSize;
+    }
+
+    /**
+     * Sets the size in bytes of each byte range used for parallel ranged
+     * downloads.
+     * <p>
+     * When set to a positive value, an object larger than this size that was
+     * not uploaded in parts is downloaded as a series of byte-range GETs which
+     * are written concurrently into their positions in the destination file.
+     * Objects uploaded in parts continue to be downloaded part by part.
+     * Downloads paused while in progress resume from the ranges already
+     * written.
+     * </p>
+     * <p>
+     * Ranges must be at least 5 MB, so that the per-request overhead stays
+     * small compared to the data transferred.
+     * </p>
+     * <p>
+     * Because each range is retrieved separately, the MD5 of the whole object
+     * is not validated for ranged downloads. Ranged downloads are also not
+     * used by the encryption client, for requests that specify their own
+     * range or part number, or when parallel downloads are disabled.
+     * </p>
+     *
+     * @param downloadRangeSize
+     *            The size in bytes of each range, at least 5 MB, or zero to
+     *            disable ranged downloads.
+     */
+    public void setDownloadRangeSize(long downloadRangeSize) {
+        if (downloadRangeSize != 0 && downloadRangeSize < MINIMUM_DOWNLOAD_RANGE_SIZE) {
+            throw new IllegalArgumentException("Download range size must be zero or at least "
+                    + MINIMUM_DOWNLOAD_RANGE_SIZE + " bytes");
+        }
+        this.downloadRangeSize = downloadRangeSize;
+    }
+
+    /**
+     * Returns the maximum number of byte ranges of a single object that are
+     * downloaded concurrently during a parallel ranged download.
+     *
+     * @return The maximum number of concurrently downloaded ranges.
+     */
+    public int getDownloadRangeConcurrency() {
+        return downloadRangeConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of byte ranges of a single object that are
+     * downloaded concurrently during a parallel ranged download. Ranges are
+     * downloaded on the transfer manager's thread pool, so this value is
+     * further limited by the size of that pool.
+     *
+     * @param downloadRangeConcurrency
+     *            The maximum number of concurrently downloaded ranges.
+     */
+    public void setDownloadRangeConcurrency(int downloadRangeConcurrency) {
+        if (downloadRangeConcurrency < 1) {
+            throw new IllegalArgumentException("Download range concurrency must be at least 1");
+        }
+        this.downloadRangeConcurrency = downloadRangeConcurrency;
+    }
 }
\ No newline at end of file
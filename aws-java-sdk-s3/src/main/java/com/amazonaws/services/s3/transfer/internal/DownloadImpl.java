@@ -41,6 +41,12 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     private Integer lastFullyDownloadedPartNumber;
 
+    /**
+     * The size of each byte range for a parallel ranged download, or null if
+     * the object is not downloaded in ranges.
+     */
+    private final Long downloadRangeSize;
+
     private final GetObjectRequest getObjectRequest;
     private final File file;
     private final ObjectMetadata objectMetadata;
@@ -58,8 +64,17 @@ public class DownloadImpl extends AbstractTransfer implements Download {
             ProgressListenerChain progressListenerChain, S3Object s3Object, TransferStateChangeListener listener,
             GetObjectRequest getObjectRequest, File file,
             ObjectMetadata objectMetadata, boolean isDownloadParallel) {
+        this(description, transferProgress, progressListenerChain, s3Object, listener,
+                getObjectRequest, file, objectMetadata, isDownloadParallel, null);
+    }
+
+    public DownloadImpl(String description, TransferProgress transferProgress,
+            ProgressListenerChain progressListenerChain, S3Object s3Object, TransferStateChangeListener listener,
+            GetObjectRequest getObjectRequest, File file,
+            ObjectMetadata objectMetadata, boolean isDownloadParallel, Long downloadRangeSize) {
         super(description, transferProgress, progressListenerChain, listener);
         this.s3Object = s3Object;
+        this.downloadRangeSize = downloadRangeSize;
         this.objectMetadata = objectMetadata;
         this.getObjectRequest = getObjectRequest;
         this.file = file;
@@ -101,7 +116,9 @@ public class DownloadImpl extends AbstractTransfer implements Download {
     /**
      * Only for internal use.
      * For parallel downloads, Updates the persistableTransfer each time a
-     * part is successfully merged into download file.
+     * part is successfully merged into download file. For parallel ranged
+     * downloads, the number passed is the count of leading ranges that have
+     * been completely written.
      * Then notify the listeners that new persistableTransfer is available.
      */
     @SdkInternalApi
@@ -190,7 +207,7 @@ public class DownloadImpl extends AbstractTransfer implements Download {
                     getObjectRequest.getVersionId(), getObjectRequest.getRange(),
                     getObjectRequest.getResponseHeaders(), getObjectRequest.isRequesterPays(),
                     file.getAbsolutePath(), getLastFullyDownloadedPartNumber(),
-                    getObjectMetadata().getLastModified().getTime());
+                    getObjectMetadata().getLastModified().getTime(), downloadRangeSize);
         }
         return null;
     }
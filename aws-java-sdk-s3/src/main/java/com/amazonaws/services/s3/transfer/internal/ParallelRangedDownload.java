@@ -0,0 +1,375 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.event.DeliveryMode;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.FileLocks;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.exception.FileLockException;
+import com.amazonaws.util.IOUtils;
+
+/**
+ * Downloads an object as a series of byte-range GETs that are written
+ * concurrently into their positions in the destination file.
+ * <p>
+ * A fixed number of workers claim ranges in order from a shared counter, so
+ * the ranges being fetched at any time stay close together and the leading
+ * ranges finish first. Each time the run of completely written leading ranges
+ * grows, the count is recorded in the download's persistable state so a
+ * paused download can resume after the last such range.
+ * <p>
+ * The progress listener of the request is shared by all the range requests,
+ * so it is only called by one of them at a time.
+ */
+@SdkInternalApi
+public class ParallelRangedDownload implements Callable<File> {
+    private static final Log LOG = LogFactory.getLog(ParallelRangedDownload.class);
+
+    /** Size of the buffer used to copy each range into the destination file. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AmazonS3 s3;
+    private final GetObjectRequest req;
+    private final File dstfile;
+    private final DownloadImpl download;
+    private final ExecutorService executor;
+    private final long rangeSize;
+    private final int concurrency;
+    private final long objectLength;
+    private final String eTag;
+    private final ProgressListener progressListener;
+    private final int rangeCount;
+    private final int resumedRanges;
+
+    /** The next range to be claimed by a worker. */
+    private final AtomicInteger nextRange;
+    private final List<Future<Void>> workers = new ArrayList<Future<Void>>();
+
+    /** Ranges completely written to the destination file; guarded by this. */
+    private final BitSet completedRanges = new BitSet();
+    /** Number of leading ranges completely written; guarded by this. */
+    private int completedPrefix;
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private volatile boolean stopped;
+
+    /**
+     * @param completedRanges
+     *            The number of leading ranges already written to the
+     *            destination file by a previous, paused download, or null.
+     */
+    public ParallelRangedDownload(AmazonS3 s3, GetObjectRequest req, File dstfile, DownloadImpl download,
+            ExecutorService executor, long rangeSize, int concurrency, Integer completedRanges) {
+        this.s3 = s3;
+        this.req = req;
+        this.dstfile = dstfile;
+        this.download = download;
+        this.executor = executor;
+        this.rangeSize = rangeSize;
+        this.concurrency = concurrency;
+        this.objectLength = download.getObjectMetadata().getContentLength();
+        this.eTag = download.getObjectMetadata().getETag();
+        this.progressListener = SerializedProgressListener.wrap(req.getGeneralProgressListener());
+        this.rangeCount = rangeCount(objectLength, rangeSize);
+        this.resumedRanges = completedRanges == null ? 0 : Math.min(completedRanges, rangeCount);
+        this.nextRange = new AtomicInteger(resumedRanges);
+        this.completedRanges.set(0, resumedRanges);
+        this.completedPrefix = resumedRanges;
+    }
+
+    /**
+     * Returns the number of ranges of the given size that cover the object.
+     */
+    private static int rangeCount(long objectLength, long rangeSize) {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("Download range size must be positive: " + rangeSize);
+        }
+        long count = objectLength / rangeSize + (objectLength % rangeSize == 0 ? 0 : 1);
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Download range size " + rangeSize
+                    + " is too small for an object of " + objectLength + " bytes");
+        }
+        return (int) count;
+    }
+
+    /**
+     * Prepares the destination file and starts downloading the remaining
+     * ranges. Cancelling the returned future stops all the range downloads.
+     *
+     * @return A future that completes once every range has been written.
+     */
+    public Future<File> start() {
+        openDestinationFile();
+
+        final int workerCount = Math.min(concurrency, rangeCount - resumedRanges);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(executor.submit(new RangeWorker()));
+        }
+
+        FutureTask<File> future = new FutureTask<File>(this) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                stop();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        executor.execute(future);
+        return future;
+    }
+
+    @Override
+    public File call() throws Exception {
+        try {
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+            closeDestinationFile();
+            download.setState(TransferState.Completed);
+            return dstfile;
+        } catch (InterruptedException e) {
+            // Paused or aborted
+            stop();
+            throw e;
+        } catch (CancellationException e) {
+            stop();
+            throw e;
+        } catch (Throwable t) {
+            stop();
+            // Downloads aren't allowed to move from canceled to failed
+            if (download.getState() != TransferState.Canceled) {
+                download.setState(TransferState.Failed);
+            }
+            final Throwable cause = t instanceof ExecutionException ? t.getCause() : t;
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            else
+                throw (Error) cause;
+        }
+    }
+
+    private void openDestinationFile() {
+        if (!FileLocks.lock(dstfile)) {
+            throw new FileLockException("Fail to lock " + dstfile);
+        }
+        try {
+            if (resumedRanges > 0 && dstfile.length() != objectLength) {
+                throw new SdkClientException(
+                        "File " + dstfile.getAbsolutePath() + " has been modified since last pause.");
+            }
+            raf = new RandomAccessFile(dstfile, "rw");
+            raf.setLength(objectLength);
+            channel = raf.getChannel();
+        } catch (IOException e) {
+            IOUtils.closeQuietly(raf, LOG);
+            throw new SdkClientException("Unable to prepare " + dstfile + " for download: " + e.getMessage(), e);
+        } finally {
+            FileLocks.unlock(dstfile);
+        }
+
+        if (resumedRanges > 0) {
+            download.getProgress().updateProgress(Math.min(resumedRanges * rangeSize, objectLength));
+        }
+    }
+
+    private void closeDestinationFile() {
+        try {
+            channel.force(false);
+            raf.close();
+        } catch (IOException e) {
+            throw new SdkClientException("Unable to store object contents to disk: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops claiming new ranges, cancels the running workers and releases the
+     * destination file.
+     */
+    private void stop() {
+        stopped = true;
+        for (Future<Void> worker : workers) {
+            worker.cancel(true);
+        }
+        IOUtils.closeQuietly(raf, LOG);
+    }
+
+    /**
+     * Records a completely written range and, if it extends the run of leading
+     * completed ranges, publishes the new resume point.
+     */
+    private synchronized void rangeCompleted(int range) {
+        completedRanges.set(range);
+        final int prefix = completedRanges.nextClearBit(completedPrefix);
+        if (prefix > completedPrefix) {
+            completedPrefix = prefix;
+            download.updatePersistableTransfer(prefix);
+        }
+    }
+
+    /**
+     * Downloads a single range, retrying once if the failure is retryable.
+     */
+    private void downloadRange(int range) {
+        final long start = range * rangeSize;
+        final long end = Math.min(start + rangeSize, objectLength) - 1;
+
+        GetObjectRequest rangeRequest = new GetObjectRequest(req.getBucketName(), req.getKey(),
+                req.getVersionId()).withUnmodifiedSinceConstraint(req.getUnmodifiedSinceConstraint())
+                        .withModifiedSinceConstraint(req.getModifiedSinceConstraint())
+                        .withResponseHeaders(req.getResponseHeaders()).withSSECustomerKey(req.getSSECustomerKey())
+                        .withGeneralProgressListener(progressListener);
+
+        rangeRequest.setMatchingETagConstraints(req.getMatchingETagConstraints());
+        rangeRequest.setNonmatchingETagConstraints(req.getNonmatchingETagConstraints());
+        rangeRequest.setRequesterPays(req.isRequesterPays());
+        // Make sure every range is read from the same version of the object
+        if (rangeRequest.getMatchingETagConstraints().isEmpty() && eTag != null) {
+            rangeRequest.withMatchingETagConstraint(eTag);
+        }
+        rangeRequest.setRange(start, end);
+
+        boolean hasRetried = false;
+        for (;;) {
+            try {
+                copyRange(rangeRequest, start, end);
+                return;
+            } catch (AmazonClientException ace) {
+                if (hasRetried || stopped || !ace.isRetryable()) {
+                    throw ace;
+                }
+                LOG.info("Retry the download of range " + start + "-" + end + " of object " + req.getKey()
+                        + " (bucket " + req.getBucketName() + ")", ace);
+                hasRetried = true;
+            }
+        }
+    }
+
+    private void copyRange(GetObjectRequest rangeRequest, long start, long end) {
+        S3Object s3Object = s3.getObject(rangeRequest);
+        if (s3Object == null) {
+            throw new SdkClientException(
+                    "There is no object in S3 satisfying this request. The getObject method returned null");
+        }
+
+        S3ObjectInputStream in = s3Object.getObjectContent();
+        boolean fullyRead = false;
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            long position = start;
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > -1) {
+                byteBuffer.clear();
+                byteBuffer.limit(bytesRead);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+            if (position != end + 1) {
+                throw new SdkClientException("Unable to download range " + start + "-" + end + ": expected "
+                        + (end - start + 1) + " bytes but received " + (position - start));
+            }
+            fullyRead = true;
+        } catch (IOException e) {
+            throw new SdkClientException("Unable to store object contents to disk: " + e.getMessage(), e);
+        } finally {
+            if (fullyRead) {
+                IOUtils.closeQuietly(in, LOG);
+            } else {
+                in.abort();
+            }
+        }
+    }
+
+    /**
+     * Claims and downloads ranges in order until none are left.
+     */
+    private class RangeWorker implements Callable<Void> {
+        @Override
+        public Void call() throws Exception {
+            try {
+                int range;
+                while (!stopped && (range = nextRange.getAndIncrement()) < rangeCount) {
+                    downloadRange(range);
+                    rangeCompleted(range);
+                }
+                return null;
+            } catch (Exception e) {
+                // Let the other workers finish their current range and quit
+                stopped = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Passes progress events on to a listener one at a time, since the range
+     * requests sharing the listener report their progress concurrently.
+     */
+    private static final class SerializedProgressListener implements ProgressListener, DeliveryMode {
+        private final ProgressListener listener;
+        private final boolean syncCallSafe;
+
+        private SerializedProgressListener(ProgressListener listener) {
+            this.listener = listener;
+            this.syncCallSafe = DeliveryMode.Check.isSyncCallSafe(listener);
+        }
+
+        static ProgressListener wrap(ProgressListener listener) {
+            if (listener == null || listener == ProgressListener.NOOP) {
+                return listener;
+            }
+            return new SerializedProgressListener(listener);
+        }
+
+        @Override
+        public synchronized void progressChanged(ProgressEvent progressEvent) {
+            listener.progressChanged(progressEvent);
+        }
+
+        @Override
+        public boolean isSyncCallSafe() {
+            return syncCallSafe;
+        }
+    }
+}
@@ -210,4 +210,32 @@ public class TransferManagerUtils {
         }
         return true;
     }
+
+    /**
+     * Returns true if the specified download request can be split into
+     * byte-range GETs that are written concurrently into the destination file.
+     *
+     * @param s3
+     *            The Amazon s3 client.
+     * @param getObjectRequest
+     *            The request to check.
+     * @param objectLength
+     *            The length of the object in bytes.
+     * @param rangeSize
+     *            The configured size of each range; zero disables ranged
+     *            downloads.
+     *
+     * @return True if this request can use parallel ranged downloads.
+     */
+    public static boolean isDownloadRangeable(final AmazonS3 s3, final GetObjectRequest getObjectRequest,
+            long objectLength, long rangeSize) {
+        ValidationUtils.assertNotNull(s3, "S3 client");
+        ValidationUtils.assertNotNull(getObjectRequest, "GetObjectRequest");
+
+        if (s3 instanceof AmazonS3Encryption || getObjectRequest.getRange() != null
+                || getObjectRequest.getPartNumber() != null) {
+            return false;
+        }
+        return rangeSize > 0 && objectLength > rangeSize;
+    }
 }
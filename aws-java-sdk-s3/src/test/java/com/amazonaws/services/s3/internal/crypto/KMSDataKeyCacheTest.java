@@ -0,0 +1,236 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.services.kms.AbstractAWSKMS;
+import com.amazonaws.services.kms.model.DecryptRequest;
+import com.amazonaws.services.kms.model.DecryptResult;
+import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
+import com.amazonaws.services.kms.model.GenerateDataKeyResult;
+import com.amazonaws.services.s3.model.KMSDataKeyCacheConfiguration;
+import com.amazonaws.util.BinaryUtils;
+
+public class KMSDataKeyCacheTest {
+
+    private final FakeKMS kms = new FakeKMS();
+    private final TestCache cache = new TestCache(new KMSDataKeyCacheConfiguration()
+            .withMaxAgeMillis(1000)
+            .withMaxMessagesPerKey(3)
+            .withMaxBytesPerKey(100));
+
+    @Test
+    public void generateDataKey_HitReusesKey() {
+        GenerateDataKeyResult first = cache.generateDataKey(kms, keyRequest("cmk"), 10);
+        GenerateDataKeyResult second = cache.generateDataKey(kms, keyRequest("cmk"), 10);
+        assertEquals(1, kms.generateCount.get());
+        assertArrayEquals(BinaryUtils.copyAllBytesFrom(first.getPlaintext()),
+                BinaryUtils.copyAllBytesFrom(second.getPlaintext()));
+        assertArrayEquals(BinaryUtils.copyAllBytesFrom(first.getCiphertextBlob()),
+                BinaryUtils.copyAllBytesFrom(second.getCiphertextBlob()));
+    }
+
+    @Test
+    public void generateDataKey_KeyedByMasterKeyAndContext() {
+        cache.generateDataKey(kms, keyRequest("cmk"), 10);
+        cache.generateDataKey(kms, keyRequest("other"), 10);
+        cache.generateDataKey(kms, keyRequest("cmk").addEncryptionContextEntry("a", "b"), 10);
+        assertEquals(3, kms.generateCount.get());
+        cache.generateDataKey(kms, keyRequest("cmk").addEncryptionContextEntry("a", "b"), 10);
+        assertEquals(3, kms.generateCount.get());
+    }
+
+    @Test
+    public void generateDataKey_ExpiredKeyIsReplaced() {
+        cache.generateDataKey(kms, keyRequest("cmk"), 10);
+        cache.nanos += TimeUnit.MILLISECONDS.toNanos(999);
+        cache.generateDataKey(kms, keyRequest("cmk"), 10);
+        assertEquals(1, kms.generateCount.get());
+        cache.nanos += TimeUnit.MILLISECONDS.toNanos(1);
+        cache.generateDataKey(kms, keyRequest("cmk"), 10);
+        assertEquals(2, kms.generateCount.get());
+    }
+
+    @Test
+    public void generateDataKey_KeyReplacedAfterMaxMessages() {
+        for (int i = 0; i < 3; i++) {
+            cache.generateDataKey(kms, keyRequest("cmk"), 1);
+        }
+        assertEquals(1, kms.generateCount.get());
+        cache.generateDataKey(kms, keyRequest("cmk"), 1);
+        assertEquals(2, kms.generateCount.get());
+    }
+
+    @Test
+    public void generateDataKey_KeyReplacedAfterMaxBytes() {
+        cache.generateDataKey(kms, keyRequest("cmk"), 60);
+        cache.generateDataKey(kms, keyRequest("cmk"), 40);
+        assertEquals(1, kms.generateCount.get());
+        cache.generateDataKey(kms, keyRequest("cmk"), 1);
+        assertEquals(2, kms.generateCount.get());
+    }
+
+    @Test
+    public void generateDataKey_UnknownOrOversizedLengthBypassesCache() {
+        cache.generateDataKey(kms, keyRequest("cmk"), -1);
+        cache.generateDataKey(kms, keyRequest("cmk"), 101);
+        cache.generateDataKey(kms, keyRequest("cmk"), 101);
+        assertEquals(3, kms.generateCount.get());
+    }
+
+    @Test
+    public void decrypt_HitAndExpiry() {
+        byte[] first = cache.decrypt(kms, decryptRequest(1));
+        assertArrayEquals(first, cache.decrypt(kms, decryptRequest(1)));
+        assertEquals(1, kms.decryptCount.get());
+        cache.decrypt(kms, decryptRequest(2));
+        assertEquals(2, kms.decryptCount.get());
+        cache.nanos += TimeUnit.SECONDS.toNanos(1);
+        assertArrayEquals(first, cache.decrypt(kms, decryptRequest(1)));
+        assertEquals(3, kms.decryptCount.get());
+    }
+
+    @Test
+    public void concurrentMisses_AreCoalesced() throws Exception {
+        final int threads = 8;
+        final TestCache cache = new TestCache(new KMSDataKeyCacheConfiguration());
+        kms.blocked = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<byte[]>> keys = new ArrayList<Future<byte[]>>();
+            List<Future<byte[]>> plaintexts = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < threads / 2; i++) {
+                keys.add(executor.submit(new Callable<byte[]>() {
+                    public byte[] call() {
+                        return BinaryUtils.copyAllBytesFrom(cache.generateDataKey(kms,
+                                keyRequest("cmk"), 0).getPlaintext());
+                    }
+                }));
+                plaintexts.add(executor.submit(new Callable<byte[]>() {
+                    public byte[] call() {
+                        return cache.decrypt(kms, decryptRequest(7));
+                    }
+                }));
+            }
+            // Give the other threads time to miss and wait for the first calls
+            Thread.sleep(200);
+            kms.blocked.countDown();
+            for (int i = 0; i < threads / 2; i++) {
+                assertArrayEquals(keys.get(0).get(), keys.get(i).get());
+                assertArrayEquals(plaintexts.get(0).get(), plaintexts.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, kms.generateCount.get());
+        assertEquals(1, kms.decryptCount.get());
+    }
+
+    @Test
+    public void failedLoad_IsNotCached() {
+        kms.fail = true;
+        try {
+            cache.decrypt(kms, decryptRequest(1));
+            fail("Expected exception");
+        } catch (IllegalStateException expected) {
+        }
+        kms.fail = false;
+        cache.decrypt(kms, decryptRequest(1));
+        assertEquals(2, kms.decryptCount.get());
+    }
+
+    private static GenerateDataKeyRequest keyRequest(String keyId) {
+        return new GenerateDataKeyRequest().withKeyId(keyId).withKeySpec("AES_256")
+                .addEncryptionContextEntry("kms_cmk_id", keyId);
+    }
+
+    private static DecryptRequest decryptRequest(int blob) {
+        return new DecryptRequest().withCiphertextBlob(ByteBuffer.wrap(new byte[] {(byte) blob}));
+    }
+
+    /**
+     * A cache whose clock is set by the tests.
+     */
+    private static class TestCache extends KMSDataKeyCache {
+        volatile long nanos;
+
+        TestCache(KMSDataKeyCacheConfiguration config) {
+            super(config);
+        }
+
+        @Override
+        long nanoTime() {
+            return nanos;
+        }
+    }
+
+    /**
+     * A KMS that hands out distinct keys and counts its calls.
+     */
+    private static class FakeKMS extends AbstractAWSKMS {
+        final AtomicInteger generateCount = new AtomicInteger();
+        final AtomicInteger decryptCount = new AtomicInteger();
+        volatile CountDownLatch blocked;
+        volatile boolean fail;
+
+        @Override
+        public GenerateDataKeyResult generateDataKey(GenerateDataKeyRequest request) {
+            int n = generateCount.incrementAndGet();
+            await();
+            return new GenerateDataKeyResult()
+                    .withKeyId(request.getKeyId())
+                    .withPlaintext(ByteBuffer.wrap(new byte[] {(byte) n, 1}))
+                    .withCiphertextBlob(ByteBuffer.wrap(new byte[] {(byte) n, 2}));
+        }
+
+        @Override
+        public DecryptResult decrypt(DecryptRequest request) {
+            decryptCount.incrementAndGet();
+            await();
+            if (fail) {
+                throw new IllegalStateException("KMS unavailable");
+            }
+            byte[] blob = BinaryUtils.copyAllBytesFrom(request.getCiphertextBlob());
+            return new DecryptResult().withPlaintext(ByteBuffer.wrap(new byte[] {blob[0], 3}));
+        }
+
+        private void await() {
+            CountDownLatch latch = blocked;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
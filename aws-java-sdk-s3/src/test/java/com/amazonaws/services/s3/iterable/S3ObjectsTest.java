@@ -0,0 +1,321 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.ListNextBatchOfObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.StringUtils;
+
+public class S3ObjectsTest {
+
+    /** Keys with characters on both sides of the surrogates in UTF-16 order. */
+    private static final List<String> UNICODE_KEYS = Arrays.asList(
+            "k", "k\uD7FF", "k\uE000", "k\uE000x", "k\uFFFD", "k\uD83D\uDE00", "k\uD83D\uDE00x",
+            "k\uDBFF\uDFFF", "l");
+
+    private final FakeS3 s3 = new FakeS3();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void splitPoints_ListEachKeyOnce() {
+        List<String> keys = numberedKeys(50);
+        s3.addKeys(keys);
+
+        List<String> listed = listAll(S3Objects.inBucket(s3, "bucket").withBatchSize(4), new ParallelListingOptions()
+                .withParallelism(3)
+                .withSplitPoints("key-30", "key-10", "key-20"));
+
+        assertListedOnce(keys, listed);
+        assertEquals(new HashSet<String>(Arrays.asList(null, "key-10", "key-20", "key-30")), s3.startMarkers);
+    }
+
+    @Test
+    public void splitPointsNearSupplementaryCharacters_ListEachKeyOnce() {
+        s3.addKeys(UNICODE_KEYS);
+        String[][] splitPointSets = {
+                { "k\uE000" },
+                { "k\uD83D\uDE00" },
+                { "k\uE000", "k\uD83D\uDE00" },
+                { "k\uFFFD", "k\uD83D\uDE00x", "k\uDBFF\uDFFF" },
+        };
+        for (String[] splitPoints : splitPointSets) {
+            for (int batchSize : new int[] { 1, 2, 10 }) {
+                List<String> listed = listAll(S3Objects.inBucket(s3, "bucket").withBatchSize(batchSize),
+                        new ParallelListingOptions().withSplitPoints(splitPoints));
+                assertListedOnce(UNICODE_KEYS, listed);
+            }
+        }
+    }
+
+    @Test
+    public void probe_ListsEachCommonPrefixOnce() {
+        List<String> keys = Arrays.asList("a/1", "a/2", "a/3", "b/1", "b/c/1", "c", "d/1");
+        s3.addKeys(keys);
+
+        List<String> listed = listAll(S3Objects.inBucket(s3, "bucket").withBatchSize(2), new ParallelListingOptions());
+
+        assertListedOnce(keys, listed);
+    }
+
+    @Test
+    public void unconsumedPages_BoundListRequests() throws InterruptedException {
+        List<String> keys = numberedKeys(40);
+        s3.addKeys(keys);
+
+        ParallelListingIterator<S3ObjectSummary> iterator = S3Objects.inBucket(s3, "bucket")
+                .withBatchSize(1)
+                .parallelIterator(new ParallelListingOptions()
+                        .withExecutorService(executor)
+                        .withParallelism(4)
+                        .withMaxBufferedPages(2)
+                        .withSplitPoints("key-05", "key-10", "key-15", "key-20", "key-25", "key-30", "key-35"));
+        try {
+            awaitListCount(2);
+            Thread.sleep(200);
+            assertEquals(2, s3.listCount.get());
+
+            List<String> listed = new ArrayList<String>();
+            while (iterator.hasNext()) {
+                listed.add(iterator.next().getKey());
+            }
+            assertListedOnce(keys, listed);
+            assertTrue(s3.maxConcurrentLists.get() <= 2);
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void close_StopsListing() throws InterruptedException {
+        s3.addKeys(numberedKeys(20));
+
+        ParallelListingIterator<S3ObjectSummary> iterator = S3Objects.inBucket(s3, "bucket")
+                .withBatchSize(1)
+                .parallelIterator(new ParallelListingOptions()
+                        .withExecutorService(executor)
+                        .withParallelism(1)
+                        .withMaxBufferedPages(1)
+                        .withSplitPoints("key-10"));
+        assertEquals("key-00", iterator.next().getKey());
+        iterator.close();
+        awaitNoConcurrentLists();
+        int listCount = s3.listCount.get();
+        Thread.sleep(200);
+
+        assertFalse(iterator.hasNext());
+        assertEquals(listCount, s3.listCount.get());
+        assertTrue(listCount < 20);
+        assertFalse(executor.isShutdown());
+    }
+
+    @Test
+    public void failedListing_IsThrownByIterator() {
+        s3.addKeys(numberedKeys(20));
+        s3.failingMarker = "key-10";
+
+        ParallelListingIterator<S3ObjectSummary> iterator = S3Objects.inBucket(s3, "bucket")
+                .withBatchSize(2)
+                .parallelIterator(new ParallelListingOptions().withSplitPoints("key-10"));
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail("Expected the listing to fail");
+        } catch (AmazonServiceException expected) {
+            assertEquals("Listing failed", expected.getErrorMessage());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void keyOrder_IsUtf8ByteOrder() {
+        for (String a : UNICODE_KEYS) {
+            for (String b : UNICODE_KEYS) {
+                assertEquals(a + " vs " + b, Integer.signum(UTF8_ORDER.compare(a, b)),
+                        Integer.signum(ParallelListingIterator.KEY_ORDER.compare(a, b)));
+            }
+        }
+    }
+
+    private static List<String> numberedKeys(int count) {
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            keys.add(String.format("key-%02d", i));
+        }
+        return keys;
+    }
+
+    private static List<String> listAll(S3Objects objects, ParallelListingOptions options) {
+        List<String> listed = new ArrayList<String>();
+        ParallelListingIterator<S3ObjectSummary> iterator = objects.parallelIterator(options);
+        try {
+            while (iterator.hasNext()) {
+                listed.add(iterator.next().getKey());
+            }
+        } finally {
+            iterator.close();
+        }
+        return listed;
+    }
+
+    private static void assertListedOnce(List<String> keys, List<String> listed) {
+        List<String> sorted = new ArrayList<String>(listed);
+        Collections.sort(sorted, UTF8_ORDER);
+        List<String> expected = new ArrayList<String>(keys);
+        Collections.sort(expected, UTF8_ORDER);
+        assertEquals(expected, sorted);
+    }
+
+    private void awaitListCount(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && s3.listCount.get() < count; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitNoConcurrentLists() throws InterruptedException {
+        for (int i = 0; i < 500 && s3.concurrentLists.get() > 0; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    /** Orders keys by their UTF-8 bytes, as S3 does. */
+    private static final Comparator<String> UTF8_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            byte[] x = a.getBytes(StringUtils.UTF8);
+            byte[] y = b.getBytes(StringUtils.UTF8);
+            for (int i = 0; i < Math.min(x.length, y.length); i++) {
+                if (x[i] != y[i]) {
+                    return (x[i] & 0xff) - (y[i] & 0xff);
+                }
+            }
+            return x.length - y.length;
+        }
+    };
+
+    /**
+     * Lists the keys added to it in UTF-8 byte order, as S3 would.
+     */
+    private static class FakeS3 extends AbstractAmazonS3 {
+        private final TreeSet<String> keys = new TreeSet<String>(UTF8_ORDER);
+        /** The markers of the requests listing the first page of a partition. */
+        final Set<String> startMarkers = Collections.synchronizedSet(new HashSet<String>());
+        final AtomicInteger listCount = new AtomicInteger();
+        final AtomicInteger concurrentLists = new AtomicInteger();
+        final AtomicInteger maxConcurrentLists = new AtomicInteger();
+        volatile String failingMarker;
+
+        void addKeys(List<String> keys) {
+            this.keys.addAll(keys);
+        }
+
+        @Override
+        public ObjectListing listObjects(ListObjectsRequest req) {
+            startMarkers.add(req.getMarker());
+            return list(req);
+        }
+
+        @Override
+        public ObjectListing listNextBatchOfObjects(ListNextBatchOfObjectsRequest req) {
+            return list(req.toListObjectsRequest());
+        }
+
+        private ObjectListing list(ListObjectsRequest req) {
+            listCount.incrementAndGet();
+            int concurrent = concurrentLists.incrementAndGet();
+            try {
+                int max;
+                while ((max = maxConcurrentLists.get()) < concurrent
+                        && !maxConcurrentLists.compareAndSet(max, concurrent)) {
+                }
+                if (req.getMarker() != null && req.getMarker().equals(failingMarker)) {
+                    AmazonServiceException e = new AmazonServiceException("Listing failed");
+                    e.setStatusCode(500);
+                    throw e;
+                }
+                return page(req);
+            } finally {
+                concurrentLists.decrementAndGet();
+            }
+        }
+
+        private ObjectListing page(ListObjectsRequest req) {
+            String prefix = req.getPrefix() == null ? "" : req.getPrefix();
+            String delimiter = req.getDelimiter();
+            ObjectListing listing = new ObjectListing();
+            listing.setBucketName(req.getBucketName());
+            listing.setPrefix(req.getPrefix());
+            listing.setMarker(req.getMarker());
+            listing.setDelimiter(delimiter);
+            listing.setMaxKeys(req.getMaxKeys());
+            String last = null;
+            for (String key : req.getMarker() == null ? keys : keys.tailSet(req.getMarker(), false)) {
+                if (!key.startsWith(prefix)) {
+                    continue;
+                }
+                int end = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+                String commonPrefix = end < 0 ? null : key.substring(0, end + delimiter.length());
+                if (commonPrefix != null && listing.getCommonPrefixes().contains(commonPrefix)) {
+                    last = key;
+                    continue;
+                }
+                if (listing.getObjectSummaries().size() + listing.getCommonPrefixes().size() == req.getMaxKeys()) {
+                    listing.setTruncated(true);
+                    listing.setNextMarker(last);
+                    break;
+                }
+                if (commonPrefix != null) {
+                    listing.getCommonPrefixes().add(commonPrefix);
+                } else {
+                    S3ObjectSummary summary = new S3ObjectSummary();
+                    summary.setBucketName(req.getBucketName());
+                    summary.setKey(key);
+                    listing.getObjectSummaries().add(summary);
+                }
+                last = key;
+            }
+            return listing;
+        }
+    }
+}
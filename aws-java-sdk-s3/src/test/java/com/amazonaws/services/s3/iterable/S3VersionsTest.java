@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.amazonaws.services.s3.model.VersionListing;
+
+public class S3VersionsTest {
+
+    @Test
+    public void parallelIteratorForKey_StopsListingPastTheKey() {
+        FakeS3 s3 = new FakeS3();
+        for (int i = 0; i < 3; i++) {
+            s3.addVersion("photo", "v" + i);
+        }
+        for (int i = 0; i < 20; i++) {
+            s3.addVersion("photo/" + i, "v0");
+        }
+
+        ParallelListingIterator<S3VersionSummary> iterator = S3Versions
+                .forKey(s3, "bucket", "photo")
+                .withBatchSize(2)
+                .parallelIterator(new ParallelListingOptions());
+        List<String> versions = new ArrayList<String>();
+        try {
+            while (iterator.hasNext()) {
+                S3VersionSummary summary = iterator.next();
+                assertEquals("photo", summary.getKey());
+                versions.add(summary.getVersionId());
+            }
+        } finally {
+            iterator.close();
+        }
+
+        assertEquals(3, versions.size());
+        // The second page starts with the first key past "photo"
+        assertEquals(2, s3.listCount);
+    }
+
+    /**
+     * Lists the versions added to it, in order, as S3 would.
+     */
+    private static class FakeS3 extends AbstractAmazonS3 {
+        private final List<S3VersionSummary> versions = new ArrayList<S3VersionSummary>();
+        private volatile int listCount;
+
+        void addVersion(String key, String versionId) {
+            S3VersionSummary summary = new S3VersionSummary();
+            summary.setBucketName("bucket");
+            summary.setKey(key);
+            summary.setVersionId(versionId);
+            versions.add(summary);
+        }
+
+        @Override
+        public VersionListing listVersions(ListVersionsRequest req) {
+            return list(req.getPrefix(), 0, req.getMaxResults());
+        }
+
+        @Override
+        public VersionListing listNextBatchOfVersions(VersionListing previous) {
+            return list(previous.getPrefix(), Integer.parseInt(previous.getNextVersionIdMarker()),
+                    previous.getMaxKeys());
+        }
+
+        private synchronized VersionListing list(String prefix, int start, int maxResults) {
+            listCount++;
+            VersionListing listing = new VersionListing();
+            listing.setBucketName("bucket");
+            listing.setPrefix(prefix);
+            listing.setMaxKeys(maxResults);
+            int i = start;
+            for (; i < versions.size() && listing.getVersionSummaries().size() < maxResults; i++) {
+                if (versions.get(i).getKey().startsWith(prefix)) {
+                    listing.getVersionSummaries().add(versions.get(i));
+                }
+            }
+            if (i < versions.size()) {
+                listing.setTruncated(true);
+                listing.setNextKeyMarker(versions.get(i - 1).getKey());
+                listing.setNextVersionIdMarker(Integer.toString(i));
+            }
+            return listing;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model.transform;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+public class CarriageReturnEscapingReaderTest {
+
+    @Test
+    public void escapesCarriageReturns() throws IOException {
+        assertEquals("a&#013;b&#013;&#013;c&#013;",
+                readAll(new CarriageReturnEscapingReader(new StringReader("a\rb\r\rc\r")), 100));
+    }
+
+    @Test
+    public void leavesOtherCharactersAlone() throws IOException {
+        assertEquals("<Key>a\nb\tc</Key>",
+                readAll(new CarriageReturnEscapingReader(new StringReader("<Key>a\nb\tc</Key>")), 100));
+        assertEquals("", readAll(new CarriageReturnEscapingReader(new StringReader("")), 100));
+    }
+
+    @Test
+    public void crlfSplitAcrossUnderlyingReads() throws IOException {
+        Reader in = new ChunkedReader("<Key>a\r", "\nb\r", "\n</Key>");
+        assertEquals("<Key>a&#013;\nb&#013;\n</Key>",
+                readAll(new CarriageReturnEscapingReader(in), 100));
+    }
+
+    @Test
+    public void escapeSplitAcrossReads() throws IOException {
+        for (int len = 1; len <= 7; len++) {
+            assertEquals("len " + len, "x&#013;\ny&#013;",
+                    readAll(new CarriageReturnEscapingReader(new StringReader("x\r\ny\r")), len));
+        }
+    }
+
+    @Test
+    public void singleCharacterReads() throws IOException {
+        Reader reader = new CarriageReturnEscapingReader(new ChunkedReader("a\r", "\n"));
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            sb.append((char) c);
+        }
+        assertEquals("a&#013;\n", sb.toString());
+    }
+
+    @Test
+    public void skipCountsEscapedCharacters() throws IOException {
+        Reader reader = new CarriageReturnEscapingReader(new StringReader("a\rb"));
+        assertEquals(3, reader.skip(3));
+        assertEquals("013;b", readAll(reader, 100));
+    }
+
+    @Test
+    public void longDocumentAcrossBuffers() throws IOException {
+        StringBuilder in = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            in.append("key").append(i).append("\r\n");
+            expected.append("key").append(i).append("&#013;\n");
+        }
+        assertEquals(expected.toString(), readAll(
+                new CarriageReturnEscapingReader(new StringReader(in.toString())), 1000));
+    }
+
+    private static String readAll(Reader reader, int len) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[len];
+        int read;
+        while ((read = reader.read(buf, 0, len)) != -1) {
+            sb.append(buf, 0, read);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns each of the given chunks from a separate read.
+     */
+    private static class ChunkedReader extends Reader {
+        private final String[] chunks;
+        private int next;
+
+        ChunkedReader(String... chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (next == chunks.length) {
+                return -1;
+            }
+            String chunk = chunks[next++];
+            chunk.getChars(0, chunk.length(), cbuf, off);
+            return chunk.length();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.util.StringUtils;
+
+public class XmlResponsesSaxParserTest {
+
+    private static final String LIST_BUCKET_RESPONSE =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+            + "<Name>bucket</Name><Prefix></Prefix><Marker></Marker><MaxKeys>1000</MaxKeys>"
+            + "<IsTruncated>false</IsTruncated>"
+            + "<Contents><Key>line\r\nbreak</Key><LastModified>2016-10-18T12:00:00.000Z</LastModified>"
+            + "<ETag>&quot;etag&quot;</ETag><Size>3</Size><StorageClass>STANDARD</StorageClass></Contents>"
+            + "</ListBucketResult>";
+
+    @Test
+    public void listResponse_KeepsCarriageReturnsInKeys() throws IOException {
+        XmlResponsesSaxParser parser = new XmlResponsesSaxParser();
+        assertEquals("line\r\nbreak", parser.parseListBucketObjectsResponse(response(), false)
+                .getObjectListing().getObjectSummaries().get(0).getKey());
+    }
+
+    @Test
+    public void listResponse_UsesOverriddenSanitizeXmlDocument() throws IOException {
+        final boolean[] called = new boolean[1];
+        XmlResponsesSaxParser parser = new XmlResponsesSaxParser() {
+            @Override
+            protected boolean isXmlDocumentSanitizedInMemory() {
+                return true;
+            }
+
+            @Override
+            protected InputStream sanitizeXmlDocument(DefaultHandler handler, InputStream inputStream)
+                    throws IOException {
+                called[0] = true;
+                return super.sanitizeXmlDocument(handler, inputStream);
+            }
+        };
+        assertEquals("line\r\nbreak", parser.parseListBucketObjectsResponse(response(), false)
+                .getObjectListing().getObjectSummaries().get(0).getKey());
+        assertTrue(called[0]);
+    }
+
+    @Test
+    public void listResponse_ClosesInputStream() throws IOException {
+        CloseTrackingInputStream response = new CloseTrackingInputStream(LIST_BUCKET_RESPONSE);
+        new XmlResponsesSaxParser().parseListBucketObjectsResponse(response, false);
+        assertTrue(response.closed);
+    }
+
+    @Test
+    public void malformedListResponse_ClosesInputStream() throws IOException {
+        CloseTrackingInputStream response = new CloseTrackingInputStream("<ListBucketResult><Name>");
+        try {
+            new XmlResponsesSaxParser().parseListBucketObjectsResponse(response, false);
+            fail("Expected SdkClientException");
+        } catch (SdkClientException expected) {
+        }
+        assertTrue(response.closed);
+    }
+
+    private static InputStream response() {
+        return new ByteArrayInputStream(LIST_BUCKET_RESPONSE.getBytes(StringUtils.UTF8));
+    }
+
+    private static final class CloseTrackingInputStream extends ByteArrayInputStream {
+        private boolean closed;
+
+        CloseTrackingInputStream(String document) {
+            super(document.getBytes(StringUtils.UTF8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
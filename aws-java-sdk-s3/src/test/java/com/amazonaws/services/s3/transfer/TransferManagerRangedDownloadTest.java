@@ -0,0 +1,364 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.HttpGet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.internal.S3SyncProgressListener;
+import com.amazonaws.util.IOUtils;
+
+public class TransferManagerRangedDownloadTest {
+
+    private static final int MB = 1024 * 1024;
+    private static final long RANGE_SIZE = 5 * MB;
+    private static final String ETAG = "etag";
+    private static final Date LAST_MODIFIED = new Date(1000000L);
+
+    private final byte[] object = new byte[12 * MB + 123];
+    private final FakeS3 s3 = new FakeS3();
+    private TransferManager tm;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        new Random(42).nextBytes(object);
+        file = File.createTempFile("download", ".bin");
+        tm = new TransferManager(s3, Executors.newFixedThreadPool(10), true);
+        tm.getConfiguration().setDownloadRangeSize(RANGE_SIZE);
+        tm.getConfiguration().setDownloadRangeConcurrency(3);
+    }
+
+    @After
+    public void tearDown() {
+        tm.shutdownNow(false);
+        file.delete();
+    }
+
+    @Test
+    public void rangedDownload_SplitsObjectIntoRangesOfTheSameVersion() throws Exception {
+        ConcurrencyCheckingListener listener = new ConcurrencyCheckingListener();
+        PersistableCapturingListener persistable = new PersistableCapturingListener();
+
+        GetObjectRequest request = new GetObjectRequest("bucket", "key").withGeneralProgressListener(listener);
+        tm.download(request, file, persistable).waitForCompletion();
+
+        assertArrayEquals(object, readFile());
+        assertEquals(ranges(range(0), range(1), range(2)), s3.sortedRanges());
+        for (GetObjectRequest rangeRequest : s3.requests) {
+            assertEquals(Collections.singletonList(ETAG), rangeRequest.getMatchingETagConstraints());
+        }
+        assertEquals(3, listener.events.get());
+        assertFalse("Progress listener called concurrently", listener.overlapped);
+        assertEquals(Integer.valueOf(3), persistable.last.getLastFullyDownloadedPartNumber());
+        assertEquals(Long.valueOf(RANGE_SIZE), persistable.last.getDownloadRangeSize());
+    }
+
+    @Test
+    public void rangedDownload_RetriesAFailedRangeOnce() throws Exception {
+        s3.failures.put(range(1)[0], 1);
+
+        tm.download(new GetObjectRequest("bucket", "key"), file).waitForCompletion();
+
+        assertArrayEquals(object, readFile());
+        assertEquals(ranges(range(0), range(1), range(1), range(2)), s3.sortedRanges());
+    }
+
+    @Test
+    public void rangedDownload_RangeFailingAgain_FailsDownloadAndKeepsResumePoint() throws Exception {
+        tm.getConfiguration().setDownloadRangeConcurrency(1);
+        s3.failures.put(range(1)[0], 2);
+        PersistableCapturingListener persistable = new PersistableCapturingListener();
+
+        Download download = tm.download(new GetObjectRequest("bucket", "key"), file, persistable);
+        try {
+            download.waitForCompletion();
+            fail("Expected the download to fail");
+        } catch (AmazonServiceException expected) {
+            assertEquals(500, expected.getStatusCode());
+        }
+
+        assertEquals(TransferState.Failed, download.getState());
+        // The ranges after the failed one are not claimed once it fails
+        assertEquals(ranges(range(0), range(1), range(1)), s3.sortedRanges());
+        assertEquals(Integer.valueOf(1), persistable.last.getLastFullyDownloadedPartNumber());
+        assertEquals(Long.valueOf(RANGE_SIZE), persistable.last.getDownloadRangeSize());
+    }
+
+    @Test
+    public void resumedRangedDownload_OnlyDownloadsRangesAfterTheResumePoint() throws Exception {
+        writeFirstRangeOnly();
+        // Resumes with the range size it was paused with, whatever the configuration
+        tm.getConfiguration().setDownloadRangeSize(0);
+
+        tm.resumeDownload(new PersistableDownload("bucket", "key", null, null, null, false, file.getPath(), 1,
+                LAST_MODIFIED.getTime(), RANGE_SIZE)).waitForCompletion();
+
+        assertArrayEquals(object, readFile());
+        assertEquals(ranges(range(1), range(2)), s3.sortedRanges());
+    }
+
+    @Test
+    public void resumedRangedDownload_FileModifiedSincePause_Fails() throws Exception {
+        writeFirstRangeOnly();
+        new RandomAccessFile(file, "rw").setLength(RANGE_SIZE);
+
+        Download download = tm.resumeDownload(new PersistableDownload("bucket", "key", null, null, null, false,
+                file.getPath(), 1, LAST_MODIFIED.getTime(), RANGE_SIZE));
+        try {
+            download.waitForCompletion();
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+        }
+        assertEquals(0, s3.requests.size());
+    }
+
+    @Test
+    public void resumedRangedDownload_RangesTooSmallToCount_Fails() throws Exception {
+        s3.contentLength = 3L * Integer.MAX_VALUE;
+
+        Download download = tm.resumeDownload(new PersistableDownload("bucket", "key", null, null, null, false,
+                file.getPath(), 1, LAST_MODIFIED.getTime(), 1L));
+        try {
+            download.waitForCompletion();
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+            assertTrue(expected.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(0, s3.requests.size());
+    }
+
+    @Test
+    public void rangeSizeZero_DownloadsInOneRequest() throws Exception {
+        tm.getConfiguration().setDownloadRangeSize(0);
+        PersistableCapturingListener persistable = new PersistableCapturingListener();
+
+        tm.download(new GetObjectRequest("bucket", "key"), file, persistable).waitForCompletion();
+
+        assertArrayEquals(object, readFile());
+        assertEquals(ranges(new long[] {0, object.length - 1}), s3.sortedRanges());
+        assertNull(persistable.last.getDownloadRangeSize());
+    }
+
+    @Test
+    public void objectNoLargerThanOneRange_DownloadsInOneRequest() throws Exception {
+        tm.getConfiguration().setDownloadRangeSize(object.length);
+
+        tm.download(new GetObjectRequest("bucket", "key"), file).waitForCompletion();
+
+        assertArrayEquals(object, readFile());
+        assertEquals(ranges(new long[] {0, object.length - 1}), s3.sortedRanges());
+    }
+
+    @Test
+    public void parallelDownloadsDisabled_DownloadsInOneRequest() throws Exception {
+        tm.getConfiguration().setDisableParallelDownloads(true);
+
+        tm.download(new GetObjectRequest("bucket", "key"), file).waitForCompletion();
+
+        assertEquals(1, s3.requests.size());
+    }
+
+    @Test
+    public void requestWithItsOwnRange_DownloadsInOneRequest() throws Exception {
+        tm.download(new GetObjectRequest("bucket", "key").withRange(100, 11 * MB), file).waitForCompletion();
+
+        assertEquals(ranges(new long[] {100, 11 * MB}), s3.sortedRanges());
+        assertEquals(11 * MB - 100 + 1, file.length());
+    }
+
+    @Test
+    public void rangeSize_MustBeZeroOrAtLeastFiveMegabytes() {
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setDownloadRangeSize(0);
+        configuration.setDownloadRangeSize(RANGE_SIZE);
+        for (long rangeSize : new long[] {-1, 1, RANGE_SIZE - 1}) {
+            try {
+                configuration.setDownloadRangeSize(rangeSize);
+                fail("Expected range size " + rangeSize + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        assertEquals(RANGE_SIZE, configuration.getDownloadRangeSize());
+    }
+
+    private void writeFirstRangeOnly() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(object.length);
+            raf.write(object, 0, (int) RANGE_SIZE);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private byte[] readFile() throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private long[] range(int index) {
+        long start = index * RANGE_SIZE;
+        return new long[] {start, Math.min(start + RANGE_SIZE, object.length) - 1};
+    }
+
+    private static List<String> ranges(long[]... ranges) {
+        List<String> list = new ArrayList<String>();
+        for (long[] range : ranges) {
+            list.add(range[0] + "-" + range[1]);
+        }
+        return list;
+    }
+
+    /**
+     * Serves ranges of the object, failing the requests for the ranges with
+     * failures left, and reports each range received to the progress listener
+     * of its request.
+     */
+    private class FakeS3 extends AbstractAmazonS3 {
+        final List<GetObjectRequest> requests = Collections.synchronizedList(new ArrayList<GetObjectRequest>());
+        /** Remaining failures by the first byte of the range. */
+        final Map<Long, Integer> failures = new ConcurrentHashMap<Long, Integer>();
+        volatile long contentLength = object.length;
+
+        @Override
+        public ObjectMetadata getObjectMetadata(GetObjectMetadataRequest req) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(contentLength);
+            metadata.setHeader(Headers.ETAG, ETAG);
+            metadata.setLastModified(LAST_MODIFIED);
+            return metadata;
+        }
+
+        @Override
+        public S3Object getObject(GetObjectRequest req) {
+            requests.add(req);
+            long[] range = req.getRange();
+            int start = (int) range[0];
+            int end = (int) Math.min(range[1], object.length - 1);
+            Integer remaining = failures.get(range[0]);
+            if (remaining != null && remaining > 0) {
+                failures.put(range[0], remaining - 1);
+                AmazonServiceException e = new AmazonServiceException("Internal error");
+                e.setStatusCode(500);
+                throw e;
+            }
+            if (req.getGeneralProgressListener() != null) {
+                req.getGeneralProgressListener().progressChanged(
+                        new ProgressEvent(ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT, end - start + 1));
+            }
+            S3Object s3Object = new S3Object();
+            s3Object.setObjectContent(new S3ObjectInputStream(
+                    new ByteArrayInputStream(object, start, end - start + 1), new HttpGet()));
+            s3Object.getObjectMetadata().setContentLength(end - start + 1);
+            return s3Object;
+        }
+
+        List<String> sortedRanges() {
+            List<String> ranges = new ArrayList<String>();
+            synchronized (requests) {
+                for (GetObjectRequest request : requests) {
+                    ranges.add(request.getRange()[0] + "-" + request.getRange()[1]);
+                }
+            }
+            Collections.sort(ranges, new java.util.Comparator<String>() {
+                @Override
+                public int compare(String a, String b) {
+                    return Long.valueOf(a.substring(0, a.indexOf('-'))).compareTo(
+                            Long.valueOf(b.substring(0, b.indexOf('-'))));
+                }
+            });
+            return ranges;
+        }
+    }
+
+    /**
+     * Flags the byte transfer events of the range requests reported while
+     * another one was being handled.
+     */
+    private static class ConcurrencyCheckingListener implements ProgressListener {
+        final AtomicInteger events = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        volatile boolean overlapped;
+
+        @Override
+        public void progressChanged(ProgressEvent progressEvent) {
+            if (progressEvent.getEventType() != ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT) {
+                return;
+            }
+            events.incrementAndGet();
+            if (active.incrementAndGet() > 1) {
+                overlapped = true;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    private static class PersistableCapturingListener extends S3SyncProgressListener {
+        volatile PersistableDownload last;
+
+        @Override
+        public void onPersistableTransfer(PersistableTransfer persistableTransfer) {
+            last = (PersistableDownload) persistableTransfer;
+        }
+    }
+}
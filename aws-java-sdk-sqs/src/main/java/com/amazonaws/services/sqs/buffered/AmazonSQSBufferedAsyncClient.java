@@ -18,7 +18,11 @@ package com.amazonaws.services.sqs.buffered;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
@@ -95,6 +99,20 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
     private final AmazonSQSAsync realSQS;
     private final QueueBufferConfig bufferConfigExemplar;
 
+    /**
+     * The executors for the outbound batches and the receive batches of all the queue buffers of
+     * this client, if bounded by {@link QueueBufferConfig#getMaxExecutorThreads()}; null to use the
+     * executor shared by all clients. They are separate so that long-polling receives can't keep
+     * sends waiting for a thread.
+     */
+    private final ExecutorService sendExecutor;
+    private final ExecutorService receiveExecutor;
+
+    /**
+     * The bound on the bytes prefetched by all the queue buffers of this client.
+     */
+    private final PrefetchBudget prefetchBudget;
+
     public AmazonSQSBufferedAsyncClient(AmazonSQSAsync paramRealSQS) {
         this(paramRealSQS, new QueueBufferConfig());
     }
@@ -105,6 +123,22 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         config.validate();
         realSQS = paramRealSQS;
         bufferConfigExemplar = config;
+        sendExecutor = config.getMaxExecutorThreads() > 0 ? newBoundedExecutor(config.getMaxExecutorThreads()) : null;
+        receiveExecutor = config.getMaxExecutorThreads() > 0 ? newBoundedExecutor(config.getMaxExecutorThreads())
+                : null;
+        prefetchBudget = new PrefetchBudget(config.getMaxPrefetchedBytes());
+    }
+
+    /**
+     * Creates an executor running at most the given number of batches at a time. The number of
+     * batches waiting for a thread is itself bounded by the inflight batch limits of the queue
+     * buffers. Idle threads time out, so an idle client uses no threads.
+     */
+    private static ExecutorService newBoundedExecutor(int maxThreads) {
+        ThreadPoolExecutor boundedExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new QueueBuffer.DaemonThreadFactory());
+        boundedExecutor.allowCoreThreadTimeOut(true);
+        return boundedExecutor;
     }
 
     /*
@@ -172,6 +206,10 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         for (QueueBuffer buffer : buffers.values()) {
             buffer.shutdown();
         }
+        if (sendExecutor != null) {
+            sendExecutor.shutdown();
+            receiveExecutor.shutdown();
+        }
         realSQS.shutdown();
     }
 
@@ -373,12 +411,26 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         QueueBuffer toReturn = buffers.get(qUrl);
         if (null == toReturn) {
             QueueBufferConfig config = new QueueBufferConfig(bufferConfigExemplar);
-            toReturn = new QueueBuffer(config, qUrl, realSQS);
+            toReturn = new QueueBuffer(config, qUrl, realSQS,
+                    sendExecutor == null ? QueueBuffer.executor : sendExecutor,
+                    receiveExecutor == null ? QueueBuffer.executor : receiveExecutor, prefetchBudget);
             buffers.put(qUrl, toReturn);
         }
         return toReturn;
     }
 
+    /**
+     * Returns how well the requests to the given queue are being batched, including the fill
+     * ratio of the send and receive batches.
+     *
+     * @return the statistics of the buffer of the given queue, or null if this client has no
+     *         buffer for the queue.
+     */
+    public synchronized QueueBufferStatistics getQueueBufferStatistics(String queueUrl) {
+        QueueBuffer buffer = buffers.get(queueUrl);
+        return buffer == null ? null : buffer.getStatistics();
+    }
+
     class CachingMap extends LinkedHashMap<String, QueueBuffer> {
         private static final long serialVersionUID = 1;
         private static final int MAX_ENTRIES = 100;
@@ -388,7 +440,12 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         }
 
         protected boolean removeEldestEntry(java.util.Map.Entry<String, QueueBuffer> eldest) {
-            return size() > MAX_ENTRIES;
+            if (size() > MAX_ENTRIES) {
+                // don't let its prefetched messages count against the prefetch limit forever
+                eldest.getValue().evict();
+                return true;
+            }
+            return false;
         }
 
     }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.buffered;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.amazonaws.services.sqs.model.Message;
+
+/**
+ * Bounds the bytes of the messages prefetched by the receive buffers of all the queues of a
+ * client, as set by {@link QueueBufferConfig#getMaxPrefetchedBytes()}.
+ * <p>
+ * A receive batch reserves room for {@code maxBatchSize} messages of the average size seen so far
+ * before it is sent; once it completes, the reservation is replaced by the actual size of its
+ * messages, which is released again as the messages are handed out, released or expire. The bound
+ * is therefore approximate when message sizes vary. Until a batch has brought messages, they are
+ * assumed to be of the largest size allowed by the service; the first sizes seen then replace that
+ * guess outright. A batch never reserves more than the whole bound, so a bound smaller than a batch
+ * of the largest messages still admits one batch at a time rather than none. A queue with neither
+ * prefetched messages nor inflight batches may always send one batch, so a queue is never starved
+ * by the messages prefetched for other queues.
+ * <p>
+ * Without a bound, message sizes aren't computed at all.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+class PrefetchBudget {
+
+    private final long maxBytes;
+
+    /** The receive buffers sharing this budget, swept for stale messages when it runs out. */
+    private final Set<ReceiveQueueBuffer> buffers =
+            Collections.newSetFromMap(new ConcurrentHashMap<ReceiveQueueBuffer, Boolean>());
+
+    private long prefetchedBytes;
+
+    private long reservedBytes;
+
+    /** The mean size of the messages received so far, or -1 until a batch brings messages. */
+    private long meanMessageBytes = -1;
+
+    /**
+     * @param maxBytes
+     *            the bound on the bytes prefetched; zero or less for no bound
+     */
+    PrefetchBudget(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    void register(ReceiveQueueBuffer buffer) {
+        buffers.add(buffer);
+    }
+
+    void unregister(ReceiveQueueBuffer buffer) {
+        buffers.remove(buffer);
+    }
+
+    /**
+     * @return whether the bytes prefetched and reserved are below the bound
+     */
+    synchronized boolean hasRoom() {
+        return maxBytes <= 0 || prefetchedBytes + reservedBytes < maxBytes;
+    }
+
+    /**
+     * Reserves room for a receive batch of up to {@code maxBatchSize} messages.
+     *
+     * @param force
+     *            true to reserve room even if it exceeds the bound
+     * @return the bytes reserved, to pass to {@link #batchReceived}; or -1 if there is no room
+     */
+    synchronized long reserve(int maxBatchSize, boolean force) {
+        long messageBytes = meanMessageBytes == -1
+                ? QueueBufferConfig.SERVICE_MAX_BATCH_SIZE_BYTES : meanMessageBytes;
+        long estimate = maxBatchSize * messageBytes;
+        if (maxBytes > 0) {
+            estimate = Math.min(estimate, maxBytes);
+        }
+        if (!force && maxBytes > 0 && prefetchedBytes + reservedBytes + estimate > maxBytes) {
+            return -1;
+        }
+        reservedBytes += estimate;
+        return estimate;
+    }
+
+    /**
+     * Replaces the reservation of a completed receive batch by the size of its messages.
+     */
+    synchronized void batchReceived(long reservation, long bytes, int messages) {
+        reservedBytes -= reservation;
+        prefetchedBytes += bytes;
+        if (messages > 0) {
+            meanMessageBytes = SendBatchTuner.movingAverage(meanMessageBytes, bytes / messages);
+        }
+    }
+
+    /**
+     * Releases the room taken by messages handed out, released or expired.
+     */
+    synchronized void release(long bytes) {
+        prefetchedBytes -= bytes;
+    }
+
+    synchronized long getPrefetchedBytes() {
+        return prefetchedBytes;
+    }
+
+    /**
+     * Releases the stale messages prefetched for every queue sharing this budget, to make room
+     * for fresh ones. Each buffer nacks its stale messages on its own executor, so the calling
+     * consumer doesn't wait on calls to the other queues.
+     */
+    void releaseStaleMessages() {
+        for (ReceiveQueueBuffer buffer : buffers) {
+            buffer.releaseStaleBatches();
+        }
+    }
+
+    /**
+     * @return the approximate size of the given message as counted against the bound: the UTF-8
+     *         length of its body; or zero if there is no bound
+     */
+    long sizeOf(Message message) {
+        return maxBytes > 0 ? utf8Length(message.getBody()) : 0;
+    }
+
+    /**
+     * @return the UTF-8 length of the given message body
+     */
+    static long utf8Length(String body) {
+        if (body == null) {
+            return 0;
+        }
+        long size = 0;
+        for (int i = 0, n = body.length(); i < n; i++) {
+            char c = body.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800 || Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                // a surrogate pair takes four bytes in all
+                size += 2;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+}
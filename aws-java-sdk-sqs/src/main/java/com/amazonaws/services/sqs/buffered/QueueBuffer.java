@@ -15,6 +15,7 @@
 package com.amazonaws.services.sqs.buffered;
 
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -65,10 +66,25 @@ class QueueBuffer {
     static ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory());;
 
     QueueBuffer(QueueBufferConfig paramConfig, String url, AmazonSQSAsync sqs) {
+        this(paramConfig, url, sqs, executor, executor, new PrefetchBudget(paramConfig.getMaxPrefetchedBytes()));
+    }
+
+    /**
+     * @param sendExecutor
+     *            the executor for the outbound batches of this buffer, such as a bounded executor
+     *            shared by the queue buffers of a client
+     * @param receiveExecutor
+     *            the executor for the receive batches of this buffer; a bounded executor must not
+     *            be the send executor, or long-polling receives could hold up sends
+     * @param prefetchBudget
+     *            the bound on the bytes prefetched, shared by the queue buffers of a client
+     */
+    QueueBuffer(QueueBufferConfig paramConfig, String url, AmazonSQSAsync sqs, Executor sendExecutor,
+            Executor receiveExecutor, PrefetchBudget prefetchBudget) {
         realSqs = sqs;
         config = paramConfig;
-        sendBuffer = new SendQueueBuffer(sqs, executor, paramConfig, url);
-        receiveBuffer = new ReceiveQueueBuffer(sqs, executor, paramConfig, url);
+        sendBuffer = new SendQueueBuffer(sqs, sendExecutor, paramConfig, url);
+        receiveBuffer = new ReceiveQueueBuffer(sqs, receiveExecutor, paramConfig, url, prefetchBudget);
     }
 
     /**
@@ -203,6 +219,16 @@ class QueueBuffer {
         receiveBuffer.shutdown();
     }
 
+    /**
+     * Called when the buffer is evicted from the cache of its client, which may go on creating a
+     * new buffer for the same queue. Outbound requests already submitted still complete, and
+     * pending receive requests are satisfied by the batches already prefetched or in flight, or
+     * fail; the remaining prefetched messages are released back to the queue.
+     */
+    void evict() {
+        receiveBuffer.evict();
+    }
+
     /**
      * Flushes all outstanding outbound requests in the {@link SendQueueBuffer}.
      */
@@ -210,6 +236,23 @@ class QueueBuffer {
         sendBuffer.flush();
     }
 
+    /**
+     * @return how well this buffer is batching requests; never null
+     */
+    QueueBufferStatistics getStatistics() {
+        SendBatchTuner sendTuner = sendBuffer.getSendMessageTuner();
+        SendBatchTuner deleteTuner = sendBuffer.getDeleteMessageTuner();
+        SendBatchTuner changeVisibilityTuner = sendBuffer.getChangeMessageVisibilityTuner();
+        ReceivePrefetchTuner receiveTuner = receiveBuffer.getTuner();
+        return new QueueBufferStatistics(sendTuner.getBatchCount(), sendTuner.getFillRatio(),
+                sendTuner.getBatchOpenMs(), deleteTuner.getBatchCount(), deleteTuner.getFillRatio(),
+                changeVisibilityTuner.getBatchCount(), changeVisibilityTuner.getFillRatio(),
+                receiveTuner.getBatchCount(), receiveTuner.getFillRatio(),
+                receiveTuner.getInflightReceiveBatchLimit(), receiveBuffer.getPrefetchHits(),
+                receiveBuffer.getPrefetchMisses(), receiveBuffer.getReleasedMessages(),
+                receiveBuffer.getBudget().getPrefetchedBytes());
+    }
+
     /**
      * We prefetch and load results in the buffer by making basic requests. I.E. we don't request
      * queue or message attributes and we have a default visibility timeout. If the user's request
@@ -286,7 +329,7 @@ class QueueBuffer {
      * We need daemon threads in our executor so that we don't keep the process running if our
      * executor threads are the only ones left in the process.
      */
-    private static class DaemonThreadFactory implements ThreadFactory {
+    static class DaemonThreadFactory implements ThreadFactory {
         static AtomicInteger threadCount = new AtomicInteger(0);
 
         public Thread newThread(Runnable r) {
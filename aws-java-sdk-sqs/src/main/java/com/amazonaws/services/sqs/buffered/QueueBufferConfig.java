@@ -118,6 +118,54 @@ public class QueueBufferConfig {
      */
     private boolean flushOnShutdown = false;
 
+    /**
+     * If true, the time a send batch is held open is tuned between zero and
+     * {@code maxBatchOpenMs} from the observed arrival rate of requests and latency of batch
+     * calls, instead of always being {@code maxBatchOpenMs}.
+     */
+    private boolean adaptiveBatching = ADAPTIVE_BATCHING_DEFAULT;
+
+    /** false */
+    public static final boolean ADAPTIVE_BATCHING_DEFAULT = false;
+
+    /**
+     * If true, the number of concurrent receive message batches is tuned between one and
+     * {@code maxInflightReceiveBatches} from the rate at which messages are drained from the
+     * buffer, instead of always being {@code maxInflightReceiveBatches}.
+     */
+    private boolean adaptivePrefetching = ADAPTIVE_PREFETCHING_DEFAULT;
+
+    /** false */
+    public static final boolean ADAPTIVE_PREFETCHING_DEFAULT = false;
+
+    /**
+     * The maximum number of threads a buffered client uses for the outbound batches of all its
+     * queues, and separately for their receive batches. If zero, the batches are executed by a
+     * thread pool shared by all buffered clients, which has no bound on the number of threads.
+     */
+    private int maxExecutorThreads = MAX_EXECUTOR_THREADS_DEFAULT;
+
+    /** 0, which means use the shared thread pool */
+    public static final int MAX_EXECUTOR_THREADS_DEFAULT = 0;
+
+    /**
+     * The maximum number of bytes of message bodies a buffered client prefetches, across all its
+     * queues. If zero, prefetching is only bounded by {@code maxDoneReceiveBatches} for each queue.
+     */
+    private long maxPrefetchedBytes = MAX_PREFETCHED_BYTES_DEFAULT;
+
+    /** 0, which means no limit */
+    public static final long MAX_PREFETCHED_BYTES_DEFAULT = 0;
+
+    /**
+     * Prefetched messages with less than this many seconds of their visibility timeout left are
+     * released back to the queue instead of being handed out.
+     */
+    private int minRemainingVisibilitySeconds = MIN_REMAINING_VISIBILITY_SECONDS_DEFAULT;
+
+    /** 0, which means only messages whose visibility timeout expired are dropped */
+    public static final int MIN_REMAINING_VISIBILITY_SECONDS_DEFAULT = 0;
+
     public QueueBufferConfig(long maxBatchOpenMs, int maxInflightOutboundBatches, int maxInflightReceiveBatches,
             int maxDoneReceiveBatches, boolean paramLongPoll, long maxBatchSizeBytes, int visibilityTimeout,
             int longPollTimeout, int maxBatch) {
@@ -150,6 +198,12 @@ public class QueueBufferConfig {
         maxInflightOutboundBatches = other.maxInflightOutboundBatches;
         maxInflightReceiveBatches = other.maxInflightReceiveBatches;
         visibilityTimeoutSeconds = other.visibilityTimeoutSeconds;
+        flushOnShutdown = other.flushOnShutdown;
+        adaptiveBatching = other.adaptiveBatching;
+        adaptivePrefetching = other.adaptivePrefetching;
+        maxExecutorThreads = other.maxExecutorThreads;
+        maxPrefetchedBytes = other.maxPrefetchedBytes;
+        minRemainingVisibilitySeconds = other.minRemainingVisibilitySeconds;
     }
 
     @Override
@@ -158,7 +212,10 @@ public class QueueBufferConfig {
                 + longPoll + ", maxInflightOutboundBatches=" + maxInflightOutboundBatches
                 + ", maxInflightReceiveBatches=" + maxInflightReceiveBatches + ", maxDoneReceiveBatches="
                 + maxDoneReceiveBatches + ", maxBatchSizeBytes=" + maxBatchSizeBytes + ", visibilityTimeoutSeconds="
-                + visibilityTimeoutSeconds + ", longPollWaitTimeoutSeconds=" + longPollWaitTimeoutSeconds + "]";
+                + visibilityTimeoutSeconds + ", longPollWaitTimeoutSeconds=" + longPollWaitTimeoutSeconds + ", flushOnShutdown="
+                + flushOnShutdown + ", adaptiveBatching=" + adaptiveBatching + ", adaptivePrefetching="
+                + adaptivePrefetching + ", maxExecutorThreads=" + maxExecutorThreads + ", maxPrefetchedBytes="
+                + maxPrefetchedBytes + ", minRemainingVisibilitySeconds=" + minRemainingVisibilitySeconds + "]";
     }
 
     /**
@@ -473,6 +530,162 @@ public class QueueBufferConfig {
         return this;
     }
 
+    /**
+     * If true, the time a send batch is held open is tuned between zero and
+     * {@code maxBatchOpenMs} from the observed arrival rate of requests and latency of batch
+     * calls: batches are sent right away when requests are sparse, and held open about as long as
+     * they take to fill up under load. The default value is false.
+     */
+    public boolean isAdaptiveBatching() {
+        return adaptiveBatching;
+    }
+
+    /**
+     * If true, the time a send batch is held open is tuned between zero and
+     * {@code maxBatchOpenMs} from the observed arrival rate of requests and latency of batch
+     * calls: batches are sent right away when requests are sparse, and held open about as long as
+     * they take to fill up under load. The default value is false.
+     */
+    public void setAdaptiveBatching(boolean adaptiveBatching) {
+        this.adaptiveBatching = adaptiveBatching;
+    }
+
+    /**
+     * If true, the time a send batch is held open is tuned between zero and
+     * {@code maxBatchOpenMs} from the observed arrival rate of requests and latency of batch
+     * calls: batches are sent right away when requests are sparse, and held open about as long as
+     * they take to fill up under load. The default value is false.
+     */
+    public QueueBufferConfig withAdaptiveBatching(boolean adaptiveBatching) {
+        setAdaptiveBatching(adaptiveBatching);
+        return this;
+    }
+
+    /**
+     * If true, the number of concurrent receive message batches is tuned between one and
+     * {@code maxInflightReceiveBatches} from the rate at which messages are drained from the
+     * buffer, so that an idle queue is long polled by a single batch. The default value is false.
+     */
+    public boolean isAdaptivePrefetching() {
+        return adaptivePrefetching;
+    }
+
+    /**
+     * If true, the number of concurrent receive message batches is tuned between one and
+     * {@code maxInflightReceiveBatches} from the rate at which messages are drained from the
+     * buffer, so that an idle queue is long polled by a single batch. The default value is false.
+     */
+    public void setAdaptivePrefetching(boolean adaptivePrefetching) {
+        this.adaptivePrefetching = adaptivePrefetching;
+    }
+
+    /**
+     * If true, the number of concurrent receive message batches is tuned between one and
+     * {@code maxInflightReceiveBatches} from the rate at which messages are drained from the
+     * buffer, so that an idle queue is long polled by a single batch. The default value is false.
+     */
+    public QueueBufferConfig withAdaptivePrefetching(boolean adaptivePrefetching) {
+        setAdaptivePrefetching(adaptivePrefetching);
+        return this;
+    }
+
+    /**
+     * The maximum number of threads a buffered client uses for the outbound batches of all its
+     * queues, and separately for their receive batches, so that long-polling receives can't keep
+     * sends waiting for a thread. If zero, the default, the batches are executed by a thread pool
+     * shared by all buffered clients, which has no bound on the number of threads. Batches in
+     * excess of the bound wait for a thread, so callbacks must not block waiting on the same
+     * client.
+     */
+    public int getMaxExecutorThreads() {
+        return maxExecutorThreads;
+    }
+
+    /**
+     * The maximum number of threads a buffered client uses for the outbound batches of all its
+     * queues, and separately for their receive batches, so that long-polling receives can't keep
+     * sends waiting for a thread. If zero, the default, the batches are executed by a thread pool
+     * shared by all buffered clients, which has no bound on the number of threads. Batches in
+     * excess of the bound wait for a thread, so callbacks must not block waiting on the same
+     * client.
+     */
+    public void setMaxExecutorThreads(int maxExecutorThreads) {
+        this.maxExecutorThreads = maxExecutorThreads;
+    }
+
+    /**
+     * The maximum number of threads a buffered client uses for the batches of all its queues. If
+     * zero, the default, the batches are executed by a thread pool shared by all buffered clients,
+     * which has no bound on the number of threads. Batches in excess of the bound wait for a
+     * thread, so callbacks must not block waiting on the same client.
+     */
+    public QueueBufferConfig withMaxExecutorThreads(int maxExecutorThreads) {
+        setMaxExecutorThreads(maxExecutorThreads);
+        return this;
+    }
+
+    /**
+     * The maximum number of bytes of message bodies a buffered client prefetches, across all its
+     * queues. If zero, the default, prefetching is only bounded by {@code maxDoneReceiveBatches}
+     * for each queue. The limit is approximate, as the size of a batch is only known once it has
+     * been received, and a queue with no prefetched messages may always fetch one batch.
+     */
+    public long getMaxPrefetchedBytes() {
+        return maxPrefetchedBytes;
+    }
+
+    /**
+     * The maximum number of bytes of message bodies a buffered client prefetches, across all its
+     * queues. If zero, the default, prefetching is only bounded by {@code maxDoneReceiveBatches}
+     * for each queue. The limit is approximate, as the size of a batch is only known once it has
+     * been received, and a queue with no prefetched messages may always fetch one batch.
+     */
+    public void setMaxPrefetchedBytes(long maxPrefetchedBytes) {
+        this.maxPrefetchedBytes = maxPrefetchedBytes;
+    }
+
+    /**
+     * The maximum number of bytes of message bodies a buffered client prefetches, across all its
+     * queues. If zero, the default, prefetching is only bounded by {@code maxDoneReceiveBatches}
+     * for each queue. The limit is approximate, as the size of a batch is only known once it has
+     * been received, and a queue with no prefetched messages may always fetch one batch.
+     */
+    public QueueBufferConfig withMaxPrefetchedBytes(long maxPrefetchedBytes) {
+        setMaxPrefetchedBytes(maxPrefetchedBytes);
+        return this;
+    }
+
+    /**
+     * Prefetched messages with less than this many seconds of their visibility timeout left are
+     * released back to the queue, so that other consumers can receive them right away, instead
+     * of being handed out with too little time left to process them. If zero, the default, only
+     * messages whose visibility timeout has expired are dropped.
+     */
+    public int getMinRemainingVisibilitySeconds() {
+        return minRemainingVisibilitySeconds;
+    }
+
+    /**
+     * Prefetched messages with less than this many seconds of their visibility timeout left are
+     * released back to the queue, so that other consumers can receive them right away, instead
+     * of being handed out with too little time left to process them. If zero, the default, only
+     * messages whose visibility timeout has expired are dropped.
+     */
+    public void setMinRemainingVisibilitySeconds(int minRemainingVisibilitySeconds) {
+        this.minRemainingVisibilitySeconds = minRemainingVisibilitySeconds;
+    }
+
+    /**
+     * Prefetched messages with less than this many seconds of their visibility timeout left are
+     * released back to the queue, so that other consumers can receive them right away, instead
+     * of being handed out with too little time left to process them. If zero, the default, only
+     * messages whose visibility timeout has expired are dropped.
+     */
+    public QueueBufferConfig withMinRemainingVisibilitySeconds(int minRemainingVisibilitySeconds) {
+        setMinRemainingVisibilitySeconds(minRemainingVisibilitySeconds);
+        return this;
+    }
+
     /**
      * this method checks the config for validity. If the config is deemed to be invalid, an
      * informative exception is thrown.
@@ -484,6 +697,15 @@ public class QueueBufferConfig {
         if (visibilityTimeoutSeconds == 0) {
             throw new AmazonClientException("Visibility timeout value may not be equal to zero ");
         }
+        if (maxExecutorThreads < 0) {
+            throw new AmazonClientException("Maximum number of executor threads may not be negative");
+        }
+        if (maxPrefetchedBytes < 0) {
+            throw new AmazonClientException("Maximum number of prefetched bytes may not be negative");
+        }
+        if (minRemainingVisibilitySeconds < 0) {
+            throw new AmazonClientException("Minimum remaining visibility timeout may not be negative");
+        }
     }
 
 }
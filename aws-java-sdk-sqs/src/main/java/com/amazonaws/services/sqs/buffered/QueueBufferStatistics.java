@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.buffered;
+
+/**
+ * A snapshot of how well the buffer of a queue is batching and prefetching. The fill ratio of a
+ * batch is its number of entries relative to {@link QueueBufferConfig#getMaxBatchSize()}; a ratio
+ * well below one means the batches are sent half empty.
+ *
+ * @see AmazonSQSBufferedAsyncClient#getQueueBufferStatistics(String)
+ */
+public class QueueBufferStatistics {
+
+    private final long sendBatchCount;
+    private final double sendBatchFillRatio;
+    private final long sendBatchOpenMs;
+    private final long deleteBatchCount;
+    private final double deleteBatchFillRatio;
+    private final long changeVisibilityBatchCount;
+    private final double changeVisibilityBatchFillRatio;
+    private final long receiveBatchCount;
+    private final double receiveBatchFillRatio;
+    private final int inflightReceiveBatchLimit;
+    private final long prefetchHitCount;
+    private final long prefetchMissCount;
+    private final long releasedMessageCount;
+    private final long clientPrefetchedBytes;
+
+    QueueBufferStatistics(long sendBatchCount, double sendBatchFillRatio, long sendBatchOpenMs,
+            long deleteBatchCount, double deleteBatchFillRatio, long changeVisibilityBatchCount,
+            double changeVisibilityBatchFillRatio, long receiveBatchCount, double receiveBatchFillRatio,
+            int inflightReceiveBatchLimit, long prefetchHitCount, long prefetchMissCount, long releasedMessageCount,
+            long clientPrefetchedBytes) {
+        this.sendBatchCount = sendBatchCount;
+        this.sendBatchFillRatio = sendBatchFillRatio;
+        this.sendBatchOpenMs = sendBatchOpenMs;
+        this.deleteBatchCount = deleteBatchCount;
+        this.deleteBatchFillRatio = deleteBatchFillRatio;
+        this.changeVisibilityBatchCount = changeVisibilityBatchCount;
+        this.changeVisibilityBatchFillRatio = changeVisibilityBatchFillRatio;
+        this.receiveBatchCount = receiveBatchCount;
+        this.receiveBatchFillRatio = receiveBatchFillRatio;
+        this.inflightReceiveBatchLimit = inflightReceiveBatchLimit;
+        this.prefetchHitCount = prefetchHitCount;
+        this.prefetchMissCount = prefetchMissCount;
+        this.releasedMessageCount = releasedMessageCount;
+        this.clientPrefetchedBytes = clientPrefetchedBytes;
+    }
+
+    /**
+     * The number of {@code SendMessageBatch} calls made.
+     */
+    public long getSendBatchCount() {
+        return sendBatchCount;
+    }
+
+    /**
+     * The average fill ratio of the {@code SendMessageBatch} calls made.
+     */
+    public double getSendBatchFillRatio() {
+        return sendBatchFillRatio;
+    }
+
+    /**
+     * The time (milliseconds) a new send batch is currently held open for additional requests.
+     * Equal to {@link QueueBufferConfig#getMaxBatchOpenMs()} unless adaptive batching is enabled.
+     */
+    public long getSendBatchOpenMs() {
+        return sendBatchOpenMs;
+    }
+
+    /**
+     * The number of {@code DeleteMessageBatch} calls made.
+     */
+    public long getDeleteBatchCount() {
+        return deleteBatchCount;
+    }
+
+    /**
+     * The average fill ratio of the {@code DeleteMessageBatch} calls made.
+     */
+    public double getDeleteBatchFillRatio() {
+        return deleteBatchFillRatio;
+    }
+
+    /**
+     * The number of {@code ChangeMessageVisibilityBatch} calls made.
+     */
+    public long getChangeVisibilityBatchCount() {
+        return changeVisibilityBatchCount;
+    }
+
+    /**
+     * The average fill ratio of the {@code ChangeMessageVisibilityBatch} calls made.
+     */
+    public double getChangeVisibilityBatchFillRatio() {
+        return changeVisibilityBatchFillRatio;
+    }
+
+    /**
+     * The number of {@code ReceiveMessage} calls made to prefetch messages.
+     */
+    public long getReceiveBatchCount() {
+        return receiveBatchCount;
+    }
+
+    /**
+     * The average fill ratio of the {@code ReceiveMessage} calls made to prefetch messages.
+     */
+    public double getReceiveBatchFillRatio() {
+        return receiveBatchFillRatio;
+    }
+
+    /**
+     * The number of receive batches currently allowed in flight. Equal to
+     * {@link QueueBufferConfig#getMaxInflightReceiveBatches()} unless adaptive prefetching is
+     * enabled.
+     */
+    public int getInflightReceiveBatchLimit() {
+        return inflightReceiveBatchLimit;
+    }
+
+    /**
+     * The number of receive requests satisfied right away from prefetched messages.
+     */
+    public long getPrefetchHitCount() {
+        return prefetchHitCount;
+    }
+
+    /**
+     * The number of receive requests that had to wait for messages to be fetched.
+     */
+    public long getPrefetchMissCount() {
+        return prefetchMissCount;
+    }
+
+    /**
+     * The number of prefetched messages never handed out, because they were released back to the
+     * queue or their visibility timeout expired.
+     */
+    public long getReleasedMessageCount() {
+        return releasedMessageCount;
+    }
+
+    /**
+     * The bytes of message bodies currently prefetched by the client, across all its queues.
+     *
+     * @see QueueBufferConfig#getMaxPrefetchedBytes()
+     */
+    public long getClientPrefetchedBytes() {
+        return clientPrefetchedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueBufferStatistics [sendBatchCount=" + sendBatchCount + ", sendBatchFillRatio="
+                + sendBatchFillRatio + ", sendBatchOpenMs=" + sendBatchOpenMs + ", deleteBatchCount="
+                + deleteBatchCount + ", deleteBatchFillRatio=" + deleteBatchFillRatio
+                + ", changeVisibilityBatchCount=" + changeVisibilityBatchCount
+                + ", changeVisibilityBatchFillRatio=" + changeVisibilityBatchFillRatio + ", receiveBatchCount="
+                + receiveBatchCount + ", receiveBatchFillRatio=" + receiveBatchFillRatio
+                + ", inflightReceiveBatchLimit=" + inflightReceiveBatchLimit + ", prefetchHitCount="
+                + prefetchHitCount + ", prefetchMissCount=" + prefetchMissCount + ", releasedMessageCount="
+                + releasedMessageCount + ", clientPrefetchedBytes=" + clientPrefetchedBytes + "]";
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.buffered;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of how full the receive batches of a queue are and, in adaptive mode, how many of
+ * them should be in flight.
+ * <p>
+ * The number of receive batches in flight follows from the rate at which consumers drain the
+ * buffer: enough batches to supply that rate over the time a receive call takes, given the
+ * average number of messages per batch, plus one. While consumers are left waiting for messages,
+ * the limit grows by one batch at a time, since the drain rate cannot exceed what is prefetched.
+ * The limit stays between one and {@code maxInflightReceiveBatches}, so an idle queue is long
+ * polled by a single batch.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+class ReceivePrefetchTuner {
+
+    /** The shortest period over which the drain rate is measured. */
+    private static final long MIN_RATE_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final QueueBufferConfig config;
+
+    private int limit = 1;
+
+    private long periodStartNanos;
+
+    private long deliveredInPeriod;
+
+    /** Moving average of the messages delivered per second; -1 until known. */
+    private double meanDrainRate = -1;
+
+    /** Moving average of the time taken by the receive calls; -1 until known. */
+    private long meanLatencyNanos = -1;
+
+    private double meanMessagesPerBatch = -1;
+
+    private long batchCount;
+
+    private long messageCount;
+
+    ReceivePrefetchTuner(QueueBufferConfig config) {
+        this.config = config;
+        this.periodStartNanos = nanoTime();
+    }
+
+    synchronized void messagesDelivered(int messages) {
+        deliveredInPeriod += messages;
+    }
+
+    /**
+     * @param consumersWaiting
+     *            whether receive requests are still waiting for messages after those of the
+     *            batch have been handed out
+     */
+    synchronized void batchCompleted(int messages, long latencyNanos, boolean consumersWaiting) {
+        ++batchCount;
+        messageCount += messages;
+        meanLatencyNanos = SendBatchTuner.movingAverage(meanLatencyNanos, latencyNanos);
+        meanMessagesPerBatch = meanMessagesPerBatch == -1 ? messages
+                : meanMessagesPerBatch + (messages - meanMessagesPerBatch) / 8;
+
+        long now = nanoTime();
+        long period = now - periodStartNanos;
+        if (period >= MIN_RATE_PERIOD_NANOS) {
+            double rate = deliveredInPeriod * (double) TimeUnit.SECONDS.toNanos(1) / period;
+            meanDrainRate = meanDrainRate == -1 ? rate : meanDrainRate + (rate - meanDrainRate) / 8;
+            periodStartNanos = now;
+            deliveredInPeriod = 0;
+        }
+
+        int target = 1;
+        if (meanDrainRate != -1) {
+            double latencySeconds = (double) meanLatencyNanos / TimeUnit.SECONDS.toNanos(1);
+            target += (int) Math.ceil(meanDrainRate * latencySeconds / Math.max(1, meanMessagesPerBatch));
+        }
+        if (consumersWaiting) {
+            target = Math.max(target, limit + 1);
+        }
+        limit = Math.max(1, Math.min(maxInflightReceiveBatches(), target));
+    }
+
+    /**
+     * @return the number of receive batches to keep in flight
+     */
+    synchronized int getInflightReceiveBatchLimit() {
+        int max = maxInflightReceiveBatches();
+        return config.isAdaptivePrefetching() ? Math.min(limit, max) : max;
+    }
+
+    synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return the average number of messages per batch, relative to {@code maxBatchSize}
+     */
+    synchronized double getFillRatio() {
+        return SendBatchTuner.fillRatio(messageCount, batchCount, config.getMaxBatchSize());
+    }
+
+    /**
+     * Returns the current value of the running JVM's high-resolution time source, in nanoseconds.
+     * Overridden by tests.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private int maxInflightReceiveBatches() {
+        int max = config.getMaxInflightReceiveBatches();
+        // must allow at least one inflight receive task, or receive won't work at all.
+        return max > 0 ? max : 1;
+    }
+}
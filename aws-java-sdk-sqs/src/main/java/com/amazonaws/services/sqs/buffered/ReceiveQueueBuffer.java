@@ -17,10 +17,13 @@ package com.amazonaws.services.sqs.buffered;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -101,12 +104,52 @@ public class ReceiveQueueBuffer {
     /** finished batches are stored in this list. */
     private LinkedList<ReceiveMessageBatchTask> finishedTasks = new LinkedList<ReceiveMessageBatchTask>();
 
+    /** tunes the number of inflight receive batches from the rate messages are drained at */
+    private final ReceivePrefetchTuner tuner;
+
+    /** bounds the bytes prefetched, possibly shared with the buffers of other queues */
+    private final PrefetchBudget budget;
+
+    /**
+     * Prefetched messages with less than that much of their visibility timeout left are released
+     * back to the queue rather than handed out.
+     */
+    private final long minRemainingVisibilityNanos;
+
+    /** receive requests satisfied right away from prefetched messages */
+    private final AtomicLong prefetchHits = new AtomicLong();
+
+    /** receive requests that had to wait for messages */
+    private final AtomicLong prefetchMisses = new AtomicLong();
+
+    /** prefetched messages released back to the queue, or left to expire, unconsumed */
+    private final AtomicLong releasedMessages = new AtomicLong();
+
+    /**
+     * an evicted buffer hands its prefetched messages to the requests still waiting, and nacks the
+     * rest, to return their bytes to the budget
+     */
+    private volatile boolean evicted = false;
+
     ReceiveQueueBuffer(AmazonSQS paramSQS, Executor paramExecutor, QueueBufferConfig paramConfig, String url) {
+        this(paramSQS, paramExecutor, paramConfig, url, new PrefetchBudget(paramConfig.getMaxPrefetchedBytes()));
+    }
+
+    ReceiveQueueBuffer(AmazonSQS paramSQS, Executor paramExecutor, QueueBufferConfig paramConfig, String url,
+            PrefetchBudget paramBudget) {
         config = paramConfig;
         executor = paramExecutor;
         sqsClient = paramSQS;
         qUrl = url;
+        tuner = new ReceivePrefetchTuner(paramConfig);
+        budget = paramBudget;
+        minRemainingVisibilityNanos = TimeUnit.SECONDS.toNanos(Math.max(0,
+                paramConfig.getMinRemainingVisibilitySeconds()));
+        budget.register(this);
+    }
 
+    ReceivePrefetchTuner getTuner() {
+        return tuner;
     }
 
     /**
@@ -115,6 +158,7 @@ public class ReceiveQueueBuffer {
      */
     public void shutdown() {
         shutDown = true;
+        budget.unregister(this);
         try {
             while (inflightReceiveMessageBatches > 0)
                 Thread.sleep(100);
@@ -141,10 +185,18 @@ public class ReceiveQueueBuffer {
         if (rq.getMaxNumberOfMessages() != null) {
             numMessages = rq.getMaxNumberOfMessages();
         }
+        // don't hand out messages about to become visible to other consumers...
+        releaseStaleBatches();
+
         QueueBufferFuture<ReceiveMessageRequest, ReceiveMessageResult> toReturn = issueFuture(numMessages, callback);
 
         // attempt to satisfy it right away...
         satisfyFuturesFromBuffer();
+        if (toReturn.isDone()) {
+            prefetchHits.incrementAndGet();
+        } else {
+            prefetchMisses.incrementAndGet();
+        }
 
         // spawn more receive tasks if we need them...
         spawnMoreReceiveTasks();
@@ -216,6 +268,7 @@ public class ReceiveQueueBuffer {
                 break;
             }
         }
+        tuner.messagesDelivered(numRetrieved);
         // we may have just drained the batch.
         batchDone = batchDone || task.isEmpty() || (exception != null);
         if (batchDone) {
@@ -270,7 +323,7 @@ public class ReceiveQueueBuffer {
         int numberPruned = 0;
         while (!finishedTasks.isEmpty()) {
             if (pruneCondition.test(finishedTasks.getFirst())) {
-                finishedTasks.removeFirst();
+                releasedMessages.addAndGet(finishedTasks.removeFirst().discard());
                 numberPruned++;
             } else {
                 break;
@@ -304,7 +357,16 @@ public class ReceiveQueueBuffer {
             }
         }
 
+        if (!budget.hasRoom()) {
+            // make room by dropping messages nobody will get to in time
+            budget.releaseStaleMessages();
+        }
+
         synchronized (taskSpawnSyncPoint) {
+            // checked again under the lock, so that no batch is spawned once evict() has looked
+            if (shutDown) {
+                return;
+            }
             if (visibilityTimeoutNanos == -1) {
                 GetQueueAttributesRequest request = new GetQueueAttributesRequest().withQueueUrl(qUrl)
                         .withAttributeNames("VisibilityTimeout");
@@ -314,13 +376,22 @@ public class ReceiveQueueBuffer {
                 visibilityTimeoutNanos = TimeUnit.NANOSECONDS.convert(visibilityTimeoutSeconds, TimeUnit.SECONDS);
             }
 
-            int max = config.getMaxInflightReceiveBatches();
-            // must allow at least one inflight receive task, or receive won't
-            // work at all.
-            max = max > 0 ? max : 1;
+            // never less than one, or receive won't work at all.
+            int max = tuner.getInflightReceiveBatchLimit();
             int toSpawn = max - inflightReceiveMessageBatches;
             if (toSpawn > 0) {
-                ReceiveMessageBatchTask task = new ReceiveMessageBatchTask(this);
+                boolean starving;
+                synchronized (finishedTasks) {
+                    starving = finishedTasks.isEmpty() && inflightReceiveMessageBatches == 0;
+                }
+                long reservation = budget.reserve(config.getMaxBatchSize(), starving);
+                if (reservation < 0) {
+                    if (log.isTraceEnabled()) {
+                        log.trace("Prefetch byte limit reached, not spawning receive batch for queue " + qUrl);
+                    }
+                    return;
+                }
+                ReceiveMessageBatchTask task = new ReceiveMessageBatchTask(this, reservation);
                 ++inflightReceiveMessageBatches;
                 ++bufferCounter;
                 if (log.isTraceEnabled()) {
@@ -336,6 +407,7 @@ public class ReceiveQueueBuffer {
      * This method is called by the batches after they have finished retrieving the messages.
      */
     void reportBatchFinished(ReceiveMessageBatchTask batch) {
+        int batchMessages = batch.messages.size();
         synchronized (finishedTasks) {
             finishedTasks.addLast(batch);
             if (log.isTraceEnabled()) {
@@ -346,9 +418,140 @@ public class ReceiveQueueBuffer {
             --inflightReceiveMessageBatches;
         }
         satisfyFuturesFromBuffer();
+        if (evicted) {
+            // nacking here is off the consumers' path, as batches run on the executor
+            retireEvicted(false);
+            return;
+        }
+        boolean consumersWaiting;
+        synchronized (futures) {
+            consumersWaiting = !futures.isEmpty();
+        }
+        tuner.batchCompleted(batchMessages, batch.latencyNanos, consumersWaiting);
         spawnMoreReceiveTasks();
     }
 
+    /**
+     * Removes the prefetched messages with too little of their visibility timeout left to be
+     * handed out from the buffer, and nacks them on the executor, so that other consumers can
+     * receive them right away, unless already expired. Empty batches are left alone.
+     */
+    void releaseStaleBatches() {
+        List<ReceiveMessageBatchTask> staleTasks = null;
+        synchronized (finishedTasks) {
+            for (Iterator<ReceiveMessageBatchTask> it = finishedTasks.iterator(); it.hasNext();) {
+                ReceiveMessageBatchTask task = it.next();
+                if (task.getException() == null && !task.isEmpty() && task.isStale()) {
+                    it.remove();
+                    if (staleTasks == null) {
+                        staleTasks = new ArrayList<ReceiveMessageBatchTask>();
+                    }
+                    staleTasks.add(task);
+                }
+            }
+        }
+        if (staleTasks != null) {
+            releaseInBackground(staleTasks);
+        }
+    }
+
+    /**
+     * Nacks the messages of the given batches, which must no longer be in the buffer, on the
+     * executor rather than on the calling thread.
+     */
+    private void releaseInBackground(final List<ReceiveMessageBatchTask> tasks) {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (ReceiveMessageBatchTask task : tasks) {
+                        releasedMessages.addAndGet(task.clear());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the client is shutting down; the messages become visible once their timeout expires
+            for (ReceiveMessageBatchTask task : tasks) {
+                releasedMessages.addAndGet(task.discard());
+            }
+        }
+    }
+
+    /**
+     * Called when the buffer is evicted from the cache of its client. No more batches are
+     * spawned; the prefetched messages and those of the batches still in flight go to the receive
+     * requests still waiting, and the rest are nacked, so that their bytes no longer count against
+     * the prefetch limit of the client. Requests still waiting once no batch is left in flight
+     * fail.
+     */
+    void evict() {
+        shutDown = true;
+        evicted = true;
+        budget.unregister(this);
+        retireEvicted(true);
+    }
+
+    /**
+     * Hands the messages left in an evicted buffer to the requests still waiting and nacks the
+     * rest, then fails the requests still waiting if no batch is left in flight to satisfy them.
+     *
+     * @param inBackground
+     *            whether to nack on the executor rather than on the calling thread
+     */
+    private void retireEvicted(boolean inBackground) {
+        // batches are added to the finished ones before they stop counting as in flight, so once
+        // none is in flight, the messages of all of them are handed out below
+        boolean batchesInFlight;
+        synchronized (taskSpawnSyncPoint) {
+            batchesInFlight = inflightReceiveMessageBatches > 0;
+        }
+        satisfyFuturesFromBuffer();
+
+        List<ReceiveMessageBatchTask> leftover;
+        synchronized (finishedTasks) {
+            leftover = new ArrayList<ReceiveMessageBatchTask>(finishedTasks);
+            finishedTasks.clear();
+        }
+        if (!leftover.isEmpty()) {
+            if (inBackground) {
+                releaseInBackground(leftover);
+            } else {
+                for (ReceiveMessageBatchTask task : leftover) {
+                    releasedMessages.addAndGet(task.clear());
+                }
+            }
+        }
+
+        if (batchesInFlight) {
+            return;
+        }
+        List<ReceiveMessageFuture> waiting;
+        synchronized (futures) {
+            waiting = new ArrayList<ReceiveMessageFuture>(futures);
+            futures.clear();
+        }
+        for (ReceiveMessageFuture future : waiting) {
+            future.setFailure(new AmazonClientException("The buffer of queue " + qUrl
+                    + " was evicted before messages could be received"));
+        }
+    }
+
+    long getPrefetchHits() {
+        return prefetchHits.get();
+    }
+
+    long getPrefetchMisses() {
+        return prefetchMisses.get();
+    }
+
+    long getReleasedMessages() {
+        return releasedMessages.get();
+    }
+
+    PrefetchBudget getBudget() {
+        return budget;
+    }
+
     /**
      * Clears and nacks any pre-fetched messages in this buffer.
      */
@@ -394,8 +597,13 @@ public class ReceiveQueueBuffer {
         private Exception exception = null;
         private List<Message> messages;
         private long visibilityDeadlineNano;
+        private long latencyNanos;
         private boolean open = false;
         private ReceiveQueueBuffer parentBuffer;
+        /** bytes reserved in the budget for this batch until it completes */
+        private final long reservedBytes;
+        /** bytes of the messages remaining in this batch, counted against the budget */
+        private long remainingBytes;
 
         /**
          * Constructs a receive task waiting the specified time before calling SQS.
@@ -403,8 +611,9 @@ public class ReceiveQueueBuffer {
          * @param waitTimeMs
          *            the time to wait before calling SQS
          */
-        ReceiveMessageBatchTask(ReceiveQueueBuffer paramParentBuffer) {
+        ReceiveMessageBatchTask(ReceiveQueueBuffer paramParentBuffer, long paramReservedBytes) {
             parentBuffer = paramParentBuffer;
+            reservedBytes = paramReservedBytes;
             messages = Collections.emptyList();
         }
 
@@ -441,29 +650,58 @@ public class ReceiveQueueBuffer {
 
             // our messages expired.
             if (isExpired()) {
-                messages.clear();
+                releasedMessages.addAndGet(discard());
                 return null;
             }
 
-            if (messages.isEmpty())
+            if (messages.isEmpty()) {
                 return null;
-            else
-                return messages.remove(messages.size() - 1);
+            } else {
+                Message message = messages.remove(messages.size() - 1);
+                long size = budget.sizeOf(message);
+                remainingBytes -= size;
+                budget.release(size);
+                return message;
+            }
         }
 
         boolean isExpired() {
             return System.nanoTime() > visibilityDeadlineNano;
         }
 
+        /**
+         * @return true if there is too little of the visibility timeout left to hand out the
+         *         messages of this batch
+         */
+        boolean isStale() {
+            return System.nanoTime() > visibilityDeadlineNano - minRemainingVisibilityNanos;
+        }
+
+        /**
+         * Drops the messages remaining in the batch, without nacking them.
+         *
+         * @return the number of messages dropped
+         */
+        synchronized int discard() {
+            int dropped = messages.size();
+            budget.release(remainingBytes);
+            remainingBytes = 0;
+            messages.clear();
+            return dropped;
+        }
+
         /**
          * Nacks and clears all messages remaining in the batch.
+         *
+         * @return the number of messages cleared
          */
-        synchronized void clear() {
+        synchronized int clear() {
             if (!open) {
                 throw new IllegalStateException("batch is not open");
             }
 
-            if (!isExpired()) {
+            // SQS rejects a batch without entries
+            if (!isExpired() && !messages.isEmpty()) {
                 ChangeMessageVisibilityBatchRequest batchRequest = new ChangeMessageVisibilityBatchRequest()
                         .withQueueUrl(qUrl);
                 ResultConverter.appendUserAgent(batchRequest, AmazonSQSBufferedAsyncClient.USER_AGENT);
@@ -487,7 +725,7 @@ public class ReceiveQueueBuffer {
                     log.warn("ReceiveMessageBatchTask: changeMessageVisibility failed " + e);
                 }
             }
-            messages.clear();
+            return discard();
         }
 
         /**
@@ -496,6 +734,7 @@ public class ReceiveQueueBuffer {
          */
         public void run() {
 
+            long startNanos = System.nanoTime();
             try {
                 visibilityDeadlineNano = System.nanoTime() + visibilityTimeoutNanos;
                 ReceiveMessageRequest request = new ReceiveMessageRequest(qUrl).withMaxNumberOfMessages(config
@@ -517,6 +756,13 @@ public class ReceiveQueueBuffer {
                 exception = e;
             } finally {
                 // whatever happened, we are done and can be considered open
+                latencyNanos = System.nanoTime() - startNanos;
+                long bytes = 0;
+                for (Message message : messages) {
+                    bytes += budget.sizeOf(message);
+                }
+                remainingBytes = bytes;
+                budget.batchReceived(reservedBytes, bytes, messages.size());
                 open = true;
                 parentBuffer.reportBatchFinished(this);
             }
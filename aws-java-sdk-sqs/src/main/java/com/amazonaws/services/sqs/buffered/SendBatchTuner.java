@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.buffered;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of how full the outbound batches of one request type are and, in adaptive mode,
+ * how long they should be held open.
+ * <p>
+ * A batch is held open about as long as it takes for it to fill up at the observed arrival rate
+ * of requests, but never longer than {@code maxBatchOpenMs}, nor much longer than an SQS batch
+ * call takes, since a new batch can be sent in the meantime. If requests arrive further apart
+ * than {@code maxBatchOpenMs}, there is no point in waiting for another one, and the batch is
+ * sent right away.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+class SendBatchTuner {
+
+    /** Weight of a new sample in the moving averages, as a power of two: 1/8. */
+    private static final int SAMPLE_WEIGHT_SHIFT = 3;
+
+    private final QueueBufferConfig config;
+
+    private long lastArrivalNanos = -1;
+
+    /** Moving average of the time between requests; -1 until known. */
+    private long meanArrivalGapNanos = -1;
+
+    /** Moving average of the time taken by the batch calls; -1 until known. */
+    private long meanLatencyNanos = -1;
+
+    private long batchCount;
+
+    private long entryCount;
+
+    SendBatchTuner(QueueBufferConfig config) {
+        this.config = config;
+    }
+
+    synchronized void requestArrived() {
+        long now = nanoTime();
+        if (lastArrivalNanos != -1) {
+            // cap the gap, so that a burst following an idle period is detected quickly
+            long gap = Math.min(now - lastArrivalNanos, 2 * maxBatchOpenNanos());
+            meanArrivalGapNanos = movingAverage(meanArrivalGapNanos, gap);
+        }
+        lastArrivalNanos = now;
+    }
+
+    synchronized void batchCompleted(int entries, long latencyNanos) {
+        ++batchCount;
+        entryCount += entries;
+        meanLatencyNanos = movingAverage(meanLatencyNanos, latencyNanos);
+    }
+
+    /**
+     * @return how long a new batch should be held open for additional requests, in milliseconds
+     */
+    synchronized long getBatchOpenMs() {
+        if (!config.isAdaptiveBatching() || meanArrivalGapNanos == -1) {
+            return config.getMaxBatchOpenMs();
+        }
+        long maxOpenNanos = maxBatchOpenNanos();
+        if (meanArrivalGapNanos >= maxOpenNanos) {
+            return 0;
+        }
+        long openNanos = Math.min(maxOpenNanos, meanArrivalGapNanos * (config.getMaxBatchSize() - 1));
+        if (meanLatencyNanos != -1) {
+            openNanos = Math.min(openNanos, Math.max(meanLatencyNanos, meanArrivalGapNanos));
+        }
+        return TimeUnit.NANOSECONDS.toMillis(openNanos);
+    }
+
+    synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return the average number of entries per batch, relative to {@code maxBatchSize}
+     */
+    synchronized double getFillRatio() {
+        return fillRatio(entryCount, batchCount, config.getMaxBatchSize());
+    }
+
+    /**
+     * Returns the current value of the running JVM's high-resolution time source, in nanoseconds.
+     * Overridden by tests.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private long maxBatchOpenNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(config.getMaxBatchOpenMs());
+    }
+
+    static long movingAverage(long mean, long sample) {
+        return mean == -1 ? sample : mean + ((sample - mean) >> SAMPLE_WEIGHT_SHIFT);
+    }
+
+    static double fillRatio(long entries, long batches, int maxBatchSize) {
+        return batches == 0 || maxBatchSize <= 0 ? 0 : (double) entries / batches / maxBatchSize;
+    }
+}
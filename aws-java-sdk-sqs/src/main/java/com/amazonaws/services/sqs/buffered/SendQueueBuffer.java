@@ -129,6 +129,13 @@ public class SendQueueBuffer {
      */
     private final Semaphore inflightChangeMessageVisibilityBatches;
 
+    /**
+     * Tuners of the batches of each outbound request type.
+     */
+    private final SendBatchTuner sendMessageTuner;
+    private final SendBatchTuner deleteMessageTuner;
+    private final SendBatchTuner changeMessageVisibilityTuner;
+
     SendQueueBuffer(AmazonSQS sqsClient, Executor executor, QueueBufferConfig paramConfig, String url) {
         this.sqsClient = sqsClient;
         this.executor = executor;
@@ -141,19 +148,34 @@ public class SendQueueBuffer {
         this.inflightSendMessageBatches = new Semaphore(maxBatch);
         this.inflightDeleteMessageBatches = new Semaphore(maxBatch);
         this.inflightChangeMessageVisibilityBatches = new Semaphore(maxBatch);
+        this.sendMessageTuner = new SendBatchTuner(config);
+        this.deleteMessageTuner = new SendBatchTuner(config);
+        this.changeMessageVisibilityTuner = new SendBatchTuner(config);
     }
 
     public QueueBufferConfig getConfig() {
         return config;
     }
 
+    SendBatchTuner getSendMessageTuner() {
+        return sendMessageTuner;
+    }
+
+    SendBatchTuner getDeleteMessageTuner() {
+        return deleteMessageTuner;
+    }
+
+    SendBatchTuner getChangeMessageVisibilityTuner() {
+        return changeMessageVisibilityTuner;
+    }
+
     /**
      * @return never null
      */
     public QueueBufferFuture<SendMessageRequest, SendMessageResult> sendMessage(SendMessageRequest request,
                                                                                 QueueBufferCallback<SendMessageRequest, SendMessageResult> callback) {
         QueueBufferFuture<SendMessageRequest, SendMessageResult> result = submitOutboundRequest(sendMessageLock,
-                openSendMessageBatchTask, request, inflightSendMessageBatches, callback);
+                openSendMessageBatchTask, request, inflightSendMessageBatches, sendMessageTuner, callback);
         return result;
     }
 
@@ -163,7 +185,7 @@ public class SendQueueBuffer {
     public QueueBufferFuture<DeleteMessageRequest, DeleteMessageResult> deleteMessage(DeleteMessageRequest request,
                                                                        QueueBufferCallback<DeleteMessageRequest, DeleteMessageResult> callback) {
         return submitOutboundRequest(deleteMessageLock, openDeleteMessageBatchTask, request,
-                inflightDeleteMessageBatches, callback);
+                inflightDeleteMessageBatches, deleteMessageTuner, callback);
     }
 
     /**
@@ -172,21 +194,22 @@ public class SendQueueBuffer {
     public QueueBufferFuture<ChangeMessageVisibilityRequest, ChangeMessageVisibilityResult> changeMessageVisibility(ChangeMessageVisibilityRequest request,
                                                                                            QueueBufferCallback<ChangeMessageVisibilityRequest, ChangeMessageVisibilityResult> callback) {
         return submitOutboundRequest(changeMessageVisibilityLock, openChangeMessageVisibilityBatchTask, request,
-                inflightChangeMessageVisibilityBatches, callback);
+                inflightChangeMessageVisibilityBatches, changeMessageVisibilityTuner, callback);
     }
 
     /**
      * @return new {@code OutboundBatchTask} of appropriate type, never null
      */
     @SuppressWarnings("unchecked")
-    private <R extends AmazonWebServiceRequest, Result> OutboundBatchTask<R, Result> newOutboundBatchTask(R request) {
+    private <R extends AmazonWebServiceRequest, Result> OutboundBatchTask<R, Result> newOutboundBatchTask(R request,
+                                                                                                       SendBatchTuner tuner) {
 
         if (request instanceof SendMessageRequest)
-            return (OutboundBatchTask<R, Result>) new SendMessageBatchTask();
+            return (OutboundBatchTask<R, Result>) new SendMessageBatchTask(tuner);
         else if (request instanceof DeleteMessageRequest)
-            return (OutboundBatchTask<R, Result>) new DeleteMessageBatchTask();
+            return (OutboundBatchTask<R, Result>) new DeleteMessageBatchTask(tuner);
         else if (request instanceof ChangeMessageVisibilityRequest)
-            return (OutboundBatchTask<R, Result>) new ChangeMessageVisibilityBatchTask();
+            return (OutboundBatchTask<R, Result>) new ChangeMessageVisibilityBatchTask(tuner);
         else
             // this should never happen
             throw new IllegalArgumentException("Unsupported request type " + request.getClass().getName());
@@ -232,6 +255,8 @@ public class SendQueueBuffer {
      *            the request to submit
      * @param inflightOperationBatches
      *            the permits controlling the batches for this type of request
+     * @param tuner
+     *            the tuner of the batches for this type of request
      * @return never null
      * @throws AmazonClientException
      *             (see the various outbound calls for details)
@@ -241,6 +266,7 @@ public class SendQueueBuffer {
                                                                                                                                              OBT[] openOutboundBatchTask,
                                                                                                                                              R request,
                                                                                                                                              final Semaphore inflightOperationBatches,
+                                                                                                                                             SendBatchTuner tuner,
                                                                                                                                              QueueBufferCallback<R, Result> callback) {
         /*
          * Callers add requests to a single batch task (openOutboundBatchTask) until it is full or
@@ -250,10 +276,11 @@ public class SendQueueBuffer {
         QueueBufferFuture<R, Result> theFuture = null;
         try {
             synchronized (operationLock) {
+                tuner.requestArrived();
                 if (openOutboundBatchTask[0] == null
                         || ((theFuture = openOutboundBatchTask[0].addRequest(request, callback))) == null) {
 
-                    OBT obt = (OBT) newOutboundBatchTask(request);
+                    OBT obt = (OBT) newOutboundBatchTask(request, tuner);
                     inflightOperationBatches.acquire();
                     openOutboundBatchTask[0] = obt;
 
@@ -296,9 +323,9 @@ public class SendQueueBuffer {
      * Task to send a batch of outbound requests to SQS.
      * <p>
      * The batch task is constructed open and accepts requests until full, or until
-     * {@code maxBatchOpenMs} elapses. At that point, the batch closes and the collected requests
-     * are assembled into a single batch request to SQS. Specialized for each type of outbound
-     * request.
+     * {@code maxBatchOpenMs} (in adaptive mode, the time chosen by the {@link SendBatchTuner})
+     * elapses. At that point, the batch closes and the collected requests are assembled into a
+     * single batch request to SQS. Specialized for each type of outbound request.
      * <p>
      * Instances of this class (and subclasses) are thread-safe.
      *
@@ -312,11 +339,14 @@ public class SendQueueBuffer {
         protected final List<R> requests;
         protected final ArrayList<QueueBufferFuture<R, Result>> futures;
 
+        private final SendBatchTuner tuner;
+
         private boolean closed;
 
         private volatile Listener<OutboundBatchTask<R, Result>> onCompleted;
 
-        public OutboundBatchTask() {
+        public OutboundBatchTask(SendBatchTuner tuner) {
+            this.tuner = tuner;
             this.requests = new ArrayList<R>(config.getMaxBatchSize());
             this.futures = new ArrayList<QueueBufferFuture<R, Result>>(config.getMaxBatchSize());
         }
@@ -419,7 +449,7 @@ public class SendQueueBuffer {
             try {
 
                 long deadlineMs = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS)
-                        + config.getMaxBatchOpenMs() + 1;
+                        + tuner.getBatchOpenMs() + 1;
                 long t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
 
                 List<R> requests;
@@ -440,7 +470,11 @@ public class SendQueueBuffer {
                     futures = new ArrayList<QueueBufferFuture<R, Result>>(this.futures);
                 }
 
+                long startNanos = System.nanoTime();
                 process(requests, futures);
+                if (!requests.isEmpty()) {
+                    tuner.batchCompleted(requests.size(), System.nanoTime() - startNanos);
+                }
 
             } catch (InterruptedException e) {
                 failAll(e);
@@ -473,6 +507,10 @@ public class SendQueueBuffer {
 
         int batchSizeBytes = 0;
 
+        SendMessageBatchTask(SendBatchTuner tuner) {
+            super(tuner);
+        }
+
         @Override
         protected boolean isOkToAdd(SendMessageRequest request) {
             return (requests.size() < config.getMaxBatchSize())
@@ -537,6 +575,10 @@ public class SendQueueBuffer {
 
     private class DeleteMessageBatchTask extends OutboundBatchTask<DeleteMessageRequest, DeleteMessageResult> {
 
+        DeleteMessageBatchTask(SendBatchTuner tuner) {
+            super(tuner);
+        }
+
         @Override
         protected void process(List<DeleteMessageRequest> requests,
                                List<QueueBufferFuture<DeleteMessageRequest, DeleteMessageResult>> futures) {
@@ -582,6 +624,10 @@ public class SendQueueBuffer {
 
     private class ChangeMessageVisibilityBatchTask extends OutboundBatchTask<ChangeMessageVisibilityRequest, ChangeMessageVisibilityResult> {
 
+        ChangeMessageVisibilityBatchTask(SendBatchTuner tuner) {
+            super(tuner);
+        }
+
         @Override
         protected void process(List<ChangeMessageVisibilityRequest> requests,
                                List<QueueBufferFuture<ChangeMessageVisibilityRequest, ChangeMessageVisibilityResult>> futures) {
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.buffered;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.amazonaws.services.sqs.model.Message;
+
+public class PrefetchBudgetTest {
+
+    private static final int KB = 1024;
+
+    @Test
+    public void unbounded_MessagesAreNotSized() {
+        PrefetchBudget budget = new PrefetchBudget(0);
+        assertEquals(0, budget.sizeOf(new Message().withBody("body")));
+        assertEquals(10 * QueueBufferConfig.SERVICE_MAX_BATCH_SIZE_BYTES, budget.reserve(10, false));
+    }
+
+    @Test
+    public void bounded_MessagesAreSizedByTheirUtf8Length() {
+        PrefetchBudget budget = new PrefetchBudget(KB);
+        assertEquals(0, budget.sizeOf(new Message()));
+        assertEquals(4, budget.sizeOf(new Message().withBody("body")));
+        assertEquals(1 + 2 + 3 + 4, budget.sizeOf(new Message().withBody("a\u00E9\u20AC\uD83D\uDE00")));
+    }
+
+    @Test
+    public void boundBelowFullBatch_AdmitsOneBatchAtATime() {
+        PrefetchBudget budget = new PrefetchBudget(1000 * KB);
+        long reservation = budget.reserve(10, false);
+        assertEquals(1000 * KB, reservation);
+        assertEquals(-1, budget.reserve(10, false));
+
+        budget.batchReceived(reservation, 10 * KB, 10);
+        // The first messages seen replace the guess of the largest size allowed
+        assertEquals(10 * KB, budget.reserve(10, false));
+        assertEquals(10 * KB, budget.getPrefetchedBytes());
+    }
+
+    @Test
+    public void boundReached_OnlyForcedBatchesAdmitted() {
+        PrefetchBudget budget = new PrefetchBudget(100 * KB);
+        budget.batchReceived(budget.reserve(10, false), 100 * KB, 10);
+        assertEquals(-1, budget.reserve(10, false));
+        assertEquals(100 * KB, budget.reserve(10, true));
+
+        budget.release(100 * KB);
+        assertEquals(0, budget.getPrefetchedBytes());
+    }
+}
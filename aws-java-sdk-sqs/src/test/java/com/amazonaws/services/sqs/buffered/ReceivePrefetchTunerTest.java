@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.buffered;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ReceivePrefetchTunerTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final QueueBufferConfig config = new QueueBufferConfig().withMaxInflightReceiveBatches(10)
+            .withMaxBatchSize(10).withAdaptivePrefetching(true);
+
+    @Test
+    public void notAdaptive_KeepsMaxInflightReceiveBatches() {
+        TestTuner tuner = new TestTuner(config.withAdaptivePrefetching(false));
+        tuner.now += ONE_SECOND;
+        tuner.batchCompleted(0, ONE_SECOND, false);
+
+        assertEquals(10, tuner.getInflightReceiveBatchLimit());
+    }
+
+    @Test
+    public void adaptive_StartsWithOneBatch() {
+        assertEquals(1, new TestTuner(config).getInflightReceiveBatchLimit());
+    }
+
+    @Test
+    public void consumersWaiting_GrowsLimitOneBatchAtATime() {
+        TestTuner tuner = new TestTuner(config);
+        for (int i = 0; i < 3; i++) {
+            tuner.batchCompleted(0, 0, true);
+        }
+
+        assertEquals(4, tuner.getInflightReceiveBatchLimit());
+    }
+
+    @Test
+    public void consumersWaiting_LimitCappedAtMaxInflightReceiveBatches() {
+        TestTuner tuner = new TestTuner(config.withMaxInflightReceiveBatches(4));
+        for (int i = 0; i < 10; i++) {
+            tuner.batchCompleted(0, 0, true);
+        }
+
+        assertEquals(4, tuner.getInflightReceiveBatchLimit());
+    }
+
+    @Test
+    public void drainRate_KeepsEnoughBatchesInFlightToSupplyIt() {
+        TestTuner tuner = new TestTuner(config);
+        // 20 messages a second, receive calls taking a second, 10 messages a batch
+        tuner.messagesDelivered(20);
+        tuner.now += ONE_SECOND;
+        tuner.batchCompleted(10, ONE_SECOND, false);
+
+        assertEquals(3, tuner.getInflightReceiveBatchLimit());
+    }
+
+    @Test
+    public void idleQueue_LongPolledByOneBatch() {
+        TestTuner tuner = new TestTuner(config);
+        for (int i = 0; i < 5; i++) {
+            tuner.batchCompleted(0, 0, true);
+        }
+        for (int i = 0; i < 5; i++) {
+            tuner.now += TimeUnit.SECONDS.toNanos(20);
+            tuner.batchCompleted(0, TimeUnit.SECONDS.toNanos(20), false);
+        }
+
+        assertEquals(1, tuner.getInflightReceiveBatchLimit());
+    }
+
+    @Test
+    public void batchesCompleted_ReportsCountAndFillRatio() {
+        TestTuner tuner = new TestTuner(config);
+        tuner.batchCompleted(10, 0, false);
+        tuner.batchCompleted(0, 0, false);
+
+        assertEquals(2, tuner.getBatchCount());
+        assertEquals(0.5, tuner.getFillRatio(), 0.0001);
+    }
+
+    private static class TestTuner extends ReceivePrefetchTuner {
+        private long now;
+
+        TestTuner(QueueBufferConfig config) {
+            super(config);
+        }
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.buffered;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AbstractAmazonSQS;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.GetQueueAttributesRequest;
+import com.amazonaws.services.sqs.model.GetQueueAttributesResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+
+public class ReceiveQueueBufferTest {
+
+    private static final String QUEUE_URL = "https://sqs.us-east-1.amazonaws.com/123456789012/queue";
+
+    private final FakeSQS sqs = new FakeSQS();
+    private final ManualExecutor executor = new ManualExecutor();
+
+    @Test
+    public void evictedWhileBatchInFlight_BatchSatisfiesWaitingRequestAndRestIsNacked() throws Exception {
+        ReceiveQueueBuffer buffer = newBuffer(new QueueBufferConfig());
+        sqs.responses.add(messages("a", "b", "c"));
+
+        Future<ReceiveMessageResult> future = receive(buffer);
+        buffer.evict();
+        assertFalse(future.isDone());
+
+        executor.runAll();
+        assertEquals(1, future.get().getMessages().size());
+        assertEquals(2, sqs.nackedReceiptHandles.size());
+        // no batch is spawned once evicted
+        assertEquals(1, sqs.receiveCalls);
+    }
+
+    @Test
+    public void evicted_RequestsNoBatchCanSatisfyFail() throws Exception {
+        ReceiveQueueBuffer buffer = newBuffer(new QueueBufferConfig().withMaxInflightReceiveBatches(1));
+        sqs.responses.add(messages("a"));
+
+        Future<ReceiveMessageResult> first = receive(buffer);
+        Future<ReceiveMessageResult> second = receive(buffer);
+        buffer.evict();
+        executor.runAll();
+
+        assertEquals(1, first.get().getMessages().size());
+        try {
+            second.get();
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AmazonClientException);
+        }
+    }
+
+    @Test
+    public void evicted_PrefetchedMessagesNackedOffTheCallingThread() throws Exception {
+        ReceiveQueueBuffer buffer = newBuffer(new QueueBufferConfig());
+        sqs.responses.add(messages("a", "b", "c"));
+
+        Future<ReceiveMessageResult> future = receive(buffer);
+        executor.runNext();
+        assertEquals(1, future.get().getMessages().size());
+
+        buffer.evict();
+        assertEquals(0, sqs.nackCalls);
+
+        executor.runAll();
+        assertEquals(1, sqs.nackCalls);
+        assertEquals(Arrays.asList("a", "b"), sorted(sqs.nackedReceiptHandles));
+    }
+
+    @Test
+    public void staleMessages_NackedOffTheConsumerThreadAndNotHandedOut() throws Exception {
+        // every batch is stale as soon as it is received
+        ReceiveQueueBuffer buffer = newBuffer(new QueueBufferConfig().withMinRemainingVisibilitySeconds(60));
+        sqs.responses.add(messages("a", "b", "c"));
+
+        Future<ReceiveMessageResult> first = receive(buffer);
+        executor.runNext();
+        assertEquals(1, first.get().getMessages().size());
+
+        Future<ReceiveMessageResult> future = receive(buffer);
+        assertEquals(0, sqs.nackCalls);
+        assertFalse(future.isDone());
+
+        executor.runAll();
+        assertEquals(1, sqs.nackCalls);
+        assertEquals(2, sqs.nackedReceiptHandles.size());
+        assertTrue(future.get().getMessages().isEmpty());
+        assertEquals(2, buffer.getReleasedMessages());
+    }
+
+    @Test
+    public void emptyBatches_ClearDoesNotCallSqs() throws Exception {
+        ReceiveQueueBuffer buffer = newBuffer(new QueueBufferConfig());
+        sqs.responses.add(messages("a"));
+
+        Future<ReceiveMessageResult> future = receive(buffer);
+        executor.runNext();
+        assertEquals(1, future.get().getMessages().size());
+        // receives nothing, and stays in the buffer as no request is waiting
+        executor.runNext();
+
+        buffer.clear();
+        assertEquals(0, sqs.nackCalls);
+    }
+
+    private ReceiveQueueBuffer newBuffer(QueueBufferConfig config) {
+        return new ReceiveQueueBuffer(sqs, executor, config, QUEUE_URL);
+    }
+
+    private Future<ReceiveMessageResult> receive(ReceiveQueueBuffer buffer) {
+        return buffer.receiveMessageAsync(new ReceiveMessageRequest(QUEUE_URL).withMaxNumberOfMessages(1), null);
+    }
+
+    private static List<Message> messages(String... receiptHandles) {
+        List<Message> messages = new ArrayList<Message>();
+        for (String receiptHandle : receiptHandles) {
+            messages.add(new Message().withReceiptHandle(receiptHandle).withBody("body " + receiptHandle));
+        }
+        return messages;
+    }
+
+    private static List<String> sorted(List<String> strings) {
+        List<String> sorted = new ArrayList<String>(strings);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Runs the tasks submitted to it only when told to, on the calling thread.
+     */
+    private static class ManualExecutor implements Executor {
+        private final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runNext() {
+            tasks.removeFirst().run();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                runNext();
+            }
+        }
+    }
+
+    private static class FakeSQS extends AbstractAmazonSQS {
+        private final LinkedList<List<Message>> responses = new LinkedList<List<Message>>();
+        private final List<String> nackedReceiptHandles = new ArrayList<String>();
+        private int receiveCalls;
+        private int nackCalls;
+
+        @Override
+        public GetQueueAttributesResult getQueueAttributes(GetQueueAttributesRequest request) {
+            return new GetQueueAttributesResult().addAttributesEntry("VisibilityTimeout", "30");
+        }
+
+        @Override
+        public ReceiveMessageResult receiveMessage(ReceiveMessageRequest request) {
+            ++receiveCalls;
+            List<Message> messages = responses.isEmpty() ? new ArrayList<Message>() : responses.removeFirst();
+            return new ReceiveMessageResult().withMessages(messages);
+        }
+
+        @Override
+        public ChangeMessageVisibilityBatchResult changeMessageVisibilityBatch(
+                ChangeMessageVisibilityBatchRequest request) {
+            if (request.getEntries().isEmpty()) {
+                throw new AmazonClientException("EmptyBatchRequest");
+            }
+            ++nackCalls;
+            for (ChangeMessageVisibilityBatchRequestEntry entry : request.getEntries()) {
+                nackedReceiptHandles.add(entry.getReceiptHandle());
+            }
+            return new ChangeMessageVisibilityBatchResult();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.buffered;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class SendBatchTunerTest {
+
+    private final QueueBufferConfig config = new QueueBufferConfig().withMaxBatchOpenMs(200).withMaxBatchSize(10)
+            .withAdaptiveBatching(true);
+
+    @Test
+    public void notAdaptive_HoldsBatchesOpenForMaxBatchOpenMs() {
+        TestTuner tuner = new TestTuner(config.withAdaptiveBatching(false));
+        arrive(tuner, 5, 1);
+
+        assertEquals(200, tuner.getBatchOpenMs());
+    }
+
+    @Test
+    public void noArrivalsYet_HoldsBatchesOpenForMaxBatchOpenMs() {
+        assertEquals(200, new TestTuner(config).getBatchOpenMs());
+    }
+
+    @Test
+    public void steadyArrivals_HoldsBatchOpenUntilItWouldBeFull() {
+        TestTuner tuner = new TestTuner(config);
+        arrive(tuner, 20, 1);
+
+        // nine more requests, one millisecond apart
+        assertEquals(9, tuner.getBatchOpenMs());
+    }
+
+    @Test
+    public void slowArrivals_HoldsBatchOpenAtMostMaxBatchOpenMs() {
+        TestTuner tuner = new TestTuner(config);
+        arrive(tuner, 20, 50);
+
+        assertEquals(200, tuner.getBatchOpenMs());
+    }
+
+    @Test
+    public void arrivalsFurtherApartThanMaxBatchOpenMs_SendsBatchRightAway() {
+        TestTuner tuner = new TestTuner(config);
+        arrive(tuner, 5, 300);
+
+        assertEquals(0, tuner.getBatchOpenMs());
+    }
+
+    @Test
+    public void fastBatchCalls_HoldBatchOpenAboutOneRoundTrip() {
+        TestTuner tuner = new TestTuner(config);
+        arrive(tuner, 20, 10);
+        tuner.batchCompleted(10, TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertEquals(30, tuner.getBatchOpenMs());
+    }
+
+    @Test
+    public void batchesCompleted_ReportsCountAndFillRatio() {
+        TestTuner tuner = new TestTuner(config);
+        tuner.batchCompleted(5, 0);
+        tuner.batchCompleted(10, 0);
+
+        assertEquals(2, tuner.getBatchCount());
+        assertEquals(0.75, tuner.getFillRatio(), 0.0001);
+    }
+
+    @Test
+    public void noBatches_FillRatioIsZero() {
+        assertEquals(0, new TestTuner(config).getFillRatio(), 0);
+    }
+
+    private static void arrive(TestTuner tuner, int requests, long gapMillis) {
+        for (int i = 0; i < requests; i++) {
+            tuner.now += TimeUnit.MILLISECONDS.toNanos(gapMillis);
+            tuner.requestArrived();
+        }
+    }
+
+    private static class TestTuner extends SendBatchTuner {
+        private long now;
+
+        TestTuner(QueueBufferConfig config) {
+            super(config);
+        }
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+    }
+}